@@ -0,0 +1,117 @@
+package net.erdfelt.maven.graphing.benchmark;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import net.erdfelt.maven.graphing.graph.generator.EdgeList;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator.Shape;
+import net.erdfelt.maven.graphing.graph.model.ConcurrentGraph;
+import net.erdfelt.maven.graphing.graph.model.dag.ConcurrentDag;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scaling of {@link ConcurrentGraph} and {@link ConcurrentDag} population with the number of threads: each run
+ * populates a new graph with the same edges, split round robin between the threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentGraphBenchmark
+{
+    @Param({ "1", "2", "4", "8", "16", "32" })
+    public int threads;
+
+    @Param({ "false", "true" })
+    public boolean acyclic;
+
+    @Param({ "2000" })
+    public int size;
+
+    @Param({ "LAYERED", "SCALE_FREE" })
+    public Shape shape;
+
+    private EdgeList edges;
+
+    private String[] labels;
+
+    private ExecutorService executor;
+
+    @Setup
+    public void setup()
+    {
+        edges = new GraphGenerator(shape,size,size).generate();
+        labels = edges.getLabels();
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public ConcurrentGraph populate() throws Exception
+    {
+        final ConcurrentGraph graph = acyclic ? new ConcurrentDag(size,threads) : new ConcurrentGraph(size,threads);
+
+        List<Future<Void>> results = new ArrayList<Future<Void>>(threads);
+        for (int t = 0; t < threads; t++)
+        {
+            final int first = t;
+            results.add(executor.submit(new Callable<Void>()
+            {
+                public Void call() throws Exception
+                {
+                    for (int e = first; e < edges.size(); e += threads)
+                    {
+                        graph.addEdge(labels[edges.getFrom(e)],labels[edges.getTo(e)]);
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> result : results)
+        {
+            result.get();
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,109 @@
+package net.erdfelt.maven.graphing.benchmark;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.erdfelt.maven.graphing.graph.generator.EdgeList;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator.Shape;
+import net.erdfelt.maven.graphing.graph.model.GraphBuilder;
+import net.erdfelt.maven.graphing.graph.model.GraphConstraintException;
+import net.erdfelt.maven.graphing.graph.model.dag.CycleDetector;
+import net.erdfelt.maven.graphing.graph.model.dag.Dag;
+import net.erdfelt.maven.graphing.graph.model.dag.TopologicalSorter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the {@link Dag}: insertion with the per edge cycle check, bulk loading with a {@link GraphBuilder},
+ * full cycle detection and topological sort.
+ * <p>
+ * The searches are recursive, so sizes are kept below what a long {@link Shape#CHAIN} can handle on a default
+ * thread stack.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DagBenchmark
+{
+    @Param({ "100", "1000", "2000" })
+    public int size;
+
+    @Param({ "CHAIN", "LAYERED", "SCALE_FREE", "RANDOM", "DENSE_CORE" })
+    public Shape shape;
+
+    private EdgeList edges;
+
+    private Dag dag;
+
+    @Setup
+    public void setup() throws GraphConstraintException
+    {
+        edges = new GraphGenerator(shape,size,size).generate();
+        dag = new Dag();
+        edges.populate(dag);
+    }
+
+    @Benchmark
+    public Dag insert() throws GraphConstraintException
+    {
+        Dag d = new Dag();
+        // Generated order is reactor order, the order the mojos insert edges in.
+        edges.populate(d);
+        return d;
+    }
+
+    @Benchmark
+    public Dag build() throws GraphConstraintException
+    {
+        // The same edges, validated once by the build.
+        GraphBuilder builder = new GraphBuilder(edges.getNodeCount(),edges.size());
+        builder.addNodes(edges.getLabels());
+        for (int e = 0; e < edges.size(); e++)
+        {
+            builder.addEdge(edges.getFrom(e),edges.getTo(e));
+        }
+        return builder.buildDag();
+    }
+
+    @Benchmark
+    public List<String> hasCycle()
+    {
+        return CycleDetector.hasCycle(dag);
+    }
+
+    @Benchmark
+    public List<String> topologicalSort()
+    {
+        return TopologicalSorter.sort(dag);
+    }
+}
@@ -0,0 +1,88 @@
+package net.erdfelt.maven.graphing.benchmark;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.erdfelt.maven.graphing.graph.diff.GraphDiff;
+import net.erdfelt.maven.graphing.graph.diff.GraphDiffer;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator.Shape;
+import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.GraphConstraintException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link GraphDiffer}, between a generated graph and a copy with one percent of its edges replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiffBenchmark
+{
+    @Param({ "10000", "100000" })
+    public int size;
+
+    @Param({ "RANDOM", "SCALE_FREE" })
+    public Shape shape;
+
+    private Graph before;
+
+    private Graph after;
+
+    @Setup(Level.Trial)
+    public void setup() throws GraphConstraintException
+    {
+        GraphGenerator generator = new GraphGenerator(shape,size,size);
+        // 100000 nodes with degree 5 is about 500000 edges.
+        generator.setDegree(5);
+        before = generator.generate().toGraph();
+        after = generator.generate().toGraph();
+
+        List<Edge> edges = new ArrayList<Edge>(after.getEdges());
+        for (int i = 0; i < edges.size(); i += 100)
+        {
+            Edge edge = edges.get(i);
+            after.removeEdge(edge);
+            after.addEdge(edge.getTo().getLabel(),"replaced-" + i);
+        }
+    }
+
+    @Benchmark
+    public GraphDiff diff()
+    {
+        return new GraphDiffer().diff(before,after);
+    }
+}
@@ -0,0 +1,119 @@
+package net.erdfelt.maven.graphing.benchmark;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import net.erdfelt.maven.graphing.graph.generator.EdgeList;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator.Shape;
+import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.GraphConstraintException;
+import net.erdfelt.maven.graphing.graph.model.Node;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the unconstrained {@link Graph}: building it with addNode / addEdge, copying it, and looking up edges.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphModelBenchmark
+{
+    @Param({ "100", "1000", "10000" })
+    public int size;
+
+    @Param({ "CHAIN", "LAYERED", "SCALE_FREE", "RANDOM", "DENSE_CORE" })
+    public Shape shape;
+
+    private EdgeList edges;
+
+    private String[] labels;
+
+    private Graph graph;
+
+    private Node[] nodes;
+
+    @Setup
+    public void setup() throws GraphConstraintException
+    {
+        edges = new GraphGenerator(shape,size,size).generate();
+        labels = edges.getLabels();
+        graph = new Graph();
+        nodes = edges.populate(graph);
+    }
+
+    @Benchmark
+    public Graph addNodes() throws GraphConstraintException
+    {
+        Graph g = new Graph();
+        for (String label : labels)
+        {
+            g.addNode(label);
+        }
+        return g;
+    }
+
+    @Benchmark
+    public Graph addNodesAndEdges() throws GraphConstraintException
+    {
+        Graph g = new Graph();
+        edges.populate(g);
+        return g;
+    }
+
+    @Benchmark
+    public Graph copy()
+    {
+        return graph.clone();
+    }
+
+    @Benchmark
+    public void getEdges(Blackhole bh)
+    {
+        for (int e = 0; e < edges.size(); e++)
+        {
+            Edge edge = graph.getEdge(nodes[edges.getFrom(e)],nodes[edges.getTo(e)]);
+            bh.consume(edge);
+        }
+    }
+
+    @Benchmark
+    public void getNodes(Blackhole bh)
+    {
+        for (String label : labels)
+        {
+            bh.consume(graph.getNode(label));
+        }
+    }
+}
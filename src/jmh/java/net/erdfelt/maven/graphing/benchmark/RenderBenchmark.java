@@ -0,0 +1,190 @@
+package net.erdfelt.maven.graphing.benchmark;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.erdfelt.maven.graphing.graph.GraphingException;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator.Shape;
+import net.erdfelt.maven.graphing.graph.impl.graphviz.GraphvizRenderer;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.codehaus.plexus.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the {@link GraphvizRenderer} pipeline, split into its costs:
+ * <ul>
+ * <li>{@link #writeDot()} - DOT generation only, into a discarding writer.</li>
+ * <li>{@link #writeDotFile()} - DOT generation plus file I/O.</li>
+ * <li>{@link #render()} / {@link #renderThreeFormats()} - the full pipeline, including the dot subprocess.</li>
+ * </ul>
+ * By default dot is the stub script from the test resources, which consumes its input and writes empty outputs, so
+ * the render benchmarks measure the pipeline overhead without graphviz. Pass
+ * <code>-Dgraphing.dot.executable=dot</code> to include the graphviz layout time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark
+{
+    private static final String STUB = "src/test/resources/net/erdfelt/maven/graphing/graph/impl/graphviz/dot-stub.sh";
+
+    @Param({ "100", "1000" })
+    public int size;
+
+    @Param({ "LAYERED", "SCALE_FREE" })
+    public Shape shape;
+
+    private GraphvizRenderer renderer;
+
+    private Graph graph;
+
+    private File workdir;
+
+    private File dotFile;
+
+    private List<File> pngOutput;
+
+    private List<File> threeOutputs;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        graph = new GraphGenerator(shape,size,size).generate().toGraph();
+        graph.getDecorator().setTitle("Render Benchmark");
+
+        renderer = new GraphvizRenderer();
+        renderer.enableLogging(new ConsoleLogger(Logger.LEVEL_DISABLED,"render-benchmark"));
+        if (System.getProperty(GraphvizRenderer.DOT_EXECUTABLE_PROPERTY) == null)
+        {
+            File stub = new File(STUB).getAbsoluteFile();
+            if (!stub.setExecutable(true))
+            {
+                throw new IOException("Unable to make the dot stub executable: " + stub);
+            }
+            renderer.setDotExecutable(stub.getAbsolutePath());
+        }
+
+        workdir = Files.createTempDirectory("render-benchmark").toFile();
+        dotFile = new File(workdir,"graph-file.dot");
+
+        pngOutput = new ArrayList<File>();
+        pngOutput.add(new File(workdir,"graph.png"));
+
+        threeOutputs = new ArrayList<File>();
+        threeOutputs.add(new File(workdir,"graph3.png"));
+        threeOutputs.add(new File(workdir,"graph3.svg"));
+        threeOutputs.add(new File(workdir,"graph3.gif"));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        FileUtils.deleteDirectory(workdir);
+    }
+
+    @Benchmark
+    public long writeDot() throws IOException, GraphingException
+    {
+        CountingWriter writer = new CountingWriter();
+        renderer.writeDot(graph,writer);
+        return writer.count;
+    }
+
+    @Benchmark
+    public long writeDotFile() throws IOException, GraphingException
+    {
+        Writer writer = new BufferedWriter(new FileWriter(dotFile));
+        try
+        {
+            renderer.writeDot(graph,writer);
+        }
+        finally
+        {
+            writer.close();
+        }
+        return dotFile.length();
+    }
+
+    @Benchmark
+    public void render() throws IOException, GraphingException
+    {
+        renderer.render(graph,pngOutput);
+    }
+
+    @Benchmark
+    public void renderThreeFormats() throws IOException, GraphingException
+    {
+        renderer.render(graph,threeOutputs);
+    }
+
+    /**
+     * Discards the characters written, keeping only their count.
+     */
+    private static class CountingWriter extends Writer
+    {
+        long count;
+
+        @Override
+        public void write(char[] cbuf, int off, int len)
+        {
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len)
+        {
+            count += len;
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
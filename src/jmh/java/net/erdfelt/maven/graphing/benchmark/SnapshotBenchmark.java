@@ -0,0 +1,135 @@
+package net.erdfelt.maven.graphing.benchmark;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator.Shape;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.GraphConstraintException;
+import net.erdfelt.maven.graphing.graph.snapshot.GraphSnapshot;
+import net.erdfelt.maven.graphing.graph.snapshot.SnapshotWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the binary graph snapshots: writing, opening (memory mapped), adjacency queries on the mapped data,
+ * and loading into a {@link Graph}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark
+{
+    @Param({ "10000", "200000" })
+    public int size;
+
+    @Param({ "RANDOM", "SCALE_FREE" })
+    public Shape shape;
+
+    private Graph graph;
+
+    private File file;
+
+    private GraphSnapshot snapshot;
+
+    private String[] labels;
+
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setup() throws GraphConstraintException, IOException
+    {
+        GraphGenerator generator = new GraphGenerator(shape,size,size);
+        // 200000 nodes with degree 5 is about a million edges.
+        generator.setDegree(5);
+        graph = generator.generate().toGraph();
+
+        file = File.createTempFile("graph-snapshot",".graph");
+        new SnapshotWriter().write(graph,file);
+        snapshot = GraphSnapshot.open(file);
+        labels = graph.getNodeLabels().toArray(new String[0]);
+        random = new SplittableRandom(size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        file.delete();
+    }
+
+    @Benchmark
+    public void write() throws IOException
+    {
+        new SnapshotWriter().write(graph,new NullOutputStream());
+    }
+
+    @Benchmark
+    public GraphSnapshot open() throws IOException
+    {
+        return GraphSnapshot.open(file);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int children()
+    {
+        int node = snapshot.indexOf(labels[random.nextInt(labels.length)]);
+        return snapshot.getChildren(node).length + snapshot.getParents(node).length;
+    }
+
+    @Benchmark
+    public Graph toGraph() throws GraphConstraintException
+    {
+        return snapshot.toGraph();
+    }
+
+    private static class NullOutputStream extends OutputStream
+    {
+        @Override
+        public void write(int b)
+        {
+            /* discard */
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+            /* discard */
+        }
+    }
+}
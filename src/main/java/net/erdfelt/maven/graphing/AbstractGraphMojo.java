@@ -0,0 +1,752 @@
+package net.erdfelt.maven.graphing;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.erdfelt.maven.graphing.ReactorModel.Module;
+import net.erdfelt.maven.graphing.ReactorModel.ModuleDependency;
+import net.erdfelt.maven.graphing.filter.CoordinateFilter;
+import net.erdfelt.maven.graphing.graph.GraphRenderer;
+import net.erdfelt.maven.graphing.graph.GraphingException;
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.impl.graphviz.GraphvizRenderer;
+import net.erdfelt.maven.graphing.graph.jfr.GraphBuildEvent;
+import net.erdfelt.maven.graphing.graph.jfr.GraphingEvents;
+import net.erdfelt.maven.graphing.graph.metrics.FootprintEstimator;
+import net.erdfelt.maven.graphing.graph.metrics.GraphingMetrics;
+import net.erdfelt.maven.graphing.graph.metrics.MemoryBudget;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.GraphAggregator;
+import net.erdfelt.maven.graphing.graph.model.GraphBuilder;
+import net.erdfelt.maven.graphing.graph.model.GraphCompactor;
+import net.erdfelt.maven.graphing.graph.model.GraphConstraintException;
+import net.erdfelt.maven.graphing.graph.model.NodeKey;
+import net.erdfelt.maven.graphing.graph.model.NodeKeyTable;
+import net.erdfelt.maven.graphing.graph.snapshot.SnapshotWriter;
+import net.erdfelt.maven.graphing.graph.stylesheet.Stylesheet;
+import net.erdfelt.maven.graphing.graph.stylesheet.StylesheetException;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * Common collection and rendering support for the graphing goals.
+ *
+ * @author <a href="mailto:joakim@erdfelt.net">Joakim Erdfelt</a>
+ */
+public abstract class AbstractGraphMojo
+extends AbstractMojo
+{
+    private static final Rgba TEST_COLOR = Rgba.of( 200, 200, 255 );
+
+    /**
+     * Shared by every test scoped dependency (and edge), however large the graph.
+     */
+    private static final NodeStyle TEST_NODE_STYLE =
+        NodeStyle.DEFAULT.withBackgroundColor( TEST_COLOR ).withBorderColor( TEST_COLOR );
+
+    private static final EdgeStyle TEST_EDGE_STYLE = EdgeStyle.DEFAULT.withLineColor( Rgba.BLUE );
+
+    /**
+     * The projects in the current build. Each of these is subject to refreshing.
+     *
+     * @parameter default-value="${reactorProjects}"
+     * @required
+     * @readonly
+     */
+    protected List projects;
+
+    /**
+     * @component role="net.erdfelt.maven.graphing.graph.GraphRenderer" roleHint="graphviz"
+     */
+    protected GraphRenderer graphRenderer;
+
+    /**
+     * @parameter property="graphing.ignoreVersions" default-value="true"
+     */
+    protected boolean ignoreVersions;
+
+    /**
+     * @parameter property="graphing.filterTests" default-value="true"
+     */
+    protected boolean filterTests;
+
+    /**
+     * Only graph the modules and dependencies matching one of these <code>groupId:artifactId:type:scope</code>
+     * patterns. Parts may use <code>*</code> wildcards, and missing trailing parts match anything.
+     *
+     * @parameter
+     */
+    protected List<String> includes;
+
+    /**
+     * Do not graph the modules and dependencies matching one of these <code>groupId:artifactId:type:scope</code>
+     * patterns. Excluded modules never enter the graph.
+     *
+     * @parameter
+     */
+    protected List<String> excludes;
+
+    /**
+     * The directory to write the graphs to.
+     *
+     * @parameter property="graphing.outputDirectory" default-value="${project.build.directory}"
+     */
+    protected File outputDirectory;
+
+    /**
+     * Also write each graph as a binary snapshot (<code>&lt;name&gt;.graph</code>), next to the rendered outputs, for
+     * later analysis or comparison.
+     *
+     * @parameter property="graphing.snapshots" default-value="false"
+     */
+    protected boolean writeSnapshots;
+
+    /**
+     * The default output formats (comma separated).
+     *
+     * @parameter property="graphing.formats" default-value="png"
+     */
+    protected String formats;
+
+    /**
+     * The maximum number of graphs rendered concurrently. A value of 0 or less uses the number of available
+     * processors.
+     *
+     * @parameter property="graphing.renderThreads" default-value="0"
+     */
+    protected int renderThreads;
+
+    /**
+     * The graphviz dot executable, either a command on the system path or the path to the executable.
+     *
+     * @parameter property="graphing.dot.executable" default-value="dot"
+     */
+    protected String dotExecutable;
+
+    /**
+     * A stylesheet of CSS-like rules applied to the graphs at render time, eg:
+     * <pre>
+     * node[groupId=org.apache.*][indegree&gt;=5] { background: #ffcc00; border: red; }
+     * edge[scope=test] { style: dashed; }
+     * </pre>
+     * Nodes can be selected by <code>label</code>, <code>groupId</code>, <code>artifactId</code>,
+     * <code>version</code>, <code>type</code>, <code>group</code>, <code>indegree</code>, <code>outdegree</code> and
+     * <code>degree</code>, edges by <code>scope</code>, <code>from</code> and <code>to</code>.
+     *
+     * @parameter property="graphing.stylesheet"
+     */
+    protected File stylesheet;
+
+    /**
+     * Render a bird's-eye view of the graphs: the modules of each groupId become one node, and the dependencies between
+     * two groupIds one edge, labelled and sized by their number.
+     *
+     * @parameter property="graphing.aggregate" default-value="false"
+     */
+    protected boolean aggregate;
+
+    /**
+     * The number of leading groupId segments modules are aggregated on (eg: 2 for <code>org.apache</code>), 0 for the
+     * whole groupId.
+     *
+     * @parameter property="graphing.aggregateDepth" default-value="0"
+     */
+    protected int aggregateDepth;
+
+    /**
+     * Compact the graphs before rendering them: chains of modules with a single dependent and a single dependency are
+     * collapsed into one edge, and modules with the same dependents and no dependencies (or the reverse) are grouped
+     * into one summary node. Reduces the layout time of large reactors.
+     *
+     * @parameter property="graphing.compact" default-value="false"
+     */
+    protected boolean compact;
+
+    /**
+     * The minimum number of modules grouped into a summary node, when compacting.
+     *
+     * @parameter property="graphing.compactFanSize" default-value="3"
+     */
+    protected int compactFanSize;
+
+    /**
+     * Write a JSON report of the phase timings (collect, graph build, constraint checks, DOT write, subprocess) and
+     * the node, edge and byte counts.
+     *
+     * @parameter property="graphing.metrics" default-value="true"
+     */
+    protected boolean writeMetrics;
+
+    /**
+     * @parameter property="graphing.metricsFile" default-value="${project.build.directory}/graphing-metrics.json"
+     */
+    protected File metricsFile;
+
+    /**
+     * Emit Java Flight Recorder events for the graphing phases, graph builds, DAG cycle checks, topological sorts, DOT
+     * writes and dot subprocesses. The events are recorded while a JFR recording is running (eg: started with
+     * <code>MAVEN_OPTS=-XX:StartFlightRecording</code>).
+     *
+     * @parameter property="graphing.metricsJfr" default-value="false"
+     */
+    protected boolean metricsJfr;
+
+    /**
+     * An optional limit on the heap used by the in-memory graphs, in bytes (eg: <code>512m</code>, <code>2g</code>)
+     * or as a share of the maximum heap (eg: <code>50%</code>). The footprint of the graphs is projected from the
+     * reactor before they are built, and the build fails fast when it would exceed the budget.
+     *
+     * @parameter property="graphing.memoryBudget"
+     */
+    protected String memoryBudget;
+
+    /**
+     * The node keys, shared by every graph built by this execution. The table is not thread safe, and graphs are built
+     * from the render threads, so it is only used under its own lock, see {@link #toKey(String, String, String, String,
+     * boolean)}.
+     */
+    private final NodeKeyTable nodeKeys = new NodeKeyTable();
+
+    /**
+     * Apply the renderer configuration, called before the first render.
+     */
+    protected void configureRenderer()
+        throws MojoExecutionException
+    {
+        if ( !( graphRenderer instanceof GraphvizRenderer ) )
+        {
+            return;
+        }
+
+        // The renderer is a singleton, reset what a previous goal may have configured.
+        GraphvizRenderer renderer = (GraphvizRenderer) graphRenderer;
+        if ( StringUtils.isNotEmpty( dotExecutable ) )
+        {
+            renderer.setDotExecutable( dotExecutable );
+        }
+        else
+        {
+            renderer.setDotExecutable( GraphvizRenderer.getDefaultDotExecutable() );
+        }
+
+        renderer.setStylesheet( null );
+        if ( stylesheet != null )
+        {
+            try
+            {
+                renderer.setStylesheet( Stylesheet.load( stylesheet ) );
+                getLog().debug( "Using " + renderer.getStylesheet() );
+            }
+            catch ( StylesheetException e )
+            {
+                throw new MojoExecutionException( e.getMessage(), e );
+            }
+        }
+    }
+
+    protected GraphingMetrics createMetrics( String name )
+    {
+        return new GraphingMetrics( name, metricsJfr );
+    }
+
+    /**
+     * Write the snapshot of a graph, if enabled.
+     *
+     * @param graph the graph to write.
+     * @param directory the directory to write to.
+     * @param name the base name of the snapshot file.
+     * @throws IOException if the snapshot could not be written.
+     */
+    protected void writeSnapshot( Graph graph, File directory, String name )
+        throws IOException
+    {
+        if ( !writeSnapshots )
+        {
+            return;
+        }
+
+        File file = new File( directory, name + ".graph" );
+        new SnapshotWriter().write( graph, file );
+        getLog().debug( "Wrote snapshot " + file );
+    }
+
+    protected void writeMetrics( GraphingMetrics metrics )
+    {
+        if ( !writeMetrics )
+        {
+            return;
+        }
+
+        try
+        {
+            metrics.writeJson( metricsFile );
+            getLog().info( "Graphing metrics: " + metricsFile );
+        }
+        catch ( IOException e )
+        {
+            getLog().error( "Unable to write graphing metrics.", e );
+        }
+    }
+
+    /**
+     * Collect the reactor modules and their inter-module dependencies.
+     *
+     * @param metrics the metrics to report the collect phase to.
+     * @return the collected model.
+     * @throws MojoFailureException if the include / exclude patterns are invalid.
+     */
+    protected ReactorModel collectModel( GraphingMetrics metrics )
+        throws MojoFailureException
+    {
+        GraphingMetrics.Timer timer = metrics.start( GraphingMetrics.Phase.COLLECT );
+
+        CoordinateFilter filter;
+        try
+        {
+            filter = CoordinateFilter.compile( includes, excludes );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            throw new MojoFailureException( e.getMessage() );
+        }
+        int filtered = 0;
+
+        ReactorModel model = new ReactorModel();
+        List<Module> graphed = new ArrayList<Module>();
+        List<List> graphedDeps = new ArrayList<List>();
+
+        Iterator it = projects.iterator();
+        while ( it.hasNext() )
+        {
+            MavenProject project = (MavenProject) it.next();
+            if ( !filter.isProjectIncluded( project.getGroupId(), project.getArtifactId(), project.getPackaging() ) )
+            {
+                getLog().debug( "   Excluded Project: " + project.getId() );
+                filtered++;
+                continue;
+            }
+
+            Module module = model.addModule( new Module( project.getGroupId(), project.getArtifactId(),
+                                                         project.getVersion(), project.getPackaging(),
+                                                         project.getBasedir() ) );
+
+            if ( !"pom".equals( project.getPackaging() ) )
+            {
+                graphed.add( module );
+                graphedDeps.add( project.getDependencies() );
+            }
+        }
+
+        // Resolve parents and dependencies once all modules are known.
+        for ( int i = 0; i < projects.size(); i++ )
+        {
+            MavenProject project = (MavenProject) projects.get( i );
+            MavenProject parent = project.getParent();
+            if ( parent != null )
+            {
+                Module module = model.findModule( project.getGroupId(), project.getArtifactId(),
+                                                  project.getPackaging(), project.getVersion(), false );
+                if ( module != null )
+                {
+                    module.setParent( model.findModule( parent.getGroupId(), parent.getArtifactId(),
+                                                        parent.getPackaging(), parent.getVersion(), false ) );
+                }
+            }
+        }
+
+        for ( int i = 0; i < graphed.size(); i++ )
+        {
+            Module module = graphed.get( i );
+            List deps = graphedDeps.get( i );
+            getLog().info( "   Project: " + module.getId() + "  - " + deps.size() + " dep(s)" );
+
+            Iterator depIt = deps.iterator();
+            while ( depIt.hasNext() )
+            {
+                Dependency dep = (Dependency) depIt.next();
+                if ( !filter.isIncluded( dep.getGroupId(), dep.getArtifactId(), dep.getType(), dep.getScope() ) )
+                {
+                    getLog().debug( "     - " + dep );
+                    filtered++;
+                    continue;
+                }
+
+                Module target = model.findModule( dep.getGroupId(), dep.getArtifactId(), dep.getType(),
+                                                  dep.getVersion(), ignoreVersions );
+
+                if ( target != null )
+                {
+                    module.getDependencies().add( new ModuleDependency( module, target, dep.getGroupId(),
+                                                                        dep.getArtifactId(), dep.getVersion(),
+                                                                        dep.getType(), dep.getScope() ) );
+                }
+
+                getLog().info( "     " + ( target != null ? "* " : "  " ) + dep );
+            }
+        }
+
+        timer.stop();
+        metrics.add( "modules", model.getModules().size() );
+        metrics.add( "filtered", filtered );
+
+        return model;
+    }
+
+    /**
+     * Fail fast if the graphs about to be built are projected to exceed the memory budget.
+     *
+     * @param model the collected reactor model.
+     * @param includeTests whether test dependencies will be graphed.
+     * @param showVersions whether the labels will hold versions.
+     * @param graphs the number of graphs held in memory at the same time.
+     * @throws MojoFailureException if the budget is invalid, or would be exceeded.
+     */
+    protected void checkMemoryBudget( ReactorModel model, boolean includeTests, boolean showVersions, int graphs )
+        throws MojoFailureException
+    {
+        if ( StringUtils.isEmpty( memoryBudget ) )
+        {
+            return;
+        }
+
+        MemoryBudget budget;
+        try
+        {
+            budget = MemoryBudget.parse( memoryBudget );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            throw new MojoFailureException( e.getMessage() );
+        }
+
+        long nodes = 0;
+        long labelChars = 0;
+        long edges = 0;
+        for ( Module module : model.getModules() )
+        {
+            if ( "pom".equals( module.getPackaging() ) )
+            {
+                continue;
+            }
+            nodes++;
+            labelChars += toLabel( module, showVersions ).length();
+            for ( ModuleDependency dep : module.getDependencies() )
+            {
+                if ( includeTests || !dep.isTest() )
+                {
+                    edges++;
+                }
+            }
+        }
+
+        long projected = new FootprintEstimator().estimate( nodes, labelChars, edges ) * Math.max( 1, graphs );
+        getLog().debug( "Projected graph footprint: " + projected + " bytes, budget " + budget );
+        if ( budget.isExceeded( projected ) )
+        {
+            throw new MojoFailureException( "Projected graph footprint of " + projected + " bytes (" + nodes
+                + " nodes, " + edges + " edges, " + Math.max( 1, graphs ) + " graph(s)) exceeds the memory budget of "
+                + budget + ". Reduce the graphs with includes / excludes, render fewer views at once, "
+                + "or raise the budget." );
+        }
+    }
+
+    /**
+     * Build the module graph from the collected model.
+     *
+     * @param model the collected model.
+     * @param includeTests true to include test scoped dependencies.
+     * @param showVersions true to include versions in the node labels.
+     * @param metrics the metrics to report the graph build to, also attached to the graph.
+     * @return the module graph.
+     * @throws GraphConstraintException if the graph could not be built.
+     */
+    protected Graph buildGraph( ReactorModel model, boolean includeTests, boolean showVersions,
+                                GraphingMetrics metrics )
+        throws GraphConstraintException
+    {
+        GraphingMetrics.Timer timer = metrics.start( GraphingMetrics.Phase.GRAPH_BUILD );
+        GraphBuildEvent event = null;
+        if ( GraphingEvents.isEnabled( metrics ) )
+        {
+            event = new GraphBuildEvent();
+            event.begin();
+        }
+
+        // Loaded in bulk, the constraints are checked once, by the build.
+        GraphBuilder builder = new GraphBuilder( model.getModules().size(), model.getModules().size() * 4 );
+
+        for ( Module module : model.getModules() )
+        {
+            if ( "pom".equals( module.getPackaging() ) )
+            {
+                continue;
+            }
+
+            int currentNode = builder.addNode( toKey( module, showVersions ) );
+
+            for ( ModuleDependency dep : module.getDependencies() )
+            {
+                if ( !includeTests && dep.isTest() )
+                {
+                    // Skip
+                    continue;
+                }
+
+                // The module the dependency was resolved to, which may be another version when ignoring versions.
+                int depNode = builder.addNode( toKey( dep.getTarget(), showVersions ) );
+                int edge = builder.addEdge( currentNode, depNode );
+                builder.setEdgeScope( edge, dep.getScope() );
+
+                if ( dep.isTest() )
+                {
+                    builder.setEdgeStyle( edge, TEST_EDGE_STYLE );
+                    builder.setNodeStyle( depNode, TEST_NODE_STYLE );
+                }
+            }
+        }
+
+        Graph graph = builder.build();
+        graph.setMetrics( metrics );
+
+        timer.stop();
+        metrics.add( GraphingMetrics.NODES, graph.getNodes().size() );
+        metrics.add( GraphingMetrics.EDGES, graph.getEdges().size() );
+        if ( writeMetrics )
+        {
+            metrics.add( GraphingMetrics.HEAP_BYTES, new FootprintEstimator().estimate( graph ).getTotalBytes() );
+        }
+
+        if ( event != null )
+        {
+            event.end();
+            if ( event.shouldCommit() )
+            {
+                event.graph = metrics.getName();
+                event.nodes = graph.getNodes().size();
+                event.edges = graph.getEdges().size();
+                event.commit();
+            }
+        }
+
+        return graph;
+    }
+
+    /**
+     * Aggregate the graph by groupId before rendering, see {@link GraphAggregator}, and report the node and edge counts
+     * left.
+     *
+     * @param graph the graph to aggregate, left unchanged.
+     * @param metrics the metrics to report the aggregation to.
+     * @return the aggregated graph.
+     * @throws GraphConstraintException if the aggregated graph could not be built.
+     */
+    protected Graph aggregateGraph( Graph graph, GraphingMetrics metrics )
+        throws GraphConstraintException
+    {
+        GraphingMetrics.Timer timer = metrics.start( GraphingMetrics.Phase.GRAPH_BUILD );
+
+        GraphAggregator aggregator = new GraphAggregator();
+        aggregator.setGroupDepth( aggregateDepth );
+        Graph aggregated = aggregator.aggregate( graph );
+
+        timer.stop();
+        metrics.add( GraphingMetrics.AGGREGATED_NODES, aggregated.getNodes().size() );
+        metrics.add( GraphingMetrics.AGGREGATED_EDGES, aggregated.getEdges().size() );
+        getLog().info( "Aggregated " + metrics.getName() + " from " + graph.getNodes().size() + " nodes / "
+            + graph.getEdges().size() + " edges to " + aggregated.getNodes().size() + " nodes / "
+            + aggregated.getEdges().size() + " edges" );
+
+        return aggregated;
+    }
+
+    /**
+     * Compact the graph before rendering, see {@link GraphCompactor}, and report the node and edge counts left.
+     *
+     * @param graph the graph to compact, left unchanged.
+     * @param metrics the metrics to report the compaction to.
+     * @return the compacted graph.
+     * @throws GraphConstraintException if the compacted graph could not be built.
+     */
+    protected Graph compactGraph( Graph graph, GraphingMetrics metrics )
+        throws GraphConstraintException
+    {
+        GraphingMetrics.Timer timer = metrics.start( GraphingMetrics.Phase.GRAPH_BUILD );
+
+        GraphCompactor compactor = new GraphCompactor();
+        compactor.setMinFanSize( compactFanSize );
+        Graph compacted = compactor.compact( graph );
+
+        timer.stop();
+        metrics.add( GraphingMetrics.COMPACTED_NODES, compacted.getNodes().size() );
+        metrics.add( GraphingMetrics.COMPACTED_EDGES, compacted.getEdges().size() );
+        getLog().info( "Compacted " + metrics.getName() + " from " + graph.getNodes().size() + " nodes / "
+            + graph.getEdges().size() + " edges to " + compacted.getNodes().size() + " nodes / "
+            + compacted.getEdges().size() + " edges" );
+
+        return compacted;
+    }
+
+    protected NodeKey toKey( Module module, boolean showVersions )
+    {
+        return toKey( module.getGroupId(), module.getArtifactId(), module.getVersion(), module.getPackaging(),
+                      showVersions );
+    }
+
+    /**
+     * @return the interned key of the module, the version left out unless <code>showVersions</code>.
+     */
+    protected NodeKey toKey( String groupId, String artifactId, String version, String type, boolean showVersions )
+    {
+        synchronized ( nodeKeys )
+        {
+            return nodeKeys.intern( groupId, artifactId, showVersions ? version : null, type );
+        }
+    }
+
+    protected String toLabel( Module module, boolean showVersions )
+    {
+        return toKey( module, showVersions ).getLabel();
+    }
+
+    /**
+     * @param override the formats to use instead of the <code>formats</code> parameter, may be null.
+     * @return the output formats.
+     */
+    protected List<String> getFormats( List<String> override )
+    {
+        if ( ( override != null ) && !override.isEmpty() )
+        {
+            return override;
+        }
+
+        List<String> ret = new ArrayList<String>();
+        for ( String format : StringUtils.split( formats, "," ) )
+        {
+            ret.add( format.trim() );
+        }
+        return ret;
+    }
+
+    /**
+     * @param directory the directory of the output files.
+     * @param outputName the output file name, without extension.
+     * @param outputFormats the output formats.
+     * @return one output file per format.
+     * @throws GraphingException if the renderer does not support one of the formats.
+     */
+    protected List<File> toOutputFiles( File directory, String outputName, List<String> outputFormats )
+        throws GraphingException
+    {
+        List<File> outputFiles = new ArrayList<File>( outputFormats.size() );
+        for ( String format : outputFormats )
+        {
+            if ( !graphRenderer.supportsOutputFormat( format ) )
+            {
+                throw new GraphingException( "Unsupported output format '" + format + "' for " + outputName );
+            }
+            outputFiles.add( new File( directory, outputName + "." + format ) );
+        }
+        return outputFiles;
+    }
+
+    /**
+     * @param renders the number of renders.
+     * @return the number of threads used to run the renders.
+     */
+    protected int getRenderThreads( int renders )
+    {
+        int threads = renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors();
+        return Math.max( 1, Math.min( threads, renders ) );
+    }
+
+    /**
+     * Run the renders with bounded parallelism, so the total time approaches that of the slowest render.
+     *
+     * @param names the names of the renders, for error reporting.
+     * @param renders the renders to run.
+     */
+    protected void renderAll( List<String> names, List<Callable<Void>> renders )
+    {
+        if ( renders.isEmpty() )
+        {
+            return;
+        }
+
+        int threads = getRenderThreads( renders.size() );
+
+        ExecutorService executor = Executors.newFixedThreadPool( threads, new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread( Runnable runnable )
+            {
+                Thread thread = new Thread( runnable, "graphing-render-" + count.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            }
+        } );
+
+        try
+        {
+            List<Future<Void>> results = new ArrayList<Future<Void>>( renders.size() );
+            for ( Callable<Void> render : renders )
+            {
+                results.add( executor.submit( render ) );
+            }
+
+            for ( int i = 0; i < results.size(); i++ )
+            {
+                try
+                {
+                    results.get( i ).get();
+                }
+                catch ( ExecutionException e )
+                {
+                    getLog().error( "Unable to generate graph for " + names.get( i ) + ".", e.getCause() );
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            getLog().error( "Interrupted while generating graphs." );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package net.erdfelt.maven.graphing;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+import net.erdfelt.maven.graphing.graph.GraphingException;
+import net.erdfelt.maven.graphing.graph.decorator.GraphDecorator;
+import net.erdfelt.maven.graphing.graph.diff.GraphDiff;
+import net.erdfelt.maven.graphing.graph.diff.GraphDiffer;
+import net.erdfelt.maven.graphing.graph.metrics.GraphingMetrics;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.GraphConstraintException;
+import net.erdfelt.maven.graphing.graph.snapshot.GraphSnapshot;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+/**
+ * Compares the module graph against a baseline snapshot (as written with <code>graphing.snapshots</code>), reporting
+ * the modules and module dependencies that appeared or disappeared.
+ * <p>
+ * The difference is written as JSON to the <code>diffFile</code>, and optionally rendered with the changes
+ * highlighted. The current graph is written as <code>graph-modules.graph</code> when snapshots are enabled, ready to
+ * be kept as the next baseline.
+ *
+ * @author <a href="mailto:joakim@erdfelt.net">Joakim Erdfelt</a>
+ *
+ * @goal diff
+ * @aggregator
+ */
+public class DiffGraphMojo
+extends AbstractGraphMojo
+{
+    /**
+     * The snapshot to compare against. It is read before the current graph snapshot is written, and must not be that
+     * snapshot (<code>graph-modules.graph</code> in the output directory) when snapshots are enabled.
+     *
+     * @parameter property="graphing.baseline"
+     * @required
+     */
+    private File baseline;
+
+    /**
+     * @parameter property="graphing.diffFile" default-value="${project.build.directory}/graphing-diff.json"
+     */
+    private File diffFile;
+
+    /**
+     * Also render the difference, highlighting the added and removed modules and dependencies.
+     *
+     * @parameter property="graphing.renderDiff" default-value="false"
+     */
+    private boolean renderDiff;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException
+    {
+        configureRenderer();
+        File snapshotFile = new File( outputDirectory, "graph-modules.graph" );
+        if ( writeSnapshots && isSameFile( baseline, snapshotFile ) )
+        {
+            throw new MojoFailureException( "The baseline snapshot " + baseline
+                + " would be overwritten by the current graph, keep it elsewhere." );
+        }
+
+        GraphingMetrics metrics = createMetrics( "diff" );
+
+        // Read the baseline before writing anything.
+        Graph previous = null;
+        if ( baseline.exists() )
+        {
+            try
+            {
+                previous = GraphSnapshot.open( baseline ).toGraph();
+            }
+            catch ( IOException e )
+            {
+                throw new MojoExecutionException( "Unable to read baseline snapshot " + baseline, e );
+            }
+            catch ( GraphConstraintException e )
+            {
+                throw new MojoExecutionException( "Unable to read baseline snapshot " + baseline, e );
+            }
+        }
+
+        ReactorModel model = collectModel( metrics );
+        checkMemoryBudget( model, !filterTests, !ignoreVersions, 2 );
+
+        Graph graph;
+        try
+        {
+            graph = buildGraph( model, !filterTests, !ignoreVersions, metrics.newChild( "modules" ) );
+            writeSnapshot( graph, outputDirectory, "graph-modules" );
+        }
+        catch ( GraphConstraintException e )
+        {
+            throw new MojoExecutionException( "Unable to build the module graph.", e );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Unable to write the module graph snapshot.", e );
+        }
+
+        if ( previous == null )
+        {
+            getLog().warn( "No baseline snapshot to compare against: " + baseline );
+            writeMetrics( metrics );
+            return;
+        }
+
+        GraphDiff diff = new GraphDiffer().diff( previous, graph );
+        getLog().info( "Module graph changes since " + baseline.getName() + ": " + diff );
+        for ( GraphDiff.EdgeKey edge : diff.getAddedEdges() )
+        {
+            getLog().debug( "Added: " + edge );
+        }
+        for ( GraphDiff.EdgeKey edge : diff.getRemovedEdges() )
+        {
+            getLog().debug( "Removed: " + edge );
+        }
+
+        try
+        {
+            diff.writeJson( diffFile );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Unable to write " + diffFile, e );
+        }
+
+        if ( renderDiff )
+        {
+            try
+            {
+                Graph changes = diff.toGraph();
+                changes.setMetrics( metrics.newChild( "diff" ) );
+                changes.getDecorator().setTitle( "Module Changes" );
+                changes.getDecorator().setOrientation( GraphDecorator.LEFT_TO_RIGHT );
+                graphRenderer.render( changes, toOutputFiles( outputDirectory, "graph-diff", getFormats( null ) ) );
+            }
+            catch ( GraphConstraintException e )
+            {
+                getLog().error( "Unable to generate graph.", e );
+            }
+            catch ( IOException e )
+            {
+                getLog().error( "Unable to generate graph.", e );
+            }
+            catch ( GraphingException e )
+            {
+                getLog().error( "Unable to generate graph.", e );
+            }
+        }
+
+        writeMetrics( metrics );
+    }
+
+    private static boolean isSameFile( File a, File b )
+        throws MojoExecutionException
+    {
+        try
+        {
+            return a.getCanonicalFile().equals( b.getCanonicalFile() );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Unable to resolve " + a, e );
+        }
+    }
+}
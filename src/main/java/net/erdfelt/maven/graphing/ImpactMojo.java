@@ -0,0 +1,252 @@
+package net.erdfelt.maven.graphing;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.erdfelt.maven.graphing.ReactorModel.Module;
+import net.erdfelt.maven.graphing.ReactorModel.ModuleDependency;
+import net.erdfelt.maven.graphing.graph.GraphingException;
+import net.erdfelt.maven.graphing.graph.decorator.GraphDecorator;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.metrics.GraphingMetrics;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.GraphConstraintException;
+import net.erdfelt.maven.graphing.graph.model.Node;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+import net.erdfelt.maven.graphing.impact.ImpactAnalyzer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * Computes the reactor modules affected by a set of changed paths: the modules owning the paths, plus all of their
+ * (transitive) dependents.
+ * <p>
+ * The affected modules are written, one <code>groupId:artifactId</code> per line in reactor order, to the
+ * <code>impactFile</code>, ready for use with <code>mvn -pl</code>.
+ *
+ * @author <a href="mailto:joakim@erdfelt.net">Joakim Erdfelt</a>
+ *
+ * @goal impact
+ * @aggregator
+ */
+public class ImpactMojo
+extends AbstractGraphMojo
+{
+    /**
+     * A file listing the changed paths, one per line (eg: the output of <code>git diff --name-only</code>).
+     *
+     * @parameter property="graphing.changedFiles"
+     */
+    private File changedFiles;
+
+    /**
+     * The changed paths, comma separated.
+     *
+     * @parameter property="graphing.changedPaths"
+     */
+    private String changedPaths;
+
+    /**
+     * The directory relative changed paths are resolved against.
+     *
+     * @parameter default-value="${session.executionRootDirectory}"
+     */
+    private File rootDirectory;
+
+    /**
+     * Whether test scoped dependencies propagate changes to their dependents.
+     *
+     * @parameter property="graphing.includeTestDependencies" default-value="true"
+     */
+    private boolean includeTestDependencies;
+
+    /**
+     * @parameter property="graphing.impactFile" default-value="${project.build.directory}/graphing-impact.txt"
+     */
+    private File impactFile;
+
+    /**
+     * Also render the affected modules, highlighting the changed ones. With <code>graphing.snapshots</code>, the
+     * rendered graph is also written as <code>graph-impact.graph</code>.
+     *
+     * @parameter property="graphing.renderImpact" default-value="false"
+     */
+    private boolean renderImpact;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException
+    {
+        List<Path> paths = readChangedPaths();
+
+        configureRenderer();
+        GraphingMetrics metrics = createMetrics( "impact" );
+        ReactorModel model = collectModel( metrics );
+
+        ImpactAnalyzer analyzer = new ImpactAnalyzer( model, includeTestDependencies );
+        ImpactAnalyzer.Impact impact = analyzer.analyze( paths );
+
+        for ( Path unowned : impact.getUnowned() )
+        {
+            getLog().debug( "Not part of any module: " + unowned );
+        }
+        getLog().info( impact.getChanged().size() + " changed module(s), " + impact.getAffected().size()
+            + " affected module(s)" );
+
+        List<String> lines = new ArrayList<String>( impact.getAffected().size() );
+        for ( Module module : impact.getAffected() )
+        {
+            lines.add( module.getGroupId() + ":" + module.getArtifactId() );
+        }
+        getLog().info( "Affected: " + StringUtils.join( lines.iterator(), "," ) );
+
+        try
+        {
+            File dir = impactFile.getAbsoluteFile().getParentFile();
+            if ( !dir.exists() && !dir.mkdirs() )
+            {
+                throw new IOException( "Unable to make directories: " + dir.getAbsolutePath() );
+            }
+            Files.write( impactFile.toPath(), lines, StandardCharsets.UTF_8 );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Unable to write " + impactFile, e );
+        }
+
+        if ( renderImpact && !impact.getAffected().isEmpty() )
+        {
+            checkMemoryBudget( model, includeTestDependencies, !ignoreVersions, 1 );
+
+            try
+            {
+                Graph graph = buildImpactGraph( impact, metrics.newChild( "impact" ) );
+                graphRenderer.render( graph, toOutputFiles( outputDirectory, "graph-impact", getFormats( null ) ) );
+                writeSnapshot( graph, outputDirectory, "graph-impact" );
+            }
+            catch ( GraphConstraintException e )
+            {
+                getLog().error( "Unable to generate graph.", e );
+            }
+            catch ( IOException e )
+            {
+                getLog().error( "Unable to generate graph.", e );
+            }
+            catch ( GraphingException e )
+            {
+                getLog().error( "Unable to generate graph.", e );
+            }
+        }
+
+        writeMetrics( metrics );
+    }
+
+    private List<Path> readChangedPaths()
+        throws MojoExecutionException
+    {
+        List<String> raw = new ArrayList<String>();
+
+        if ( changedFiles != null )
+        {
+            try
+            {
+                raw.addAll( Files.readAllLines( changedFiles.toPath(), StandardCharsets.UTF_8 ) );
+            }
+            catch ( IOException e )
+            {
+                throw new MojoExecutionException( "Unable to read " + changedFiles, e );
+            }
+        }
+
+        if ( StringUtils.isNotEmpty( changedPaths ) )
+        {
+            Collections.addAll( raw, StringUtils.split( changedPaths, "," ) );
+        }
+
+        List<Path> paths = new ArrayList<Path>( raw.size() );
+        for ( String entry : raw )
+        {
+            String trimmed = entry.trim();
+            if ( trimmed.length() > 0 )
+            {
+                Path path = new File( trimmed ).toPath();
+                paths.add( path.isAbsolute() || ( rootDirectory == null ) ? path
+                                : rootDirectory.toPath().resolve( path ) );
+            }
+        }
+        return paths;
+    }
+
+    private Graph buildImpactGraph( ImpactAnalyzer.Impact impact, GraphingMetrics metrics )
+        throws GraphConstraintException
+    {
+        GraphingMetrics.Timer timer = metrics.start( GraphingMetrics.Phase.GRAPH_BUILD );
+
+        boolean showVersions = !ignoreVersions;
+
+        NodeStyle changedStyle = NodeStyle.DEFAULT.withBackgroundColor( Rgba.of( 255, 200, 200 ) )
+            .withBorderColor( Rgba.RED );
+        NodeStyle affectedStyle = NodeStyle.DEFAULT.withBackgroundColor( Rgba.of( 255, 235, 190 ) );
+
+        Graph graph = new Graph();
+        graph.setMetrics( metrics );
+
+        Map<Module, Node> nodes = new IdentityHashMap<Module, Node>();
+        for ( Module module : impact.getAffected() )
+        {
+            Node node = graph.addNode( toKey( module, showVersions ) );
+            node.setStyle( affectedStyle );
+            nodes.put( module, node );
+        }
+        for ( Module module : impact.getChanged() )
+        {
+            nodes.get( module ).setStyle( changedStyle );
+        }
+
+        for ( Module module : impact.getAffected() )
+        {
+            for ( ModuleDependency dep : module.getDependencies() )
+            {
+                Node target = nodes.get( dep.getTarget() );
+                if ( ( target != null ) && ( includeTestDependencies || !dep.isTest() ) )
+                {
+                    graph.addEdge( nodes.get( module ), target ).setScope( dep.getScope() );
+                }
+            }
+        }
+
+        graph.getDecorator().setTitle( "Affected Modules" );
+        graph.getDecorator().setOrientation( GraphDecorator.LEFT_TO_RIGHT );
+
+        timer.stop();
+        metrics.add( GraphingMetrics.NODES, graph.getNodes().size() );
+        metrics.add( GraphingMetrics.EDGES, graph.getEdges().size() );
+
+        return graph;
+    }
+}
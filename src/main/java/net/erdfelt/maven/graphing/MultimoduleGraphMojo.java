@@ -16,221 +16,166 @@ package net.erdfelt.maven.graphing;
  * limitations under the License.
  */
 
-import java.awt.Color;
-import java.io.File;
-import java.io.IOException;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
-import net.erdfelt.maven.graphing.graph.GraphRenderer;
-import net.erdfelt.maven.graphing.graph.GraphingException;
-import net.erdfelt.maven.graphing.graph.decorator.EdgeDecorator;
 import net.erdfelt.maven.graphing.graph.decorator.GraphDecorator;
-import net.erdfelt.maven.graphing.graph.decorator.NodeDecorator;
-import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.metrics.GraphingMetrics;
 import net.erdfelt.maven.graphing.graph.model.Graph;
-import net.erdfelt.maven.graphing.graph.model.GraphConstraintException;
-import net.erdfelt.maven.graphing.graph.model.Node;
 
-import org.apache.maven.model.Dependency;
-import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
-import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.StringUtils;
 
 /**
  * MultimoduleGraphMojo
- * 
+ *
  * @author <a href="mailto:joakim@erdfelt.net">Joakim Erdfelt</a>
  *
  * @goal multimodule
  * @aggregator
  */
 public class MultimoduleGraphMojo
-extends AbstractMojo
+extends AbstractGraphMojo
 {
     /**
-     * The projects in the current build. Each of these is subject to refreshing.
-     * 
-     * @parameter default-value="${reactorProjects}"
-     * @required
-     * @readonly
-     */
-    private List projects;
-
-    /**
-     * @component role="net.erdfelt.maven.graphing.graph.GraphRenderer" roleHint="graphviz"
+     * The default graph title, for views that do not declare their own.
+     *
+     * @parameter property="graphing.title" default-value="Module Relationship"
      */
-    private GraphRenderer graphRenderer;
+    private String title;
 
     /**
-     * @parameter property="graphing.ignoreVersions" default-value="true"
+     * The views to render. When none are configured, a single <code>multimodule</code> view is rendered using the
+     * <code>filterTests</code> and <code>ignoreVersions</code> options. Each view needs a name, and an output name
+     * (<code>graph-&lt;name&gt;</code> by default) of its own.
+     *
+     * @parameter
      */
-    private boolean ignoreVersions;
+    private List<View> views;
 
-    /**
-     * @parameter property="graphing.filterTests" default-value="true"
-     */
-    private boolean filterTests;
-    
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException
     {
         getLog().info( "Found " + projects.size() + " Project(s)" );
 
-        Graph graph = new Graph();
-        
         getLog().debug("Using: " + graphRenderer);
 
-        try
-        {
-            Iterator it = projects.iterator();
-            while ( it.hasNext() )
-            {
-                MavenProject project = (MavenProject) it.next();
-                List deps = project.getDependencies();
-
-                if ( !"pom".equals( project.getPackaging() ) )
-                {
-                    Node currentNode = graph.addNode( toNode( project ) );
-                    getLog().info( "   Project: " + project.getId() + "  - " + deps.size() + " dep(s)" );
+        List<View> activeViews = getActiveViews();
 
-                    addDependenciesToGraph( graph, currentNode, deps );
-                }
-            }
+        configureRenderer();
+        final GraphingMetrics metrics = createMetrics( "multimodule" );
+        final ReactorModel model = collectModel( metrics );
 
-            if ( graph.getDecorator() == null )
-            {
-                graph.setDecorator( new GraphDecorator() );
-            }
-
-            graph.getDecorator().setTitle( "Module Relationship" );
-            graph.getDecorator().setOrientation( GraphDecorator.LEFT_TO_RIGHT );
-
-            graphRenderer.render( graph, new File( "target/graph-multimodule.png" ) );
-        }
-        catch ( GraphConstraintException e )
-        {
-            getLog().error( "Unable to generate graph." );
-        }
-        catch ( IOException e )
+        // Each render thread holds one graph, size the worst case.
+        boolean anyTests = false;
+        boolean anyVersions = false;
+        for ( View view : activeViews )
         {
-            getLog().error( "Unable to generate graph.", e );
+            anyTests |= includeTests( view );
+            anyVersions |= showVersions( view );
         }
-        catch ( GraphingException e )
+        checkMemoryBudget( model, anyTests, anyVersions, getRenderThreads( activeViews.size() ) );
+
+        List<String> names = new ArrayList<String>( activeViews.size() );
+        List<Callable<Void>> renders = new ArrayList<Callable<Void>>( activeViews.size() );
+        for ( final View view : activeViews )
         {
-            getLog().error( "Unable to generate graph.", e );
+            final GraphingMetrics viewMetrics = metrics.newChild( view.getName() );
+            names.add( view.toString() );
+            renders.add( new Callable<Void>()
+            {
+                public Void call() throws Exception
+                {
+                    renderView( model, view, viewMetrics );
+                    return null;
+                }
+            } );
         }
+
+        renderAll( names, renders );
+
+        writeMetrics( metrics );
     }
-    
-    private boolean isMultiModuleDependency( Dependency dep )
-    {
-        boolean ret = false;
 
-        Iterator it = projects.iterator();
-        while ( it.hasNext() )
+    /**
+     * @return the configured views, or the default view if there are none.
+     * @throws MojoFailureException if a view has no name, or if two views would write the same output files.
+     */
+    private List<View> getActiveViews()
+        throws MojoFailureException
+    {
+        if ( ( views != null ) && !views.isEmpty() )
         {
-            MavenProject project = (MavenProject) it.next();
-            if ( Objects.equals( project.getGroupId(), dep.getGroupId() )
-                && Objects.equals( project.getArtifactId(), dep.getArtifactId() )
-                && Objects.equals( project.getPackaging(), dep.getType() ) )
+            // Output names are compared ignoring case, as on case insensitive file systems.
+            Map<String, View> outputNames = new HashMap<String, View>();
+            for ( View view : views )
             {
-                // Found dep that matches on groupId / artifactId / type only.
-                if ( ignoreVersions )
+                if ( StringUtils.isEmpty( view.getName() ) )
                 {
-                    // No test of version.
-                    ret = true;
-                    break;
+                    throw new MojoFailureException( "Each <view> needs a <name>." );
                 }
-                else if ( Objects.equals( project.getVersion(), dep.getVersion() ) )
+                View other = outputNames.put( getOutputName( view ).toLowerCase( Locale.ENGLISH ), view );
+                if ( other != null )
                 {
-                    // Found dep that matches on version too.
-                    ret = true;
-                    break;
+                    throw new MojoFailureException( "The views '" + other.getName() + "' and '" + view.getName()
+                        + "' both render to " + getOutputName( view ) + ", give them distinct <outputName>s." );
                 }
             }
+            return views;
         }
 
+        View view = new View( "multimodule" );
+        view.setIncludeTests( !filterTests );
+        view.setShowVersions( !ignoreVersions );
+        List<View> ret = new ArrayList<View>( 1 );
+        ret.add( view );
         return ret;
     }
 
-    private void addDependenciesToGraph( Graph graph, Node currentNode, List deps )
-        throws GraphConstraintException
+    private String getOutputName( View view )
     {
-        Iterator it = deps.iterator();
-        while ( it.hasNext() )
-        {
-            Dependency dep = (Dependency) it.next();
-
-            boolean isModule = isMultiModuleDependency( dep );
-
-            if ( filterTests && isTestDep( dep ) )
-            {
-                // Skip
-                continue;
-            }
-
-            if ( isModule )
-            {
-                Node depNode = graph.addNode( toNode( dep ) );
-                Edge edge = graph.addEdge( currentNode, depNode );
-
-                if ( isTestDep( dep ) )
-                {
-                    if ( edge.getDecorator() == null )
-                    {
-                        edge.setDecorator( new EdgeDecorator() );
-                    }
-                    edge.getDecorator().setLineColor( Color.blue );
-
-                    Color testColor = new Color( 200, 200, 255 );
-
-                    if ( depNode.getDecorator() == null )
-                    {
-                        depNode.setDecorator( new NodeDecorator() );
-                    }
-
-                    depNode.getDecorator().setBackgroundColor( testColor );
-                    depNode.getDecorator().setBorderColor( testColor );
-
-                    graph.addNode( depNode );
-                }
-            }
+        return StringUtils.isNotEmpty( view.getOutputName() ) ? view.getOutputName() : "graph-" + view.getName();
+    }
 
-            getLog().info( "     " + ( isModule ? "* " : "  " ) + dep );
-        }
+    private boolean includeTests( View view )
+    {
+        return view.getIncludeTests() != null ? view.getIncludeTests().booleanValue() : !filterTests;
     }
 
-    private boolean isTestDep( Dependency dep )
+    private boolean showVersions( View view )
     {
-        return Objects.equals( "test", dep.getScope() );
+        return view.getShowVersions() != null ? view.getShowVersions().booleanValue() : !ignoreVersions;
     }
 
-    private Node toNode( Dependency dep )
+    private boolean aggregate( View view )
     {
-        return toNode( dep.getGroupId(), dep.getArtifactId(), dep.getVersion(), dep.getType() );
+        return view.getAggregate() != null ? view.getAggregate().booleanValue() : aggregate;
     }
 
-    private Node toNode( MavenProject project )
+    private boolean compact( View view )
     {
-        return toNode( project.getGroupId(), project.getArtifactId(), project.getVersion(), project.getPackaging() );
+        return view.getCompact() != null ? view.getCompact().booleanValue() : compact;
     }
 
-    private Node toNode( String groupId, String artifactId, String version, String type )
+    private void renderView( ReactorModel model, View view, GraphingMetrics metrics )
+        throws Exception
     {
-        StringBuffer label = new StringBuffer();
-        label.append( groupId ).append( "\n" );
-        label.append( artifactId ).append( "\n" );
+        Graph graph = buildGraph( model, includeTests( view ), showVersions( view ), metrics );
 
-        if ( !ignoreVersions )
-        {
-            label.append( version ).append( "\n" );
-        }
+        graph.getDecorator().setTitle( StringUtils.isNotEmpty( view.getTitle() ) ? view.getTitle() : title );
+        graph.getDecorator().setOrientation( GraphDecorator.LEFT_TO_RIGHT );
 
-        label.append( type );
+        String outputName = getOutputName( view );
 
-        return new Node( label.toString() );
+        // The snapshot keeps the full graph.
+        Graph rendered = aggregate( view ) ? aggregateGraph( graph, metrics ) : graph;
+        rendered = compact( view ) ? compactGraph( rendered, metrics ) : rendered;
+        graphRenderer.render( rendered, toOutputFiles( outputDirectory, outputName, getFormats( view.getFormats() ) ) );
+        writeSnapshot( graph, outputDirectory, outputName );
     }
 }
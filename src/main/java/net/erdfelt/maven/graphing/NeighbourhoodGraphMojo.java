@@ -0,0 +1,218 @@
+package net.erdfelt.maven.graphing;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import net.erdfelt.maven.graphing.ReactorModel.Module;
+import net.erdfelt.maven.graphing.graph.decorator.GraphDecorator;
+import net.erdfelt.maven.graphing.graph.metrics.GraphingMetrics;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.GraphConstraintException;
+import net.erdfelt.maven.graphing.graph.model.NeighbourhoodExtractor;
+import net.erdfelt.maven.graphing.graph.model.Node;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+/**
+ * Renders one small graph per module, showing the modules within <code>radius</code> hops upstream and downstream of
+ * it.
+ * <p>
+ * Modules with identical neighbourhoods share a single render, the output is copied for the others. With
+ * <code>graphing.snapshots</code>, each neighbourhood is also written as a snapshot next to its output, and copied the
+ * same way.
+ *
+ * @author <a href="mailto:joakim@erdfelt.net">Joakim Erdfelt</a>
+ *
+ * @goal neighbourhood
+ * @aggregator
+ */
+public class NeighbourhoodGraphMojo
+extends AbstractGraphMojo
+{
+    /**
+     * The number of hops upstream and downstream of each module to include.
+     *
+     * @parameter property="graphing.radius" default-value="1"
+     */
+    private int radius;
+
+    /**
+     * The directory to write the per module graphs to.
+     *
+     * @parameter property="graphing.neighbourhoodDirectory" default-value="${project.build.directory}/graph-neighbourhood"
+     */
+    private File neighbourhoodDirectory;
+
+    /**
+     * A neighbourhood, identified by its sorted node ids, along with the modules sharing it.
+     */
+    private static class Neighbourhood
+    {
+        private final int[] nodeIds;
+
+        private final int hash;
+
+        private final List<String> outputNames = new ArrayList<String>();
+
+        Neighbourhood( int[] nodeIds )
+        {
+            this.nodeIds = nodeIds;
+            this.hash = Arrays.hashCode( nodeIds );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( !( obj instanceof Neighbourhood ) )
+            {
+                return false;
+            }
+            Neighbourhood other = (Neighbourhood) obj;
+            return ( hash == other.hash ) && Arrays.equals( nodeIds, other.nodeIds );
+        }
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException
+    {
+        if ( radius < 1 )
+        {
+            throw new MojoFailureException( "The neighbourhood radius must be 1 or more: " + radius );
+        }
+
+        getLog().info( "Found " + projects.size() + " Project(s)" );
+
+        configureRenderer();
+        final GraphingMetrics metrics = createMetrics( "neighbourhood" );
+        final ReactorModel model = collectModel( metrics );
+        final List<String> outputFormats = getFormats( null );
+        checkMemoryBudget( model, !filterTests, !ignoreVersions, 1 );
+
+        // Subgraphs are small, so they are reported together.
+        final GraphingMetrics renderMetrics = metrics.newChild( "neighbourhoods" );
+
+        try
+        {
+            Graph graph = buildGraph( model, !filterTests, !ignoreVersions, metrics.newChild( "modules" ) );
+            final NeighbourhoodExtractor extractor = new NeighbourhoodExtractor( graph );
+
+            // Group modules by the content of their neighbourhood.
+            Map<Neighbourhood, Neighbourhood> unique = new LinkedHashMap<Neighbourhood, Neighbourhood>();
+            for ( Module module : model.getModules() )
+            {
+                Node node = graph.getNode( toKey( module, !ignoreVersions ) );
+                if ( node == null )
+                {
+                    continue;
+                }
+
+                Neighbourhood key = new Neighbourhood( extractor.extract( node, radius ) );
+                Neighbourhood neighbourhood = unique.get( key );
+                if ( neighbourhood == null )
+                {
+                    unique.put( key, key );
+                    neighbourhood = key;
+                }
+                neighbourhood.outputNames.add( module.getGroupId() + "." + module.getArtifactId() );
+            }
+
+            getLog().info( "Rendering " + unique.size() + " unique neighbourhood(s) for " + model.getModules().size()
+                + " module(s)" );
+
+            List<String> names = new ArrayList<String>( unique.size() );
+            List<Callable<Void>> renders = new ArrayList<Callable<Void>>( unique.size() );
+            for ( final Neighbourhood neighbourhood : unique.keySet() )
+            {
+                // Subgraphs are extracted up front, the extractor is not thread safe.
+                final Graph subgraph = extractor.toGraph( neighbourhood.nodeIds );
+                subgraph.setMetrics( renderMetrics );
+                subgraph.getDecorator().setTitle( "Module Neighbourhood (radius " + radius + ")" );
+                subgraph.getDecorator().setOrientation( GraphDecorator.LEFT_TO_RIGHT );
+
+                names.add( neighbourhood.outputNames.get( 0 ) );
+                renders.add( new Callable<Void>()
+                {
+                    public Void call() throws Exception
+                    {
+                        renderNeighbourhood( subgraph, neighbourhood, outputFormats );
+                        return null;
+                    }
+                } );
+            }
+
+            renderAll( names, renders );
+        }
+        catch ( GraphConstraintException e )
+        {
+            getLog().error( "Unable to generate graph.", e );
+        }
+
+        writeMetrics( metrics );
+    }
+
+    private void renderNeighbourhood( Graph subgraph, Neighbourhood neighbourhood, List<String> outputFormats )
+        throws Exception
+    {
+        String outputName = neighbourhood.outputNames.get( 0 );
+        List<File> rendered = toOutputFiles( neighbourhoodDirectory, outputName, outputFormats );
+        graphRenderer.render( subgraph, rendered );
+        writeSnapshot( subgraph, neighbourhoodDirectory, outputName );
+
+        // Reuse the render for the modules sharing this neighbourhood.
+        for ( int i = 1; i < neighbourhood.outputNames.size(); i++ )
+        {
+            List<File> copies = toOutputFiles( neighbourhoodDirectory, neighbourhood.outputNames.get( i ),
+                                               outputFormats );
+            for ( int f = 0; f < rendered.size(); f++ )
+            {
+                copy( rendered.get( f ), copies.get( f ) );
+            }
+            if ( writeSnapshots )
+            {
+                copy( new File( neighbourhoodDirectory, outputName + ".graph" ),
+                      new File( neighbourhoodDirectory, neighbourhood.outputNames.get( i ) + ".graph" ) );
+            }
+        }
+    }
+
+    private void copy( File source, File target )
+        throws IOException
+    {
+        Files.copy( source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING );
+    }
+}
@@ -0,0 +1,262 @@
+package net.erdfelt.maven.graphing;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The reactor modules and their inter-module dependencies, collected once per build.
+ * <p>
+ * The model is read-only after collection, so several views can be built from it concurrently.
+ *
+ * @since 1.0.2
+ */
+public class ReactorModel
+{
+    /**
+     * A reactor module.
+     */
+    public static class Module
+    {
+        private final String groupId;
+
+        private final String artifactId;
+
+        private final String version;
+
+        private final String packaging;
+
+        private final File basedir;
+
+        private Module parent;
+
+        private final List<ModuleDependency> dependencies = new ArrayList<ModuleDependency>();
+
+        public Module( String groupId, String artifactId, String version, String packaging, File basedir )
+        {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.packaging = packaging;
+            this.basedir = basedir;
+        }
+
+        public String getGroupId()
+        {
+            return groupId;
+        }
+
+        public String getArtifactId()
+        {
+            return artifactId;
+        }
+
+        public String getVersion()
+        {
+            return version;
+        }
+
+        public String getPackaging()
+        {
+            return packaging;
+        }
+
+        public File getBasedir()
+        {
+            return basedir;
+        }
+
+        /**
+         * @return the parent of this module, if the parent is part of the reactor, otherwise null.
+         */
+        public Module getParent()
+        {
+            return parent;
+        }
+
+        public void setParent( Module parent )
+        {
+            this.parent = parent;
+        }
+
+        /**
+         * @return the dependencies of this module on other reactor modules.
+         */
+        public List<ModuleDependency> getDependencies()
+        {
+            return dependencies;
+        }
+
+        public String getId()
+        {
+            return groupId + ":" + artifactId + ":" + packaging + ":" + version;
+        }
+
+        @Override
+        public String toString()
+        {
+            return getId();
+        }
+    }
+
+    /**
+     * A dependency of one reactor module on another.
+     */
+    public static class ModuleDependency
+    {
+        private final Module from;
+
+        private final Module target;
+
+        private final String groupId;
+
+        private final String artifactId;
+
+        private final String version;
+
+        private final String type;
+
+        private final String scope;
+
+        public ModuleDependency( Module from, Module target, String groupId, String artifactId, String version,
+                                 String type, String scope )
+        {
+            this.from = from;
+            this.target = target;
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.type = type;
+            this.scope = scope;
+        }
+
+        public Module getFrom()
+        {
+            return from;
+        }
+
+        /**
+         * @return the reactor module this dependency resolved to.
+         */
+        public Module getTarget()
+        {
+            return target;
+        }
+
+        public String getGroupId()
+        {
+            return groupId;
+        }
+
+        public String getArtifactId()
+        {
+            return artifactId;
+        }
+
+        /**
+         * @return the version declared by the dependency, which may differ from the target module when versions are
+         *         ignored.
+         */
+        public String getVersion()
+        {
+            return version;
+        }
+
+        public String getType()
+        {
+            return type;
+        }
+
+        public String getScope()
+        {
+            return scope;
+        }
+
+        public boolean isTest()
+        {
+            return Objects.equals( "test", scope );
+        }
+    }
+
+    private final List<Module> modules = new ArrayList<Module>();
+
+    /**
+     * Index of groupId:artifactId:type to the modules with those coordinates.
+     */
+    private final Map<String, List<Module>> moduleIndex = new HashMap<String, List<Module>>();
+
+    public Module addModule( Module module )
+    {
+        modules.add( module );
+
+        String key = toKey( module.getGroupId(), module.getArtifactId(), module.getPackaging() );
+        List<Module> list = moduleIndex.get( key );
+        if ( list == null )
+        {
+            list = new ArrayList<Module>( 1 );
+            moduleIndex.put( key, list );
+        }
+        list.add( module );
+
+        return module;
+    }
+
+    public List<Module> getModules()
+    {
+        return Collections.unmodifiableList( modules );
+    }
+
+    /**
+     * Find the reactor module matching the provided coordinates.
+     *
+     * @param groupId the groupId to match.
+     * @param artifactId the artifactId to match.
+     * @param type the type to match against the module packaging.
+     * @param version the version to match, unless versions are ignored.
+     * @param ignoreVersions true to match on groupId / artifactId / type only.
+     * @return the matching module, or null if the coordinates are not part of the reactor.
+     */
+    public Module findModule( String groupId, String artifactId, String type, String version, boolean ignoreVersions )
+    {
+        List<Module> candidates = moduleIndex.get( toKey( groupId, artifactId, type ) );
+        if ( candidates == null )
+        {
+            return null;
+        }
+
+        for ( Module module : candidates )
+        {
+            if ( ignoreVersions || Objects.equals( module.getVersion(), version ) )
+            {
+                return module;
+            }
+        }
+
+        return null;
+    }
+
+    private static String toKey( String groupId, String artifactId, String type )
+    {
+        return groupId + ":" + artifactId + ":" + type;
+    }
+}
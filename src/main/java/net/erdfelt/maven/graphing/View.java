@@ -0,0 +1,183 @@
+package net.erdfelt.maven.graphing;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.List;
+
+/**
+ * A named view of the collected reactor model, rendered to one or more output formats.
+ * <p>
+ * Example configuration:
+ *
+ * <pre>
+ * &lt;views&gt;
+ *   &lt;view&gt;
+ *     &lt;name&gt;full&lt;/name&gt;
+ *     &lt;title&gt;Modules (with tests)&lt;/title&gt;
+ *     &lt;includeTests&gt;true&lt;/includeTests&gt;
+ *     &lt;showVersions&gt;true&lt;/showVersions&gt;
+ *     &lt;compact&gt;true&lt;/compact&gt;
+ *     &lt;formats&gt;
+ *       &lt;format&gt;png&lt;/format&gt;
+ *       &lt;format&gt;svg&lt;/format&gt;
+ *     &lt;/formats&gt;
+ *   &lt;/view&gt;
+ * &lt;/views&gt;
+ * </pre>
+ *
+ * Unset options fall back to the mojo level configuration.
+ *
+ * @since 1.0.2
+ */
+public class View
+{
+    private String name;
+
+    private String title;
+
+    private String outputName;
+
+    private List<String> formats;
+
+    private Boolean includeTests;
+
+    private Boolean showVersions;
+
+    private Boolean aggregate;
+
+    private Boolean compact;
+
+    public View()
+    {
+        /* for maven configuration */
+    }
+
+    public View(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * @return the name of the view, used for the default output name.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * @return the graph title, or null for the mojo default.
+     */
+    public String getTitle()
+    {
+        return title;
+    }
+
+    public void setTitle(String title)
+    {
+        this.title = title;
+    }
+
+    /**
+     * @return the output file name without extension, or null for <code>graph-${name}</code>.
+     */
+    public String getOutputName()
+    {
+        return outputName;
+    }
+
+    public void setOutputName(String outputName)
+    {
+        this.outputName = outputName;
+    }
+
+    /**
+     * @return the output formats (file extensions), or null for the mojo default.
+     */
+    public List<String> getFormats()
+    {
+        return formats;
+    }
+
+    public void setFormats(List<String> formats)
+    {
+        this.formats = formats;
+    }
+
+    /**
+     * @return true if test scoped dependencies are shown, or null for the mojo default.
+     */
+    public Boolean getIncludeTests()
+    {
+        return includeTests;
+    }
+
+    public void setIncludeTests(Boolean includeTests)
+    {
+        this.includeTests = includeTests;
+    }
+
+    /**
+     * @return true if versions are part of the node labels, or null for the mojo default.
+     */
+    public Boolean getShowVersions()
+    {
+        return showVersions;
+    }
+
+    public void setShowVersions(Boolean showVersions)
+    {
+        this.showVersions = showVersions;
+    }
+
+    /**
+     * @return true if the modules are aggregated by groupId, or null for the mojo default.
+     */
+    public Boolean getAggregate()
+    {
+        return aggregate;
+    }
+
+    public void setAggregate(Boolean aggregate)
+    {
+        this.aggregate = aggregate;
+    }
+
+    /**
+     * @return true if the graph is compacted before rendering, or null for the mojo default.
+     */
+    public Boolean getCompact()
+    {
+        return compact;
+    }
+
+    public void setCompact(Boolean compact)
+    {
+        this.compact = compact;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "View[" + name + "]";
+    }
+}
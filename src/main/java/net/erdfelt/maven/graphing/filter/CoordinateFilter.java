@@ -0,0 +1,331 @@
+package net.erdfelt.maven.graphing.filter;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Include / exclude filter on <code>groupId:artifactId:type:scope</code> coordinates, compiled once for fast
+ * matching.
+ * <p>
+ * Each pattern has up to four <code>:</code> separated parts, missing trailing parts match anything. Every part may
+ * use <code>*</code> wildcards. A groupId ending in <code>.*</code> matches that group and all of its sub groups.
+ * <p>
+ * Examples:
+ *
+ * <pre>
+ *   org.example                  (all of groupId org.example)
+ *   org.example.*                (org.example and its sub groups)
+ *   *:*-impl                     (any artifactId ending in -impl)
+ *   *:*:test-jar                 (test jars)
+ *   *:*:*:test                   (test scoped dependencies)
+ * </pre>
+ *
+ * Exact and <code>.*</code> groupIds are held in a trie over the groupId segments, so the cost of a lookup depends on
+ * the depth of the groupId, not on the number of patterns.
+ *
+ * @since 1.0.2
+ */
+public class CoordinateFilter
+{
+    /**
+     * A filter including everything.
+     */
+    public static final CoordinateFilter ALL = new CoordinateFilter( null, null );
+
+    /**
+     * The scope of a dependency which does not declare one.
+     */
+    public static final String DEFAULT_SCOPE = "compile";
+
+    /**
+     * The artifactId / type / scope parts of a pattern.
+     */
+    private static class Rest
+    {
+        private final Glob artifactId;
+
+        private final Glob type;
+
+        private final Glob scope;
+
+        Rest( Glob artifactId, Glob type, Glob scope )
+        {
+            this.artifactId = artifactId;
+            this.type = type;
+            this.scope = scope;
+        }
+
+        /**
+         * @param ignoreScope true to match regardless of the scope part, used for includes without a scope.
+         */
+        boolean matches( String artifactIdValue, String typeValue, String scopeValue, boolean ignoreScope )
+        {
+            if ( !artifactId.matches( artifactIdValue ) || !type.matches( typeValue ) )
+            {
+                return false;
+            }
+
+            if ( ( scopeValue == null ) && !ignoreScope )
+            {
+                // Projects have no scope, only patterns without a scope restriction match. Dependencies without a
+                // scope arrive here with the default scope.
+                return scope.isAny();
+            }
+
+            return ignoreScope || scope.matches( scopeValue );
+        }
+    }
+
+    private static class TrieNode
+    {
+        private Map<String, TrieNode> children;
+
+        private List<Rest> exact;
+
+        private List<Rest> subtree;
+
+        TrieNode child( String segment, boolean create )
+        {
+            if ( children == null )
+            {
+                if ( !create )
+                {
+                    return null;
+                }
+                children = new HashMap<String, TrieNode>();
+            }
+
+            TrieNode node = children.get( segment );
+            if ( ( node == null ) && create )
+            {
+                node = new TrieNode();
+                children.put( segment, node );
+            }
+            return node;
+        }
+    }
+
+    /**
+     * The compiled patterns.
+     */
+    private static class Matcher
+    {
+        private final TrieNode root = new TrieNode();
+
+        private final List<Glob> globGroupIds = new ArrayList<Glob>();
+
+        private final List<Rest> globRests = new ArrayList<Rest>();
+
+        void add( String pattern )
+        {
+            String[] parts = pattern.trim().split( ":", -1 );
+            if ( parts.length > 4 )
+            {
+                throw new IllegalArgumentException( "Invalid pattern, expected groupId:artifactId:type:scope - "
+                    + pattern );
+            }
+
+            Rest rest = new Rest( Glob.compile( part( parts, 1 ) ), Glob.compile( part( parts, 2 ) ),
+                                  Glob.compile( part( parts, 3 ) ) );
+            String groupId = part( parts, 0 );
+
+            if ( ( groupId == null ) || groupId.equals( "*" ) )
+            {
+                root.subtree = append( root.subtree, rest );
+            }
+            else if ( groupId.indexOf( '*' ) < 0 )
+            {
+                TrieNode node = walk( groupId );
+                node.exact = append( node.exact, rest );
+            }
+            else if ( groupId.endsWith( ".*" ) && ( groupId.indexOf( '*' ) == groupId.length() - 1 ) )
+            {
+                TrieNode node = walk( groupId.substring( 0, groupId.length() - 2 ) );
+                node.subtree = append( node.subtree, rest );
+            }
+            else
+            {
+                globGroupIds.add( Glob.compile( groupId ) );
+                globRests.add( rest );
+            }
+        }
+
+        private TrieNode walk( String groupId )
+        {
+            TrieNode node = root;
+            for ( String segment : groupId.split( "\\." ) )
+            {
+                node = node.child( segment, true );
+            }
+            return node;
+        }
+
+        boolean matches( String groupId, String artifactId, String type, String scope, boolean ignoreScope )
+        {
+            TrieNode node = root;
+            if ( matchesAny( node.subtree, artifactId, type, scope, ignoreScope ) )
+            {
+                return true;
+            }
+
+            if ( groupId != null )
+            {
+                int start = 0;
+                while ( node != null )
+                {
+                    int end = groupId.indexOf( '.', start );
+                    String segment = groupId.substring( start, ( end < 0 ) ? groupId.length() : end );
+                    node = node.child( segment, false );
+                    if ( node == null )
+                    {
+                        break;
+                    }
+                    if ( matchesAny( node.subtree, artifactId, type, scope, ignoreScope ) )
+                    {
+                        return true;
+                    }
+                    if ( end < 0 )
+                    {
+                        if ( matchesAny( node.exact, artifactId, type, scope, ignoreScope ) )
+                        {
+                            return true;
+                        }
+                        break;
+                    }
+                    start = end + 1;
+                }
+            }
+
+            for ( int i = 0; i < globGroupIds.size(); i++ )
+            {
+                if ( globGroupIds.get( i ).matches( groupId )
+                    && globRests.get( i ).matches( artifactId, type, scope, ignoreScope ) )
+                {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private static boolean matchesAny( List<Rest> rests, String artifactId, String type, String scope,
+                                           boolean ignoreScope )
+        {
+            if ( rests != null )
+            {
+                for ( Rest rest : rests )
+                {
+                    if ( rest.matches( artifactId, type, scope, ignoreScope ) )
+                    {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static List<Rest> append( List<Rest> list, Rest rest )
+        {
+            List<Rest> ret = ( list == null ) ? new ArrayList<Rest>( 1 ) : list;
+            ret.add( rest );
+            return ret;
+        }
+
+        private static String part( String[] parts, int index )
+        {
+            return ( index < parts.length ) ? parts[index].trim() : null;
+        }
+    }
+
+    private final Matcher includes;
+
+    private final Matcher excludes;
+
+    private CoordinateFilter( Matcher includes, Matcher excludes )
+    {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    /**
+     * Compile the include and exclude patterns.
+     *
+     * @param includePatterns the patterns to include, null or empty to include everything.
+     * @param excludePatterns the patterns to exclude, may be null.
+     * @return the compiled filter.
+     * @throws IllegalArgumentException if a pattern is malformed.
+     */
+    public static CoordinateFilter compile( List<String> includePatterns, List<String> excludePatterns )
+    {
+        return new CoordinateFilter( toMatcher( includePatterns ), toMatcher( excludePatterns ) );
+    }
+
+    private static Matcher toMatcher( List<String> patterns )
+    {
+        if ( ( patterns == null ) || patterns.isEmpty() )
+        {
+            return null;
+        }
+
+        Matcher matcher = new Matcher();
+        for ( String pattern : patterns )
+        {
+            matcher.add( pattern );
+        }
+        return matcher;
+    }
+
+    /**
+     * @param groupId the groupId.
+     * @param artifactId the artifactId.
+     * @param type the type.
+     * @param scope the scope of the dependency, or null for the default {@value #DEFAULT_SCOPE} scope.
+     * @return true if the dependency coordinates are included and not excluded.
+     */
+    public boolean isIncluded( String groupId, String artifactId, String type, String scope )
+    {
+        return matches( groupId, artifactId, type, ( scope == null ) ? DEFAULT_SCOPE : scope );
+    }
+
+    /**
+     * A reactor project has no scope: include patterns are matched ignoring their scope part, while exclude patterns
+     * only match when they have no scope part.
+     *
+     * @param groupId the groupId.
+     * @param artifactId the artifactId.
+     * @param packaging the packaging.
+     * @return true if the project coordinates are included and not excluded.
+     */
+    public boolean isProjectIncluded( String groupId, String artifactId, String packaging )
+    {
+        return matches( groupId, artifactId, packaging, null );
+    }
+
+    private boolean matches( String groupId, String artifactId, String type, String scope )
+    {
+        if ( ( includes != null ) && !includes.matches( groupId, artifactId, type, scope, scope == null ) )
+        {
+            return false;
+        }
+
+        return ( excludes == null ) || !excludes.matches( groupId, artifactId, type, scope, false );
+    }
+}
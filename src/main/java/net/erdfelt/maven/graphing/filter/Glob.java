@@ -0,0 +1,155 @@
+package net.erdfelt.maven.graphing.filter;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.regex.Pattern;
+
+/**
+ * A precompiled wildcard (<code>*</code>) pattern.
+ * <p>
+ * The common shapes (any, exact, prefix, suffix, contains) are matched without regular expressions.
+ *
+ * @since 1.0.2
+ */
+public abstract class Glob
+{
+    public static final Glob ANY = new Glob( "*" )
+    {
+        @Override
+        public boolean matches( String value )
+        {
+            return true;
+        }
+    };
+
+    private final String pattern;
+
+    protected Glob( String pattern )
+    {
+        this.pattern = pattern;
+    }
+
+    /**
+     * @param value the value to test, may be null.
+     * @return true if the value matches this pattern.
+     */
+    public abstract boolean matches( String value );
+
+    public boolean isAny()
+    {
+        return this == ANY;
+    }
+
+    @Override
+    public String toString()
+    {
+        return pattern;
+    }
+
+    /**
+     * Compile a wildcard pattern.
+     *
+     * @param pattern the pattern, where <code>*</code> matches any run of characters. Empty or null matches anything.
+     * @return the compiled pattern.
+     */
+    public static Glob compile( final String pattern )
+    {
+        if ( ( pattern == null ) || ( pattern.length() == 0 ) || pattern.equals( "*" ) )
+        {
+            return ANY;
+        }
+
+        int first = pattern.indexOf( '*' );
+        if ( first < 0 )
+        {
+            return new Glob( pattern )
+            {
+                @Override
+                public boolean matches( String value )
+                {
+                    return pattern.equals( value );
+                }
+            };
+        }
+
+        int last = pattern.lastIndexOf( '*' );
+        if ( ( first == last ) && ( first == pattern.length() - 1 ) )
+        {
+            final String prefix = pattern.substring( 0, first );
+            return new Glob( pattern )
+            {
+                @Override
+                public boolean matches( String value )
+                {
+                    return ( value != null ) && value.startsWith( prefix );
+                }
+            };
+        }
+
+        if ( ( first == last ) && ( first == 0 ) )
+        {
+            final String suffix = pattern.substring( 1 );
+            return new Glob( pattern )
+            {
+                @Override
+                public boolean matches( String value )
+                {
+                    return ( value != null ) && value.endsWith( suffix );
+                }
+            };
+        }
+
+        if ( ( first == 0 ) && ( last == pattern.length() - 1 ) && ( pattern.indexOf( '*', 1 ) == last ) )
+        {
+            final String infix = pattern.substring( 1, last );
+            return new Glob( pattern )
+            {
+                @Override
+                public boolean matches( String value )
+                {
+                    return ( value != null ) && value.contains( infix );
+                }
+            };
+        }
+
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        for ( int i = first; i >= 0; i = pattern.indexOf( '*', start ) )
+        {
+            if ( i > start )
+            {
+                regex.append( Pattern.quote( pattern.substring( start, i ) ) );
+            }
+            regex.append( ".*" );
+            start = i + 1;
+        }
+        if ( start < pattern.length() )
+        {
+            regex.append( Pattern.quote( pattern.substring( start ) ) );
+        }
+
+        final Pattern compiled = Pattern.compile( regex.toString() );
+        return new Glob( pattern )
+        {
+            @Override
+            public boolean matches( String value )
+            {
+                return ( value != null ) && compiled.matcher( value ).matches();
+            }
+        };
+    }
+}
@@ -18,8 +18,9 @@ package net.erdfelt.maven.graphing.graph;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
-import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.GraphView;
 
 /**
  * GraphRenderer - A renderer of static graphs (non-interactive).
@@ -66,5 +67,22 @@ public interface GraphRenderer
      * @throws GraphingException
      *             if there was a problem creating the graph.
      */
-    public void render(Graph graph, File outputFile) throws IOException, GraphingException;
+    public void render(GraphView graph, File outputFile) throws IOException, GraphingException;
+
+    /**
+     * Render this graphmodel to several output files in one pass.
+     * <p>
+     * The output format of each file is taken from its extension. Implementations are expected to lay out the graph
+     * only once, regardless of the number of output files, and must be safe to call concurrently with different graphs.
+     * 
+     * @param graph
+     *            the graph model to render.
+     * @param outputFiles
+     *            the output files to create.
+     * @throws IOException
+     *             if there was a problem producing the files.
+     * @throws GraphingException
+     *             if there was a problem creating the graph.
+     */
+    public void render(GraphView graph, List<File> outputFiles) throws IOException, GraphingException;
 }
@@ -16,10 +16,12 @@ package net.erdfelt.maven.graphing.graph.decorator;
  * limitations under the License.
  */
 
-import java.awt.Color;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
 
 /**
  * EdgeDecorator
+ * <p>
+ * A mutable builder of {@link EdgeStyle}s.
  * 
  * <p>
  * Original code by <a href="michal.maczka@dimatics.com">Michal Maczka</a>
@@ -46,7 +48,7 @@ public class EdgeDecorator
         NONE, ARROW, DOT, HOLLOW_DOT, INVERT_ARROW, INVERT_ARROW_DOT, INVERT_ARROW_HOLLOW_DOT
     };
 
-    private Color lineColor;
+    private Rgba lineColor;
 
     private EndingStyles lineHead = EndingStyles.ARROW;
 
@@ -58,12 +60,36 @@ public class EdgeDecorator
 
     private int fontSize = 8;
 
-    public Color getLineColor()
+    private double penWidth;
+
+    public EdgeDecorator()
+    {
+        /* defaults */
+    }
+
+    /**
+     * Start from an existing style.
+     * 
+     * @param style
+     *            the style to copy.
+     */
+    public EdgeDecorator(EdgeStyle style)
+    {
+        this.lineColor = style.getLineColor();
+        this.lineHead = style.getLineHead();
+        this.lineTail = style.getLineTail();
+        this.lineLabel = style.getLineLabel();
+        this.style = style.getLineStyle();
+        this.fontSize = style.getFontSize();
+        this.penWidth = style.getPenWidth();
+    }
+
+    public Rgba getLineColor()
     {
         return lineColor;
     }
 
-    public void setLineColor(Color lineColor)
+    public void setLineColor(Rgba lineColor)
     {
         this.lineColor = lineColor;
     }
@@ -123,4 +149,25 @@ public class EdgeDecorator
     {
         this.fontSize = fontSize;
     }
+
+    /**
+     * @return the line width, 0 or less for the default.
+     */
+    public double getPenWidth()
+    {
+        return penWidth;
+    }
+
+    public void setPenWidth(double penWidth)
+    {
+        this.penWidth = penWidth;
+    }
+
+    /**
+     * @return the shared, immutable, style for the current settings.
+     */
+    public EdgeStyle toStyle()
+    {
+        return EdgeStyle.of(lineColor,lineHead,lineTail,lineLabel,style,fontSize,penWidth);
+    }
 }
@@ -0,0 +1,232 @@
+package net.erdfelt.maven.graphing.graph.decorator;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeDecorator.EndingStyles;
+import net.erdfelt.maven.graphing.graph.decorator.EdgeDecorator.LineStyle;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+/**
+ * Immutable, interned, style of an {@link net.erdfelt.maven.graphing.graph.model.Edge}.
+ * <p>
+ * Equal styles are the same instance, see {@link NodeStyle}. Use {@link EdgeDecorator} to build a style, or one of
+ * the <code>with</code> methods to derive one.
+ *
+ * @since 1.0.2
+ */
+public final class EdgeStyle implements Serializable
+{
+    private static final long serialVersionUID = 4710126946011502273L;
+
+    private static final ConcurrentMap<EdgeStyle, EdgeStyle> POOL = new ConcurrentHashMap<EdgeStyle, EdgeStyle>();
+
+    /**
+     * The style of edges without a style of their own.
+     */
+    public static final EdgeStyle DEFAULT = intern(new EdgeStyle(null,EndingStyles.ARROW,EndingStyles.NONE,null,
+            LineStyle.NORMAL,8,0));
+
+    private final Rgba lineColor;
+
+    private final EndingStyles lineHead;
+
+    private final EndingStyles lineTail;
+
+    private final String lineLabel;
+
+    private final LineStyle lineStyle;
+
+    private final int fontSize;
+
+    private final double penWidth;
+
+    private final transient int hash;
+
+    private EdgeStyle(Rgba lineColor, EndingStyles lineHead, EndingStyles lineTail, String lineLabel,
+            LineStyle lineStyle, int fontSize, double penWidth)
+    {
+        this.lineColor = lineColor;
+        this.lineHead = (lineHead == null) ? EndingStyles.ARROW : lineHead;
+        this.lineTail = (lineTail == null) ? EndingStyles.NONE : lineTail;
+        this.lineLabel = lineLabel;
+        this.lineStyle = (lineStyle == null) ? LineStyle.NORMAL : lineStyle;
+        this.fontSize = fontSize;
+        this.penWidth = penWidth;
+        this.hash = Objects.hash(lineColor,this.lineHead,this.lineTail,lineLabel,this.lineStyle,fontSize,penWidth);
+    }
+
+    /**
+     * Get the shared style with the provided attributes.
+     *
+     * @param lineColor
+     *            the line color, or null for the default.
+     * @param lineHead
+     *            the ending at the target node, null for {@link EndingStyles#ARROW}.
+     * @param lineTail
+     *            the ending at the source node, null for {@link EndingStyles#NONE}.
+     * @param lineLabel
+     *            the label, or null for none.
+     * @param lineStyle
+     *            the line style, null for {@link LineStyle#NORMAL}.
+     * @param fontSize
+     *            the label font size, 0 or less for the default.
+     * @return the interned style.
+     */
+    public static EdgeStyle of(Rgba lineColor, EndingStyles lineHead, EndingStyles lineTail, String lineLabel,
+            LineStyle lineStyle, int fontSize)
+    {
+        return of(lineColor,lineHead,lineTail,lineLabel,lineStyle,fontSize,0);
+    }
+
+    /**
+     * Get the shared style with the provided attributes, see {@link #of(Rgba, EndingStyles, EndingStyles, String,
+     * LineStyle, int)}.
+     *
+     * @param penWidth
+     *            the line width, 0 or less for the default.
+     * @return the interned style.
+     */
+    public static EdgeStyle of(Rgba lineColor, EndingStyles lineHead, EndingStyles lineTail, String lineLabel,
+            LineStyle lineStyle, int fontSize, double penWidth)
+    {
+        return intern(new EdgeStyle(lineColor,lineHead,lineTail,lineLabel,lineStyle,fontSize,penWidth));
+    }
+
+    private static EdgeStyle intern(EdgeStyle style)
+    {
+        EdgeStyle existing = POOL.putIfAbsent(style,style);
+        return (existing == null) ? style : existing;
+    }
+
+    public Rgba getLineColor()
+    {
+        return lineColor;
+    }
+
+    public EndingStyles getLineHead()
+    {
+        return lineHead;
+    }
+
+    public EndingStyles getLineTail()
+    {
+        return lineTail;
+    }
+
+    public String getLineLabel()
+    {
+        return lineLabel;
+    }
+
+    public LineStyle getLineStyle()
+    {
+        return lineStyle;
+    }
+
+    public int getFontSize()
+    {
+        return fontSize;
+    }
+
+    /**
+     * @return the line width, 0 or less for the default.
+     */
+    public double getPenWidth()
+    {
+        return penWidth;
+    }
+
+    public EdgeStyle withLineColor(Rgba color)
+    {
+        return of(color,lineHead,lineTail,lineLabel,lineStyle,fontSize,penWidth);
+    }
+
+    public EdgeStyle withLineHead(EndingStyles ending)
+    {
+        return of(lineColor,ending,lineTail,lineLabel,lineStyle,fontSize,penWidth);
+    }
+
+    public EdgeStyle withLineTail(EndingStyles ending)
+    {
+        return of(lineColor,lineHead,ending,lineLabel,lineStyle,fontSize,penWidth);
+    }
+
+    public EdgeStyle withLineLabel(String label)
+    {
+        return of(lineColor,lineHead,lineTail,label,lineStyle,fontSize,penWidth);
+    }
+
+    public EdgeStyle withLineStyle(LineStyle style)
+    {
+        return of(lineColor,lineHead,lineTail,lineLabel,style,fontSize,penWidth);
+    }
+
+    public EdgeStyle withFontSize(int size)
+    {
+        return of(lineColor,lineHead,lineTail,lineLabel,lineStyle,size,penWidth);
+    }
+
+    public EdgeStyle withPenWidth(double width)
+    {
+        return of(lineColor,lineHead,lineTail,lineLabel,lineStyle,fontSize,width);
+    }
+
+    /**
+     * Deserialized styles are replaced by their interned instance.
+     */
+    private Object readResolve() throws ObjectStreamException
+    {
+        return of(lineColor,lineHead,lineTail,lineLabel,lineStyle,fontSize,penWidth);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (!(obj instanceof EdgeStyle))
+        {
+            return false;
+        }
+        EdgeStyle other = (EdgeStyle)obj;
+        return (hash == other.hash) && (fontSize == other.fontSize)
+                && (Double.compare(penWidth,other.penWidth) == 0) && (lineHead == other.lineHead)
+                && (lineTail == other.lineTail) && (lineStyle == other.lineStyle)
+                && Objects.equals(lineColor,other.lineColor) && Objects.equals(lineLabel,other.lineLabel);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "EdgeStyle[color=" + lineColor + ",head=" + lineHead + ",tail=" + lineTail + ",label=" + lineLabel
+                + ",style=" + lineStyle + ",fontSize=" + fontSize + ",penWidth=" + penWidth + "]";
+    }
+}
@@ -16,7 +16,7 @@ package net.erdfelt.maven.graphing.graph.decorator;
  * limitations under the License.
  */
 
-import java.awt.Color;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
 
 /**
  * GraphDecorator
@@ -30,9 +30,9 @@ public class GraphDecorator
 
     public static final int TOP_TO_BOTTOM = 2;
 
-    private Color backgroundColor;
+    private Rgba backgroundColor;
 
-    private Color titleColor;
+    private Rgba titleColor;
 
     private int orientation;
 
@@ -40,12 +40,31 @@ public class GraphDecorator
 
     private int fontSize = 11;
 
-    public Color getBackgroundColor()
+    public GraphDecorator()
+    {
+    }
+
+    /**
+     * Copy constructor.
+     * 
+     * @param other
+     *            the decorator to copy.
+     */
+    public GraphDecorator(GraphDecorator other)
+    {
+        this.backgroundColor = other.backgroundColor;
+        this.titleColor = other.titleColor;
+        this.orientation = other.orientation;
+        this.title = other.title;
+        this.fontSize = other.fontSize;
+    }
+
+    public Rgba getBackgroundColor()
     {
         return backgroundColor;
     }
 
-    public void setBackgroundColor(Color backgroundColor)
+    public void setBackgroundColor(Rgba backgroundColor)
     {
         this.backgroundColor = backgroundColor;
     }
@@ -70,12 +89,12 @@ public class GraphDecorator
         this.title = title;
     }
 
-    public Color getTitleColor()
+    public Rgba getTitleColor()
     {
         return titleColor;
     }
 
-    public void setTitleColor(Color titleColor)
+    public void setTitleColor(Rgba titleColor)
     {
         this.titleColor = titleColor;
     }
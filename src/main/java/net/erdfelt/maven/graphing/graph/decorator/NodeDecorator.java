@@ -16,41 +16,63 @@ package net.erdfelt.maven.graphing.graph.decorator;
  * limitations under the License.
  */
 
-import java.awt.Color;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
 
 /**
  * NodeDecorator
+ * <p>
+ * A mutable builder of {@link NodeStyle}s.
  * 
  * @version $Id$
  */
 public class NodeDecorator
 {
-    private Color backgroundColor;
+    private Rgba backgroundColor;
 
-    private Color borderColor;
+    private Rgba borderColor;
 
-    private Color labelColor;
+    private Rgba labelColor;
 
     private String groupName;
 
     private int fontSize = 8;
 
-    public Color getBackgroundColor()
+    public NodeDecorator()
+    {
+        /* defaults */
+    }
+
+    /**
+     * Start from an existing style.
+     * 
+     * @param style
+     *            the style to copy.
+     */
+    public NodeDecorator(NodeStyle style)
+    {
+        this.backgroundColor = style.getBackgroundColor();
+        this.borderColor = style.getBorderColor();
+        this.labelColor = style.getLabelColor();
+        this.groupName = style.getGroupName();
+        this.fontSize = style.getFontSize();
+    }
+
+    public Rgba getBackgroundColor()
     {
         return backgroundColor;
     }
 
-    public void setBackgroundColor(Color backgroundColor)
+    public void setBackgroundColor(Rgba backgroundColor)
     {
         this.backgroundColor = backgroundColor;
     }
 
-    public Color getBorderColor()
+    public Rgba getBorderColor()
     {
         return borderColor;
     }
 
-    public void setBorderColor(Color borderColor)
+    public void setBorderColor(Rgba borderColor)
     {
         this.borderColor = borderColor;
     }
@@ -65,12 +87,12 @@ public class NodeDecorator
         this.groupName = groupName;
     }
 
-    public Color getLabelColor()
+    public Rgba getLabelColor()
     {
         return labelColor;
     }
 
-    public void setLabelColor(Color labelColor)
+    public void setLabelColor(Rgba labelColor)
     {
         this.labelColor = labelColor;
     }
@@ -85,4 +107,11 @@ public class NodeDecorator
         this.fontSize = fontSize;
     }
 
+    /**
+     * @return the shared, immutable, style for the current settings.
+     */
+    public NodeStyle toStyle()
+    {
+        return NodeStyle.of(backgroundColor,borderColor,labelColor,groupName,fontSize);
+    }
 }
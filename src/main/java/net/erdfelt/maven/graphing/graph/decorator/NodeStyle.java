@@ -0,0 +1,184 @@
+package net.erdfelt.maven.graphing.graph.decorator;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+/**
+ * Immutable, interned, style of a {@link net.erdfelt.maven.graphing.graph.model.Node}.
+ * <p>
+ * Equal styles are the same instance, so nodes with the same appearance share one style, and the memory used by
+ * styles depends on the number of distinct styles, not on the size of the graph. Use {@link NodeDecorator} to build
+ * a style, or one of the <code>with</code> methods to derive one.
+ *
+ * @since 1.0.2
+ */
+public final class NodeStyle implements Serializable
+{
+    private static final long serialVersionUID = -2377436013398529817L;
+
+    private static final ConcurrentMap<NodeStyle, NodeStyle> POOL = new ConcurrentHashMap<NodeStyle, NodeStyle>();
+
+    /**
+     * The style of nodes without a style of their own.
+     */
+    public static final NodeStyle DEFAULT = intern(new NodeStyle(null,null,null,null,8));
+
+    private final Rgba backgroundColor;
+
+    private final Rgba borderColor;
+
+    private final Rgba labelColor;
+
+    private final String groupName;
+
+    private final int fontSize;
+
+    private final transient int hash;
+
+    private NodeStyle(Rgba backgroundColor, Rgba borderColor, Rgba labelColor, String groupName, int fontSize)
+    {
+        this.backgroundColor = backgroundColor;
+        this.borderColor = borderColor;
+        this.labelColor = labelColor;
+        this.groupName = groupName;
+        this.fontSize = fontSize;
+        this.hash = Objects.hash(backgroundColor,borderColor,labelColor,groupName,fontSize);
+    }
+
+    /**
+     * Get the shared style with the provided attributes.
+     *
+     * @param backgroundColor
+     *            the fill color, or null for none.
+     * @param borderColor
+     *            the border color, or null for the default.
+     * @param labelColor
+     *            the label color, or null for the default.
+     * @param groupName
+     *            the group, or null for none.
+     * @param fontSize
+     *            the font size, 0 or less for the default.
+     * @return the interned style.
+     */
+    public static NodeStyle of(Rgba backgroundColor, Rgba borderColor, Rgba labelColor, String groupName,
+            int fontSize)
+    {
+        return intern(new NodeStyle(backgroundColor,borderColor,labelColor,groupName,fontSize));
+    }
+
+    private static NodeStyle intern(NodeStyle style)
+    {
+        NodeStyle existing = POOL.putIfAbsent(style,style);
+        return (existing == null) ? style : existing;
+    }
+
+    public Rgba getBackgroundColor()
+    {
+        return backgroundColor;
+    }
+
+    public Rgba getBorderColor()
+    {
+        return borderColor;
+    }
+
+    public Rgba getLabelColor()
+    {
+        return labelColor;
+    }
+
+    public String getGroupName()
+    {
+        return groupName;
+    }
+
+    public int getFontSize()
+    {
+        return fontSize;
+    }
+
+    public NodeStyle withBackgroundColor(Rgba color)
+    {
+        return of(color,borderColor,labelColor,groupName,fontSize);
+    }
+
+    public NodeStyle withBorderColor(Rgba color)
+    {
+        return of(backgroundColor,color,labelColor,groupName,fontSize);
+    }
+
+    public NodeStyle withLabelColor(Rgba color)
+    {
+        return of(backgroundColor,borderColor,color,groupName,fontSize);
+    }
+
+    public NodeStyle withGroupName(String name)
+    {
+        return of(backgroundColor,borderColor,labelColor,name,fontSize);
+    }
+
+    public NodeStyle withFontSize(int size)
+    {
+        return of(backgroundColor,borderColor,labelColor,groupName,size);
+    }
+
+    /**
+     * Deserialized styles are replaced by their interned instance.
+     */
+    private Object readResolve() throws ObjectStreamException
+    {
+        return of(backgroundColor,borderColor,labelColor,groupName,fontSize);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (!(obj instanceof NodeStyle))
+        {
+            return false;
+        }
+        NodeStyle other = (NodeStyle)obj;
+        return (hash == other.hash) && (fontSize == other.fontSize)
+                && Objects.equals(backgroundColor,other.backgroundColor)
+                && Objects.equals(borderColor,other.borderColor) && Objects.equals(labelColor,other.labelColor)
+                && Objects.equals(groupName,other.groupName);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "NodeStyle[background=" + backgroundColor + ",border=" + borderColor + ",label=" + labelColor
+                + ",group=" + groupName + ",fontSize=" + fontSize + "]";
+    }
+}
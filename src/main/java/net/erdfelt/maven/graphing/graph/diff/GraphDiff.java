@@ -0,0 +1,375 @@
+package net.erdfelt.maven.graphing.graph.diff;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeDecorator.LineStyle;
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.GraphConstraintException;
+import net.erdfelt.maven.graphing.graph.model.GraphView;
+import net.erdfelt.maven.graphing.graph.model.Node;
+import net.erdfelt.maven.graphing.graph.util.JsonUtil;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+/**
+ * The structural difference between two graphs, as computed by {@link GraphDiffer}: the nodes and edges only present
+ * in the new graph (added) or only in the old graph (removed).
+ * <p>
+ * The changes are sorted by label, so reports are stable between runs. Each list is sorted on first read, so
+ * computing a diff stays linear when only its size is needed.
+ * <p>
+ * Not thread safe.
+ *
+ * @since 1.0.2
+ */
+public class GraphDiff
+{
+    public static final NodeStyle ADDED_NODE_STYLE = NodeStyle.DEFAULT.withBackgroundColor(Rgba.of(200,255,200))
+            .withBorderColor(Rgba.GREEN);
+
+    public static final NodeStyle REMOVED_NODE_STYLE = NodeStyle.DEFAULT.withBackgroundColor(Rgba.of(255,200,200))
+            .withBorderColor(Rgba.RED).withLabelColor(Rgba.GRAY);
+
+    public static final EdgeStyle ADDED_EDGE_STYLE = EdgeStyle.DEFAULT.withLineColor(Rgba.GREEN)
+            .withLineStyle(LineStyle.BOLD);
+
+    public static final EdgeStyle REMOVED_EDGE_STYLE = EdgeStyle.DEFAULT.withLineColor(Rgba.RED)
+            .withLineStyle(LineStyle.DASHED);
+
+    /**
+     * An edge, identified by the labels of its nodes.
+     */
+    public static final class EdgeKey implements Comparable<EdgeKey>
+    {
+        private final String from;
+
+        private final String to;
+
+        public EdgeKey(String from, String to)
+        {
+            this.from = from;
+            this.to = to;
+        }
+
+        public String getFrom()
+        {
+            return from;
+        }
+
+        public String getTo()
+        {
+            return to;
+        }
+
+        public int compareTo(EdgeKey other)
+        {
+            int diff = from.compareTo(other.from);
+            return diff != 0 ? diff : to.compareTo(other.to);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (31 * from.hashCode()) + to.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof EdgeKey))
+            {
+                return false;
+            }
+            EdgeKey other = (EdgeKey)obj;
+            return from.equals(other.from) && to.equals(other.to);
+        }
+
+        @Override
+        public String toString()
+        {
+            return "[" + from + "] -> [" + to + "]";
+        }
+    }
+
+    private final GraphView before;
+
+    private final GraphView after;
+
+    private List<String> addedNodes;
+
+    private List<String> removedNodes;
+
+    private List<EdgeKey> addedEdges;
+
+    private List<EdgeKey> removedEdges;
+
+    private boolean sorted;
+
+    private final int unchangedNodeCount;
+
+    private final int unchangedEdgeCount;
+
+    GraphDiff(GraphView before, GraphView after, List<String> addedNodes, List<String> removedNodes,
+            List<EdgeKey> addedEdges, List<EdgeKey> removedEdges, int unchangedNodeCount, int unchangedEdgeCount)
+    {
+        this.before = before;
+        this.after = after;
+        this.addedNodes = addedNodes;
+        this.removedNodes = removedNodes;
+        this.addedEdges = addedEdges;
+        this.removedEdges = removedEdges;
+        this.unchangedNodeCount = unchangedNodeCount;
+        this.unchangedEdgeCount = unchangedEdgeCount;
+    }
+
+    private static <T extends Comparable<? super T>> List<T> sort(List<T> list)
+    {
+        Collections.sort(list);
+        return Collections.unmodifiableList(list);
+    }
+
+    private void sort()
+    {
+        if (!sorted)
+        {
+            addedNodes = sort(addedNodes);
+            removedNodes = sort(removedNodes);
+            addedEdges = sort(addedEdges);
+            removedEdges = sort(removedEdges);
+            sorted = true;
+        }
+    }
+
+    public GraphView getBefore()
+    {
+        return before;
+    }
+
+    public GraphView getAfter()
+    {
+        return after;
+    }
+
+    public List<String> getAddedNodes()
+    {
+        sort();
+        return addedNodes;
+    }
+
+    public List<String> getRemovedNodes()
+    {
+        sort();
+        return removedNodes;
+    }
+
+    public List<EdgeKey> getAddedEdges()
+    {
+        sort();
+        return addedEdges;
+    }
+
+    public List<EdgeKey> getRemovedEdges()
+    {
+        sort();
+        return removedEdges;
+    }
+
+    public int getUnchangedNodeCount()
+    {
+        return unchangedNodeCount;
+    }
+
+    public int getUnchangedEdgeCount()
+    {
+        return unchangedEdgeCount;
+    }
+
+    /**
+     * @return true if both graphs have the same nodes and edges.
+     */
+    public boolean isEmpty()
+    {
+        return addedNodes.isEmpty() && removedNodes.isEmpty() && addedEdges.isEmpty() && removedEdges.isEmpty();
+    }
+
+    /**
+     * Build a graph for rendering the difference: the new graph, plus the removed nodes and edges. Added nodes and
+     * edges are highlighted in green, removed ones in red (with dashed edges). Unchanged nodes and edges keep their
+     * style and scope from the new graph.
+     *
+     * @return the new graph.
+     * @throws GraphConstraintException
+     *             if the graph could not be built.
+     */
+    public Graph toGraph() throws GraphConstraintException
+    {
+        Set<String> added = new HashSet<String>(addedNodes);
+        Set<EdgeKey> addedKeys = new HashSet<EdgeKey>(addedEdges);
+
+        Graph graph = new Graph();
+        if (after.hasDecorator())
+        {
+            graph.getDecorator().setTitle(after.getDecorator().getTitle());
+            graph.getDecorator().setOrientation(after.getDecorator().getOrientation());
+        }
+
+        for (Node node : after.getNodes())
+        {
+            Node copy = graph.addNode(node.getLabel());
+            if (added.contains(node.getLabel()))
+            {
+                copy.setStyle(ADDED_NODE_STYLE);
+            }
+            else if (node.hasStyle())
+            {
+                copy.setStyle(node.getStyle());
+            }
+        }
+        for (String label : removedNodes)
+        {
+            graph.addNode(label).setStyle(REMOVED_NODE_STYLE);
+        }
+
+        for (Edge edge : after.getEdges())
+        {
+            Edge copy = graph.addEdge(graph.getNode(edge.getFrom().getLabel()),graph.getNode(edge.getTo().getLabel()));
+            copy.setScope(edge.getScope());
+            if (addedKeys.contains(new EdgeKey(edge.getFrom().getLabel(),edge.getTo().getLabel())))
+            {
+                copy.setStyle(ADDED_EDGE_STYLE);
+            }
+            else if (edge.hasStyle())
+            {
+                copy.setStyle(edge.getStyle());
+            }
+        }
+        for (EdgeKey key : removedEdges)
+        {
+            Edge copy = graph.addEdge(graph.getNode(key.getFrom()),graph.getNode(key.getTo()));
+            Edge removed = before.getEdge(before.getNode(key.getFrom()),before.getNode(key.getTo()));
+            if (removed != null)
+            {
+                copy.setScope(removed.getScope());
+            }
+            copy.setStyle(REMOVED_EDGE_STYLE);
+        }
+
+        return graph;
+    }
+
+    /**
+     * Write the difference as a JSON report.
+     *
+     * @param file
+     *            the file to write.
+     * @throws IOException
+     *             if the report could not be written.
+     */
+    public void writeJson(File file) throws IOException
+    {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.exists() && !dir.mkdirs())
+        {
+            throw new IOException("Unable to make directories: " + dir.getAbsolutePath());
+        }
+
+        FileWriter writer = new FileWriter(file);
+        try
+        {
+            writeJson(writer);
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    public void writeJson(Writer writer)
+    {
+        sort();
+        PrintWriter json = new PrintWriter(writer);
+        json.println("{");
+        json.println("  \"summary\": {");
+        json.println("    \"addedNodes\": " + addedNodes.size() + ",");
+        json.println("    \"removedNodes\": " + removedNodes.size() + ",");
+        json.println("    \"unchangedNodes\": " + unchangedNodeCount + ",");
+        json.println("    \"addedEdges\": " + addedEdges.size() + ",");
+        json.println("    \"removedEdges\": " + removedEdges.size() + ",");
+        json.println("    \"unchangedEdges\": " + unchangedEdgeCount);
+        json.println("  },");
+        writeLabels(json,"addedNodes",addedNodes);
+        json.println(",");
+        writeLabels(json,"removedNodes",removedNodes);
+        json.println(",");
+        writeEdges(json,"addedEdges",addedEdges);
+        json.println(",");
+        writeEdges(json,"removedEdges",removedEdges);
+        json.println();
+        json.println("}");
+        json.flush();
+    }
+
+    private void writeLabels(PrintWriter json, String name, List<String> labels)
+    {
+        json.print("  " + JsonUtil.quote(name) + ": [");
+        Iterator<String> it = labels.iterator();
+        while (it.hasNext())
+        {
+            json.println();
+            json.print("    " + JsonUtil.quote(it.next()) + (it.hasNext() ? "," : ""));
+        }
+        json.print(labels.isEmpty() ? "]" : "\n  ]");
+    }
+
+    private void writeEdges(PrintWriter json, String name, List<EdgeKey> edges)
+    {
+        json.print("  " + JsonUtil.quote(name) + ": [");
+        Iterator<EdgeKey> it = edges.iterator();
+        while (it.hasNext())
+        {
+            EdgeKey edge = it.next();
+            json.println();
+            json.print("    { \"from\": " + JsonUtil.quote(edge.getFrom()) + ", \"to\": " + JsonUtil.quote(edge.getTo())
+                    + " }" + (it.hasNext() ? "," : ""));
+        }
+        json.print(edges.isEmpty() ? "]" : "\n  ]");
+    }
+
+    @Override
+    public String toString()
+    {
+        return "+" + addedNodes.size() + "/-" + removedNodes.size() + " node(s), +" + addedEdges.size() + "/-"
+                + removedEdges.size() + " edge(s)";
+    }
+}
@@ -0,0 +1,164 @@
+package net.erdfelt.maven.graphing.graph.diff;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.erdfelt.maven.graphing.graph.model.GraphView;
+import net.erdfelt.maven.graphing.graph.model.Node;
+
+/**
+ * Computes the structural difference between two graphs, or views of graphs.
+ * <p>
+ * Nodes are matched by label. Each label is hashed once into a shared id table, after which the children of each
+ * matched node are compared by marking them in a stamp array, so the whole diff runs in time linear in the nodes and
+ * edges of both graphs, without building a key per edge. Sorting the changes is left to the first read of each
+ * list of changes, see {@link GraphDiff}.
+ * <p>
+ * Not thread safe, but holds no state between diffs.
+ *
+ * @since 1.0.2
+ */
+public class GraphDiffer
+{
+    /**
+     * Diff two graphs.
+     *
+     * @param before
+     *            the old graph (eg: the baseline).
+     * @param after
+     *            the new graph.
+     * @return the difference.
+     */
+    public GraphDiff diff(GraphView before, GraphView after)
+    {
+        int beforeCount = before.getNodes().size();
+        int capacity = beforeCount + after.getNodes().size();
+
+        // Label to id, before nodes first.
+        Map<String, Integer> ids = new HashMap<String, Integer>((int)(capacity / 0.75f) + 1);
+        Node[] beforeNodes = new Node[capacity];
+        Node[] afterNodes = new Node[capacity];
+
+        int count = 0;
+        for (Node node : before.getNodes())
+        {
+            ids.put(node.getLabel(),count);
+            beforeNodes[count++] = node;
+        }
+
+        List<String> addedNodes = new ArrayList<String>();
+        for (Node node : after.getNodes())
+        {
+            Integer id = ids.get(node.getLabel());
+            if (id == null)
+            {
+                ids.put(node.getLabel(),count);
+                afterNodes[count++] = node;
+                addedNodes.add(node.getLabel());
+            }
+            else
+            {
+                afterNodes[id] = node;
+            }
+        }
+
+        List<String> removedNodes = new ArrayList<String>();
+        for (int id = 0; id < beforeCount; id++)
+        {
+            if (afterNodes[id] == null)
+            {
+                removedNodes.add(beforeNodes[id].getLabel());
+            }
+        }
+
+        List<GraphDiff.EdgeKey> addedEdges = new ArrayList<GraphDiff.EdgeKey>();
+        List<GraphDiff.EdgeKey> removedEdges = new ArrayList<GraphDiff.EdgeKey>();
+        int unchangedEdges = 0;
+
+        // The children of node n are stamped (2 * n) when seen before, and (2 * n + 1) once matched after.
+        int[] stamp = new int[count];
+        Arrays.fill(stamp,-1);
+        // The child ids of the current node, so each child label is only looked up once per graph.
+        int[] childIds = new int[16];
+
+        for (int id = 0; id < count; id++)
+        {
+            Node from = beforeNodes[id];
+            Node to = afterNodes[id];
+
+            if (to == null)
+            {
+                addAll(removedEdges,before,from);
+            }
+            else if (from == null)
+            {
+                addAll(addedEdges,after,to);
+            }
+            else
+            {
+                int seen = 2 * id;
+                int matched = seen + 1;
+                List<Node> previous = before.getChildren(from);
+                if (childIds.length < previous.size())
+                {
+                    childIds = new int[Math.max(previous.size(),2 * childIds.length)];
+                }
+                for (int i = 0; i < previous.size(); i++)
+                {
+                    childIds[i] = ids.get(previous.get(i).getLabel());
+                    stamp[childIds[i]] = seen;
+                }
+                for (Node child : after.getChildren(to))
+                {
+                    int childId = ids.get(child.getLabel());
+                    if (stamp[childId] == seen)
+                    {
+                        stamp[childId] = matched;
+                        unchangedEdges++;
+                    }
+                    else
+                    {
+                        addedEdges.add(new GraphDiff.EdgeKey(to.getLabel(),child.getLabel()));
+                    }
+                }
+                for (int i = 0; i < previous.size(); i++)
+                {
+                    if (stamp[childIds[i]] != matched)
+                    {
+                        removedEdges.add(new GraphDiff.EdgeKey(from.getLabel(),previous.get(i).getLabel()));
+                    }
+                }
+            }
+        }
+
+        return new GraphDiff(before,after,addedNodes,removedNodes,addedEdges,removedEdges,
+                beforeCount - removedNodes.size(),unchangedEdges);
+    }
+
+    private void addAll(List<GraphDiff.EdgeKey> edges, GraphView graph, Node from)
+    {
+        for (Node child : graph.getChildren(from))
+        {
+            edges.add(new GraphDiff.EdgeKey(from.getLabel(),child.getLabel()));
+        }
+    }
+}
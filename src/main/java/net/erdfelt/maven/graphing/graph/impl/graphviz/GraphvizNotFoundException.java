@@ -8,4 +8,8 @@ public class GraphvizNotFoundException extends GraphingException {
 	public GraphvizNotFoundException(String message) {
 		super(message);
 	}
+
+	public GraphvizNotFoundException(String message, Throwable cause) {
+		super(message, cause);
+	}
 }
@@ -16,23 +16,35 @@ package net.erdfelt.maven.graphing.graph.impl.graphviz;
  * limitations under the License.
  */
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.FilterWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import net.erdfelt.maven.graphing.graph.GraphRenderer;
 import net.erdfelt.maven.graphing.graph.GraphingException;
 import net.erdfelt.maven.graphing.graph.decorator.EdgeDecorator;
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
 import net.erdfelt.maven.graphing.graph.decorator.GraphDecorator;
-import net.erdfelt.maven.graphing.graph.decorator.NodeDecorator;
-import net.erdfelt.maven.graphing.graph.model.Edge;
-import net.erdfelt.maven.graphing.graph.model.Graph;
-import net.erdfelt.maven.graphing.graph.model.Node;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.jfr.DotProcessEvent;
+import net.erdfelt.maven.graphing.graph.jfr.DotWriteEvent;
+import net.erdfelt.maven.graphing.graph.jfr.GraphingEvents;
+import net.erdfelt.maven.graphing.graph.metrics.GraphingMetrics;
+import net.erdfelt.maven.graphing.graph.model.FrozenGraph;
+import net.erdfelt.maven.graphing.graph.model.GraphView;
+import net.erdfelt.maven.graphing.graph.stylesheet.StyleResolver;
+import net.erdfelt.maven.graphing.graph.stylesheet.Stylesheet;
 import net.erdfelt.maven.graphing.graph.util.ColorUtil;
 
 import org.codehaus.plexus.component.annotations.Component;
@@ -52,8 +64,17 @@ import org.codehaus.plexus.util.cli.StreamConsumer;
 @Component(role = GraphRenderer.class, hint = "graphviz")
 public class GraphvizRenderer extends AbstractLogEnabled implements GraphRenderer
 {
+    /**
+     * System property overriding the default dot executable.
+     */
+    public static final String DOT_EXECUTABLE_PROPERTY = "graphing.dot.executable";
+
     private static List<String> outputFormats;
 
+    private String dotExecutable = getDefaultDotExecutable();
+
+    private Stylesheet stylesheet;
+
     static
     {
         outputFormats = new ArrayList<String>();
@@ -87,10 +108,92 @@ public class GraphvizRenderer extends AbstractLogEnabled implements GraphRendere
         return outputFormats.contains(format);
     }
 
-    public void render(Graph graphModel, File outputFile) throws IOException, GraphingException
+    /**
+     * @return the dot executable used when none is set: the {@value #DOT_EXECUTABLE_PROPERTY} system property, or dot
+     *         on the system path.
+     */
+    public static String getDefaultDotExecutable()
+    {
+        return System.getProperty(DOT_EXECUTABLE_PROPERTY,"dot");
+    }
+
+    public String getDotExecutable()
     {
+        return dotExecutable;
+    }
+
+    /**
+     * Set the graphviz dot executable to run, either a command on the system path or the path to the executable.
+     * 
+     * @param dotExecutable
+     *            the dot executable.
+     */
+    public void setDotExecutable(String dotExecutable)
+    {
+        this.dotExecutable = dotExecutable;
+    }
+
+    public Stylesheet getStylesheet()
+    {
+        return stylesheet;
+    }
+
+    /**
+     * Set the stylesheet applied to the graphs at render time.
+     * 
+     * @param stylesheet
+     *            the stylesheet, or null to use the styles of the elements only.
+     */
+    public void setStylesheet(Stylesheet stylesheet)
+    {
+        this.stylesheet = stylesheet;
+    }
+
+    public void render(GraphView graphModel, File outputFile) throws IOException, GraphingException
+    {
+        render(graphModel,Collections.singletonList(outputFile));
+    }
+
+    /**
+     * Render the graph, see {@link #render(FrozenGraph, List)}. The graph is frozen first.
+     */
+    public void render(GraphView graphModel, List<File> outputFiles) throws IOException, GraphingException
+    {
+        render(graphModel.freeze(),outputFiles);
+    }
+
+    /**
+     * Render a frozen graph. The graph is laid out once, and written in the format of each of the output files (by
+     * their extension).
+     * 
+     * @param graphModel
+     *            the graph to render.
+     * @param outputFiles
+     *            the files to write, the DOT file is written next to the first one.
+     * @throws IOException
+     *             if the files could not be written.
+     * @throws GraphingException
+     *             if the graph could not be rendered.
+     */
+    public void render(FrozenGraph graphModel, List<File> outputFiles) throws IOException, GraphingException
+    {
+        if ((outputFiles == null) || outputFiles.isEmpty())
+        {
+            throw new GraphingException("At least one output file must be provided.");
+        }
+
+        // The dot file is named after the first output, all outputs share the same layout.
+        File outputFile = outputFiles.get(0);
+        GraphingMetrics metrics = graphModel.getMetrics();
+
+        GraphingMetrics.Timer dotTimer = (metrics == null) ? null : metrics.start(GraphingMetrics.Phase.DOT_WRITE);
         File dotFile = prepareDot(graphModel,outputFile);
-        
+        if (metrics != null)
+        {
+            dotTimer.stop();
+            metrics.add(GraphingMetrics.DOT_BYTES,dotFile.length());
+        }
+
         String workdir = outputFile.getParent();
         if (StringUtils.isEmpty(workdir))
         {
@@ -100,18 +203,11 @@ public class GraphvizRenderer extends AbstractLogEnabled implements GraphRendere
         {
             File dir = outputFile.getCanonicalFile().getParentFile();
             workdir = dir.getAbsolutePath();
-            if (!dir.exists())
-            {
-                if (!dir.mkdirs())
-                {
-                    throw new IOException("Unable to make directories: " + dir.getAbsolutePath());
-                }
-            }
         }
-        String extension = FileUtils.extension(outputFile.getName());
 
         Commandline cmdline = new Commandline();
-        cmdline.setExecutable("dot");
+        String executable = dotExecutable;
+        cmdline.setExecutable(executable);
         cmdline.setWorkingDirectory(workdir);
 
         try
@@ -123,10 +219,31 @@ public class GraphvizRenderer extends AbstractLogEnabled implements GraphRendere
             throw new GraphingException("Unable to add system environment to graphviz commandline.",e);
         }
 
-        cmdline.createArg().setValue("-T" + extension);
         cmdline.createArg().setValue(dotFile.getName());
-        cmdline.createArg().setValue("-o");
-        cmdline.createArg().setValue(outputFile.getName());
+
+        for (File output : outputFiles)
+        {
+            File dir = output.getCanonicalFile().getParentFile();
+            if (!dir.exists())
+            {
+                if (!dir.mkdirs())
+                {
+                    throw new IOException("Unable to make directories: " + dir.getAbsolutePath());
+                }
+            }
+
+            // dot supports multiple -T/-o pairs, producing every format from a single layout.
+            cmdline.createArg().setValue("-T" + FileUtils.extension(output.getName()));
+            cmdline.createArg().setValue("-o");
+            if (dir.getAbsolutePath().equals(workdir))
+            {
+                cmdline.createArg().setValue(output.getName());
+            }
+            else
+            {
+                cmdline.createArg().setValue(output.getCanonicalPath());
+            }
+        }
 
         StreamConsumer stdOut = new TeeConsumer(System.out);
         StreamConsumer stdErr = new TeeConsumer(System.err);
@@ -135,7 +252,48 @@ public class GraphvizRenderer extends AbstractLogEnabled implements GraphRendere
         {
             getLogger().info("Executing: " + cmdline.toString());
 
+            DotProcessEvent event = null;
+            if (GraphingEvents.isEnabled(metrics))
+            {
+                event = new DotProcessEvent();
+                event.begin();
+            }
+
+            GraphingMetrics.Timer processTimer = (metrics == null) ? null : metrics.start(GraphingMetrics.Phase.SUBPROCESS);
             int result = CommandLineUtils.executeCommandLine(cmdline,stdOut,stdErr);
+            if (metrics != null)
+            {
+                processTimer.stop();
+                for (File output : outputFiles)
+                {
+                    metrics.add(GraphingMetrics.OUTPUT_BYTES,output.length());
+                }
+            }
+
+            if (event != null)
+            {
+                event.end();
+                if (event.shouldCommit())
+                {
+                    StringBuilder formats = new StringBuilder();
+                    long outputBytes = 0;
+                    for (File output : outputFiles)
+                    {
+                        if (formats.length() > 0)
+                        {
+                            formats.append(',');
+                        }
+                        formats.append(FileUtils.extension(output.getName()));
+                        outputBytes += output.length();
+                    }
+                    event.executable = executable;
+                    event.formats = formats.toString();
+                    event.exitCode = result;
+                    event.dotBytes = dotFile.length();
+                    event.outputBytes = outputBytes;
+                    event.commit();
+                }
+            }
 
             if (result != 0)
             {
@@ -148,11 +306,16 @@ public class GraphvizRenderer extends AbstractLogEnabled implements GraphRendere
         }
         catch (CommandLineException e)
         {
+            if (e.getCause() instanceof IOException)
+            {
+                // The process could not be started.
+                throw new GraphvizNotFoundException("Graphviz dot executable not found: " + executable,e);
+            }
             throw new GraphingException("Can't run graphviz: " + cmdline.toString(),e);
         }
     }
 
-    private File prepareDot(Graph graphModel, File outputFile) throws IOException, GraphingException
+    private File prepareDot(FrozenGraph graphModel, File outputFile) throws IOException, GraphingException
     {
         String dotFilename = FileUtils.removeExtension(outputFile.getName()) + ".dot";
         File dotFile = new File(dotFilename);
@@ -166,8 +329,61 @@ public class GraphvizRenderer extends AbstractLogEnabled implements GraphRendere
             dotFile.getParentFile().mkdirs();
         }
 
-        FileWriter fwriter = new FileWriter(dotFile);
-        PrintWriter dot = new PrintWriter(fwriter);
+        Writer writer = new BufferedWriter(new FileWriter(dotFile));
+        try
+        {
+            writeDot(graphModel,writer);
+        }
+        finally
+        {
+            writer.close();
+        }
+
+        return dotFile;
+    }
+
+    /**
+     * Write the graph in the graphviz DOT language.
+     * 
+     * @param graphModel
+     *            the graph to write.
+     * @param writer
+     *            the writer to write to, flushed but not closed.
+     * @throws IOException
+     *             if the DOT could not be written.
+     * @throws GraphingException
+     *             if the graph can not be expressed in DOT.
+     */
+    public void writeDot(GraphView graphModel, Writer writer) throws IOException, GraphingException
+    {
+        writeDot(graphModel.freeze(),writer);
+    }
+
+    /**
+     * Write a frozen graph in the graphviz DOT language.
+     * 
+     * @param graphModel
+     *            the graph to write.
+     * @param writer
+     *            the writer to write to, flushed but not closed.
+     * @throws IOException
+     *             if the DOT could not be written.
+     * @throws GraphingException
+     *             if the graph can not be expressed in DOT.
+     */
+    public void writeDot(FrozenGraph graphModel, Writer writer) throws IOException, GraphingException
+    {
+        DotWriteEvent event = null;
+        CountingWriter counter = null;
+        if (GraphingEvents.isEnabled(graphModel.getMetrics()))
+        {
+            event = new DotWriteEvent();
+            event.begin();
+            counter = new CountingWriter(writer);
+            writer = counter;
+        }
+
+        PrintWriter dot = new PrintWriter(writer);
 
         GraphDecorator graphDecorator = graphModel.getDecorator();
 
@@ -184,135 +400,304 @@ public class GraphvizRenderer extends AbstractLogEnabled implements GraphRendere
 
         dot.println("");
 
-        prepareDefaults(graphModel,dot);
+        prepareDefaults(graphDecorator,dot);
+
+        // Per render, the renderer component is shared between concurrent renders.
+        String[] vizIds = new String[graphModel.getNodeCount()];
 
-        for (Node node : graphModel.getNodes())
+        // Group the elements by style, the attributes of each distinct style are written once.
+        StyleResolver resolver = (stylesheet == null) ? null : stylesheet.newResolver();
+
+        List<NodeStyle> nodeStyles = new ArrayList<NodeStyle>();
+        Map<NodeStyle, Integer> nodeGroups = new HashMap<NodeStyle, Integer>();
+        int[] nodeGroup = new int[graphModel.getNodeCount()];
+        for (int node = 0; node < nodeGroup.length; node++)
         {
-            writeNode(dot,node);
+            NodeStyle style = (resolver == null) ? graphModel.getNodeStyle(node)
+                    : resolver.resolveNode(graphModel,node);
+            Integer group = nodeGroups.get(style);
+            if (group == null)
+            {
+                group = nodeStyles.size();
+                nodeGroups.put(style,group);
+                nodeStyles.add(style);
+            }
+            nodeGroup[node] = group;
         }
 
-        for (Edge edge : graphModel.getEdges())
+        int[] offsets = groupOffsets(nodeGroup,nodeStyles.size());
+        int[] members = groupMembers(nodeGroup,offsets);
+        for (int group = 0; group < nodeStyles.size(); group++)
         {
-            writeEdge(dot,edge);
+            writeNodes(dot,nodeStyles.get(group),graphModel,members,offsets[group],offsets[group + 1],vizIds);
+        }
+
+        List<EdgeStyle> edgeStyles = new ArrayList<EdgeStyle>();
+        Map<EdgeStyle, Integer> edgeGroups = new HashMap<EdgeStyle, Integer>();
+        int[] edgeGroup = new int[graphModel.getEdgeCount()];
+        for (int edge = 0; edge < edgeGroup.length; edge++)
+        {
+            EdgeStyle style = (resolver == null) ? graphModel.getEdgeStyle(edge)
+                    : resolver.resolveEdge(graphModel,edge);
+            Integer group = edgeGroups.get(style);
+            if (group == null)
+            {
+                group = edgeStyles.size();
+                edgeGroups.put(style,group);
+                edgeStyles.add(style);
+            }
+            edgeGroup[edge] = group;
+        }
+
+        offsets = groupOffsets(edgeGroup,edgeStyles.size());
+        members = groupMembers(edgeGroup,offsets);
+        for (int group = 0; group < edgeStyles.size(); group++)
+        {
+            writeEdges(dot,edgeStyles.get(group),graphModel,members,offsets[group],offsets[group + 1],vizIds);
         }
 
         dot.println("}");
 
         dot.flush();
-        fwriter.flush();
-        return dotFile;
+        if (dot.checkError())
+        {
+            throw new IOException("Unable to write DOT.");
+        }
+
+        if (event != null)
+        {
+            event.end();
+            if (event.shouldCommit())
+            {
+                event.graph = graphDecorator.getTitle();
+                event.nodes = graphModel.getNodeCount();
+                event.edges = graphModel.getEdgeCount();
+                event.characters = counter.count;
+                event.commit();
+            }
+        }
     }
 
-    private void writeNode(PrintWriter dot, Node node) throws GraphingException
+    /**
+     * @return the start of each group in the members, and the end of the last one.
+     */
+    private static int[] groupOffsets(int[] group, int groups)
     {
-        if (StringUtils.isEmpty(node.getLabel()))
+        int[] offsets = new int[groups + 1];
+        for (int g : group)
+        {
+            offsets[g + 1]++;
+        }
+        for (int g = 0; g < groups; g++)
         {
-            throw new GraphingException("Node.label must be provided.");
+            offsets[g + 1] += offsets[g];
         }
+        return offsets;
+    }
 
-        dot.println("");
-        dot.println("  // Node");
-        dot.println("  \"" + toVizId(node) + "\" [");
-        if (StringUtils.isNotEmpty(node.getLabel()))
+    /**
+     * @return the elements, by group, keeping their order within each group.
+     */
+    private static int[] groupMembers(int[] group, int[] offsets)
+    {
+        int[] members = new int[group.length];
+        int[] fill = Arrays.copyOf(offsets,offsets.length - 1);
+        for (int i = 0; i < group.length; i++)
         {
-            dot.println("    label=\"" + StringUtils.escape(node.getLabel()) + "\",");
+            members[fill[group[i]]++] = i;
         }
+        return members;
+    }
 
-        NodeDecorator decorator = node.getDecorator();
+    /**
+     * Counts the characters written through it, for the DOT write events.
+     */
+    private static class CountingWriter extends FilterWriter
+    {
+        private long count;
 
-        if (decorator != null)
+        CountingWriter(Writer out)
         {
-            if (decorator.getBorderColor() != null)
-            {
-                dot.println("    color=\"" + ColorUtil.toCssDeclaration(decorator.getBorderColor()) + "\",");
-            }
-            if (decorator.getBackgroundColor() != null)
-            {
-                dot.println("    style=filled,");
-                dot.println("    fillcolor=\"" + ColorUtil.toCssDeclaration(decorator.getBackgroundColor()) + "\",");
-            }
-            if (decorator.getLabelColor() != null)
-            {
-                dot.println("    fontcolor=\"" + ColorUtil.toCssDeclaration(decorator.getLabelColor()) + "\",");
-            }
-            if (decorator.getFontSize() > 0)
-            {
-                dot.println("    fontsize=\"" + decorator.getFontSize() + "\",");
-            }
+            super(out);
+        }
 
-            if (StringUtils.isNotEmpty(decorator.getGroupName()))
-            {
-                dot.println("    group=\"" + StringUtils.escape(decorator.getGroupName()) + "\",");
-            }
+        @Override
+        public void write(int c) throws IOException
+        {
+            super.write(c);
+            count++;
         }
 
-        dot.println("    shape=box");
-        dot.println("  ];");
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException
+        {
+            super.write(cbuf,off,len);
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException
+        {
+            super.write(str,off,len);
+            count += len;
+        }
     }
 
-    private void writeEdge(PrintWriter dot, Edge edge)
+    /**
+     * Write the nodes sharing a style. Nodes with the default style are written as is, the others in a subgraph
+     * carrying the attributes of the style as its node defaults.
+     */
+    private void writeNodes(PrintWriter dot, NodeStyle style, FrozenGraph graphModel, int[] nodes, int start, int end,
+            String[] vizIds) throws GraphingException
     {
-        dot.println("");
-        dot.println("  // Edge");
-        dot.println("  \"" + toVizId(edge.getFrom()) + "\" -> \"" + toVizId(edge.getTo()) + "\" [");
-
-        EdgeDecorator decorator = edge.getDecorator();
-        if (decorator != null)
+        String indent = "  ";
+        if (style != NodeStyle.DEFAULT)
         {
-            switch (decorator.getStyle())
-            {
-                case BOLD:
-                    dot.println("    style=\"bold\",");
-                    break;
-                case DASHED:
-                    dot.println("    style=\"dotted\",");
-                    break;
-            }
-
-            if (decorator.getLineColor() != null)
-            {
-                dot.println("    color=\"" + ColorUtil.toCssDeclaration(decorator.getLineColor()) + "\",");
-            }
+            dot.println("");
+            dot.println("  // Node Style");
+            dot.println("  subgraph {");
+            dot.println("    node [");
+            writeNodeAttributes(dot,style);
+            dot.println("    ];");
+            indent = "    ";
+        }
 
-            if (StringUtils.isNotEmpty(decorator.getLineLabel()))
+        dot.println("");
+        for (int i = start; i < end; i++)
+        {
+            String label = graphModel.getLabel(nodes[i]);
+            if (StringUtils.isEmpty(label))
             {
-                dot.println("    label=\"" + StringUtils.escape(decorator.getLineLabel()) + "\",");
-                dot.println("    fontname=\"Helvetica\",");
-                if (decorator.getFontSize() > 0)
-                {
-                    dot.println("    fontsize=\"" + decorator.getFontSize() + "\",");
-                }
+                throw new GraphingException("Node.label must be provided.");
             }
+            dot.println(indent + "\"" + toVizId(graphModel,nodes[i],vizIds) + "\" [label=\"" + StringUtils.escape(label)
+                    + "\"];");
+        }
 
-            dot.println("    arrowtail=" + getLineEndingName(decorator.getLineTail()) + ",");
-            dot.println("    arrowhead=" + getLineEndingName(decorator.getLineHead()));
+        if (style != NodeStyle.DEFAULT)
+        {
+            dot.println("  }");
         }
+    }
 
-        dot.println("  ];");
+    private void writeNodeAttributes(PrintWriter dot, NodeStyle style)
+    {
+        if (style.getBorderColor() != null)
+        {
+            dot.println("      color=\"" + ColorUtil.toCssDeclaration(style.getBorderColor()) + "\",");
+        }
+        if (style.getBackgroundColor() != null)
+        {
+            dot.println("      style=filled,");
+            dot.println("      fillcolor=\"" + ColorUtil.toCssDeclaration(style.getBackgroundColor()) + "\",");
+        }
+        if (style.getLabelColor() != null)
+        {
+            dot.println("      fontcolor=\"" + ColorUtil.toCssDeclaration(style.getLabelColor()) + "\",");
+        }
+        if (style.getFontSize() > 0)
+        {
+            dot.println("      fontsize=\"" + style.getFontSize() + "\",");
+        }
+        if (StringUtils.isNotEmpty(style.getGroupName()))
+        {
+            dot.println("      group=\"" + StringUtils.escape(style.getGroupName()) + "\",");
+        }
     }
 
     /**
-     * Map of Node Labels to encoded graphviz_node_ids
+     * Write the edges sharing a style, see {@link #writeNodes(PrintWriter, NodeStyle, FrozenGraph, int[], int, int,
+     * String[])}.
      */
-    private Map<String, String> vizIdMap = new HashMap<String, String>();
+    private void writeEdges(PrintWriter dot, EdgeStyle style, FrozenGraph graphModel, int[] edges, int start, int end,
+            String[] vizIds)
+    {
+        String indent = "  ";
+        if (style != EdgeStyle.DEFAULT)
+        {
+            dot.println("");
+            dot.println("  // Edge Style");
+            dot.println("  subgraph {");
+            dot.println("    edge [");
+            writeEdgeAttributes(dot,style);
+            dot.println("    ];");
+            indent = "    ";
+        }
+
+        dot.println("");
+        for (int i = start; i < end; i++)
+        {
+            int edge = edges[i];
+            dot.println(indent + "\"" + toVizId(graphModel,graphModel.getEdgeSource(edge),vizIds) + "\" -> \""
+                    + toVizId(graphModel,graphModel.getEdgeTarget(edge),vizIds) + "\";");
+        }
 
-    private String toVizId(Node node)
+        if (style != EdgeStyle.DEFAULT)
+        {
+            dot.println("  }");
+        }
+    }
+
+    private void writeEdgeAttributes(PrintWriter dot, EdgeStyle style)
     {
-        if (node == null)
+        switch (style.getLineStyle())
+        {
+            case BOLD:
+                dot.println("      style=\"bold\",");
+                break;
+            case DASHED:
+                dot.println("      style=\"dotted\",");
+                break;
+        }
+
+        if (style.getLineColor() != null)
+        {
+            dot.println("      color=\"" + ColorUtil.toCssDeclaration(style.getLineColor()) + "\",");
+        }
+
+        if (style.getPenWidth() > 0)
         {
-            return "";
+            dot.println("      penwidth=\"" + toDotNumber(style.getPenWidth()) + "\",");
         }
 
-        if (StringUtils.isEmpty(node.getLabel()))
+        if (StringUtils.isNotEmpty(style.getLineLabel()))
         {
-            return "";
+            dot.println("      label=\"" + StringUtils.escape(style.getLineLabel()) + "\",");
+            dot.println("      fontname=\"Helvetica\",");
+            if (style.getFontSize() > 0)
+            {
+                dot.println("      fontsize=\"" + style.getFontSize() + "\",");
+            }
         }
 
-        String id = (String)vizIdMap.get(node.getLabel());
+        dot.println("      arrowtail=" + getLineEndingName(style.getLineTail()) + ",");
+        dot.println("      arrowhead=" + getLineEndingName(style.getLineHead()));
+    }
+
+    private static String toDotNumber(double value)
+    {
+        long whole = Math.round(value);
+        return (whole == value) ? Long.toString(whole) : String.format(Locale.ENGLISH,"%.2f",value);
+    }
+
+    /**
+     * Encode the node label as a graphviz_node_id.
+     * 
+     * @param graphModel
+     *            the graph.
+     * @param node
+     *            the id of the node to encode.
+     * @param vizIds
+     *            the encoded graphviz_node_ids, by node id, scoped to a single render.
+     * @return the graphviz_node_id
+     */
+    private String toVizId(FrozenGraph graphModel, int node, String[] vizIds)
+    {
+        String id = vizIds[node];
         if (id == null)
         {
-            id = toVizId(node.getLabel());
-            vizIdMap.put(node.getLabel(),id);
+            id = toVizId(graphModel.getLabel(node));
+            vizIds[node] = id;
         }
 
         return id;
@@ -338,12 +723,10 @@ public class GraphvizRenderer extends AbstractLogEnabled implements GraphRendere
         return id.toString();
     }
 
-    private void prepareDefaults(Graph graphModel, PrintWriter dot)
+    private void prepareDefaults(GraphDecorator decorator, PrintWriter dot)
     {
         // Graph Defaults.
 
-        GraphDecorator decorator = graphModel.getDecorator();
-
         dot.println("  // Graph Defaults");
         dot.println("  graph [");
 
@@ -380,25 +763,21 @@ public class GraphvizRenderer extends AbstractLogEnabled implements GraphRendere
 
         // Node Defaults.
 
-        NodeDecorator nodeDecorator = new NodeDecorator();
-
         dot.println("");
         dot.println("  // Node Defaults.");
         dot.println("  node [");
         dot.println("    fontname=\"Helvetica\",");
-        dot.println("    fontsize=\"" + nodeDecorator.getFontSize() + "\",");
+        dot.println("    fontsize=\"" + NodeStyle.DEFAULT.getFontSize() + "\",");
         dot.println("    shape=\"box\"");
         dot.println("  ];");
 
         // Edge Defaults.
 
-        EdgeDecorator edgeDecorator = new EdgeDecorator();
-
         dot.println("");
         dot.println("  // Edge Defaults.");
         dot.println("  edge [");
         dot.println("    arrowsize=\"0.8\"");
-        dot.println("    fontsize=\"" + edgeDecorator.getFontSize() + "\",");
+        dot.println("    fontsize=\"" + EdgeStyle.DEFAULT.getFontSize() + "\",");
         dot.println("  ];");
     }
 
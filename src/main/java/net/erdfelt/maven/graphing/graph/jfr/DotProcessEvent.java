@@ -0,0 +1,53 @@
+package net.erdfelt.maven.graphing.graph.jfr;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event for the lifetime of a graphviz dot subprocess.
+ *
+ * @since 1.0.2
+ */
+@Name("net.erdfelt.maven.graphing.DotProcess")
+@Label("Dot Process")
+@Category({ "Maven", "Graphing" })
+@Description("The lifetime of a graphviz dot subprocess")
+public class DotProcessEvent extends Event
+{
+    @Label("Executable")
+    public String executable;
+
+    @Label("Formats")
+    public String formats;
+
+    @Label("Exit Code")
+    public int exitCode;
+
+    @Label("DOT Size")
+    @DataAmount
+    public long dotBytes;
+
+    @Label("Output Size")
+    @DataAmount
+    public long outputBytes;
+}
@@ -0,0 +1,46 @@
+package net.erdfelt.maven.graphing.graph.jfr;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import net.erdfelt.maven.graphing.graph.metrics.GraphingMetrics;
+
+/**
+ * Switch for the Java Flight Recorder events emitted by the graph model and renderers.
+ * <p>
+ * Events follow the metrics of the graph being worked on (see {@link GraphingMetrics#isJfrEnabled()}), so each build
+ * decides for itself, even when parallel builds share the JVM. Off for graphs without metrics, so the hot paths (eg:
+ * the cycle check on every {@link net.erdfelt.maven.graphing.graph.model.dag.Dag} edge) only pay a field read. Even
+ * when switched on, events are only recorded while a recording has them enabled.
+ *
+ * @since 1.0.2
+ */
+public final class GraphingEvents
+{
+    private GraphingEvents()
+    {
+    }
+
+    /**
+     * @param metrics
+     *            the metrics of the graph being worked on, or null.
+     * @return true if events should be emitted for the graph.
+     */
+    public static boolean isEnabled(GraphingMetrics metrics)
+    {
+        return (metrics != null) && metrics.isJfrEnabled();
+    }
+}
@@ -0,0 +1,41 @@
+package net.erdfelt.maven.graphing.graph.jfr;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event for a timed graphing phase.
+ *
+ * @since 1.0.2
+ */
+@Name("net.erdfelt.maven.graphing.Phase")
+@Label("Graphing Phase")
+@Category({ "Maven", "Graphing" })
+@Description("A timed phase of the graphing plugin")
+public class PhaseEvent extends Event
+{
+    @Label("Graph")
+    public String graph;
+
+    @Label("Phase")
+    public String phase;
+}
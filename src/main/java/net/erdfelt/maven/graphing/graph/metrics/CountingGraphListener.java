@@ -0,0 +1,109 @@
+package net.erdfelt.maven.graphing.graph.metrics;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.GraphListener;
+import net.erdfelt.maven.graphing.graph.model.Node;
+
+/**
+ * Counts the node and edge mutations of the graphs it listens to.
+ * <p>
+ * Like the graphs themselves, not thread safe.
+ *
+ * @since 1.0.2
+ */
+public class CountingGraphListener implements GraphListener
+{
+    private long nodesAdded;
+
+    private long nodesRemoved;
+
+    private long edgesAdded;
+
+    private long edgesRemoved;
+
+    public void nodeAdded(Graph graph, Node node)
+    {
+        nodesAdded++;
+    }
+
+    public void nodeRemoved(Graph graph, Node node)
+    {
+        nodesRemoved++;
+    }
+
+    public void edgeAdded(Graph graph, Edge edge)
+    {
+        edgesAdded++;
+    }
+
+    public void edgeRemoved(Graph graph, Edge edge)
+    {
+        edgesRemoved++;
+    }
+
+    public long getNodesAdded()
+    {
+        return nodesAdded;
+    }
+
+    public long getNodesRemoved()
+    {
+        return nodesRemoved;
+    }
+
+    public long getEdgesAdded()
+    {
+        return edgesAdded;
+    }
+
+    public long getEdgesRemoved()
+    {
+        return edgesRemoved;
+    }
+
+    /**
+     * @return the total number of mutations seen.
+     */
+    public long getMutations()
+    {
+        return nodesAdded + nodesRemoved + edgesAdded + edgesRemoved;
+    }
+
+    /**
+     * Add the counts to the metrics, as the <code>nodesAdded</code>, <code>nodesRemoved</code>,
+     * <code>edgesAdded</code> and <code>edgesRemoved</code> counters.
+     *
+     * @param metrics
+     *            the metrics to report to.
+     */
+    public void reportTo(GraphingMetrics metrics)
+    {
+        metrics.add("nodesAdded",nodesAdded);
+        metrics.add("nodesRemoved",nodesRemoved);
+        metrics.add("edgesAdded",edgesAdded);
+        metrics.add("edgesRemoved",edgesRemoved);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "nodes +" + nodesAdded + "/-" + nodesRemoved + ", edges +" + edgesAdded + "/-" + edgesRemoved;
+    }
+}
@@ -0,0 +1,179 @@
+package net.erdfelt.maven.graphing.graph.metrics;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The estimated heap footprint of a graph, by category, as produced by {@link FootprintEstimator}.
+ *
+ * @since 1.0.2
+ */
+public class Footprint
+{
+    public static enum Category
+    {
+        /**
+         * The graph object, its decorator and its maps (excluding their entries).
+         */
+        GRAPH,
+        /**
+         * The node objects and their (empty) child / parent maps.
+         */
+        NODES,
+        /**
+         * The node labels.
+         */
+        LABELS,
+        /**
+         * The distinct node keys, and their distinct parts. Their labels are the node labels, counted as
+         * {@link #LABELS}.
+         */
+        KEYS,
+        /**
+         * The entries and tables of the child / parent maps.
+         */
+        ADJACENCY,
+        /**
+         * The node map entries and table.
+         */
+        NODE_INDEX,
+        /**
+         * The edge objects, and their distinct scopes.
+         */
+        EDGES,
+        /**
+         * The edge map keys.
+         */
+        EDGE_KEYS,
+        /**
+         * The edge map entries and table.
+         */
+        EDGE_INDEX,
+        /**
+         * The distinct node and edge styles, and their colors and strings.
+         */
+        STYLES
+    }
+
+    private final Map<Category, Long> bytes = new EnumMap<Category, Long>(Category.class);
+
+    private final int nodeCount;
+
+    private final int edgeCount;
+
+    public Footprint(int nodeCount, int edgeCount)
+    {
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        for (Category category : Category.values())
+        {
+            bytes.put(category,0L);
+        }
+    }
+
+    public void add(Category category, long amount)
+    {
+        bytes.put(category,bytes.get(category) + amount);
+    }
+
+    public long getBytes(Category category)
+    {
+        return bytes.get(category);
+    }
+
+    public int getNodeCount()
+    {
+        return nodeCount;
+    }
+
+    public int getEdgeCount()
+    {
+        return edgeCount;
+    }
+
+    public long getTotalBytes()
+    {
+        long total = 0;
+        for (long amount : bytes.values())
+        {
+            total += amount;
+        }
+        return total;
+    }
+
+    /**
+     * @return the bytes retained per node: the node, its label and its node map entry.
+     */
+    public double getBytesPerNode()
+    {
+        if (nodeCount == 0)
+        {
+            return 0;
+        }
+        long bytes = getBytes(Category.NODES) + getBytes(Category.LABELS) + getBytes(Category.KEYS)
+                + getBytes(Category.NODE_INDEX);
+        return bytes / (double)nodeCount;
+    }
+
+    /**
+     * @return the bytes retained per edge: the edge, its key, its edge map entry and its share of the adjacency maps.
+     */
+    public double getBytesPerEdge()
+    {
+        if (edgeCount == 0)
+        {
+            return 0;
+        }
+        long bytes = getBytes(Category.EDGES) + getBytes(Category.EDGE_KEYS) + getBytes(Category.EDGE_INDEX)
+                + getBytes(Category.ADJACENCY);
+        return bytes / (double)edgeCount;
+    }
+
+    /**
+     * Project the footprint of a graph of the same shape and styling at another size.
+     * <p>
+     * Styles are shared, so they do not grow with the graph.
+     *
+     * @param targetNodes
+     *            the number of nodes.
+     * @param targetEdges
+     *            the number of edges.
+     * @return the projected bytes.
+     */
+    public long project(long targetNodes, long targetEdges)
+    {
+        return getBytes(Category.GRAPH) + getBytes(Category.STYLES) + (long)Math.ceil(targetNodes * getBytesPerNode())
+                + (long)Math.ceil(targetEdges * getBytesPerEdge());
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder buf = new StringBuilder();
+        buf.append(String.format(Locale.ENGLISH,"%,d bytes for %,d nodes and %,d edges (%.1f per node, %.1f per edge)",
+                getTotalBytes(),nodeCount,edgeCount,getBytesPerNode(),getBytesPerEdge()));
+        for (Map.Entry<Category, Long> entry : bytes.entrySet())
+        {
+            String category = entry.getKey().name().toLowerCase(Locale.ENGLISH);
+            buf.append(String.format(Locale.ENGLISH,"%n  %-10s %,14d",category,entry.getValue()));
+        }
+        return buf.toString();
+    }
+}
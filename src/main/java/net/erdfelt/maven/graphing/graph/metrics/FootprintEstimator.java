@@ -0,0 +1,283 @@
+package net.erdfelt.maven.graphing.graph.metrics;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.GraphDecorator;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.metrics.Footprint.Category;
+import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.Node;
+import net.erdfelt.maven.graphing.graph.model.NodeKey;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+/**
+ * Estimates the heap retained by a {@link Graph}, without instrumentation.
+ * <p>
+ * The estimate walks the graph once, sizing each object from its class layout (see {@link MemoryLayout}), and the
+ * collection internals (table capacities) from the growth policy of {@link HashMap}. Objects shared between elements,
+ * such as styles, node keys and their parts, or edge scopes, are counted once. The read only views of children and
+ * parents, created on demand by {@link Node#getChildren()} and {@link Node#getParents()}, are not counted.
+ *
+ * @since 1.0.2
+ */
+public class FootprintEstimator
+{
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final MemoryLayout layout;
+
+    private final long mapEntrySize;
+
+    private final long linkedEntrySize;
+
+    public FootprintEstimator()
+    {
+        this(MemoryLayout.current());
+    }
+
+    public FootprintEstimator(MemoryLayout layout)
+    {
+        this.layout = layout;
+        long entrySize;
+        try
+        {
+            entrySize = layout.shallowSize(Class.forName("java.util.HashMap$Node"));
+        }
+        catch (ClassNotFoundException e)
+        {
+            // hash, key, value, next
+            entrySize = layout.align(layout.getHeaderSize() + 4 + (3 * layout.getReferenceSize()));
+        }
+        this.mapEntrySize = entrySize;
+        try
+        {
+            entrySize = layout.shallowSize(Class.forName("java.util.LinkedHashMap$Entry"));
+        }
+        catch (ClassNotFoundException e)
+        {
+            // hash, key, value, next, before, after
+            entrySize = layout.align(layout.getHeaderSize() + 4 + (5 * layout.getReferenceSize()));
+        }
+        this.linkedEntrySize = entrySize;
+    }
+
+    public MemoryLayout getLayout()
+    {
+        return layout;
+    }
+
+    /**
+     * Estimate the heap retained by the graph.
+     *
+     * @param graph
+     *            the graph to measure.
+     * @return the footprint, by category.
+     */
+    public Footprint estimate(Graph graph)
+    {
+        int nodeCount = graph.getNodes().size();
+        int edgeCount = graph.getEdges().size();
+        Footprint footprint = new Footprint(nodeCount,edgeCount);
+        Map<Object, Boolean> seen = new IdentityHashMap<Object, Boolean>();
+
+        footprint.add(Category.GRAPH,layout.shallowSize(graph.getClass()) + (2 * mapSize()));
+        if (graph.hasDecorator())
+        {
+            footprint.add(Category.GRAPH,sizeOf(graph.getDecorator(),seen));
+        }
+
+        for (Node node : graph.getNodes())
+        {
+            footprint.add(Category.NODES,layout.shallowSize(node.getClass()) + (2 * adjacencyMapSize()));
+            footprint.add(Category.LABELS,layout.stringSize(node.getLabel()));
+            if (node.getKey() != null)
+            {
+                footprint.add(Category.KEYS,sizeOf(node.getKey(),seen));
+            }
+            footprint.add(Category.ADJACENCY,
+                    adjacencySize(node.getChildCount()) + adjacencySize(node.getParentCount()));
+            if (node.hasStyle())
+            {
+                footprint.add(Category.STYLES,sizeOf(node.getStyle(),seen));
+            }
+        }
+        footprint.add(Category.NODE_INDEX,indexSize(nodeCount));
+
+        for (Edge edge : graph.getEdges())
+        {
+            footprint.add(Category.EDGES,layout.shallowSize(edge.getClass()) + sizeOf(edge.getScope(),seen));
+            // "[from] -> [to]"
+            String key = "[" + edge.getFrom().getLabel() + "] -> [" + edge.getTo().getLabel() + "]";
+            footprint.add(Category.EDGE_KEYS,layout.stringSize(key));
+            if (edge.hasStyle())
+            {
+                footprint.add(Category.STYLES,sizeOf(edge.getStyle(),seen));
+            }
+        }
+        footprint.add(Category.EDGE_INDEX,indexSize(edgeCount));
+
+        return footprint;
+    }
+
+    /**
+     * Estimate the heap a graph would retain, before building it.
+     *
+     * @param nodes
+     *            the number of nodes.
+     * @param labelChars
+     *            the total length of the node labels.
+     * @param edges
+     *            the number of edges.
+     * @return the estimated bytes, excluding styles, node keys and edge scopes.
+     */
+    public long estimate(long nodes, long labelChars, long edges)
+    {
+        if (nodes == 0)
+        {
+            return layout.shallowSize(Graph.class) + (2 * mapSize());
+        }
+
+        long averageLabel = labelChars / nodes;
+        long averageDegree = edges / nodes;
+
+        long perNode = layout.shallowSize(Node.class) + (2 * adjacencyMapSize()) + layout.stringSize(averageLabel)
+                + (2 * adjacencySize(averageDegree));
+        long perEdge = layout.shallowSize(Edge.class) + layout.stringSize((2 * averageLabel) + 8);
+
+        return layout.shallowSize(Graph.class) + (2 * mapSize()) + (nodes * perNode) + indexSize(nodes)
+                + (edges * perEdge) + indexSize(edges);
+    }
+
+    private long mapSize()
+    {
+        // The map, and its values view (created by getNodes() / getEdges()).
+        return layout.shallowSize(HashMap.class) + layout.align(layout.getHeaderSize() + layout.getReferenceSize());
+    }
+
+    /**
+     * @return the size of the entries and table of a HashMap grown to the provided size.
+     */
+    private long indexSize(long size)
+    {
+        return (size * mapEntrySize) + tableSize(size);
+    }
+
+    /**
+     * @return the size of a (still empty) map of children or parents, see {@link Node#getChildren()}.
+     */
+    private long adjacencyMapSize()
+    {
+        return layout.shallowSize(LinkedHashMap.class);
+    }
+
+    /**
+     * @return the size of the entries and table of a map of children or parents grown to the provided size.
+     */
+    private long adjacencySize(long size)
+    {
+        return (size * linkedEntrySize) + tableSize(size);
+    }
+
+    /**
+     * @return the size of the table of a HashMap grown by single puts to the provided size.
+     */
+    private long tableSize(long size)
+    {
+        if (size == 0)
+        {
+            // Allocated on the first put.
+            return 0;
+        }
+        long capacity = 16;
+        while (size > (capacity * LOAD_FACTOR))
+        {
+            capacity <<= 1;
+        }
+        return layout.arraySize(Object.class,capacity);
+    }
+
+    private long sizeOf(GraphDecorator decorator, Map<Object, Boolean> seen)
+    {
+        if (seen.put(decorator,Boolean.TRUE) != null)
+        {
+            return 0;
+        }
+        return layout.shallowSize(decorator.getClass()) + sizeOf(decorator.getBackgroundColor(),seen)
+                + sizeOf(decorator.getTitleColor(),seen) + sizeOf(decorator.getTitle(),seen);
+    }
+
+    private long sizeOf(NodeStyle style, Map<Object, Boolean> seen)
+    {
+        if (seen.put(style,Boolean.TRUE) != null)
+        {
+            return 0;
+        }
+        return layout.shallowSize(style.getClass()) + sizeOf(style.getBackgroundColor(),seen)
+                + sizeOf(style.getBorderColor(),seen) + sizeOf(style.getLabelColor(),seen)
+                + sizeOf(style.getGroupName(),seen);
+    }
+
+    private long sizeOf(EdgeStyle style, Map<Object, Boolean> seen)
+    {
+        if (seen.put(style,Boolean.TRUE) != null)
+        {
+            return 0;
+        }
+        // The line style and ending enums are shared constants.
+        return layout.shallowSize(style.getClass()) + sizeOf(style.getLineColor(),seen)
+                + sizeOf(style.getLineLabel(),seen);
+    }
+
+    private long sizeOf(Rgba color, Map<Object, Boolean> seen)
+    {
+        if ((color == null) || (seen.put(color,Boolean.TRUE) != null))
+        {
+            return 0;
+        }
+        return layout.shallowSize(color.getClass());
+    }
+
+    /**
+     * @return the size of the key and its parts, excluding its label, which is the label of its node.
+     */
+    private long sizeOf(NodeKey key, Map<Object, Boolean> seen)
+    {
+        if (seen.put(key,Boolean.TRUE) != null)
+        {
+            return 0;
+        }
+        return layout.shallowSize(key.getClass()) + sizeOf(key.getGroupId(),seen) + sizeOf(key.getArtifactId(),seen)
+                + sizeOf(key.getVersion(),seen) + sizeOf(key.getType(),seen);
+    }
+
+    private long sizeOf(String value, Map<Object, Boolean> seen)
+    {
+        if ((value == null) || (seen.put(value,Boolean.TRUE) != null))
+        {
+            return 0;
+        }
+        return layout.stringSize(value);
+    }
+}
@@ -0,0 +1,412 @@
+package net.erdfelt.maven.graphing.graph.metrics;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.erdfelt.maven.graphing.graph.jfr.PhaseEvent;
+import net.erdfelt.maven.graphing.graph.util.JsonUtil;
+
+/**
+ * Timings of the graphing phases, and counts of what was produced.
+ * <p>
+ * Safe for concurrent use. Metrics recorded against a child (see {@link #newChild(String)}) are also rolled up into
+ * its parent, so the root always holds the totals.
+ *
+ * @since 1.0.2
+ */
+public class GraphingMetrics
+{
+    /**
+     * The timed phases.
+     */
+    public static enum Phase
+    {
+        COLLECT("collect"), GRAPH_BUILD("graphBuild"), CONSTRAINT_CHECK("constraintCheck"), DOT_WRITE("dotWrite"), SUBPROCESS(
+                "subprocess");
+
+        private final String id;
+
+        private Phase(String id)
+        {
+            this.id = id;
+        }
+
+        public String getId()
+        {
+            return id;
+        }
+    };
+
+    // Common counter names.
+    public static final String NODES = "nodes";
+
+    public static final String EDGES = "edges";
+
+    /**
+     * The nodes and edges left once the graphs are compacted, see
+     * {@link net.erdfelt.maven.graphing.graph.model.GraphCompactor}.
+     */
+    public static final String COMPACTED_NODES = "compactedNodes";
+
+    public static final String COMPACTED_EDGES = "compactedEdges";
+
+    /**
+     * The nodes and edges of the aggregated graphs, see
+     * {@link net.erdfelt.maven.graphing.graph.model.GraphAggregator}.
+     */
+    public static final String AGGREGATED_NODES = "aggregatedNodes";
+
+    public static final String AGGREGATED_EDGES = "aggregatedEdges";
+
+    public static final String DOT_BYTES = "dotBytes";
+
+    public static final String OUTPUT_BYTES = "outputBytes";
+
+    /**
+     * The estimated heap retained by the graphs built, see {@link FootprintEstimator}.
+     */
+    public static final String HEAP_BYTES = "heapBytes";
+
+    /**
+     * A running timer for a phase, stopped with {@link #stop()}.
+     */
+    public final class Timer
+    {
+        private final Phase phase;
+
+        private final long start;
+
+        private final PhaseEvent event;
+
+        private Timer(Phase phase)
+        {
+            this.phase = phase;
+            if (jfrEnabled)
+            {
+                this.event = new PhaseEvent();
+                this.event.begin();
+            }
+            else
+            {
+                this.event = null;
+            }
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * @return the elapsed nanoseconds
+         */
+        public long stop()
+        {
+            long elapsed = System.nanoTime() - start;
+            record(phase,elapsed);
+            if (event != null)
+            {
+                event.end();
+                event.graph = name;
+                event.phase = phase.getId();
+                event.commit();
+            }
+            return elapsed;
+        }
+    }
+
+    private static class PhaseStats
+    {
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void add(long nanos)
+        {
+            count.increment();
+            totalNanos.add(nanos);
+            long max;
+            while (nanos > (max = maxNanos.get()))
+            {
+                if (maxNanos.compareAndSet(max,nanos))
+                {
+                    break;
+                }
+            }
+        }
+    }
+
+    private final String name;
+
+    private final GraphingMetrics parent;
+
+    private final boolean jfrEnabled;
+
+    private final long created = System.nanoTime();
+
+    private final ConcurrentMap<Phase, PhaseStats> phases = new ConcurrentHashMap<Phase, PhaseStats>();
+
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<String, LongAdder>();
+
+    private final Queue<GraphingMetrics> children = new ConcurrentLinkedQueue<GraphingMetrics>();
+
+    /**
+     * @param name
+     *            the name of the metrics scope.
+     * @param jfrEnabled
+     *            true to also emit each timed phase as a Java Flight Recorder event.
+     */
+    public GraphingMetrics(String name, boolean jfrEnabled)
+    {
+        this(name,null,jfrEnabled);
+    }
+
+    private GraphingMetrics(String name, GraphingMetrics parent, boolean jfrEnabled)
+    {
+        this.name = name;
+        this.parent = parent;
+        this.jfrEnabled = jfrEnabled;
+    }
+
+    /**
+     * Create a named child scope, such as one per rendered view.
+     *
+     * @param childName
+     *            the name of the child scope.
+     * @return the new child metrics.
+     */
+    public GraphingMetrics newChild(String childName)
+    {
+        GraphingMetrics child = new GraphingMetrics(childName,this,jfrEnabled);
+        children.add(child);
+        return child;
+    }
+
+    /**
+     * @return true if the timed phases, and the graph operations measured with these metrics, are also emitted as Java
+     *         Flight Recorder events.
+     */
+    public boolean isJfrEnabled()
+    {
+        return jfrEnabled;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Start timing a phase.
+     *
+     * @param phase
+     *            the phase to time.
+     * @return the timer to stop once the phase completes.
+     */
+    public Timer start(Phase phase)
+    {
+        return new Timer(phase);
+    }
+
+    /**
+     * Record the duration of a phase.
+     *
+     * @param phase
+     *            the phase.
+     * @param nanos
+     *            the duration, in nanoseconds.
+     */
+    public void record(Phase phase, long nanos)
+    {
+        PhaseStats stats = phases.get(phase);
+        if (stats == null)
+        {
+            PhaseStats fresh = new PhaseStats();
+            stats = phases.putIfAbsent(phase,fresh);
+            if (stats == null)
+            {
+                stats = fresh;
+            }
+        }
+        stats.add(nanos);
+
+        if (parent != null)
+        {
+            parent.record(phase,nanos);
+        }
+    }
+
+    /**
+     * Add to a named counter.
+     *
+     * @param counter
+     *            the counter name.
+     * @param amount
+     *            the amount to add.
+     */
+    public void add(String counter, long amount)
+    {
+        LongAdder adder = counters.get(counter);
+        if (adder == null)
+        {
+            LongAdder fresh = new LongAdder();
+            adder = counters.putIfAbsent(counter,fresh);
+            if (adder == null)
+            {
+                adder = fresh;
+            }
+        }
+        adder.add(amount);
+
+        if (parent != null)
+        {
+            parent.add(counter,amount);
+        }
+    }
+
+    public long getCounter(String counter)
+    {
+        LongAdder adder = counters.get(counter);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    public long getTotalNanos(Phase phase)
+    {
+        PhaseStats stats = phases.get(phase);
+        return stats == null ? 0 : stats.totalNanos.sum();
+    }
+
+    /**
+     * Write the metrics as a JSON report.
+     *
+     * @param file
+     *            the file to write.
+     * @throws IOException
+     *             if the report could not be written.
+     */
+    public void writeJson(File file) throws IOException
+    {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.exists() && !dir.mkdirs())
+        {
+            throw new IOException("Unable to make directories: " + dir.getAbsolutePath());
+        }
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file),StandardCharsets.UTF_8);
+        try
+        {
+            writeJson(writer);
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    /**
+     * Write the metrics as a JSON report.
+     *
+     * @param writer
+     *            the writer, flushed but not closed.
+     * @throws IOException
+     *             if the report could not be written.
+     */
+    public void writeJson(Writer writer) throws IOException
+    {
+        PrintWriter json = new PrintWriter(writer);
+        writeJson(json,"");
+        json.println();
+        json.flush();
+        // PrintWriter swallows the write errors.
+        if (json.checkError())
+        {
+            throw new IOException("Unable to write the metrics report.");
+        }
+    }
+
+    private void writeJson(PrintWriter json, String indent)
+    {
+        json.println("{");
+        json.println(indent + "  \"name\": " + JsonUtil.quote(name) + ",");
+        json.println(indent + "  \"wallTimeMillis\": " + toMillis(System.nanoTime() - created) + ",");
+
+        json.print(indent + "  \"phases\": {");
+        boolean needsDelim = false;
+        for (Phase phase : Phase.values())
+        {
+            PhaseStats stats = phases.get(phase);
+            if (stats == null)
+            {
+                continue;
+            }
+            json.println(needsDelim ? "," : "");
+            json.print(indent + "    " + JsonUtil.quote(phase.getId()) + ": { \"count\": " + stats.count.sum());
+            json.print(", \"totalMillis\": " + toMillis(stats.totalNanos.sum()));
+            json.print(", \"maxMillis\": " + toMillis(stats.maxNanos.get()) + " }");
+            needsDelim = true;
+        }
+        json.println(needsDelim ? "\n" + indent + "  }," : "},");
+
+        json.print(indent + "  \"counters\": {");
+        needsDelim = false;
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<String, LongAdder>(counters).entrySet())
+        {
+            json.println(needsDelim ? "," : "");
+            json.print(indent + "    " + JsonUtil.quote(entry.getKey()) + ": " + entry.getValue().sum());
+            needsDelim = true;
+        }
+        json.print(needsDelim ? "\n" + indent + "  }" : "}");
+
+        if (!children.isEmpty())
+        {
+            json.println(",");
+            json.println(indent + "  \"children\": [");
+            Iterator<GraphingMetrics> it = children.iterator();
+            while (it.hasNext())
+            {
+                json.print(indent + "    ");
+                it.next().writeJson(json,indent + "    ");
+                json.println(it.hasNext() ? "," : "");
+            }
+            json.print(indent + "  ]");
+        }
+
+        json.println();
+        json.print(indent + "}");
+    }
+
+    private static String toMillis(long nanos)
+    {
+        return String.format(Locale.ROOT,"%.3f",nanos / (double)TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,120 @@
+package net.erdfelt.maven.graphing.graph.metrics;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Locale;
+
+/**
+ * A hard limit on the heap the in-memory graphs may use, either in bytes or as a share of the maximum heap.
+ *
+ * @since 1.0.2
+ */
+public class MemoryBudget
+{
+    private final String spec;
+
+    private final long limitBytes;
+
+    private MemoryBudget(String spec, long limitBytes)
+    {
+        this.spec = spec;
+        this.limitBytes = limitBytes;
+    }
+
+    /**
+     * Parse a budget: a number of bytes with an optional <code>k</code>, <code>m</code> or <code>g</code> suffix (eg:
+     * <code>512m</code>), or a percentage of the maximum heap (eg: <code>50%</code>).
+     *
+     * @param spec
+     *            the budget.
+     * @return the budget.
+     * @throws IllegalArgumentException
+     *             if the budget can not be parsed.
+     */
+    public static MemoryBudget parse(String spec)
+    {
+        return parse(spec,Runtime.getRuntime().maxMemory());
+    }
+
+    static MemoryBudget parse(String spec, long maxHeap)
+    {
+        if ((spec == null) || (spec.trim().length() == 0))
+        {
+            throw new IllegalArgumentException("Memory budget must not be empty.");
+        }
+
+        String value = spec.trim().toLowerCase(Locale.ENGLISH);
+        try
+        {
+            if (value.endsWith("%"))
+            {
+                double percent = Double.parseDouble(value.substring(0,value.length() - 1));
+                if ((percent <= 0) || (percent > 100))
+                {
+                    throw new IllegalArgumentException("Memory budget percentage must be in (0, 100]: " + spec);
+                }
+                return new MemoryBudget(spec,(long)(maxHeap * (percent / 100.0)));
+            }
+
+            long multiplier = 1;
+            char unit = value.charAt(value.length() - 1);
+            if (unit == 'k')
+            {
+                multiplier = 1024L;
+            }
+            else if (unit == 'm')
+            {
+                multiplier = 1024L * 1024;
+            }
+            else if (unit == 'g')
+            {
+                multiplier = 1024L * 1024 * 1024;
+            }
+            if (multiplier > 1)
+            {
+                value = value.substring(0,value.length() - 1);
+            }
+
+            long bytes = Long.parseLong(value.trim()) * multiplier;
+            if (bytes <= 0)
+            {
+                throw new IllegalArgumentException("Memory budget must be positive: " + spec);
+            }
+            return new MemoryBudget(spec,bytes);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("Invalid memory budget: " + spec,e);
+        }
+    }
+
+    public long getLimitBytes()
+    {
+        return limitBytes;
+    }
+
+    public boolean isExceeded(long bytes)
+    {
+        return bytes > limitBytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format(Locale.ENGLISH,"%s (%,d bytes)",spec,limitBytes);
+    }
+}
@@ -0,0 +1,219 @@
+package net.erdfelt.maven.graphing.graph.metrics;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * The object layout of the running JVM (header, reference and alignment sizes), used to estimate object sizes without
+ * instrumentation.
+ * <p>
+ * Shallow sizes are computed from the declared instance fields of a class and its superclasses, the way HotSpot packs
+ * them, so the estimates follow changes to the classes measured.
+ *
+ * @since 1.0.2
+ */
+public class MemoryLayout
+{
+    private static final long COMPRESSED_OOPS_MAX_HEAP = 32L * 1024 * 1024 * 1024;
+
+    private static volatile MemoryLayout current;
+
+    private final int headerSize;
+
+    private final int referenceSize;
+
+    private final int alignment;
+
+    private final ConcurrentMap<Class<?>, Long> shallowSizes = new ConcurrentHashMap<Class<?>, Long>();
+
+    public MemoryLayout(int headerSize, int referenceSize, int alignment)
+    {
+        this.headerSize = headerSize;
+        this.referenceSize = referenceSize;
+        this.alignment = alignment;
+    }
+
+    /**
+     * @return the layout of the running JVM.
+     */
+    public static MemoryLayout current()
+    {
+        if (current == null)
+        {
+            current = detect();
+        }
+        return current;
+    }
+
+    private static MemoryLayout detect()
+    {
+        String model = System.getProperty("sun.arch.data.model","");
+        boolean is64 = model.equals("64") || (model.length() == 0 && System.getProperty("os.arch","").contains("64"));
+        if (!is64)
+        {
+            return new MemoryLayout(8,4,8);
+        }
+
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        boolean compressedOops = vmOption("UseCompressedOops",maxHeap < COMPRESSED_OOPS_MAX_HEAP);
+        boolean compressedClassPointers = vmOption("UseCompressedClassPointers",compressedOops);
+        int alignment = 8;
+        try
+        {
+            alignment = Integer.parseInt(vmOptionValue("ObjectAlignmentInBytes","8"));
+        }
+        catch (NumberFormatException e)
+        {
+            // keep the default
+        }
+
+        return new MemoryLayout(compressedClassPointers ? 12 : 16,compressedOops ? 4 : 8,alignment);
+    }
+
+    private static boolean vmOption(String name, boolean defaultValue)
+    {
+        return Boolean.parseBoolean(vmOptionValue(name,Boolean.toString(defaultValue)));
+    }
+
+    private static String vmOptionValue(String name, String defaultValue)
+    {
+        try
+        {
+            HotSpotDiagnosticMXBean hotspot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            if (hotspot != null)
+            {
+                return hotspot.getVMOption(name).getValue();
+            }
+        }
+        catch (Throwable t)
+        {
+            // Not a HotSpot JVM, or the option does not exist.
+        }
+        return defaultValue;
+    }
+
+    public int getHeaderSize()
+    {
+        return headerSize;
+    }
+
+    public int getReferenceSize()
+    {
+        return referenceSize;
+    }
+
+    public int getAlignment()
+    {
+        return alignment;
+    }
+
+    /**
+     * @return the size of an instance of the class, excluding the objects it references.
+     */
+    public long shallowSize(Class<?> type)
+    {
+        Long size = shallowSizes.get(type);
+        if (size == null)
+        {
+            long fields = 0;
+            for (Class<?> c = type; c != null; c = c.getSuperclass())
+            {
+                for (Field field : c.getDeclaredFields())
+                {
+                    if (!Modifier.isStatic(field.getModifiers()))
+                    {
+                        fields += fieldSize(field.getType());
+                    }
+                }
+            }
+            size = align(headerSize + fields);
+            shallowSizes.putIfAbsent(type,size);
+        }
+        return size;
+    }
+
+    /**
+     * @return the size of an array.
+     */
+    public long arraySize(Class<?> componentType, long length)
+    {
+        int element = fieldSize(componentType);
+        // The elements start after the length, aligned to their own size.
+        long base = ((headerSize + 4 + element - 1) / element) * element;
+        return align(base + (element * length));
+    }
+
+    /**
+     * @return the size of the String and its value array, with compact (latin1) strings.
+     */
+    public long stringSize(CharSequence value)
+    {
+        boolean latin1 = true;
+        for (int i = 0; (i < value.length()) && latin1; i++)
+        {
+            latin1 = value.charAt(i) <= 0xFF;
+        }
+        return shallowSize(String.class) + arraySize(byte.class,latin1 ? value.length() : value.length() * 2L);
+    }
+
+    /**
+     * @return the size of a String of the provided length and its value array, assuming latin1 characters.
+     */
+    public long stringSize(long length)
+    {
+        return shallowSize(String.class) + arraySize(byte.class,length);
+    }
+
+    public long align(long size)
+    {
+        return ((size + alignment - 1) / alignment) * alignment;
+    }
+
+    private int fieldSize(Class<?> type)
+    {
+        if (!type.isPrimitive())
+        {
+            return referenceSize;
+        }
+        if ((type == long.class) || (type == double.class))
+        {
+            return 8;
+        }
+        if ((type == int.class) || (type == float.class))
+        {
+            return 4;
+        }
+        if ((type == short.class) || (type == char.class))
+        {
+            return 2;
+        }
+        return 1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MemoryLayout[header=" + headerSize + ", reference=" + referenceSize + ", alignment=" + alignment + "]";
+    }
+}
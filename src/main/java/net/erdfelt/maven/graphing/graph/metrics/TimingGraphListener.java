@@ -0,0 +1,218 @@
+package net.erdfelt.maven.graphing.graph.metrics;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.GraphListener;
+import net.erdfelt.maven.graphing.graph.model.Node;
+
+/**
+ * Records histograms of the time between consecutive mutations, per mutation type.
+ * <p>
+ * During a bulk build this is the cost of each mutation, including the caller's own work between mutations (eg: label
+ * creation) and the graph's constraint checks, which makes slow phases of huge builds visible.
+ * <p>
+ * Like the graphs themselves, not thread safe.
+ *
+ * @since 1.0.2
+ */
+public class TimingGraphListener implements GraphListener
+{
+    /**
+     * A histogram of durations, in power of two nanosecond buckets.
+     */
+    public static class Histogram
+    {
+        private final long[] buckets = new long[64];
+
+        private long count;
+
+        private long totalNanos;
+
+        private long maxNanos;
+
+        public void record(long nanos)
+        {
+            long value = Math.max(0,nanos);
+            buckets[(value == 0) ? 0 : 63 - Long.numberOfLeadingZeros(value)]++;
+            count++;
+            totalNanos += value;
+            if (value > maxNanos)
+            {
+                maxNanos = value;
+            }
+        }
+
+        public long getCount()
+        {
+            return count;
+        }
+
+        public long getTotalNanos()
+        {
+            return totalNanos;
+        }
+
+        public long getMaxNanos()
+        {
+            return maxNanos;
+        }
+
+        public long getMeanNanos()
+        {
+            return (count == 0) ? 0 : totalNanos / count;
+        }
+
+        /**
+         * @param bucket
+         *            the bucket, holding durations of <code>[2^bucket, 2^(bucket+1))</code> nanoseconds (bucket 0 also
+         *            holds 0).
+         * @return the number of durations recorded in the bucket.
+         */
+        public long getBucketCount(int bucket)
+        {
+            return buckets[bucket];
+        }
+
+        /**
+         * @param percentile
+         *            the percentile, between 0 and 100.
+         * @return the upper bound of the bucket holding the percentile, in nanoseconds, or 0 if nothing was recorded.
+         */
+        public long getPercentileNanos(double percentile)
+        {
+            if (count == 0)
+            {
+                return 0;
+            }
+
+            long rank = (long)Math.ceil((percentile / 100.0) * count);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++)
+            {
+                seen += buckets[i];
+                if ((seen >= rank) && (seen > 0))
+                {
+                    return Math.min(maxNanos,(i >= 62) ? Long.MAX_VALUE : (2L << i) - 1);
+                }
+            }
+            return maxNanos;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "count=" + count + ", mean=" + getMeanNanos() + "ns, p50=" + getPercentileNanos(50) + "ns, p99="
+                + getPercentileNanos(99) + "ns, max=" + maxNanos + "ns";
+        }
+    }
+
+    private final Histogram nodeAdds = new Histogram();
+
+    private final Histogram nodeRemoves = new Histogram();
+
+    private final Histogram edgeAdds = new Histogram();
+
+    private final Histogram edgeRemoves = new Histogram();
+
+    private long first;
+
+    private long last;
+
+    private long mutations;
+
+    private long elapsed()
+    {
+        long now = System.nanoTime();
+        long since = (mutations == 0) ? 0 : now - last;
+        if (mutations == 0)
+        {
+            first = now;
+        }
+        last = now;
+        mutations++;
+        return since;
+    }
+
+    public void nodeAdded(Graph graph, Node node)
+    {
+        nodeAdds.record(elapsed());
+    }
+
+    public void nodeRemoved(Graph graph, Node node)
+    {
+        nodeRemoves.record(elapsed());
+    }
+
+    public void edgeAdded(Graph graph, Edge edge)
+    {
+        edgeAdds.record(elapsed());
+    }
+
+    public void edgeRemoved(Graph graph, Edge edge)
+    {
+        edgeRemoves.record(elapsed());
+    }
+
+    public Histogram getNodeAdds()
+    {
+        return nodeAdds;
+    }
+
+    public Histogram getNodeRemoves()
+    {
+        return nodeRemoves;
+    }
+
+    public Histogram getEdgeAdds()
+    {
+        return edgeAdds;
+    }
+
+    public Histogram getEdgeRemoves()
+    {
+        return edgeRemoves;
+    }
+
+    public long getMutations()
+    {
+        return mutations;
+    }
+
+    /**
+     * @return the mutations per second between the first and the last mutation, or 0 if too few were seen.
+     */
+    public double getMutationRate()
+    {
+        long span = last - first;
+        if ((mutations < 2) || (span <= 0))
+        {
+            return 0;
+        }
+        return (mutations - 1) / (span / (double)TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%d mutations (%.0f/s); node adds [%s]; edge adds [%s]",mutations,getMutationRate(),
+                             nodeAdds,edgeAdds);
+    }
+}
@@ -0,0 +1,364 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * A graph that can be populated from several threads at once.
+ * <p>
+ * {@link Graph} keeps its nodes and edges, and its nodes keep their children and parents, in plain maps,
+ * so it must be populated by a single thread. This graph keeps its nodes and edges in {@link ConcurrentHashMap}s, whose
+ * lookups do not lock, and guards the adjacency maps with a fixed set of locks, striped by node label.
+ * <p>
+ * {@link #addNode(String)} and {@link #addEdge(Node, Node)} are linearizable: each takes effect atomically, between
+ * its call and its return, and concurrent adds of the same node or edge all return the one instance added. An edge
+ * is registered, and connected to both of its nodes, while holding the locks of both nodes, so the adjacency reads of
+ * this class ({@link #getChildren(Node)}, {@link #getParents(Node)}) always agree with {@link #getEdge(Node, Node)}.
+ * <p>
+ * The {@link Node#getChildren()} and {@link Node#getParents()} lists of the nodes must not be read while the graph is
+ * being populated. Once populated, use {@link #toGraph()} for the algorithms and renderers.
+ * <p>
+ * Styles and scopes set on the returned nodes and edges are plain fields: set them before handing the graph over, or
+ * from the thread that later calls {@link #toGraph()}.
+ *
+ * @since 1.0.2
+ */
+public class ConcurrentGraph
+{
+    private final ConcurrentHashMap<String, Node> nodeMap;
+
+    private final ConcurrentHashMap<EdgeKey, Edge> edgeMap;
+
+    private final ReentrantLock[] stripes;
+
+    /**
+     * The key of an edge, its nodes being unique per label within the graph.
+     */
+    private static final class EdgeKey
+    {
+        private final Node from;
+
+        private final Node to;
+
+        EdgeKey(Node from, Node to)
+        {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (31 * System.identityHashCode(from)) + System.identityHashCode(to);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof EdgeKey))
+            {
+                return false;
+            }
+            EdgeKey other = (EdgeKey)obj;
+            return (from == other.from) && (to == other.to);
+        }
+    }
+
+    public ConcurrentGraph()
+    {
+        this(16,Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param expectedNodes
+     *            the expected number of nodes, to size the node table.
+     * @param concurrencyLevel
+     *            the expected number of threads populating the graph, to size the node table and lock stripes.
+     */
+    public ConcurrentGraph(int expectedNodes, int concurrencyLevel)
+    {
+        int threads = Math.max(concurrencyLevel,1);
+        this.nodeMap = new ConcurrentHashMap<String, Node>(Math.max(expectedNodes,16),0.75f,threads);
+        this.edgeMap = new ConcurrentHashMap<EdgeKey, Edge>(Math.max(expectedNodes * 2,16),0.75f,threads);
+        // Enough stripes for threads working on distinct nodes to rarely share one.
+        int stripeCount = Integer.highestOneBit(Math.max(threads * 16,16) - 1) << 1;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++)
+        {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Get or create the node with the provided label.
+     *
+     * @param label
+     *            the label of the node.
+     * @return the node, the same instance for all callers.
+     * @throws GraphConstraintException
+     *             if the label is empty.
+     */
+    public Node addNode(String label) throws GraphConstraintException
+    {
+        Node node = nodeMap.get(label);
+        if (node != null)
+        {
+            return node;
+        }
+
+        if (StringUtils.isEmpty(label))
+        {
+            throw new GraphConstraintException("Unable to add node with empty label.");
+        }
+
+        node = new Node(label);
+        Node existing = nodeMap.putIfAbsent(label,node);
+        return (existing == null) ? node : existing;
+    }
+
+    public Node getNode(String label)
+    {
+        return nodeMap.get(label);
+    }
+
+    /**
+     * @return a weakly consistent view of the nodes, see {@link ConcurrentHashMap#values()}.
+     */
+    public Collection<Node> getNodes()
+    {
+        return nodeMap.values();
+    }
+
+    public int getNodeCount()
+    {
+        return nodeMap.size();
+    }
+
+    /**
+     * Get or create the edge between the nodes with the provided labels, creating the nodes as needed.
+     *
+     * @return the edge, the same instance for all callers.
+     * @throws GraphConstraintException
+     *             if a label is empty, or the edge breaks the constraints of the graph.
+     */
+    public Edge addEdge(String startLabel, String endLabel) throws GraphConstraintException
+    {
+        return addEdge(addNode(startLabel),addNode(endLabel));
+    }
+
+    /**
+     * Get or create the edge between the provided nodes.
+     *
+     * @param start
+     *            a node of this graph.
+     * @param end
+     *            a node of this graph.
+     * @return the edge, the same instance for all callers.
+     * @throws GraphConstraintException
+     *             if the edge breaks the constraints of the graph.
+     */
+    public Edge addEdge(Node start, Node end) throws GraphConstraintException
+    {
+        checkNode(start);
+        checkNode(end);
+
+        Edge edge = edgeMap.get(new EdgeKey(start,end));
+        if (edge != null)
+        {
+            return edge;
+        }
+        return connect(start,end);
+    }
+
+    /**
+     * Register and connect a new edge, unless a concurrent add got there first. Subclasses check their constraints
+     * before calling this.
+     *
+     * @return the edge, the same instance for all callers.
+     * @throws GraphConstraintException
+     *             if the edge breaks the constraints of the graph.
+     */
+    protected Edge connect(Node start, Node end) throws GraphConstraintException
+    {
+        // Always lock the lower stripe first, so threads connecting nodes of the same two stripes cannot deadlock.
+        int startStripe = stripeOf(start);
+        int endStripe = stripeOf(end);
+        ReentrantLock first = stripes[Math.min(startStripe,endStripe)];
+        ReentrantLock second = stripes[Math.max(startStripe,endStripe)];
+
+        first.lock();
+        try
+        {
+            if (second != first)
+            {
+                second.lock();
+            }
+            try
+            {
+                EdgeKey key = new EdgeKey(start,end);
+                Edge edge = edgeMap.get(key);
+                if (edge == null)
+                {
+                    edge = new Edge(start,end);
+                    edgeMap.put(key,edge);
+                    start.putChild(end,edge);
+                    end.putParent(start,edge);
+                }
+                return edge;
+            }
+            finally
+            {
+                if (second != first)
+                {
+                    second.unlock();
+                }
+            }
+        }
+        finally
+        {
+            first.unlock();
+        }
+    }
+
+    public Edge getEdge(Node start, Node end)
+    {
+        return edgeMap.get(new EdgeKey(start,end));
+    }
+
+    public boolean hasEdge(String startLabel, String endLabel)
+    {
+        Node start = getNode(startLabel);
+        Node end = getNode(endLabel);
+        return (start != null) && (end != null) && (getEdge(start,end) != null);
+    }
+
+    /**
+     * @return a weakly consistent view of the edges, see {@link ConcurrentHashMap#values()}.
+     */
+    public Collection<Edge> getEdges()
+    {
+        return edgeMap.values();
+    }
+
+    public int getEdgeCount()
+    {
+        return edgeMap.size();
+    }
+
+    /**
+     * @return a copy of the children of the node, in the order their edges were added.
+     */
+    public Node[] getChildren(Node node)
+    {
+        return copy(node,node.getChildEdges().keySet());
+    }
+
+    /**
+     * @return a copy of the parents of the node, in the order their edges were added.
+     */
+    public Node[] getParents(Node node)
+    {
+        return copy(node,node.getParentEdges().keySet());
+    }
+
+    private Node[] copy(Node node, Set<Node> nodes)
+    {
+        ReentrantLock lock = stripes[stripeOf(node)];
+        lock.lock();
+        try
+        {
+            return nodes.toArray(new Node[nodes.size()]);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copy this graph into a plain {@link Graph}, see {@link #toGraph(Graph)}.
+     *
+     * @return the new graph.
+     * @throws GraphConstraintException
+     *             never for a plain graph.
+     */
+    public Graph toGraph() throws GraphConstraintException
+    {
+        return toGraph(new Graph());
+    }
+
+    /**
+     * Copy the nodes and edges, with their styles and scopes, into an empty graph. The children of each node keep their
+     * order.
+     * <p>
+     * Copying while other threads are still adding is safe, but only includes part of their additions.
+     *
+     * @param graph
+     *            the empty graph to fill.
+     * @return the graph.
+     * @throws GraphConstraintException
+     *             if a node has an empty label.
+     */
+    protected <T extends Graph> T toGraph(T graph) throws GraphConstraintException
+    {
+        GraphBuilder builder = new GraphBuilder(nodeMap.size(),edgeMap.size());
+        for (Node node : nodeMap.values())
+        {
+            int id = builder.addNode(node.getLabel());
+            if (node.hasStyle())
+            {
+                builder.setNodeStyle(id,node.getStyle());
+            }
+        }
+        for (Node node : nodeMap.values())
+        {
+            int from = builder.indexOf(node.getLabel());
+            for (Node child : getChildren(node))
+            {
+                int edge = builder.addEdge(from,builder.addNode(child.getLabel()));
+                Edge source = edgeMap.get(new EdgeKey(node,child));
+                if (source.hasStyle())
+                {
+                    builder.setEdgeStyle(edge,source.getStyle());
+                }
+                builder.setEdgeScope(edge,source.getScope());
+            }
+        }
+
+        return builder.build(graph);
+    }
+
+    private void checkNode(Node node)
+    {
+        if ((node == null) || (nodeMap.get(node.getLabel()) != node))
+        {
+            throw new IllegalArgumentException("Not a node of this graph: " + node);
+        }
+    }
+
+    private int stripeOf(Node node)
+    {
+        int hash = node.getLabel().hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+}
@@ -16,7 +16,7 @@ package net.erdfelt.maven.graphing.graph.model;
  * limitations under the License.
  */
 
-import net.erdfelt.maven.graphing.graph.decorator.EdgeDecorator;
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
 
 import org.codehaus.plexus.util.StringUtils;
 
@@ -29,12 +29,30 @@ import org.codehaus.plexus.util.StringUtils;
  */
 public class Edge
 {
-    private EdgeDecorator decorator;
+    /**
+     * The explicit style, null for the default.
+     */
+    private EdgeStyle style;
+
+    /**
+     * The dependency scope this edge stands for, if any.
+     */
+    private String scope;
 
     private Node from;
 
     private Node to;
 
+    /**
+     * The graph this edge was last added to, which checks modifications, see {@link Graph#snapshot()}.
+     */
+    Graph owner;
+
+    /**
+     * The key of this edge in the edge map of its graph, kept so removing the edge does not rebuild it.
+     */
+    String key;
+
     public Edge(Node from, Node to)
     {
         if (from == null)
@@ -51,19 +69,44 @@ public class Edge
         this.to = to;
     }
 
-    public EdgeDecorator getDecorator()
+    /**
+     * @return true if this edge has a style of its own.
+     */
+    public boolean hasStyle()
     {
-        // Lazy init of decorator.
-        if (decorator == null)
-        {
-            decorator = new EdgeDecorator();
-        }
-        return decorator;
+        return style != null;
+    }
+
+    /**
+     * @return the style of this edge, {@link EdgeStyle#DEFAULT} if it has none of its own.
+     */
+    public EdgeStyle getStyle()
+    {
+        return (style == null) ? EdgeStyle.DEFAULT : style;
+    }
+
+    /**
+     * @param style
+     *            the shared style, or null to use the default.
+     */
+    public void setStyle(EdgeStyle style)
+    {
+        checkWritable();
+        this.style = style;
     }
 
-    public void setDecorator(EdgeDecorator decorator)
+    /**
+     * @return the dependency scope this edge stands for, or null.
+     */
+    public String getScope()
     {
-        this.decorator = decorator;
+        return scope;
+    }
+
+    public void setScope(String scope)
+    {
+        checkWritable();
+        this.scope = scope;
     }
 
     public Node getFrom()
@@ -76,10 +119,34 @@ public class Edge
         return to;
     }
 
+    /**
+     * @return a copy of this edge, with the same style and scope, between the provided nodes.
+     */
+    Edge copy(Node from, Node to)
+    {
+        Edge copy = new Edge(from,to);
+        copy.style = style;
+        copy.scope = scope;
+        return copy;
+    }
+
+    /**
+     * @throws UnsupportedOperationException
+     *             if this edge belongs to a graph snapshot.
+     */
+    private void checkWritable()
+    {
+        if (Graph.isSnapshotOwned(owner))
+        {
+            throw new UnsupportedOperationException("Edge [" + from.getLabel() + "] -> [" + to.getLabel()
+                + "] belongs to a graph snapshot.");
+        }
+    }
+
     protected void connect()
     {
-        from.addChildNode(to);
-        to.addParentNode(from);
+        from.putChild(to,this);
+        to.putParent(from,this);
     }
 
     protected void disconnect()
@@ -0,0 +1,331 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import net.erdfelt.maven.graphing.graph.decorator.GraphDecorator;
+import net.erdfelt.maven.graphing.graph.metrics.GraphingMetrics;
+
+/**
+ * A live, filtered, view of a graph (or of another view).
+ * <p>
+ * The view holds the source and two predicates, nothing else: creating one is O(1), and every read filters the source
+ * as it goes, so changes to the source are seen immediately. A node is in the view when it is in the source and
+ * accepted by the node predicate. An edge is in the view when it is in the source, accepted by the edge predicate, and
+ * both of its nodes are in the view.
+ * <p>
+ * Each read pays for the filtering: the sizes of {@link #getNodes()} and {@link #getEdges()} are counted, and the
+ * children and parents are filtered on every call. To run several algorithms over the same view, {@link #freeze()} it
+ * once.
+ * <p>
+ * Example, the compile scope graph without the test jars:
+ *
+ * <pre>
+ * GraphView compile = new FilteredGraphView(graph,FilteredGraphView.nodesOfType(&quot;test-jar&quot;).negate(),
+ *         FilteredGraphView.edgesInScopes(&quot;compile&quot;));
+ * </pre>
+ *
+ * @since 1.0.2
+ */
+public class FilteredGraphView implements GraphView
+{
+    private final GraphView source;
+
+    private final Predicate<Node> nodeFilter;
+
+    private final Predicate<Edge> edgeFilter;
+
+    /**
+     * @param source
+     *            the graph or view to filter.
+     * @param nodeFilter
+     *            the nodes to keep, or null for all.
+     * @param edgeFilter
+     *            the edges to keep, or null for all.
+     */
+    public FilteredGraphView(GraphView source, Predicate<Node> nodeFilter, Predicate<Edge> edgeFilter)
+    {
+        this.source = source;
+        this.nodeFilter = nodeFilter;
+        this.edgeFilter = edgeFilter;
+    }
+
+    /**
+     * @return a view with the nodes accepted by the filter, and the edges between them.
+     */
+    public static FilteredGraphView nodes(GraphView source, Predicate<Node> nodeFilter)
+    {
+        return new FilteredGraphView(source,nodeFilter,null);
+    }
+
+    /**
+     * @return a view with all of the nodes, and the edges accepted by the filter.
+     */
+    public static FilteredGraphView edges(GraphView source, Predicate<Edge> edgeFilter)
+    {
+        return new FilteredGraphView(source,null,edgeFilter);
+    }
+
+    /**
+     * @return a predicate accepting the edges with one of the scopes.
+     */
+    public static Predicate<Edge> edgesInScopes(String... scopes)
+    {
+        final Set<String> accepted = new HashSet<String>(Arrays.asList(scopes));
+        return new Predicate<Edge>()
+        {
+            public boolean test(Edge edge)
+            {
+                return accepted.contains(edge.getScope());
+            }
+        };
+    }
+
+    /**
+     * @return a predicate accepting the nodes with a {@link NodeKey} of the groupId.
+     */
+    public static Predicate<Node> nodesInGroup(final String groupId)
+    {
+        return new Predicate<Node>()
+        {
+            public boolean test(Node node)
+            {
+                return (node.getKey() != null) && groupId.equals(node.getKey().getGroupId());
+            }
+        };
+    }
+
+    /**
+     * @return a predicate accepting the nodes with a {@link NodeKey} of the type.
+     */
+    public static Predicate<Node> nodesOfType(final String type)
+    {
+        return new Predicate<Node>()
+        {
+            public boolean test(Node node)
+            {
+                return (node.getKey() != null) && type.equals(node.getKey().getType());
+            }
+        };
+    }
+
+    public GraphView getSource()
+    {
+        return source;
+    }
+
+    /**
+     * @return true if the edge, of the source, is in this view.
+     */
+    private boolean acceptsEdge(Edge edge)
+    {
+        return ((edgeFilter == null) || edgeFilter.test(edge)) && acceptsNode(edge.getFrom())
+                && acceptsNode(edge.getTo());
+    }
+
+    /**
+     * @return true if the node, of the source, is in this view.
+     */
+    private boolean acceptsNode(Node node)
+    {
+        return (nodeFilter == null) || nodeFilter.test(node);
+    }
+
+    public boolean hasDecorator()
+    {
+        return source.hasDecorator();
+    }
+
+    public GraphDecorator getDecorator()
+    {
+        return source.getDecorator();
+    }
+
+    public GraphingMetrics getMetrics()
+    {
+        return source.getMetrics();
+    }
+
+    public Collection<Node> getNodes()
+    {
+        return new FilteredCollection<Node>()
+        {
+            @Override
+            Collection<Node> unfiltered()
+            {
+                return source.getNodes();
+            }
+
+            @Override
+            boolean accept(Node node)
+            {
+                return acceptsNode(node);
+            }
+        };
+    }
+
+    public Node getNode(String label)
+    {
+        Node node = source.getNode(label);
+        return ((node != null) && acceptsNode(node)) ? node : null;
+    }
+
+    public Collection<Edge> getEdges()
+    {
+        return new FilteredCollection<Edge>()
+        {
+            @Override
+            Collection<Edge> unfiltered()
+            {
+                return source.getEdges();
+            }
+
+            @Override
+            boolean accept(Edge edge)
+            {
+                return acceptsEdge(edge);
+            }
+        };
+    }
+
+    public Edge getEdge(Node start, Node end)
+    {
+        Edge edge = source.getEdge(start,end);
+        return ((edge != null) && acceptsEdge(edge)) ? edge : null;
+    }
+
+    public boolean hasEdge(Node start, Node end)
+    {
+        return getEdge(start,end) != null;
+    }
+
+    public List<Node> getChildren(Node node)
+    {
+        return filter(node,source.getChildren(node),true);
+    }
+
+    public List<Node> getParents(Node node)
+    {
+        return filter(node,source.getParents(node),false);
+    }
+
+    private List<Node> filter(Node node, List<Node> adjacent, boolean children)
+    {
+        if (!acceptsNode(node) || adjacent.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+
+        List<Node> ret = new ArrayList<Node>(adjacent.size());
+        for (Node other : adjacent)
+        {
+            if (!acceptsNode(other))
+            {
+                continue;
+            }
+            if (edgeFilter != null)
+            {
+                Edge edge = children ? source.getEdge(node,other) : source.getEdge(other,node);
+                if ((edge == null) || !edgeFilter.test(edge))
+                {
+                    continue;
+                }
+            }
+            ret.add(other);
+        }
+        return ret;
+    }
+
+    public FrozenGraph freeze()
+    {
+        return new FrozenGraph(this);
+    }
+
+    /**
+     * A read only collection filtering another as it is iterated.
+     */
+    private abstract static class FilteredCollection<T> extends AbstractCollection<T>
+    {
+        abstract Collection<T> unfiltered();
+
+        abstract boolean accept(T element);
+
+        @Override
+        public Iterator<T> iterator()
+        {
+            final Iterator<T> iter = unfiltered().iterator();
+            return new Iterator<T>()
+            {
+                private T next = advance();
+
+                private T advance()
+                {
+                    while (iter.hasNext())
+                    {
+                        T element = iter.next();
+                        if (accept(element))
+                        {
+                            return element;
+                        }
+                    }
+                    return null;
+                }
+
+                public boolean hasNext()
+                {
+                    return next != null;
+                }
+
+                public T next()
+                {
+                    if (next == null)
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    T ret = next;
+                    next = advance();
+                    return ret;
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            int size = 0;
+            for (T element : unfiltered())
+            {
+                if (accept(element))
+                {
+                    size++;
+                }
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,723 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.GraphDecorator;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.metrics.GraphingMetrics;
+
+/**
+ * An immutable, read optimised, copy of a {@link Graph} or {@link GraphView}, as created by {@link GraphView#freeze()}.
+ * <p>
+ * Nodes are identified by dense ids (<code>0..getNodeCount()-1</code>, in the iteration order of the source graph),
+ * and edges by dense indexes (<code>0..getEdgeCount()-1</code>, grouped by source node). The adjacency is held in CSR
+ * form: the children of node <code>n</code> are the targets of edges <code>getChildOffset(n)</code> up to
+ * <code>getChildOffset(n + 1)</code>, in the order of {@link GraphView#getChildren(Node)}, and its parents are at
+ * <code>getParentOffset(n)</code> up to <code>getParentOffset(n + 1)</code>. Labels are found through an open
+ * addressing table, without boxing.
+ * <p>
+ * The algorithms (sorting, cycle detection, strongly connected components and reachability) walk the primitive
+ * arrays iteratively, so they do not grow the stack on deep graphs. All state is final and never modified, so a
+ * frozen graph can be shared between threads without synchronisation.
+ *
+ * @since 1.0.2
+ */
+public final class FrozenGraph
+{
+    private static final int[] EMPTY = new int[0];
+
+    private final GraphDecorator decorator;
+
+    private final GraphingMetrics metrics;
+
+    private final String[] labels;
+
+    /**
+     * The node styles, null entries for nodes without a style of their own.
+     */
+    private final NodeStyle[] nodeStyles;
+
+    /**
+     * The label table: node id + 1, or 0 for an empty slot.
+     */
+    private final int[] slots;
+
+    private final int[] childOffsets;
+
+    /**
+     * The target of each edge.
+     */
+    private final int[] childIds;
+
+    /**
+     * The source of each edge.
+     */
+    private final int[] edgeSources;
+
+    private final int[] parentOffsets;
+
+    private final int[] parentIds;
+
+    /**
+     * The edge of each parent slot.
+     */
+    private final int[] parentEdges;
+
+    /**
+     * The edge styles, null entries for edges without a style of their own.
+     */
+    private final EdgeStyle[] edgeStyles;
+
+    private final String[] edgeScopes;
+
+    FrozenGraph(GraphView graph)
+    {
+        this.decorator = graph.hasDecorator() ? new GraphDecorator(graph.getDecorator()) : null;
+        this.metrics = graph.getMetrics();
+
+        Node[] byId = graph.getNodes().toArray(new Node[0]);
+        int nodeCount = byId.length;
+        this.labels = new String[nodeCount];
+        this.nodeStyles = new NodeStyle[nodeCount];
+        int id;
+        for (id = 0; id < nodeCount; id++)
+        {
+            labels[id] = byId[id].getLabel();
+            nodeStyles[id] = byId[id].hasStyle() ? byId[id].getStyle() : null;
+        }
+
+        int tableSize = Integer.highestOneBit(Math.max(2,nodeCount * 2) - 1) << 1;
+        this.slots = new int[tableSize];
+        for (id = 0; id < nodeCount; id++)
+        {
+            int slot = spread(labels[id].hashCode()) & (tableSize - 1);
+            while (slots[slot] != 0)
+            {
+                slot = (slot + 1) & (tableSize - 1);
+            }
+            slots[slot] = id + 1;
+        }
+
+        // Children, in list order. Nodes no longer tracked by the graph (eg: removed ones) are left out.
+        this.childOffsets = new int[nodeCount + 1];
+        int[] children = new int[Math.max(nodeCount,16)];
+        int edgeCount = 0;
+        for (id = 0; id < nodeCount; id++)
+        {
+            for (Node child : graph.getChildren(byId[id]))
+            {
+                int childId = indexOf(child.getLabel());
+                if (childId >= 0)
+                {
+                    if (edgeCount == children.length)
+                    {
+                        children = Arrays.copyOf(children,children.length * 2);
+                    }
+                    children[edgeCount++] = childId;
+                }
+            }
+            childOffsets[id + 1] = edgeCount;
+        }
+        this.childIds = (edgeCount == children.length) ? children : Arrays.copyOf(children,edgeCount);
+
+        this.edgeSources = new int[edgeCount];
+        for (id = 0; id < nodeCount; id++)
+        {
+            Arrays.fill(edgeSources,childOffsets[id],childOffsets[id + 1],id);
+        }
+
+        // Parents, by reversing the children.
+        this.parentOffsets = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++)
+        {
+            parentOffsets[childIds[e] + 1]++;
+        }
+        for (id = 0; id < nodeCount; id++)
+        {
+            parentOffsets[id + 1] += parentOffsets[id];
+        }
+        this.parentIds = new int[edgeCount];
+        this.parentEdges = new int[edgeCount];
+        int[] fill = Arrays.copyOf(parentOffsets,nodeCount);
+        for (int e = 0; e < edgeCount; e++)
+        {
+            int slot = fill[childIds[e]]++;
+            parentIds[slot] = edgeSources[e];
+            parentEdges[slot] = e;
+        }
+
+        this.edgeStyles = new EdgeStyle[edgeCount];
+        this.edgeScopes = new String[edgeCount];
+        copyEdgeAttributes(graph.getEdges());
+    }
+
+    /**
+     * Copy the style and scope of each edge, grouping the edges by source so each is located in O(1).
+     */
+    private void copyEdgeAttributes(Collection<Edge> edges)
+    {
+        int nodeCount = labels.length;
+        int[] sources = new int[edges.size()];
+        int[] starts = new int[nodeCount + 1];
+        int i = 0;
+        for (Edge edge : edges)
+        {
+            int source = indexOf(edge.getFrom().getLabel());
+            sources[i++] = source;
+            if (source >= 0)
+            {
+                starts[source + 1]++;
+            }
+        }
+        for (int id = 0; id < nodeCount; id++)
+        {
+            starts[id + 1] += starts[id];
+        }
+
+        Edge[] bySource = new Edge[starts[nodeCount]];
+        int[] fill = Arrays.copyOf(starts,nodeCount);
+        i = 0;
+        for (Edge edge : edges)
+        {
+            int source = sources[i++];
+            if (source >= 0)
+            {
+                bySource[fill[source]++] = edge;
+            }
+        }
+
+        // The edge index of each child of the current source.
+        int[] edgeOf = new int[nodeCount];
+        for (int id = 0; id < nodeCount; id++)
+        {
+            if (starts[id] == starts[id + 1])
+            {
+                continue;
+            }
+            for (int e = childOffsets[id]; e < childOffsets[id + 1]; e++)
+            {
+                edgeOf[childIds[e]] = e;
+            }
+            for (int s = starts[id]; s < starts[id + 1]; s++)
+            {
+                Edge edge = bySource[s];
+                int target = indexOf(edge.getTo().getLabel());
+                if (target < 0)
+                {
+                    continue;
+                }
+                int e = edgeOf[target];
+                if ((e >= childOffsets[id]) && (e < childOffsets[id + 1]) && (childIds[e] == target))
+                {
+                    edgeStyles[e] = edge.hasStyle() ? edge.getStyle() : null;
+                    edgeScopes[e] = edge.getScope();
+                }
+            }
+        }
+    }
+
+    private static int spread(int hash)
+    {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @return a copy of the decorator of the source graph.
+     */
+    public GraphDecorator getDecorator()
+    {
+        return (decorator == null) ? new GraphDecorator() : new GraphDecorator(decorator);
+    }
+
+    /**
+     * @return the metrics of the source graph, or null if it was not instrumented.
+     */
+    public GraphingMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    public int getNodeCount()
+    {
+        return labels.length;
+    }
+
+    public int getEdgeCount()
+    {
+        return childIds.length;
+    }
+
+    public String getLabel(int node)
+    {
+        return labels[node];
+    }
+
+    /**
+     * @param label
+     *            the node label.
+     * @return the id of the node, or -1 if there is no node with that label.
+     */
+    public int indexOf(String label)
+    {
+        int mask = slots.length - 1;
+        int slot = spread(label.hashCode()) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0)
+        {
+            if (labels[entry - 1].equals(label))
+            {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public boolean hasNodeStyle(int node)
+    {
+        return nodeStyles[node] != null;
+    }
+
+    /**
+     * @return the style of the node, {@link NodeStyle#DEFAULT} if it has none of its own.
+     */
+    public NodeStyle getNodeStyle(int node)
+    {
+        NodeStyle style = nodeStyles[node];
+        return (style == null) ? NodeStyle.DEFAULT : style;
+    }
+
+    /**
+     * @return the index of the first edge from the node. The edges from node <code>n</code> end at
+     *         <code>getChildOffset(n + 1)</code>.
+     */
+    public int getChildOffset(int node)
+    {
+        return childOffsets[node];
+    }
+
+    public int getChildCount(int node)
+    {
+        return childOffsets[node + 1] - childOffsets[node];
+    }
+
+    /**
+     * @return the ids of the children of the node, in the order of {@link Node#getChildren()}.
+     */
+    public int[] getChildren(int node)
+    {
+        return Arrays.copyOfRange(childIds,childOffsets[node],childOffsets[node + 1]);
+    }
+
+    /**
+     * @return the first parent slot of the node. The parents of node <code>n</code> end at
+     *         <code>getParentOffset(n + 1)</code>.
+     */
+    public int getParentOffset(int node)
+    {
+        return parentOffsets[node];
+    }
+
+    public int getParentCount(int node)
+    {
+        return parentOffsets[node + 1] - parentOffsets[node];
+    }
+
+    /**
+     * @return the id of the parent in the slot.
+     */
+    public int getParent(int slot)
+    {
+        return parentIds[slot];
+    }
+
+    /**
+     * @return the index of the edge from the parent in the slot.
+     */
+    public int getParentEdge(int slot)
+    {
+        return parentEdges[slot];
+    }
+
+    /**
+     * @return the ids of the parents of the node, in ascending order.
+     */
+    public int[] getParents(int node)
+    {
+        return Arrays.copyOfRange(parentIds,parentOffsets[node],parentOffsets[node + 1]);
+    }
+
+    public int getEdgeSource(int edge)
+    {
+        return edgeSources[edge];
+    }
+
+    public int getEdgeTarget(int edge)
+    {
+        return childIds[edge];
+    }
+
+    /**
+     * @return the index of the edge between the nodes, or -1 if there is none.
+     */
+    public int indexOfEdge(int from, int to)
+    {
+        for (int e = childOffsets[from]; e < childOffsets[from + 1]; e++)
+        {
+            if (childIds[e] == to)
+            {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    public boolean hasEdgeStyle(int edge)
+    {
+        return edgeStyles[edge] != null;
+    }
+
+    /**
+     * @return the style of the edge, {@link EdgeStyle#DEFAULT} if it has none of its own.
+     */
+    public EdgeStyle getEdgeStyle(int edge)
+    {
+        EdgeStyle style = edgeStyles[edge];
+        return (style == null) ? EdgeStyle.DEFAULT : style;
+    }
+
+    /**
+     * @return the dependency scope of the edge, or null.
+     */
+    public String getEdgeScope(int edge)
+    {
+        return edgeScopes[edge];
+    }
+
+    /**
+     * @param nodes
+     *            node ids.
+     * @return the labels of the nodes, in the same order.
+     */
+    public List<String> toLabels(int[] nodes)
+    {
+        List<String> ret = new ArrayList<String>(nodes.length);
+        for (int node : nodes)
+        {
+            ret.add(labels[node]);
+        }
+        return ret;
+    }
+
+    /**
+     * Sort the nodes depth first, each node following all of its children (its dependencies). This is the order of
+     * <code>TopologicalSorter.sort(Dag)</code>.
+     * <p>
+     * On a graph with cycles, the order is only topological outside of the cycles.
+     *
+     * @return all node ids, sorted.
+     */
+    public int[] topologicalSort()
+    {
+        int nodeCount = labels.length;
+        int[] sorted = new int[nodeCount];
+        int count = 0;
+
+        boolean[] seen = new boolean[nodeCount];
+        int[] stack = new int[nodeCount];
+        int[] next = new int[nodeCount];
+
+        for (int root = 0; root < nodeCount; root++)
+        {
+            if (seen[root])
+            {
+                continue;
+            }
+            int depth = 0;
+            stack[0] = root;
+            next[0] = childOffsets[root];
+            seen[root] = true;
+            while (depth >= 0)
+            {
+                int node = stack[depth];
+                if (next[depth] < childOffsets[node + 1])
+                {
+                    int child = childIds[next[depth]++];
+                    if (!seen[child])
+                    {
+                        seen[child] = true;
+                        depth++;
+                        stack[depth] = child;
+                        next[depth] = childOffsets[child];
+                    }
+                }
+                else
+                {
+                    sorted[count++] = node;
+                    depth--;
+                }
+            }
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Find a cycle, following the children.
+     *
+     * @return the ids of the nodes of a cycle, starting and ending with the same node, or null if the graph is acyclic.
+     */
+    public int[] findCycle()
+    {
+        int nodeCount = labels.length;
+        // 0 = not visited, 1 = visiting (on the stack), 2 = visited.
+        byte[] state = new byte[nodeCount];
+        int[] stack = new int[nodeCount];
+        int[] next = new int[nodeCount];
+
+        for (int root = 0; root < nodeCount; root++)
+        {
+            if (state[root] != 0)
+            {
+                continue;
+            }
+            int depth = 0;
+            stack[0] = root;
+            next[0] = childOffsets[root];
+            state[root] = 1;
+            while (depth >= 0)
+            {
+                int node = stack[depth];
+                if (next[depth] < childOffsets[node + 1])
+                {
+                    int child = childIds[next[depth]++];
+                    if (state[child] == 0)
+                    {
+                        state[child] = 1;
+                        depth++;
+                        stack[depth] = child;
+                        next[depth] = childOffsets[child];
+                    }
+                    else if (state[child] == 1)
+                    {
+                        // The path from the child, down the stack, back to the child.
+                        int start = depth;
+                        while (stack[start] != child)
+                        {
+                            start--;
+                        }
+                        int[] cycle = Arrays.copyOfRange(stack,start,depth + 2);
+                        cycle[cycle.length - 1] = child;
+                        return cycle;
+                    }
+                }
+                else
+                {
+                    state[node] = 2;
+                    depth--;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Find the strongly connected components, with an iterative version of Tarjan's algorithm.
+     * <p>
+     * Components are numbered in the order they complete: the components a component depends on (through its
+     * children) have lower numbers. On an acyclic graph, every node is its own component.
+     *
+     * @return the component number of each node, by node id.
+     */
+    public int[] stronglyConnectedComponents()
+    {
+        return stronglyConnectedComponents(labels.length,childOffsets,childIds);
+    }
+
+    /**
+     * Tarjan's algorithm over compressed sparse row adjacency, shared with {@link GraphBuilder}.
+     */
+    static int[] stronglyConnectedComponents(int nodeCount, int[] childOffsets, int[] childIds)
+    {
+        int[] component = new int[nodeCount];
+        Arrays.fill(component,-1);
+        // Discovery index + 1, 0 for not visited.
+        int[] index = new int[nodeCount];
+        int[] lowlink = new int[nodeCount];
+        int[] members = new int[nodeCount];
+        int memberCount = 0;
+        int[] stack = new int[nodeCount];
+        int[] next = new int[nodeCount];
+        int counter = 0;
+        int components = 0;
+
+        for (int root = 0; root < nodeCount; root++)
+        {
+            if (index[root] != 0)
+            {
+                continue;
+            }
+            int depth = 0;
+            stack[0] = root;
+            next[0] = childOffsets[root];
+            index[root] = lowlink[root] = ++counter;
+            members[memberCount++] = root;
+
+            while (depth >= 0)
+            {
+                int node = stack[depth];
+                if (next[depth] < childOffsets[node + 1])
+                {
+                    int child = childIds[next[depth]++];
+                    if (index[child] == 0)
+                    {
+                        index[child] = lowlink[child] = ++counter;
+                        members[memberCount++] = child;
+                        depth++;
+                        stack[depth] = child;
+                        next[depth] = childOffsets[child];
+                    }
+                    else if (component[child] < 0)
+                    {
+                        // Still on the member stack.
+                        lowlink[node] = Math.min(lowlink[node],index[child]);
+                    }
+                }
+                else
+                {
+                    if (lowlink[node] == index[node])
+                    {
+                        int member;
+                        do
+                        {
+                            member = members[--memberCount];
+                            component[member] = components;
+                        }
+                        while (member != node);
+                        components++;
+                    }
+                    depth--;
+                    if (depth >= 0)
+                    {
+                        int parent = stack[depth];
+                        lowlink[parent] = Math.min(lowlink[parent],lowlink[node]);
+                    }
+                }
+            }
+        }
+
+        return component;
+    }
+
+    /**
+     * @param node
+     *            the node to start from.
+     * @param downstream
+     *            true to follow the children (dependencies), false to follow the parents (dependents).
+     * @return the ids of the nodes reachable from the node, including itself.
+     */
+    public BitSet reachable(int node, boolean downstream)
+    {
+        return reachable(new int[] { node },downstream);
+    }
+
+    /**
+     * @param nodes
+     *            the nodes to start from.
+     * @param downstream
+     *            true to follow the children (dependencies), false to follow the parents (dependents).
+     * @return the ids of the nodes reachable from any of the nodes, including themselves.
+     */
+    public BitSet reachable(int[] nodes, boolean downstream)
+    {
+        int[] offsets = downstream ? childOffsets : parentOffsets;
+        int[] adjacent = downstream ? childIds : parentIds;
+
+        BitSet seen = new BitSet(labels.length);
+        int[] queue = (nodes.length == 0) ? EMPTY : new int[labels.length];
+        int tail = 0;
+        for (int node : nodes)
+        {
+            if (!seen.get(node))
+            {
+                seen.set(node);
+                queue[tail++] = node;
+            }
+        }
+
+        int head = 0;
+        while (head < tail)
+        {
+            int node = queue[head++];
+            for (int i = offsets[node]; i < offsets[node + 1]; i++)
+            {
+                int next = adjacent[i];
+                if (!seen.get(next))
+                {
+                    seen.set(next);
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        return seen;
+    }
+
+    /**
+     * @return true if the target can be reached from the source, following the children.
+     */
+    public boolean isReachable(int from, int to)
+    {
+        if (from == to)
+        {
+            return true;
+        }
+
+        BitSet seen = new BitSet(labels.length);
+        int[] queue = new int[labels.length];
+        int head = 0;
+        int tail = 0;
+        seen.set(from);
+        queue[tail++] = from;
+        while (head < tail)
+        {
+            int node = queue[head++];
+            for (int i = childOffsets[node]; i < childOffsets[node + 1]; i++)
+            {
+                int next = childIds[i];
+                if (next == to)
+                {
+                    return true;
+                }
+                if (!seen.get(next))
+                {
+                    seen.set(next);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -17,12 +17,21 @@ package net.erdfelt.maven.graphing.graph.model;
  */
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import net.erdfelt.maven.graphing.graph.decorator.GraphDecorator;
+import net.erdfelt.maven.graphing.graph.metrics.GraphingMetrics;
 
 import org.codehaus.plexus.util.StringUtils;
 
@@ -31,11 +40,19 @@ import org.codehaus.plexus.util.StringUtils;
  * 
  * @since 1.0
  */
-public class Graph implements Cloneable, Serializable
+public class Graph implements GraphView, Cloneable, Serializable
 {
     private static final long serialVersionUID = -2515866874985841788L;
     private GraphDecorator decorator;
 
+    /**
+     * @return true if a decorator has been set (or lazily created), without creating one.
+     */
+    public boolean hasDecorator()
+    {
+        return decorator != null;
+    }
+
     public GraphDecorator getDecorator()
     {
         // Lazy Init of decorator.
@@ -51,6 +68,294 @@ public class Graph implements Cloneable, Serializable
         this.decorator = decorator;
     }
 
+    private transient GraphingMetrics metrics;
+
+    /**
+     * @return the metrics this graph reports to, or null if not instrumented.
+     */
+    public GraphingMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Instrument this graph, timing the constraint checks performed on each added node and edge. Renderers also report
+     * their phases to these metrics.
+     * 
+     * @param metrics
+     *            the metrics to report to, or null to disable instrumentation.
+     */
+    public void setMetrics(GraphingMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+
+    /**
+     * The registered listeners, copied on write. Null when there are none, so unobserved graphs only pay a null check
+     * per mutation.
+     */
+    private transient GraphListener[] listeners;
+
+    /**
+     * Register a listener to be notified of the node and edge mutations of this graph.
+     * 
+     * @param listener
+     *            the listener to add.
+     */
+    public void addGraphListener(GraphListener listener)
+    {
+        if (listener == null)
+        {
+            throw new IllegalArgumentException("Listener must not be null.");
+        }
+
+        if (listeners == null)
+        {
+            listeners = new GraphListener[] { listener };
+        }
+        else
+        {
+            GraphListener[] updated = Arrays.copyOf(listeners,listeners.length + 1);
+            updated[listeners.length] = listener;
+            listeners = updated;
+        }
+    }
+
+    /**
+     * Unregister a listener.
+     * 
+     * @param listener
+     *            the listener to remove.
+     * @return true if the listener was registered.
+     */
+    public boolean removeGraphListener(GraphListener listener)
+    {
+        if (listeners == null)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < listeners.length; i++)
+        {
+            if (listeners[i] == listener)
+            {
+                if (listeners.length == 1)
+                {
+                    listeners = null;
+                }
+                else
+                {
+                    GraphListener[] updated = new GraphListener[listeners.length - 1];
+                    System.arraycopy(listeners,0,updated,0,i);
+                    System.arraycopy(listeners,i + 1,updated,i,updated.length - i);
+                    listeners = updated;
+                }
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * True for snapshots, which are read only.
+     */
+    private transient boolean readOnly;
+
+    /**
+     * Take a read only snapshot of this graph.
+     * <p>
+     * The snapshot is a copy, taken in O(V+E) like {@link #clone()}, so it never changes, and can be rendered on
+     * another thread while this graph keeps being modified. Nodes and edges obtained from this graph remain those of
+     * this graph. The nodes and edges of the snapshot are read only: modifying their styles or adding them to another
+     * graph with {@link #addNode(Node)} fails. Edges added between them are attached to the nodes of the other graph
+     * with the same labels.
+     * <p>
+     * The snapshot has its own copy of the decorator, and no listeners.
+     * 
+     * @return the snapshot, of the same class as this graph.
+     */
+    public Graph snapshot()
+    {
+        Graph snapshot = shallowCopy();
+        snapshot.copyElements(this);
+        snapshot.readOnly = true;
+        return snapshot;
+    }
+
+    /**
+     * @return true if this graph is a read only snapshot.
+     */
+    public boolean isReadOnly()
+    {
+        return readOnly;
+    }
+
+    /**
+     * Deep copy this graph, iteratively, in O(V+E). The copy is of the same class, with copies of the nodes, edges and
+     * decorator, sharing their (immutable) styles. The copy has no listeners, and is writable, even when copying a
+     * snapshot.
+     */
+    @Override
+    public Graph clone()
+    {
+        Graph copy = shallowCopy();
+        copy.copyElements(this);
+        return copy;
+    }
+
+    /**
+     * Create an immutable, read optimised, copy of this graph, for running algorithms or rendering, see
+     * {@link FrozenGraph}.
+     * 
+     * @return the frozen graph.
+     */
+    public FrozenGraph freeze()
+    {
+        return new FrozenGraph(this);
+    }
+
+    private Graph shallowCopy()
+    {
+        Graph copy;
+        try
+        {
+            copy = (Graph)super.clone();
+        }
+        catch (CloneNotSupportedException e)
+        {
+            throw new IllegalStateException("Graph is Cloneable",e);
+        }
+        copy.listeners = null;
+        copy.readOnly = false;
+        if (decorator != null)
+        {
+            copy.decorator = new GraphDecorator(decorator);
+        }
+        return copy;
+    }
+
+    /**
+     * Replace the node and edge maps of this graph with copies of those of the source graph, owned by this graph.
+     */
+    private void copyElements(Graph source)
+    {
+        Map<Node, Node> copies = new IdentityHashMap<Node, Node>(source.nodeMap.size());
+        Map<String, Node> nodes = new HashMap<String, Node>(capacity(source.nodeMap.size()));
+        for (Map.Entry<String, Node> entry : source.nodeMap.entrySet())
+        {
+            Node copy = entry.getValue().copyDetached();
+            copies.put(entry.getValue(),copy);
+            nodes.put(entry.getKey(),copy);
+        }
+
+        // Edges can connect nodes absent from the node map (see addEdge(Edge)), copy those nodes too.
+        for (Edge edge : source.edgeMap.values())
+        {
+            copyIfAbsent(edge.getFrom(),copies);
+            copyIfAbsent(edge.getTo(),copies);
+        }
+
+        Map<Edge, Edge> edgeCopies = new IdentityHashMap<Edge, Edge>(source.edgeMap.size());
+        Map<String, Edge> edges = new HashMap<String, Edge>(capacity(source.edgeMap.size()));
+        for (Map.Entry<String, Edge> entry : source.edgeMap.entrySet())
+        {
+            Edge edge = entry.getValue();
+            Edge copy = edge.copy(copies.get(edge.getFrom()),copies.get(edge.getTo()));
+            copy.owner = this;
+            copy.key = entry.getKey();
+            edgeCopies.put(edge,copy);
+            edges.put(entry.getKey(),copy);
+        }
+
+        for (Map.Entry<Node, Node> entry : copies.entrySet())
+        {
+            entry.getValue().copyAdjacency(entry.getKey(),copies,edgeCopies);
+            entry.getValue().owner = this;
+        }
+
+        nodeMap = nodes;
+        edgeMap = edges;
+    }
+
+    private static void copyIfAbsent(Node node, Map<Node, Node> copies)
+    {
+        if (!copies.containsKey(node))
+        {
+            copies.put(node,node.copyDetached());
+        }
+    }
+
+    private static int capacity(int size)
+    {
+        return (int)(size / 0.75f) + 1;
+    }
+
+    /**
+     * Replace the content of this graph with connected nodes and edges, in bulk: without constraint checks or listener
+     * notifications. Used by {@link GraphBuilder}, which validates the content beforehand.
+     */
+    void load(Node[] nodes, Edge[] edges)
+    {
+        beforeMutation();
+        Map<String, Node> loadedNodes = new HashMap<String, Node>(capacity(nodes.length));
+        for (Node node : nodes)
+        {
+            node.owner = this;
+            loadedNodes.put(node.getLabel(),node);
+        }
+        Map<String, Edge> loadedEdges = new HashMap<String, Edge>(capacity(edges.length));
+        for (Edge edge : edges)
+        {
+            edge.owner = this;
+            edge.key = toEdgeKey(edge);
+            loadedEdges.put(edge.key,edge);
+        }
+        nodeMap = loadedNodes;
+        edgeMap = loadedEdges;
+    }
+
+    /**
+     * Prepare for a mutation of this graph, or of one of its nodes or edges.
+     * 
+     * @throws UnsupportedOperationException
+     *             if this graph is a snapshot.
+     */
+    void beforeMutation()
+    {
+        if (readOnly)
+        {
+            throw new UnsupportedOperationException("Graph snapshots are read only.");
+        }
+    }
+
+    /**
+     * @return true if the node or edge owner is a snapshot, see {@link #snapshot()}.
+     */
+    static boolean isSnapshotOwned(Graph owner)
+    {
+        return (owner != null) && owner.readOnly;
+    }
+
+    /**
+     * @return the node of this graph with the same label as a node owned by a snapshot, or the provided node.
+     * @throws GraphConstraintException
+     *             if the node is owned by a snapshot, and this graph has no node with the same label.
+     */
+    private Node resolve(Node node) throws GraphConstraintException
+    {
+        if (!isSnapshotOwned(node.owner))
+        {
+            return node;
+        }
+        Node current = nodeMap.get(node.getLabel());
+        if (current == null)
+        {
+            throw new GraphConstraintException("Node [" + node.getLabel() + "] belongs to a graph snapshot.");
+        }
+        return current;
+    }
+
     // Node Manipulation.
     private Map<String, Node> nodeMap = new HashMap<String, Node>();
 
@@ -77,7 +382,30 @@ public class Graph implements Cloneable, Serializable
     }
 
     /**
-     * Add a Node to the graph.
+     * Get or create the node for the key, see {@link NodeKeyTable}.
+     * 
+     * @param key
+     *            the key of the node.
+     * @return the node.
+     * @throws GraphConstraintException
+     *             if there was a problem with adding this node.
+     */
+    public Node addNode(NodeKey key) throws GraphConstraintException
+    {
+        Node node = getNode(key.getLabel());
+
+        if (node == null)
+        {
+            node = new Node(key);
+            addNode(node);
+        }
+
+        return node;
+    }
+
+    /**
+     * Add a Node to the graph. A different node with the same label is replaced, and its edges are moved onto the
+     * added node.
      * 
      * @param node
      *            the node to add
@@ -97,9 +425,56 @@ public class Graph implements Cloneable, Serializable
             throw new GraphConstraintException("Unable to add node with empty label.");
         }
 
-        nodeMap.put(node.getLabel(),node);
+        beforeMutation();
+        if (isSnapshotOwned(node.owner))
+        {
+            throw new GraphConstraintException("Node [" + node.getLabel() + "] belongs to a graph snapshot.");
+        }
+        node.owner = this;
+        Node replaced = nodeMap.put(node.getLabel(),node);
+        List<Edge> removedEdges = Collections.emptyList();
+        List<Edge> addedEdges = Collections.emptyList();
+        if ((replaced != null) && (replaced != node))
+        {
+            removedEdges = new ArrayList<Edge>();
+            addedEdges = new ArrayList<Edge>();
+            moveEdges(replaced,node,removedEdges,addedEdges);
+        }
 
-        assertGraphConstraints(node);
+        if ((listeners != null) && (replaced != node))
+        {
+            // The moved edges are reported removed with the replaced node, and added with the new one.
+            for (Edge edge : removedEdges)
+            {
+                fireEdgeRemoved(edge);
+            }
+            fireNodeRemoved(replaced);
+            for (GraphListener listener : listeners)
+            {
+                listener.nodeAdded(this,node);
+                for (Edge edge : addedEdges)
+                {
+                    listener.edgeAdded(this,edge);
+                }
+            }
+        }
+
+        if (metrics == null)
+        {
+            assertGraphConstraints(node);
+        }
+        else
+        {
+            long start = System.nanoTime();
+            try
+            {
+                assertGraphConstraints(node);
+            }
+            finally
+            {
+                metrics.record(GraphingMetrics.Phase.CONSTRAINT_CHECK,System.nanoTime() - start);
+            }
+        }
 
         return node;
     }
@@ -127,7 +502,16 @@ public class Graph implements Cloneable, Serializable
     }
 
     /**
-     * Remove the provided node from the graph.
+     * @return the node for the key, or null if not found.
+     */
+    public Node getNode(NodeKey key)
+    {
+        return getNode(key.getLabel());
+    }
+
+    /**
+     * Remove the node with the same label as the provided node from the graph, along with its edges, see
+     * {@link #removeNode(String)}.
      * 
      * @param node
      *            the node to remove.
@@ -135,11 +519,20 @@ public class Graph implements Cloneable, Serializable
      */
     public Node removeNode(Node node)
     {
-        return nodeMap.remove(node);
+        if (node == null)
+        {
+            return null;
+        }
+        return removeNode(node.getLabel());
     }
 
     /**
-     * Remove the provided node from the graph.
+     * Remove the node with the provided label from the graph, along with its edges.
+     * <p>
+     * Each node keeps its edges by neighbour, so the edges are found, and removed from the neighbours, in constant
+     * time each: the cost is proportional to the degree of the node, not to the size of the graph or to the degree of
+     * its neighbours. Listeners are notified of each removed edge, then of the node. To remove many nodes at once, see
+     * {@link #retainAll(Predicate)}.
      * 
      * @param label
      *            the node to remove.
@@ -147,14 +540,191 @@ public class Graph implements Cloneable, Serializable
      */
     public Node removeNode(final String label)
     {
-        Node node = getNode(label);
+        beforeMutation();
+        Node node = nodeMap.remove(label);
 
         if (node == null)
         {
             return null;
         }
 
-        return nodeMap.remove(node);
+        List<Edge> removedEdges = new ArrayList<Edge>(node.getChildCount() + node.getParentCount());
+        for (Map.Entry<Node, Edge> entry : node.getChildEdges().entrySet())
+        {
+            entry.getKey().removeParentNode(node);
+            removeIncidentEdge(node,entry.getKey(),entry.getValue(),removedEdges);
+        }
+        for (Map.Entry<Node, Edge> entry : node.getParentEdges().entrySet())
+        {
+            entry.getKey().removeChildNode(node);
+            removeIncidentEdge(entry.getKey(),node,entry.getValue(),removedEdges);
+        }
+        node.clearAdjacency();
+
+        for (Edge edge : removedEdges)
+        {
+            fireEdgeRemoved(edge);
+        }
+        return fireNodeRemoved(node);
+    }
+
+    /**
+     * Move the edges of a replaced node onto the node replacing it. Both have the same label, so the edge keys stay.
+     */
+    private void moveEdges(Node replaced, Node node, List<Edge> removedEdges, List<Edge> addedEdges)
+    {
+        Map<Node, Edge> children = new LinkedHashMap<Node, Edge>(replaced.getChildEdges());
+        Map<Node, Edge> parents = new LinkedHashMap<Node, Edge>(replaced.getParentEdges());
+        replaced.clearAdjacency();
+
+        for (Map.Entry<Node, Edge> entry : children.entrySet())
+        {
+            Node child = entry.getKey();
+            if (child == replaced)
+            {
+                child = node;
+            }
+            else
+            {
+                child.removeParentNode(replaced);
+            }
+            moveEdge(node,child,entry.getValue(),removedEdges,addedEdges);
+        }
+        for (Map.Entry<Node, Edge> entry : parents.entrySet())
+        {
+            // A loop went with the children.
+            Node parent = entry.getKey();
+            if (parent != replaced)
+            {
+                parent.removeChildNode(replaced);
+                moveEdge(parent,node,entry.getValue(),removedEdges,addedEdges);
+            }
+        }
+    }
+
+    /**
+     * Connect the nodes with a copy of the edge, which takes the place of the edge in the edge map.
+     * 
+     * @param edge
+     *            the edge kept by the replaced node, or null if it was connected without one.
+     */
+    private void moveEdge(Node from, Node to, Edge edge, List<Edge> removedEdges, List<Edge> addedEdges)
+    {
+        if (edge == null)
+        {
+            from.addChildNode(to);
+            to.addParentNode(from);
+            return;
+        }
+        Edge moved = edge.copy(from,to);
+        moved.owner = this;
+        moved.key = toEdgeKey(edge);
+        moved.connect();
+        if (edgeMap.get(moved.key) == edge)
+        {
+            edgeMap.put(moved.key,moved);
+            removedEdges.add(edge);
+            addedEdges.add(moved);
+        }
+    }
+
+    /**
+     * Remove the edge between the nodes from the edge map, if it is still there.
+     * 
+     * @param edge
+     *            the edge kept by the nodes, or null if they were connected without one.
+     */
+    private void removeIncidentEdge(Node from, Node to, Edge edge, List<Edge> removedEdges)
+    {
+        Edge removed = edgeMap.remove((edge == null) ? toEdgeKey(from,to) : toEdgeKey(edge));
+        if (removed != null)
+        {
+            removedEdges.add(removed);
+        }
+    }
+
+    /**
+     * Keep the nodes accepted by the filter, and remove the others along with their edges, in a single pass over the
+     * nodes, and over the edges of the removed nodes: O(V + degree of the removed nodes).
+     * <p>
+     * The order of the remaining children and parents is kept. Listeners are notified of each removed edge, then of
+     * each removed node.
+     * 
+     * @param filter
+     *            the nodes to keep.
+     * @return true if any node was removed.
+     */
+    public boolean retainAll(Predicate<? super Node> filter)
+    {
+        beforeMutation();
+        Set<Node> removed = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+        List<Node> removedNodes = new ArrayList<Node>();
+        Iterator<Node> nodes = nodeMap.values().iterator();
+        while (nodes.hasNext())
+        {
+            Node node = nodes.next();
+            if (!filter.test(node))
+            {
+                nodes.remove();
+                removed.add(node);
+                removedNodes.add(node);
+            }
+        }
+
+        if (removedNodes.isEmpty())
+        {
+            return false;
+        }
+
+        List<Edge> removedEdges = new ArrayList<Edge>();
+        for (Node node : removedNodes)
+        {
+            for (Map.Entry<Node, Edge> entry : node.getChildEdges().entrySet())
+            {
+                Node child = entry.getKey();
+                if (!removed.contains(child))
+                {
+                    child.removeParentNode(node);
+                }
+                removeIncidentEdge(node,child,entry.getValue(),removedEdges);
+            }
+            for (Map.Entry<Node, Edge> entry : node.getParentEdges().entrySet())
+            {
+                // Edges between two removed nodes went with the children of the parent.
+                Node parent = entry.getKey();
+                if (!removed.contains(parent))
+                {
+                    parent.removeChildNode(node);
+                    removeIncidentEdge(parent,node,entry.getValue(),removedEdges);
+                }
+            }
+        }
+        for (Node node : removedNodes)
+        {
+            node.clearAdjacency();
+        }
+
+        for (Edge edge : removedEdges)
+        {
+            fireEdgeRemoved(edge);
+        }
+        for (Node node : removedNodes)
+        {
+            fireNodeRemoved(node);
+        }
+        return true;
+    }
+
+    private Node fireNodeRemoved(Node removed)
+    {
+        if ((listeners != null) && (removed != null))
+        {
+            for (GraphListener listener : listeners)
+            {
+                listener.nodeRemoved(this,removed);
+            }
+        }
+        return removed;
     }
 
     /**
@@ -174,6 +744,22 @@ public class Graph implements Cloneable, Serializable
         return node.isConnected();
     }
 
+    /**
+     * @return the children of the node, see {@link Node#getChildren()}.
+     */
+    public List<Node> getChildren(Node node)
+    {
+        return node.getChildren();
+    }
+
+    /**
+     * @return the parents of the node, see {@link Node#getParents()}.
+     */
+    public List<Node> getParents(Node node)
+    {
+        return node.getParents();
+    }
+
     public Set<String> getNodeLabels()
     {
         return nodeMap.keySet();
@@ -195,13 +781,50 @@ public class Graph implements Cloneable, Serializable
             throw new GraphConstraintException("Unable to add edge with <null> to node.");
         }
 
+        beforeMutation();
+        Node from = resolve(edge.getFrom());
+        Node to = resolve(edge.getTo());
+        if ((from != edge.getFrom()) || (to != edge.getTo()) || isSnapshotOwned(edge.owner))
+        {
+            edge = edge.copy(from,to);
+        }
+        edge.owner = this;
+
         edge.connect();
 
-        String key = toEdgeKey(edge);
+        String key = toEdgeKey(edge.getFrom(),edge.getTo());
+        edge.key = key;
+
+        Edge replaced = edgeMap.put(key,edge);
 
-        edgeMap.put(key,edge);
+        if ((listeners != null) && (replaced != edge))
+        {
+            if (replaced != null)
+            {
+                fireEdgeRemoved(replaced);
+            }
+            for (GraphListener listener : listeners)
+            {
+                listener.edgeAdded(this,edge);
+            }
+        }
 
-        assertGraphConstraints(edge);
+        if (metrics == null)
+        {
+            assertGraphConstraints(edge);
+        }
+        else
+        {
+            long start = System.nanoTime();
+            try
+            {
+                assertGraphConstraints(edge);
+            }
+            finally
+            {
+                metrics.record(GraphingMetrics.Phase.CONSTRAINT_CHECK,System.nanoTime() - start);
+            }
+        }
 
         return edge;
     }
@@ -246,22 +869,40 @@ public class Graph implements Cloneable, Serializable
 
     public Edge removeEdge(Edge edge)
     {
+        beforeMutation();
         String key = toEdgeKey(edge);
         Edge ret = edgeMap.remove(key);
         ret.disconnect();
-        return ret;
+        return fireEdgeRemoved(ret);
     }
 
     public Edge removeEdge(Node start, Node end)
     {
+        beforeMutation();
         String key = toEdgeKey(start,end);
         Edge ret = edgeMap.remove(key);
         ret.disconnect();
-        return ret;
+        return fireEdgeRemoved(ret);
+    }
+
+    private Edge fireEdgeRemoved(Edge removed)
+    {
+        if (listeners != null)
+        {
+            for (GraphListener listener : listeners)
+            {
+                listener.edgeRemoved(this,removed);
+            }
+        }
+        return removed;
     }
 
     protected String toEdgeKey(Edge edge)
     {
+        if (edge.key != null)
+        {
+            return edge.key;
+        }
         return toEdgeKey(edge.getFrom(),edge.getTo());
     }
 
@@ -0,0 +1,185 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.GraphDecorator;
+
+/**
+ * Aggregates a graph of modules into a graph of groups: each groupId (or groupId prefix) becomes one node, and the
+ * dependencies between the modules of two groups become one edge, weighted by their number.
+ * <p>
+ * The weight is drawn as the label of the edge, and as its width, growing with the logarithm of the weight (see
+ * {@link EdgeStyle#getPenWidth()}). Dependencies within a group are dropped. The node of a group is labelled with the
+ * group and its number of modules.
+ * <p>
+ * The nodes are grouped by their {@link NodeKey}, nodes created from a plain label are groups of their own. The
+ * aggregation hashes the group of each node once, then makes a single pass over the edges, the aggregated edges being
+ * deduplicated by the {@link GraphBuilder}.
+ *
+ * @since 1.0.2
+ */
+public class GraphAggregator
+{
+    /**
+     * The widest aggregated edge.
+     */
+    private static final double MAX_PEN_WIDTH = 8;
+
+    private int groupDepth;
+
+    /**
+     * @return the number of leading groupId segments grouped on, 0 for the whole groupId.
+     */
+    public int getGroupDepth()
+    {
+        return groupDepth;
+    }
+
+    /**
+     * @param groupDepth
+     *            the number of leading groupId segments to group on (eg: 2 groups <code>org.apache.maven</code> and
+     *            <code>org.apache.commons</code> into <code>org.apache</code>), 0 for the whole groupId.
+     */
+    public void setGroupDepth(int groupDepth)
+    {
+        if (groupDepth < 0)
+        {
+            throw new IllegalArgumentException("The group depth must be 0 or more: " + groupDepth);
+        }
+        this.groupDepth = groupDepth;
+    }
+
+    /**
+     * @return the group of the node.
+     */
+    public String toGroup(Node node)
+    {
+        NodeKey key = node.getKey();
+        if (key == null)
+        {
+            return node.getLabel();
+        }
+
+        String groupId = key.getGroupId();
+        if (groupDepth > 0)
+        {
+            int end = -1;
+            for (int i = 0; i < groupDepth; i++)
+            {
+                end = groupId.indexOf('.',end + 1);
+                if (end < 0)
+                {
+                    return groupId;
+                }
+            }
+            return groupId.substring(0,end);
+        }
+        return groupId;
+    }
+
+    /**
+     * Aggregate the graph.
+     *
+     * @param source
+     *            the graph, or view, to aggregate.
+     * @return the graph of the groups.
+     * @throws GraphConstraintException
+     *             if the aggregated graph could not be built.
+     */
+    public Graph aggregate(GraphView source) throws GraphConstraintException
+    {
+        // The group of each node, hashed once.
+        Map<String, Integer> groupIds = new HashMap<String, Integer>();
+        List<String> groups = new ArrayList<String>();
+        int[] memberCounts = new int[16];
+        Map<Node, Integer> groupOf = new IdentityHashMap<Node, Integer>();
+        for (Node node : source.getNodes())
+        {
+            String group = toGroup(node);
+            Integer id = groupIds.get(group);
+            if (id == null)
+            {
+                id = groups.size();
+                groupIds.put(group,id);
+                groups.add(group);
+                if (id == memberCounts.length)
+                {
+                    memberCounts = Arrays.copyOf(memberCounts,id * 2);
+                }
+            }
+            memberCounts[id]++;
+            groupOf.put(node,id);
+        }
+
+        GraphBuilder builder = new GraphBuilder(groups.size(),groups.size() * 4);
+        for (int id = 0; id < groups.size(); id++)
+        {
+            String modules = (memberCounts[id] == 1) ? " module" : " modules";
+            builder.addNode(groups.get(id) + "\n" + memberCounts[id] + modules);
+        }
+
+        int[] weights = new int[16];
+        for (Node node : source.getNodes())
+        {
+            int from = groupOf.get(node);
+            for (Node child : source.getChildren(node))
+            {
+                int to = groupOf.get(child);
+                if (from != to)
+                {
+                    int edge = builder.addEdge(from,to);
+                    if (edge == weights.length)
+                    {
+                        weights = Arrays.copyOf(weights,edge * 2);
+                    }
+                    weights[edge]++;
+                }
+            }
+        }
+
+        for (int edge = 0; edge < builder.getEdgeCount(); edge++)
+        {
+            builder.setEdgeStyle(edge,toStyle(weights[edge]));
+        }
+
+        Graph aggregated = builder.build();
+        if (source.hasDecorator())
+        {
+            aggregated.setDecorator(new GraphDecorator(source.getDecorator()));
+        }
+        aggregated.setMetrics(source.getMetrics());
+        return aggregated;
+    }
+
+    /**
+     * @return the shared style of the edges of the weight: labelled with it, 1 wide for a single dependency, one wider
+     *         each time the weight doubles.
+     */
+    static EdgeStyle toStyle(int weight)
+    {
+        double width = Math.min(1 + (Math.log(weight) / Math.log(2)),MAX_PEN_WIDTH);
+        return EdgeStyle.DEFAULT.withLineLabel(Integer.toString(weight)).withPenWidth(width);
+    }
+}
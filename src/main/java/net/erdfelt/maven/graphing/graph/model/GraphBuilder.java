@@ -0,0 +1,610 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.model.dag.CycleDetectedException;
+import net.erdfelt.maven.graphing.graph.model.dag.Dag;
+
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * Builds a {@link Graph} or {@link Dag} in bulk.
+ * <p>
+ * {@link Graph#addNode(Node)} and {@link Graph#addEdge(Edge)} check the graph constraints on every call, and a
+ * {@link Dag} searches for a cycle on every edge. The builder instead records the nodes and edges as ints, keeping the
+ * first occurrence of duplicates, and validates everything once, in {@link #build()} or {@link #buildDag()}, in
+ * O(V+E).
+ * <p>
+ * Nodes and edges are identified by the index returned when adding them. The built graph connects the children and
+ * parents of each node in the order their edges were added, like adding the same edges one at a time would. The
+ * builder can be reused, each build creates new nodes and edges.
+ * <p>
+ * Not thread safe.
+ *
+ * @since 1.0.2
+ */
+public class GraphBuilder
+{
+    private final Map<String, Integer> ids;
+
+    private String[] labels;
+
+    private NodeStyle[] nodeStyles;
+
+    /**
+     * The key of each node added by key, null until one is.
+     */
+    private NodeKey[] keys;
+
+    private int nodeCount;
+
+    private int[] edgeFrom;
+
+    private int[] edgeTo;
+
+    private EdgeStyle[] edgeStyles;
+
+    private String[] edgeScopes;
+
+    private int edgeCount;
+
+    /**
+     * Open addressing table of edge index + 1, keyed by the (from, to) pair, 0 for empty.
+     */
+    private int[] edgeSlots;
+
+    public GraphBuilder()
+    {
+        this(16,16);
+    }
+
+    /**
+     * @param expectedNodes
+     *            the expected number of nodes, to size the builder.
+     * @param expectedEdges
+     *            the expected number of edges, to size the builder.
+     */
+    public GraphBuilder(int expectedNodes, int expectedEdges)
+    {
+        int nodes = Math.max(expectedNodes,1);
+        int edges = Math.max(expectedEdges,1);
+        this.ids = new HashMap<String, Integer>((int)(nodes / 0.75f) + 1);
+        this.labels = new String[nodes];
+        this.nodeStyles = new NodeStyle[nodes];
+        this.edgeFrom = new int[edges];
+        this.edgeTo = new int[edges];
+        this.edgeStyles = new EdgeStyle[edges];
+        this.edgeScopes = new String[edges];
+        this.edgeSlots = new int[tableSize(edges)];
+    }
+
+    public int getNodeCount()
+    {
+        return nodeCount;
+    }
+
+    public int getEdgeCount()
+    {
+        return edgeCount;
+    }
+
+    /**
+     * Add a node, unless one with the same label was already added.
+     * <p>
+     * The label is validated by the build.
+     *
+     * @param label
+     *            the label of the node.
+     * @return the index of the node.
+     */
+    public int addNode(String label)
+    {
+        Integer existing = ids.get(label);
+        if (existing != null)
+        {
+            return existing;
+        }
+
+        if (nodeCount == labels.length)
+        {
+            int capacity = labels.length + (labels.length >> 1) + 1;
+            labels = Arrays.copyOf(labels,capacity);
+            nodeStyles = Arrays.copyOf(nodeStyles,capacity);
+            if (keys != null)
+            {
+                keys = Arrays.copyOf(keys,capacity);
+            }
+        }
+        int id = nodeCount++;
+        labels[id] = label;
+        ids.put(label,id);
+        return id;
+    }
+
+    /**
+     * Add a node for the key, unless one with the same label was already added. The built node keeps the key.
+     *
+     * @param key
+     *            the key of the node.
+     * @return the index of the node.
+     */
+    public int addNode(NodeKey key)
+    {
+        int id = addNode(key.getLabel());
+        if (keys == null)
+        {
+            keys = new NodeKey[labels.length];
+        }
+        if (keys[id] == null)
+        {
+            keys[id] = key;
+        }
+        return id;
+    }
+
+    /**
+     * @param labels
+     *            the labels of the nodes to add.
+     * @return the index of each node.
+     */
+    public int[] addNodes(String... labels)
+    {
+        int[] ret = new int[labels.length];
+        for (int i = 0; i < labels.length; i++)
+        {
+            ret[i] = addNode(labels[i]);
+        }
+        return ret;
+    }
+
+    /**
+     * @param labels
+     *            the labels of the nodes to add.
+     */
+    public void addNodes(Iterable<String> labels)
+    {
+        for (String label : labels)
+        {
+            addNode(label);
+        }
+    }
+
+    /**
+     * @param label
+     *            the label of the node.
+     * @return the index of the node, or -1 if it was not added.
+     */
+    public int indexOf(String label)
+    {
+        Integer id = ids.get(label);
+        return (id == null) ? -1 : id;
+    }
+
+    public String getLabel(int node)
+    {
+        checkNode(node);
+        return labels[node];
+    }
+
+    public void setNodeStyle(int node, NodeStyle style)
+    {
+        checkNode(node);
+        nodeStyles[node] = style;
+    }
+
+    /**
+     * Add an edge, unless the same edge was already added.
+     *
+     * @param from
+     *            the index of the node the edge starts from.
+     * @param to
+     *            the index of the node the edge ends at.
+     * @return the index of the edge.
+     */
+    public int addEdge(int from, int to)
+    {
+        checkNode(from);
+        checkNode(to);
+
+        int mask = edgeSlots.length - 1;
+        int slot = hash(from,to) & mask;
+        while (edgeSlots[slot] != 0)
+        {
+            int edge = edgeSlots[slot] - 1;
+            if ((edgeFrom[edge] == from) && (edgeTo[edge] == to))
+            {
+                return edge;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (edgeCount == edgeFrom.length)
+        {
+            int capacity = edgeFrom.length + (edgeFrom.length >> 1) + 1;
+            edgeFrom = Arrays.copyOf(edgeFrom,capacity);
+            edgeTo = Arrays.copyOf(edgeTo,capacity);
+            edgeStyles = Arrays.copyOf(edgeStyles,capacity);
+            edgeScopes = Arrays.copyOf(edgeScopes,capacity);
+        }
+        int edge = edgeCount++;
+        edgeFrom[edge] = from;
+        edgeTo[edge] = to;
+        edgeSlots[slot] = edge + 1;
+
+        if (edgeCount * 2 > edgeSlots.length)
+        {
+            rehash(edgeSlots.length * 2);
+        }
+        return edge;
+    }
+
+    /**
+     * Add an edge, and its nodes if needed.
+     *
+     * @return the index of the edge.
+     */
+    public int addEdge(String from, String to)
+    {
+        return addEdge(addNode(from),addNode(to));
+    }
+
+    /**
+     * Add edges between the nodes at the same positions of the arrays.
+     *
+     * @param from
+     *            the indexes of the nodes the edges start from.
+     * @param to
+     *            the indexes of the nodes the edges end at.
+     */
+    public void addEdges(int[] from, int[] to)
+    {
+        checkLengths(from.length,to.length);
+        ensureEdgeCapacity(from.length);
+        for (int i = 0; i < from.length; i++)
+        {
+            addEdge(from[i],to[i]);
+        }
+    }
+
+    /**
+     * Add edges between the labels at the same positions of the arrays, adding the nodes as needed.
+     *
+     * @param from
+     *            the labels of the nodes the edges start from.
+     * @param to
+     *            the labels of the nodes the edges end at.
+     */
+    public void addEdges(String[] from, String[] to)
+    {
+        checkLengths(from.length,to.length);
+        ensureEdgeCapacity(from.length);
+        for (int i = 0; i < from.length; i++)
+        {
+            addEdge(from[i],to[i]);
+        }
+    }
+
+    public int getEdgeSource(int edge)
+    {
+        checkEdge(edge);
+        return edgeFrom[edge];
+    }
+
+    public int getEdgeTarget(int edge)
+    {
+        checkEdge(edge);
+        return edgeTo[edge];
+    }
+
+    public void setEdgeStyle(int edge, EdgeStyle style)
+    {
+        checkEdge(edge);
+        edgeStyles[edge] = style;
+    }
+
+    public void setEdgeScope(int edge, String scope)
+    {
+        checkEdge(edge);
+        edgeScopes[edge] = scope;
+    }
+
+    /**
+     * Validate the nodes, and build a plain graph.
+     *
+     * @return the new graph.
+     * @throws GraphConstraintException
+     *             if a node has an empty label.
+     */
+    public Graph build() throws GraphConstraintException
+    {
+        return build(new Graph());
+    }
+
+    /**
+     * Validate the nodes, check the edges for cycles, in a single pass, and build a DAG.
+     *
+     * @return the new DAG.
+     * @throws CycleDetectedException
+     *             if the edges form cycles, listing one cycle per strongly connected component.
+     * @throws GraphConstraintException
+     *             if a node has an empty label.
+     */
+    public Dag buildDag() throws GraphConstraintException
+    {
+        validateNodes();
+
+        int[] childOffsets = new int[nodeCount + 1];
+        int[] childIds = new int[edgeCount];
+        group(edgeFrom,edgeTo,childOffsets,childIds);
+
+        List<List<String>> cycles = findCycles(childOffsets,childIds);
+        if (!cycles.isEmpty())
+        {
+            throw new CycleDetectedException("The graph has " + cycles.size() + " cycle(s):",cycles);
+        }
+
+        return load(new Dag());
+    }
+
+    /**
+     * Validate the nodes, and fill the provided empty graph, without checking any constraints of its own.
+     */
+    <T extends Graph> T build(T graph) throws GraphConstraintException
+    {
+        validateNodes();
+        return load(graph);
+    }
+
+    private <T extends Graph> T load(T graph)
+    {
+        Node[] nodes = new Node[nodeCount];
+        for (int id = 0; id < nodeCount; id++)
+        {
+            nodes[id] = ((keys != null) && (keys[id] != null)) ? new Node(keys[id]) : new Node(labels[id]);
+            if (nodeStyles[id] != null)
+            {
+                nodes[id].setStyle(nodeStyles[id]);
+            }
+        }
+
+        // Connect in insertion order, which is the order of the children and parents of each node.
+        Edge[] edges = new Edge[edgeCount];
+        for (int e = 0; e < edgeCount; e++)
+        {
+            Edge edge = new Edge(nodes[edgeFrom[e]],nodes[edgeTo[e]]);
+            if (edgeStyles[e] != null)
+            {
+                edge.setStyle(edgeStyles[e]);
+            }
+            edge.setScope(edgeScopes[e]);
+            nodes[edgeFrom[e]].putChild(nodes[edgeTo[e]],edge);
+            nodes[edgeTo[e]].putParent(nodes[edgeFrom[e]],edge);
+            edges[e] = edge;
+        }
+
+        graph.load(nodes,edges);
+        return graph;
+    }
+
+    private void validateNodes() throws GraphConstraintException
+    {
+        for (int id = 0; id < nodeCount; id++)
+        {
+            if (StringUtils.isEmpty(labels[id]))
+            {
+                throw new GraphConstraintException("Unable to add node with empty label.");
+            }
+        }
+    }
+
+    /**
+     * Counting sort of the edges by key node, stable, into compressed sparse row arrays.
+     *
+     * @param keys
+     *            the node to group each edge by.
+     * @param values
+     *            the other node of each edge.
+     * @param offsets
+     *            receives the start of the group of each node, of size nodeCount + 1.
+     * @param grouped
+     *            receives the other nodes, by group.
+     */
+    private void group(int[] keys, int[] values, int[] offsets, int[] grouped)
+    {
+        for (int e = 0; e < edgeCount; e++)
+        {
+            offsets[keys[e] + 1]++;
+        }
+        for (int id = 0; id < nodeCount; id++)
+        {
+            offsets[id + 1] += offsets[id];
+        }
+        int[] fill = Arrays.copyOf(offsets,nodeCount);
+        for (int e = 0; e < edgeCount; e++)
+        {
+            grouped[fill[keys[e]]++] = values[e];
+        }
+    }
+
+    /**
+     * Find one cycle in each strongly connected component with more than one node, or with a self loop.
+     * <p>
+     * Each cycle is the shortest one through the first node of its component, found with a breadth first search that
+     * stays in the component, so all of the searches together visit each edge at most once.
+     *
+     * @return the cycles, each as labels starting and ending with the same node, in node order.
+     */
+    private List<List<String>> findCycles(int[] childOffsets, int[] childIds)
+    {
+        int[] component = FrozenGraph.stronglyConnectedComponents(nodeCount,childOffsets,childIds);
+
+        int[] sizes = new int[nodeCount];
+        for (int id = 0; id < nodeCount; id++)
+        {
+            sizes[component[id]]++;
+        }
+
+        List<List<String>> cycles = new ArrayList<List<String>>();
+        boolean[] reported = new boolean[nodeCount];
+        int[] previous = new int[nodeCount];
+        Arrays.fill(previous,-1);
+        int[] queue = new int[nodeCount];
+
+        for (int start = 0; start < nodeCount; start++)
+        {
+            int c = component[start];
+            if (reported[c])
+            {
+                continue;
+            }
+            reported[c] = true;
+
+            if ((sizes[c] == 1) && !hasChild(childOffsets,childIds,start,start))
+            {
+                continue;
+            }
+
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            int last = -1;
+            while ((last < 0) && (head < tail))
+            {
+                int node = queue[head++];
+                for (int i = childOffsets[node]; i < childOffsets[node + 1]; i++)
+                {
+                    int child = childIds[i];
+                    if (child == start)
+                    {
+                        last = node;
+                        break;
+                    }
+                    if ((component[child] == c) && (previous[child] < 0))
+                    {
+                        previous[child] = node;
+                        queue[tail++] = child;
+                    }
+                }
+            }
+
+            // Walk back from the last node to the start, then reverse.
+            List<String> cycle = new ArrayList<String>();
+            cycle.add(labels[start]);
+            for (int node = last; node != start; node = previous[node])
+            {
+                cycle.add(labels[node]);
+            }
+            cycle.add(labels[start]);
+            Collections.reverse(cycle);
+            cycles.add(cycle);
+        }
+
+        return cycles;
+    }
+
+    private static boolean hasChild(int[] childOffsets, int[] childIds, int node, int child)
+    {
+        for (int i = childOffsets[node]; i < childOffsets[node + 1]; i++)
+        {
+            if (childIds[i] == child)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void ensureEdgeCapacity(int additional)
+    {
+        int needed = edgeCount + additional;
+        if (needed > edgeFrom.length)
+        {
+            edgeFrom = Arrays.copyOf(edgeFrom,needed);
+            edgeTo = Arrays.copyOf(edgeTo,needed);
+            edgeStyles = Arrays.copyOf(edgeStyles,needed);
+            edgeScopes = Arrays.copyOf(edgeScopes,needed);
+        }
+        if (needed * 2 > edgeSlots.length)
+        {
+            rehash(tableSize(needed));
+        }
+    }
+
+    private void rehash(int size)
+    {
+        int[] slots = new int[size];
+        int mask = size - 1;
+        for (int e = 0; e < edgeCount; e++)
+        {
+            int slot = hash(edgeFrom[e],edgeTo[e]) & mask;
+            while (slots[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = e + 1;
+        }
+        edgeSlots = slots;
+    }
+
+    /**
+     * @return a power of two table size, keeping the load at or below one half.
+     */
+    private static int tableSize(int entries)
+    {
+        return Integer.highestOneBit(Math.max(2,entries * 2) - 1) << 1;
+    }
+
+    private static int hash(int from, int to)
+    {
+        int h = (from * 0x9E3779B1) + to;
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 16);
+    }
+
+    private static void checkLengths(int from, int to)
+    {
+        if (from != to)
+        {
+            throw new IllegalArgumentException("Mismatched edge arrays: " + from + " from, " + to + " to");
+        }
+    }
+
+    private void checkNode(int node)
+    {
+        if ((node < 0) || (node >= nodeCount))
+        {
+            throw new IndexOutOfBoundsException("Node " + node + " of " + nodeCount);
+        }
+    }
+
+    private void checkEdge(int edge)
+    {
+        if ((edge < 0) || (edge >= edgeCount))
+        {
+            throw new IndexOutOfBoundsException("Edge " + edge + " of " + edgeCount);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.GraphDecorator;
+
+/**
+ * Shrinks a graph before layout, without losing its shape.
+ * <p>
+ * Two reductions are applied, in order:
+ * <ul>
+ * <li><b>Chains</b>: a run of pass-through nodes (one parent and one child each) of at least
+ * <code>minChainLength</code> nodes is collapsed into a single edge from the node before the run to the node after it,
+ * labelled with the number of hidden nodes.</li>
+ * <li><b>Fans</b>: nodes connected on one side only (no parents, or no children) and to the same set of nodes on that
+ * side, such as many implementation modules depending on one API, are grouped into one summary node when there are at
+ * least <code>minFanSize</code> of them. The summary takes the label of the first member, with the number of the
+ * others.</li>
+ * </ul>
+ * The graph is frozen once (see {@link FrozenGraph}), and both reductions run on its adjacency, in O(V+E) plus the
+ * sorting of the neighbours of the fan candidates. The source is left unchanged, the compacted graph is a new
+ * {@link Graph}, sharing the node and edge styles, and a copy of the decorator, of the source.
+ * <p>
+ * Reachability is kept: a node reaches another in the compacted graph if, and only if, one of the nodes they stand for
+ * did in the source. An acyclic source therefore gives an acyclic compacted graph.
+ *
+ * @since 1.0.2
+ */
+public class GraphCompactor
+{
+    private int minChainLength = 2;
+
+    private int minFanSize = 3;
+
+    /**
+     * @return the minimum number of pass-through nodes collapsed into an edge.
+     */
+    public int getMinChainLength()
+    {
+        return minChainLength;
+    }
+
+    public void setMinChainLength(int minChainLength)
+    {
+        if (minChainLength < 1)
+        {
+            throw new IllegalArgumentException("The minimum chain length must be 1 or more: " + minChainLength);
+        }
+        this.minChainLength = minChainLength;
+    }
+
+    /**
+     * @return the minimum number of nodes grouped into a summary node.
+     */
+    public int getMinFanSize()
+    {
+        return minFanSize;
+    }
+
+    public void setMinFanSize(int minFanSize)
+    {
+        if (minFanSize < 2)
+        {
+            throw new IllegalArgumentException("The minimum fan size must be 2 or more: " + minFanSize);
+        }
+        this.minFanSize = minFanSize;
+    }
+
+    /**
+     * A fan: whether the members are roots or leaves, and the sorted ids of the nodes they are connected to.
+     */
+    private static final class FanKey
+    {
+        private final boolean roots;
+
+        private final int[] neighbours;
+
+        private final int hash;
+
+        FanKey(boolean roots, int[] neighbours)
+        {
+            this.roots = roots;
+            this.neighbours = neighbours;
+            this.hash = (31 * Arrays.hashCode(neighbours)) + (roots ? 1 : 0);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof FanKey))
+            {
+                return false;
+            }
+            FanKey other = (FanKey)obj;
+            return (hash == other.hash) && (roots == other.roots) && Arrays.equals(neighbours,other.neighbours);
+        }
+    }
+
+    /**
+     * Compact the graph.
+     *
+     * @param source
+     *            the graph, or view, to compact.
+     * @return the compacted graph.
+     * @throws GraphConstraintException
+     *             if the compacted graph could not be built.
+     */
+    public Graph compact(GraphView source) throws GraphConstraintException
+    {
+        FrozenGraph frozen = source.freeze();
+        int nodeCount = frozen.getNodeCount();
+
+        boolean[] passThrough = new boolean[nodeCount];
+        for (int id = 0; id < nodeCount; id++)
+        {
+            passThrough[id] = (frozen.getParentCount(id) == 1) && (frozen.getChildCount(id) == 1);
+        }
+
+        // The node each node is drawn as: itself, the first member of its fan, or -1 when hidden in a chain.
+        int[] drawnAs = new int[nodeCount];
+        for (int id = 0; id < nodeCount; id++)
+        {
+            drawnAs[id] = id;
+        }
+
+        // The edges once the chains are collapsed: the source edge (the first one of a chain), and the number of
+        // hidden nodes. There are never more than in the source.
+        int edgeCapacity = frozen.getEdgeCount();
+        int[] edgeFrom = new int[edgeCapacity];
+        int[] edgeTo = new int[edgeCapacity];
+        int[] edgeSource = new int[edgeCapacity];
+        int[] edgeHidden = new int[edgeCapacity];
+        String[] edgeScopes = new String[edgeCapacity];
+        int edgeCount = 0;
+
+        // Chains are walked from the node before them. Pass-through nodes have one parent, so each is walked once.
+        for (int id = 0; id < nodeCount; id++)
+        {
+            if (passThrough[id])
+            {
+                continue;
+            }
+            for (int e = frozen.getChildOffset(id); e < frozen.getChildOffset(id + 1); e++)
+            {
+                String scope = frozen.getEdgeScope(e);
+                boolean sameScope = true;
+                int length = 0;
+                int end = frozen.getEdgeTarget(e);
+                while (passThrough[end])
+                {
+                    int next = frozen.getChildOffset(end);
+                    sameScope &= equals(scope,frozen.getEdgeScope(next));
+                    end = frozen.getEdgeTarget(next);
+                    length++;
+                }
+
+                edgeFrom[edgeCount] = id;
+                edgeSource[edgeCount] = e;
+                // A chain looping back to its start is kept, rather than drawn as a self loop.
+                if ((length >= minChainLength) && (end != id))
+                {
+                    for (int hidden = frozen.getEdgeTarget(e); hidden != end; hidden = frozen
+                            .getEdgeTarget(frozen.getChildOffset(hidden)))
+                    {
+                        drawnAs[hidden] = -1;
+                    }
+                    edgeTo[edgeCount] = end;
+                    edgeHidden[edgeCount] = length;
+                    edgeScopes[edgeCount] = sameScope ? scope : null;
+                }
+                else
+                {
+                    edgeTo[edgeCount] = frozen.getEdgeTarget(e);
+                    edgeScopes[edgeCount] = scope;
+                }
+                edgeCount++;
+            }
+        }
+
+        // The edges from the pass-through nodes left: in chains too short to collapse, or in cycles.
+        for (int id = 0; id < nodeCount; id++)
+        {
+            if (passThrough[id] && (drawnAs[id] != -1))
+            {
+                int e = frozen.getChildOffset(id);
+                edgeFrom[edgeCount] = id;
+                edgeTo[edgeCount] = frozen.getEdgeTarget(e);
+                edgeSource[edgeCount] = e;
+                edgeScopes[edgeCount] = frozen.getEdgeScope(e);
+                edgeCount++;
+            }
+        }
+
+        int[] fanSizes = groupFans(nodeCount,edgeFrom,edgeTo,edgeCount,drawnAs);
+
+        GraphBuilder builder = new GraphBuilder(nodeCount,edgeCount);
+        int[] builtIds = new int[nodeCount];
+        for (int id = 0; id < nodeCount; id++)
+        {
+            if (drawnAs[id] == id)
+            {
+                builtIds[id] = addNode(builder,source,frozen.getLabel(id),fanSizes[id]);
+                if (frozen.hasNodeStyle(id))
+                {
+                    builder.setNodeStyle(builtIds[id],frozen.getNodeStyle(id));
+                }
+            }
+        }
+
+        for (int i = 0; i < edgeCount; i++)
+        {
+            int added = builder.getEdgeCount();
+            int edge = builder.addEdge(builtIds[drawnAs[edgeFrom[i]]],builtIds[drawnAs[edgeTo[i]]]);
+            if (edge != added)
+            {
+                // Already drawn, eg: by another member of the same fan.
+                continue;
+            }
+            builder.setEdgeScope(edge,edgeScopes[i]);
+            EdgeStyle style = frozen.hasEdgeStyle(edgeSource[i]) ? frozen.getEdgeStyle(edgeSource[i]) : null;
+            if (edgeHidden[i] > 0)
+            {
+                style = ((style == null) ? EdgeStyle.DEFAULT : style).withLineLabel("via " + edgeHidden[i]);
+            }
+            if (style != null)
+            {
+                builder.setEdgeStyle(edge,style);
+            }
+        }
+
+        Graph compacted = builder.build();
+        if (source.hasDecorator())
+        {
+            compacted.setDecorator(new GraphDecorator(source.getDecorator()));
+        }
+        compacted.setMetrics(source.getMetrics());
+        return compacted;
+    }
+
+    /**
+     * Group the nodes into fans, pointing <code>drawnAs</code> of each member at the first (lowest id) one.
+     *
+     * @return the size of the fan of each first member, 1 for the nodes not grouped.
+     */
+    private int[] groupFans(int nodeCount, int[] edgeFrom, int[] edgeTo, int edgeCount, int[] drawnAs)
+    {
+        // The adjacency once the chains are collapsed, children and parents, by counting sort.
+        int[] childOffsets = offsets(nodeCount,edgeFrom,edgeCount);
+        int[] parentOffsets = offsets(nodeCount,edgeTo,edgeCount);
+        int[] children = new int[edgeCount];
+        int[] parents = new int[edgeCount];
+        int[] childFill = Arrays.copyOf(childOffsets,nodeCount);
+        int[] parentFill = Arrays.copyOf(parentOffsets,nodeCount);
+        for (int i = 0; i < edgeCount; i++)
+        {
+            children[childFill[edgeFrom[i]]++] = edgeTo[i];
+            parents[parentFill[edgeTo[i]]++] = edgeFrom[i];
+        }
+
+        Map<FanKey, List<Integer>> fans = new LinkedHashMap<FanKey, List<Integer>>();
+        for (int id = 0; id < nodeCount; id++)
+        {
+            boolean root = parentOffsets[id] == parentOffsets[id + 1];
+            boolean leaf = childOffsets[id] == childOffsets[id + 1];
+            if ((drawnAs[id] != id) || (root == leaf))
+            {
+                continue;
+            }
+            // Roots are grouped by their children, leaves by their parents.
+            FanKey key = root ? new FanKey(true,distinct(children,childOffsets[id],childOffsets[id + 1]))
+                    : new FanKey(false,distinct(parents,parentOffsets[id],parentOffsets[id + 1]));
+            List<Integer> members = fans.get(key);
+            if (members == null)
+            {
+                members = new ArrayList<Integer>(1);
+                fans.put(key,members);
+            }
+            members.add(id);
+        }
+
+        int[] fanSizes = new int[nodeCount];
+        Arrays.fill(fanSizes,1);
+        for (List<Integer> members : fans.values())
+        {
+            if (members.size() >= minFanSize)
+            {
+                int first = members.get(0);
+                fanSizes[first] = members.size();
+                for (int member : members)
+                {
+                    drawnAs[member] = first;
+                }
+            }
+        }
+        return fanSizes;
+    }
+
+    private int addNode(GraphBuilder builder, GraphView source, String label, int fanSize)
+    {
+        NodeKey key = source.getNode(label).getKey();
+        if (fanSize == 1)
+        {
+            return (key == null) ? builder.addNode(label) : builder.addNode(key);
+        }
+
+        String others = "+" + (fanSize - 1) + " more";
+        if (key == null)
+        {
+            return builder.addNode(label + "\n" + others);
+        }
+        // Keeps the groupId and type of the first member, for stylesheets.
+        return builder.addNode(NodeKey.of(key.getGroupId(),key.getArtifactId() + " " + others,key.getVersion(),
+                key.getType()));
+    }
+
+    private static int[] offsets(int nodeCount, int[] ends, int edgeCount)
+    {
+        int[] offsets = new int[nodeCount + 1];
+        for (int i = 0; i < edgeCount; i++)
+        {
+            offsets[ends[i] + 1]++;
+        }
+        for (int id = 0; id < nodeCount; id++)
+        {
+            offsets[id + 1] += offsets[id];
+        }
+        return offsets;
+    }
+
+    /**
+     * @return the sorted, distinct, ids in the range.
+     */
+    private static int[] distinct(int[] ids, int start, int end)
+    {
+        int[] sorted = Arrays.copyOfRange(ids,start,end);
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++)
+        {
+            if ((i == 0) || (sorted[i] != sorted[i - 1]))
+            {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return (count == sorted.length) ? sorted : Arrays.copyOf(sorted,count);
+    }
+
+    private static boolean equals(String a, String b)
+    {
+        return (a == null) ? (b == null) : a.equals(b);
+    }
+}
@@ -0,0 +1,43 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Notified of the mutations of a {@link Graph}, so derived structures (indexes, caches, renderers) can be kept up to
+ * date incrementally, or mutation rates observed.
+ * <p>
+ * Events mirror the content of the graph: they are sent once the node or edge has been added to, or removed from,
+ * the graph, before any constraint check. An edge rejected by a constraint check (eg: a cycle in a
+ * {@link net.erdfelt.maven.graphing.graph.model.dag.Dag}) is therefore reported as added, then removed.
+ * Adding a node or edge already in the graph sends no event, replacing one with the same label (or between the same
+ * labels) reports the replaced node or edge as removed, then the new one as added.
+ * <p>
+ * Listeners are called on the mutating thread, and must not modify the graph.
+ * 
+ * @see Graph#addGraphListener(GraphListener)
+ * @since 1.0.2
+ */
+public interface GraphListener
+{
+    void nodeAdded(Graph graph, Node node);
+
+    void nodeRemoved(Graph graph, Node node);
+
+    void edgeAdded(Graph graph, Edge edge);
+
+    void edgeRemoved(Graph graph, Edge edge);
+}
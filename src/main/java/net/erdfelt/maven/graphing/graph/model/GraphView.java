@@ -0,0 +1,80 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Collection;
+import java.util.List;
+
+import net.erdfelt.maven.graphing.graph.decorator.GraphDecorator;
+import net.erdfelt.maven.graphing.graph.metrics.GraphingMetrics;
+
+/**
+ * The read API of a graph, implemented by {@link Graph} and by live views over one, such as {@link FilteredGraphView}.
+ * <p>
+ * Renderers and algorithms accept a view wherever they only read, so a subset of a graph can be processed without
+ * copying it. Nodes and edges are those of the underlying graph: read the adjacency through
+ * {@link #getChildren(Node)} and {@link #getParents(Node)}, which respect the view, rather than through the node.
+ *
+ * @since 1.0.2
+ */
+public interface GraphView
+{
+    public boolean hasDecorator();
+
+    /**
+     * @return the decorator of the underlying graph.
+     */
+    public GraphDecorator getDecorator();
+
+    /**
+     * @return the metrics to report to, or null if not instrumented.
+     */
+    public GraphingMetrics getMetrics();
+
+    public Collection<Node> getNodes();
+
+    /**
+     * @return the node with the label, or null if not found in this view.
+     */
+    public Node getNode(String label);
+
+    public Collection<Edge> getEdges();
+
+    /**
+     * @return the edge between the nodes, or null if not found in this view.
+     */
+    public Edge getEdge(Node start, Node end);
+
+    public boolean hasEdge(Node start, Node end);
+
+    /**
+     * @return the children of the node in this view, in order.
+     */
+    public List<Node> getChildren(Node node);
+
+    /**
+     * @return the parents of the node in this view, in order.
+     */
+    public List<Node> getParents(Node node);
+
+    /**
+     * Create an immutable, read optimised, copy of this view, see {@link FrozenGraph}.
+     *
+     * @return the frozen graph.
+     */
+    public FrozenGraph freeze();
+}
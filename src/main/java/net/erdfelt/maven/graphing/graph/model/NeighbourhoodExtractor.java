@@ -0,0 +1,217 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+
+/**
+ * Extracts bounded-radius neighbourhoods (k hops upstream and downstream of a node) from a {@link Graph}, or a
+ * {@link GraphView} of one.
+ * <p>
+ * The graph is frozen once (see {@link FrozenGraph}); the breadth first searches then run on its adjacency and reusable
+ * <code>int[]</code> queues and visit stamps, so extracting many neighbourhoods allocates little beyond the results.
+ * <p>
+ * Not thread safe, use one extractor per thread. Modifications of the graph made after the extractor was created are
+ * not seen by it.
+ *
+ * @since 1.0.2
+ */
+public class NeighbourhoodExtractor
+{
+    private final GraphView graph;
+
+    private final FrozenGraph frozen;
+
+    // Reusable search state.
+    private final int[] queue;
+
+    private final int[] depth;
+
+    private final int[] visited;
+
+    private final int[] member;
+
+    private int stamp;
+
+    public NeighbourhoodExtractor(GraphView graph)
+    {
+        this.graph = graph;
+        this.frozen = graph.freeze();
+
+        int nodeCount = frozen.getNodeCount();
+        this.queue = new int[nodeCount];
+        this.depth = new int[nodeCount];
+        this.visited = new int[nodeCount];
+        this.member = new int[nodeCount];
+    }
+
+    /**
+     * @return the graph this extractor indexes.
+     */
+    public GraphView getGraph()
+    {
+        return graph;
+    }
+
+    /**
+     * Find the nodes within <code>radius</code> hops downstream (children) or upstream (parents) of the center.
+     *
+     * @param center
+     *            the node to start from.
+     * @param radius
+     *            the maximum number of hops in either direction.
+     * @return the ids of the nodes in the neighbourhood, in ascending order. Equal neighbourhoods return equal arrays.
+     */
+    public int[] extract(Node center, int radius)
+    {
+        int centerId = frozen.indexOf(center.getLabel());
+        if (centerId < 0)
+        {
+            throw new IllegalArgumentException("Node is not part of the graph: " + center);
+        }
+
+        int memberStamp = nextStamp();
+        int count = 0;
+        int[] found = new int[16];
+
+        for (int direction = 0; direction < 2; direction++)
+        {
+            boolean downstream = (direction == 0);
+
+            int visitStamp = nextStamp();
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = centerId;
+            depth[centerId] = 0;
+            visited[centerId] = visitStamp;
+
+            while (head < tail)
+            {
+                int id = queue[head++];
+                if (member[id] != memberStamp)
+                {
+                    member[id] = memberStamp;
+                    if (count == found.length)
+                    {
+                        found = Arrays.copyOf(found,count * 2);
+                    }
+                    found[count++] = id;
+                }
+
+                if (depth[id] >= radius)
+                {
+                    continue;
+                }
+
+                int end = downstream ? frozen.getChildOffset(id + 1) : frozen.getParentOffset(id + 1);
+                for (int i = downstream ? frozen.getChildOffset(id) : frozen.getParentOffset(id); i < end; i++)
+                {
+                    int next = downstream ? frozen.getEdgeTarget(i) : frozen.getParent(i);
+                    if (visited[next] != visitStamp)
+                    {
+                        visited[next] = visitStamp;
+                        depth[next] = depth[id] + 1;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+
+        int[] ret = Arrays.copyOf(found,count);
+        Arrays.sort(ret);
+        return ret;
+    }
+
+    /**
+     * Build the subgraph induced by the provided node ids, sharing the node and edge decorators of the source graph.
+     *
+     * @param nodeIds
+     *            the node ids, as returned by {@link #extract(Node, int)}.
+     * @return the new subgraph.
+     * @throws GraphConstraintException
+     *             if the subgraph could not be built.
+     */
+    public Graph toGraph(int[] nodeIds) throws GraphConstraintException
+    {
+        int memberStamp = nextStamp();
+        for (int id : nodeIds)
+        {
+            member[id] = memberStamp;
+        }
+
+        Graph subgraph = new Graph();
+        Node[] copies = new Node[nodeIds.length];
+        for (int i = 0; i < nodeIds.length; i++)
+        {
+            int id = nodeIds[i];
+            copies[i] = subgraph.addNode(frozen.getLabel(id));
+            if (frozen.hasNodeStyle(id))
+            {
+                copies[i].setStyle(frozen.getNodeStyle(id));
+            }
+        }
+
+        for (int i = 0; i < nodeIds.length; i++)
+        {
+            int id = nodeIds[i];
+            for (int e = frozen.getChildOffset(id); e < frozen.getChildOffset(id + 1); e++)
+            {
+                int child = frozen.getEdgeTarget(e);
+                if (member[child] == memberStamp)
+                {
+                    // The ids are sorted.
+                    Edge edge = subgraph.addEdge(copies[i],copies[Arrays.binarySearch(nodeIds,child)]);
+                    edge.setScope(frozen.getEdgeScope(e));
+                    if (frozen.hasEdgeStyle(e))
+                    {
+                        edge.setStyle(frozen.getEdgeStyle(e));
+                    }
+                }
+            }
+        }
+
+        return subgraph;
+    }
+
+    /**
+     * Extract the neighbourhood of a node as a new graph.
+     *
+     * @param center
+     *            the node to start from.
+     * @param radius
+     *            the maximum number of hops in either direction.
+     * @return the neighbourhood subgraph.
+     * @throws GraphConstraintException
+     *             if the subgraph could not be built.
+     */
+    public Graph extractGraph(Node center, int radius) throws GraphConstraintException
+    {
+        return toGraph(extract(center,radius));
+    }
+
+    private int nextStamp()
+    {
+        if (++stamp == Integer.MAX_VALUE)
+        {
+            // Wrapped, clear the stamps.
+            Arrays.fill(visited,0);
+            Arrays.fill(member,0);
+            stamp = 1;
+        }
+        return stamp;
+    }
+}
@@ -16,14 +16,22 @@ package net.erdfelt.maven.graphing.graph.model;
  * limitations under the License.
  */
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import net.erdfelt.maven.graphing.graph.decorator.NodeDecorator;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
 
 /**
  * A Node in the DirectedAcyclicGraph.
@@ -38,13 +46,48 @@ public class Node implements Cloneable, Serializable
 {
     private static final long serialVersionUID = 9023816267179798356L;
 
-    private NodeDecorator decorator;
+    /**
+     * The explicit style, null for the default.
+     */
+    private NodeStyle style;
 
     private String label = null;
 
-    private List<Node> children = new ArrayList<Node>();
+    /**
+     * The structured identity, null for nodes created from a plain label.
+     */
+    private NodeKey key;
+
+    /**
+     * The children, in the order they were added, with the edge to each: null for adjacency copied without edges, see
+     * {@link #clone()}, or serialized, see {@link #writeObject(ObjectOutputStream)}. Keyed by node, so the edges of a
+     * node are found, and removed, in constant time.
+     */
+    private transient Map<Node, Edge> children = new LinkedHashMap<Node, Edge>();
+
+    /**
+     * The parents, in the order they were added, with the edge from each, see {@link #children}.
+     */
+    private transient Map<Node, Edge> parents = new LinkedHashMap<Node, Edge>();
+
+    /**
+     * Read only views of the children and parents, created on demand.
+     */
+    private transient List<Node> childList;
+
+    private transient List<Node> parentList;
+
+    /**
+     * The children and parents by position, built on the first positional read, and dropped when they change.
+     */
+    private transient Node[] childIndex;
+
+    private transient Node[] parentIndex;
 
-    private List<Node> parents = new ArrayList<Node>();
+    /**
+     * The graph this node was last added to, which checks modifications of the style, see {@link Graph#snapshot()}.
+     */
+    transient Graph owner;
 
     /**
      * Create a new Node with the following label.
@@ -54,6 +97,17 @@ public class Node implements Cloneable, Serializable
         this.label = label;
     }
 
+    /**
+     * Create a new Node for the key, labelled with its (shared) display label.
+     * 
+     * @since 1.0.2
+     */
+    public Node(final NodeKey key)
+    {
+        this.label = key.getLabel();
+        this.key = key;
+    }
+
     /**
      * @return the label
      */
@@ -62,6 +116,15 @@ public class Node implements Cloneable, Serializable
         return label;
     }
 
+    /**
+     * @return the structured identity of this node, or null if it was created from a plain label.
+     * @since 1.0.2
+     */
+    public NodeKey getKey()
+    {
+        return key;
+    }
+
     /**
      * <p>
      * Add a child node to this node.
@@ -77,9 +140,9 @@ public class Node implements Cloneable, Serializable
     protected void addChildNode(final Node node)
     {
         // prevent duplicates
-        if (!children.contains(node))
+        if (!children.containsKey(node))
         {
-            children.add(node);
+            putChild(node,null);
         }
     }
 
@@ -97,6 +160,7 @@ public class Node implements Cloneable, Serializable
     protected void removeChildNode(final Node node)
     {
         children.remove(node);
+        childIndex = null;
     }
 
     /**
@@ -105,25 +169,76 @@ public class Node implements Cloneable, Serializable
     protected void addParentNode(final Node node)
     {
         // prevent duplicates
-        if (!parents.contains(node))
+        if (!parents.containsKey(node))
         {
-            parents.add(node);
+            putParent(node,null);
         }
     }
 
     protected void removeParentNode(final Node node)
     {
         parents.remove(node);
+        parentIndex = null;
+    }
+
+    /**
+     * Add, or replace, the child node along with the edge to it, keeping the position of a replaced child. Used by
+     * {@link Edge} and {@link ConcurrentGraph}.
+     */
+    void putChild(Node node, Edge edge)
+    {
+        children.put(node,edge);
+        childIndex = null;
+    }
+
+    /**
+     * Add, or replace, the parent node along with the edge from it, see {@link #putChild(Node, Edge)}.
+     */
+    void putParent(Node node, Edge edge)
+    {
+        parents.put(node,edge);
+        parentIndex = null;
+    }
+
+    /**
+     * @return the children, with the edge to each (or null), in order. Used by {@link Graph}.
+     */
+    Map<Node, Edge> getChildEdges()
+    {
+        return children;
+    }
+
+    /**
+     * @return the parents, with the edge from each (or null), in order. Used by {@link Graph}.
+     */
+    Map<Node, Edge> getParentEdges()
+    {
+        return parents;
     }
 
     /**
      * Return list of {@link Node} objects.
      * 
-     * @return the list of node objects
+     * @return the read only view of the child nodes, which follows later changes.
      */
     public List<Node> getChildren()
     {
-        return children;
+        List<Node> list = childList;
+        if (list == null)
+        {
+            list = new AdjacencyList(true);
+            childList = list;
+        }
+        return list;
+    }
+
+    /**
+     * @return the number of children, without building the list of them.
+     * @since 1.0.2
+     */
+    public int getChildCount()
+    {
+        return children.size();
     }
 
     /**
@@ -135,7 +250,7 @@ public class Node implements Cloneable, Serializable
     {
         final List<String> retValue = new ArrayList<String>(children.size());
 
-        for (Node node : children)
+        for (Node node : children.keySet())
         {
             retValue.add(node.getLabel());
         }
@@ -145,11 +260,26 @@ public class Node implements Cloneable, Serializable
     /**
      * Get the list the most direct ancestors (parents)
      * 
-     * @return list of parents
+     * @return read only view of the parents, which follows later changes.
      */
     public List<Node> getParents()
     {
-        return parents;
+        List<Node> list = parentList;
+        if (list == null)
+        {
+            list = new AdjacencyList(false);
+            parentList = list;
+        }
+        return list;
+    }
+
+    /**
+     * @return the number of parents, without building the list of them.
+     * @since 1.0.2
+     */
+    public int getParentCount()
+    {
+        return parents.size();
     }
 
     /**
@@ -161,7 +291,7 @@ public class Node implements Cloneable, Serializable
     {
         final List<String> retValue = new ArrayList<String>(parents.size());
 
-        for (Node node : parents)
+        for (Node node : parents.keySet())
         {
             retValue.add(node.getLabel());
         }
@@ -198,46 +328,99 @@ public class Node implements Cloneable, Serializable
         return isRoot() || isLeaf();
     }
 
+    /**
+     * Clone this node, along with every node connected to it (through parents or children, transitively).
+     * <p>
+     * The connected nodes are visited breadth first, and each is cloned exactly once, so shared (diamond) dependencies
+     * stay shared, and deep graphs do not grow the stack.
+     */
     @Override
     public Object clone() throws CloneNotSupportedException
     {
-        // Clone label
-        Node clone = new Node(label);
-
-        // Track cloned nodes to ensure proper tree cloning (even cycles!)
-        Map<String, Node> clonedNodes = new HashMap<String, Node>();
-        clonedNodes.put(label,clone);
-        Iterator<Node> it;
+        Map<Node, Node> clones = new IdentityHashMap<Node, Node>();
+        Deque<Node> queue = new ArrayDeque<Node>();
+        clones.put(this,copyDetached());
+        queue.add(this);
 
-        // Clone parents
-        it = parents.iterator();
-        while (it.hasNext())
+        while (!queue.isEmpty())
         {
-            Node subnode = it.next();
-            Node subclone = clonedNodes.get(subnode.label);
-            if (subclone == null)
+            Node node = queue.poll();
+            for (Node parent : node.parents.keySet())
+            {
+                if (!clones.containsKey(parent))
+                {
+                    clones.put(parent,parent.copyDetached());
+                    queue.add(parent);
+                }
+            }
+            for (Node child : node.children.keySet())
             {
-                subclone = (Node)subnode.clone();
-                clonedNodes.put(subclone.label,subclone);
+                if (!clones.containsKey(child))
+                {
+                    clones.put(child,child.copyDetached());
+                    queue.add(child);
+                }
             }
-            clone.parents.add(subclone);
         }
 
-        // Clone children
-        it = children.iterator();
-        while (it.hasNext())
+        for (Map.Entry<Node, Node> entry : clones.entrySet())
         {
-            Node subnode = it.next();
-            Node subclone = clonedNodes.get(subnode.label);
-            if (subclone == null)
-            {
-                subclone = (Node)subnode.clone();
-                clonedNodes.put(subclone.label,subclone);
-            }
-            clone.children.add(subclone);
+            entry.getValue().copyAdjacency(entry.getKey(),clones,Collections.<Edge, Edge> emptyMap());
         }
 
-        return clone;
+        return clones.get(this);
+    }
+
+    /**
+     * @return a copy of this node, with its label and style, but no parents or children.
+     */
+    Node copyDetached()
+    {
+        Node copy = new Node(label);
+        copy.key = key;
+        copy.style = style;
+        return copy;
+    }
+
+    /**
+     * Replace the parents and children of this node with the copies of those of the source node, keeping their order.
+     * 
+     * @param source
+     *            the node this node is a copy of.
+     * @param copies
+     *            the copy of each node, by original.
+     * @param edgeCopies
+     *            the copy of each edge, by original, edges without a copy are left out (null).
+     */
+    void copyAdjacency(Node source, Map<Node, Node> copies, Map<Edge, Edge> edgeCopies)
+    {
+        children = copyAll(source.children,copies,edgeCopies);
+        parents = copyAll(source.parents,copies,edgeCopies);
+        childIndex = null;
+        parentIndex = null;
+    }
+
+    /**
+     * Remove all of the children and parents, leaving them as they are. Used by {@link Graph}, once the node is
+     * removed.
+     */
+    void clearAdjacency()
+    {
+        children.clear();
+        parents.clear();
+        childIndex = null;
+        parentIndex = null;
+    }
+
+    private static Map<Node, Edge> copyAll(Map<Node, Edge> nodes, Map<Node, Node> copies, Map<Edge, Edge> edgeCopies)
+    {
+        Map<Node, Edge> ret = new LinkedHashMap<Node, Edge>();
+        for (Map.Entry<Node, Edge> entry : nodes.entrySet())
+        {
+            Edge edge = entry.getValue();
+            ret.put(copies.get(entry.getKey()),(edge == null) ? null : edgeCopies.get(edge));
+        }
+        return ret;
     }
 
     @Override
@@ -253,18 +436,141 @@ public class Node implements Cloneable, Serializable
         return buf.toString();
     }
 
-    public NodeDecorator getDecorator()
+    /**
+     * @return true if this node has a style of its own.
+     */
+    public boolean hasStyle()
+    {
+        return style != null;
+    }
+
+    /**
+     * @return the style of this node, {@link NodeStyle#DEFAULT} if it has none of its own.
+     */
+    public NodeStyle getStyle()
+    {
+        return (style == null) ? NodeStyle.DEFAULT : style;
+    }
+
+    /**
+     * @param style
+     *            the shared style, or null to use the default.
+     */
+    public void setStyle(NodeStyle style)
+    {
+        checkWritable();
+        this.style = style;
+    }
+
+    /**
+     * @throws UnsupportedOperationException
+     *             if this node belongs to a graph snapshot.
+     */
+    private void checkWritable()
     {
-        // Lazy Init of decorator.
-        if (decorator == null)
+        if (Graph.isSnapshotOwned(owner))
         {
-            decorator = new NodeDecorator();
+            throw new UnsupportedOperationException("Node [" + label + "] belongs to a graph snapshot.");
         }
-        return decorator;
     }
 
-    public void setDecorator(NodeDecorator decorator)
+    /**
+     * Write the children and parents as lists of nodes, the edges are not serializable.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException
+    {
+        out.defaultWriteObject();
+        writeNodes(out,children);
+        writeNodes(out,parents);
+    }
+
+    private static void writeNodes(ObjectOutputStream out, Map<Node, Edge> nodes) throws IOException
     {
-        this.decorator = decorator;
+        out.writeInt(nodes.size());
+        for (Node node : nodes.keySet())
+        {
+            out.writeObject(node);
+        }
+    }
+
+    /**
+     * Read the children and parents, without their edges.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        children = readNodes(in);
+        parents = readNodes(in);
+    }
+
+    private static Map<Node, Edge> readNodes(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        int size = in.readInt();
+        Map<Node, Edge> nodes = new LinkedHashMap<Node, Edge>();
+        for (int i = 0; i < size; i++)
+        {
+            nodes.put((Node)in.readObject(),null);
+        }
+        return nodes;
+    }
+
+    /**
+     * A live, read only, view of the children or of the parents. Iterating walks the adjacency map, positional reads
+     * use an index of it, rebuilt once after each change.
+     */
+    private final class AdjacencyList extends AbstractList<Node>
+    {
+        private final boolean childView;
+
+        AdjacencyList(boolean childView)
+        {
+            this.childView = childView;
+        }
+
+        private Map<Node, Edge> nodes()
+        {
+            return childView ? children : parents;
+        }
+
+        @Override
+        public Node get(int index)
+        {
+            Node[] nodes = childView ? childIndex : parentIndex;
+            if (nodes == null)
+            {
+                nodes = nodes().keySet().toArray(new Node[0]);
+                if (childView)
+                {
+                    childIndex = nodes;
+                }
+                else
+                {
+                    parentIndex = nodes;
+                }
+            }
+            if ((index < 0) || (index >= nodes.length))
+            {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + nodes.length);
+            }
+            return nodes[index];
+        }
+
+        @Override
+        public int size()
+        {
+            return nodes().size();
+        }
+
+        @Override
+        public boolean contains(Object node)
+        {
+            return nodes().containsKey(node);
+        }
+
+        @Override
+        public Iterator<Node> iterator()
+        {
+            return Collections.unmodifiableSet(nodes().keySet()).iterator();
+        }
     }
 }
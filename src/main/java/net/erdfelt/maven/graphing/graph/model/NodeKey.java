@@ -0,0 +1,172 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.Serializable;
+
+/**
+ * The structured identity of a module node: its groupId, artifactId, version and type.
+ * <p>
+ * The hash is computed once, from the parts, and the multi-line display label is only built on first use, then kept.
+ * Keys obtained from a {@link NodeKeyTable} are canonical, so equal keys are usually the same instance, and share their
+ * parts and label with every other use of the key.
+ *
+ * @since 1.0.2
+ */
+public final class NodeKey implements Serializable
+{
+    private static final long serialVersionUID = 4473652916807435187L;
+
+    private final String groupId;
+
+    private final String artifactId;
+
+    private final String version;
+
+    private final String type;
+
+    private final int hash;
+
+    /**
+     * The display label, built on first use.
+     */
+    private transient volatile String label;
+
+    NodeKey(String groupId, String artifactId, String version, String type, int hash)
+    {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.version = version;
+        this.type = type;
+        this.hash = hash;
+    }
+
+    /**
+     * Create a key, outside of any table. Prefer {@link NodeKeyTable#intern(String, String, String, String)}.
+     *
+     * @param version
+     *            the version, or null to leave it out of the label.
+     */
+    public static NodeKey of(String groupId, String artifactId, String version, String type)
+    {
+        return new NodeKey(groupId,artifactId,version,type,hash(groupId,artifactId,version,type));
+    }
+
+    static int hash(String groupId, String artifactId, String version, String type)
+    {
+        int h = hash(groupId);
+        h = (31 * h) + hash(artifactId);
+        h = (31 * h) + hash(version);
+        h = (31 * h) + hash(type);
+        return h;
+    }
+
+    private static int hash(String part)
+    {
+        return (part == null) ? 0 : part.hashCode();
+    }
+
+    public String getGroupId()
+    {
+        return groupId;
+    }
+
+    public String getArtifactId()
+    {
+        return artifactId;
+    }
+
+    /**
+     * @return the version, or null when left out of the label.
+     */
+    public String getVersion()
+    {
+        return version;
+    }
+
+    public String getType()
+    {
+        return type;
+    }
+
+    /**
+     * @return the display label, one part per line: <code>groupId\nartifactId\n[version\n]type</code>.
+     */
+    public String getLabel()
+    {
+        String ret = label;
+        if (ret == null)
+        {
+            StringBuilder buf = new StringBuilder();
+            buf.append(groupId).append('\n');
+            buf.append(artifactId).append('\n');
+            if (version != null)
+            {
+                buf.append(version).append('\n');
+            }
+            buf.append(type);
+            ret = buf.toString();
+            label = ret;
+        }
+        return ret;
+    }
+
+    boolean matches(String groupId, String artifactId, String version, String type)
+    {
+        return equal(this.groupId,groupId) && equal(this.artifactId,artifactId) && equal(this.version,version)
+                && equal(this.type,type);
+    }
+
+    private static boolean equal(String a, String b)
+    {
+        return (a == b) || ((a != null) && a.equals(b));
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (!(obj instanceof NodeKey))
+        {
+            return false;
+        }
+        NodeKey other = (NodeKey)obj;
+        return (hash == other.hash) && matches(other.groupId,other.artifactId,other.version,other.type);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder buf = new StringBuilder();
+        buf.append(groupId).append(':').append(artifactId);
+        if (version != null)
+        {
+            buf.append(':').append(version);
+        }
+        buf.append(':').append(type);
+        return buf.toString();
+    }
+}
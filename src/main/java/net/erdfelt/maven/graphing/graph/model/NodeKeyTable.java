@@ -0,0 +1,130 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A symbol table of {@link NodeKey}s.
+ * <p>
+ * Each distinct groupId / artifactId / version / type is kept once, and each distinct key is kept once, so the
+ * thousands of dependency occurrences of a large reactor share a few hundred keys and labels. Looking a key up hashes
+ * its parts, whose hashes the strings cache, without building anything: only new keys are created.
+ * <p>
+ * Not thread safe.
+ *
+ * @since 1.0.2
+ */
+public class NodeKeyTable
+{
+    private final Map<String, String> strings = new HashMap<String, String>();
+
+    /**
+     * Open addressing table of the keys.
+     */
+    private NodeKey[] keys = new NodeKey[64];
+
+    private int size;
+
+    /**
+     * @param version
+     *            the version, or null to leave it out of the label.
+     * @return the canonical key with these parts.
+     */
+    public NodeKey intern(String groupId, String artifactId, String version, String type)
+    {
+        int hash = NodeKey.hash(groupId,artifactId,version,type);
+        int mask = keys.length - 1;
+        int slot = spread(hash) & mask;
+        NodeKey key;
+        while ((key = keys[slot]) != null)
+        {
+            if ((key.hashCode() == hash) && key.matches(groupId,artifactId,version,type))
+            {
+                return key;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        key = new NodeKey(intern(groupId),intern(artifactId),intern(version),intern(type),hash);
+        keys[slot] = key;
+        if (++size * 2 > keys.length)
+        {
+            rehash();
+        }
+        return key;
+    }
+
+    /**
+     * @return the canonical key equal to the provided one.
+     */
+    public NodeKey intern(NodeKey key)
+    {
+        return intern(key.getGroupId(),key.getArtifactId(),key.getVersion(),key.getType());
+    }
+
+    /**
+     * @return the canonical instance of the string, or null for null.
+     */
+    public String intern(String value)
+    {
+        if (value == null)
+        {
+            return null;
+        }
+        String existing = strings.get(value);
+        if (existing == null)
+        {
+            strings.put(value,value);
+            existing = value;
+        }
+        return existing;
+    }
+
+    /**
+     * @return the number of distinct keys.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    private void rehash()
+    {
+        NodeKey[] old = keys;
+        keys = new NodeKey[old.length * 2];
+        int mask = keys.length - 1;
+        for (NodeKey key : old)
+        {
+            if (key != null)
+            {
+                int slot = spread(key.hashCode()) & mask;
+                while (keys[slot] != null)
+                {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    private static int spread(int hash)
+    {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,235 @@
+package net.erdfelt.maven.graphing.graph.model.dag;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.erdfelt.maven.graphing.graph.model.ConcurrentGraph;
+import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.model.GraphConstraintException;
+import net.erdfelt.maven.graphing.graph.model.Node;
+
+/**
+ * A {@link ConcurrentGraph} that rejects the edges introducing cycles, like {@link Dag}.
+ * <p>
+ * A new edge introduces a cycle when its end already reaches its start. That search runs without the commit lock, in
+ * parallel with the other threads. The edge is then committed under the lock, after catching the search up with the
+ * edges committed since it started: as edges are only ever added, only those leaving a node the search reached can
+ * extend it. The check, as of the commit, is therefore exact, and the graph stays acyclic whatever the interleaving.
+ *
+ * @since 1.0.2
+ */
+public class ConcurrentDag extends ConcurrentGraph
+{
+    private final ReentrantLock commitLock = new ReentrantLock();
+
+    /**
+     * The committed edges, in commit order, as start / end pairs. Guarded by the commit lock.
+     */
+    private Node[] log = new Node[64];
+
+    /**
+     * The number of committed edges, read without the lock to know where a search starts in the log.
+     */
+    private volatile int committed;
+
+    public ConcurrentDag()
+    {
+        super();
+    }
+
+    public ConcurrentDag(int expectedNodes, int concurrencyLevel)
+    {
+        super(expectedNodes,concurrencyLevel);
+    }
+
+    @Override
+    protected Edge connect(Node start, Node end) throws GraphConstraintException
+    {
+        if (start == end)
+        {
+            throw cycleDetected(start,end,Arrays.asList(start.getLabel(),end.getLabel()));
+        }
+
+        int since = committed;
+        Search search = new Search(start,end);
+        search.run();
+        if (search.found())
+        {
+            throw cycleDetected(start,end,search.toCycle());
+        }
+
+        commitLock.lock();
+        try
+        {
+            Edge existing = getEdge(start,end);
+            if (existing != null)
+            {
+                return existing;
+            }
+
+            search.catchUp(log,since,committed);
+            if (search.found())
+            {
+                throw cycleDetected(start,end,search.toCycle());
+            }
+
+            Edge edge = super.connect(start,end);
+            append(start,end);
+            return edge;
+        }
+        finally
+        {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Copy this graph into a {@link Dag}, see {@link #toGraph(net.erdfelt.maven.graphing.graph.model.Graph)}.
+     *
+     * @return the new DAG.
+     * @throws GraphConstraintException
+     *             if a node has an empty label.
+     */
+    public Dag toDag() throws GraphConstraintException
+    {
+        return toGraph(new Dag());
+    }
+
+    private void append(Node start, Node end)
+    {
+        int size = committed;
+        if ((size * 2) + 2 > log.length)
+        {
+            log = Arrays.copyOf(log,log.length * 2);
+        }
+        log[size * 2] = start;
+        log[(size * 2) + 1] = end;
+        committed = size + 1;
+    }
+
+    private static CycleDetectedException cycleDetected(Node start, Node end, List<String> cycle)
+    {
+        return new CycleDetectedException("Edge between '" + start.getLabel() + "' and '" + end.getLabel()
+                + "' introduces to cycle in the graph",cycle);
+    }
+
+    /**
+     * A breadth first search, from the end of the new edge, for its start.
+     */
+    private final class Search
+    {
+        private final Node start;
+
+        private final Node end;
+
+        /**
+         * The node each reached node was reached from, the end mapping to itself.
+         */
+        private final Map<Node, Node> previous = new IdentityHashMap<Node, Node>();
+
+        private final Deque<Node> queue = new ArrayDeque<Node>();
+
+        private boolean found;
+
+        Search(Node start, Node end)
+        {
+            this.start = start;
+            this.end = end;
+            reach(end,end);
+        }
+
+        boolean found()
+        {
+            return found;
+        }
+
+        void run()
+        {
+            while (!found && !queue.isEmpty())
+            {
+                Node node = queue.poll();
+                for (Node child : getChildren(node))
+                {
+                    if (!previous.containsKey(child))
+                    {
+                        reach(child,node);
+                        if (found)
+                        {
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Extend the search with the edges committed since it started. The children read from then on are complete, as
+         * nothing commits while the lock is held.
+         */
+        void catchUp(Node[] edges, int from, int to)
+        {
+            for (int e = from; (e < to) && !found; e++)
+            {
+                Node source = edges[e * 2];
+                Node target = edges[(e * 2) + 1];
+                if (previous.containsKey(source) && !previous.containsKey(target))
+                {
+                    reach(target,source);
+                    run();
+                }
+            }
+        }
+
+        private void reach(Node node, Node from)
+        {
+            previous.put(node,from);
+            if (node == start)
+            {
+                found = true;
+            }
+            else
+            {
+                queue.add(node);
+            }
+        }
+
+        /**
+         * @return the cycle closed by the new edge: its start, its end, back to its start.
+         */
+        List<String> toCycle()
+        {
+            List<String> cycle = new ArrayList<String>();
+            for (Node node = start; node != end; node = previous.get(node))
+            {
+                cycle.add(node.getLabel());
+            }
+            cycle.add(end.getLabel());
+            cycle.add(start.getLabel());
+            Collections.reverse(cycle);
+            return cycle;
+        }
+    }
+}
@@ -16,6 +16,9 @@ package net.erdfelt.maven.graphing.graph.model.dag;
  * limitations under the License.
  */
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import net.erdfelt.maven.graphing.graph.model.GraphConstraintException;
@@ -28,36 +31,69 @@ import net.erdfelt.maven.graphing.graph.model.GraphConstraintException;
 public class CycleDetectedException extends GraphConstraintException
 {
     private static final long serialVersionUID = -7749597681084104681L;
-    private List<String> cycle;
+    private List<List<String>> cycles;
 
     public CycleDetectedException(final String message, final List<String> cycle)
     {
         super(message);
 
-        this.cycle = cycle;
+        this.cycles = Collections.singletonList(cycle);
     }
 
+    /**
+     * @param message
+     *            the message.
+     * @param cycles
+     *            all of the cycles found, each as the labels of its nodes.
+     * @since 1.0.2
+     */
+    public CycleDetectedException(final String message, final Collection<List<String>> cycles)
+    {
+        super(message);
+
+        this.cycles = new ArrayList<List<String>>(cycles);
+    }
+
+    /**
+     * @return the (first) cycle.
+     */
     public List<String> getCycle()
     {
-        return cycle;
+        return cycles.isEmpty() ? null : cycles.get(0);
+    }
+
+    /**
+     * @return all of the cycles reported.
+     * @since 1.0.2
+     */
+    public List<List<String>> getCycles()
+    {
+        return cycles;
     }
 
     /**
-     * @return the cycle description
+     * @return the cycle description, the cycles separated by <code>", "</code> when there are several.
      */
     public String cycleToString()
     {
         final StringBuffer buffer = new StringBuffer();
 
-        boolean needsDelim = false;
-        for (String c : cycle)
+        for (int i = 0; i < cycles.size(); i++)
         {
-            if (needsDelim)
+            if (i > 0)
+            {
+                buffer.append(", ");
+            }
+            boolean needsDelim = false;
+            for (String c : cycles.get(i))
             {
-                buffer.append(" --> ");
+                if (needsDelim)
+                {
+                    buffer.append(" --> ");
+                }
+                buffer.append(c);
+                needsDelim = true;
             }
-            buffer.append(c);
-            needsDelim = true;
         }
         return buffer.toString();
     }
@@ -16,13 +16,14 @@ package net.erdfelt.maven.graphing.graph.model.dag;
  * limitations under the License.
  */
 
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import net.erdfelt.maven.graphing.graph.model.FrozenGraph;
+import net.erdfelt.maven.graphing.graph.model.GraphView;
 import net.erdfelt.maven.graphing.graph.model.Node;
 
 /**
@@ -41,29 +42,21 @@ public class CycleDetector
         VISITING, NOT_VISITED, VISITED
     };
 
-    public static List<String> hasCycle(final Dag graph)
+    /**
+     * Find a cycle in the graph. The search runs iteratively over a {@link FrozenGraph} of the graph, see
+     * {@link FrozenGraph#findCycle()}.
+     * 
+     * @param graph
+     *            the graph to check.
+     * @return the labels of the nodes of a cycle, starting and ending with the same label, or null if there is none.
+     */
+    public static List<String> hasCycle(final GraphView graph)
     {
-        final Collection<Node> nodes = graph.getNodes();
-
-        final Map<Node, State> nodeStateMap = new HashMap<Node, State>();
-
-        List<String> retValue = null;
-
-        for (Node node : nodes)
-        {
-            if (isNotVisited(node,nodeStateMap))
-            {
-                retValue = introducesCycle(node,nodeStateMap);
-
-                if (retValue != null)
-                {
-                    break;
-                }
-            }
-        }
+        final FrozenGraph frozen = graph.freeze();
 
-        return retValue;
+        final int[] cycle = frozen.findCycle();
 
+        return (cycle == null) ? null : frozen.toLabels(cycle);
     }
 
     /**
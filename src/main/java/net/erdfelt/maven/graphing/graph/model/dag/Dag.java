@@ -18,7 +18,12 @@ package net.erdfelt.maven.graphing.graph.model.dag;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import net.erdfelt.maven.graphing.graph.jfr.CycleCheckEvent;
+import net.erdfelt.maven.graphing.graph.jfr.GraphingEvents;
 
 import net.erdfelt.maven.graphing.graph.model.Edge;
 import net.erdfelt.maven.graphing.graph.model.Graph;
@@ -39,7 +44,29 @@ public class Dag extends Graph implements Cloneable, Serializable
     {
         super.assertGraphConstraints(edge);
 
-        List<String> cycle = CycleDetector.introducesCycle(edge.getFrom());
+        CycleCheckEvent event = null;
+        if (GraphingEvents.isEnabled(getMetrics()))
+        {
+            event = new CycleCheckEvent();
+            event.begin();
+        }
+
+        Map<Node, CycleDetector.State> nodeStateMap = new HashMap<Node, CycleDetector.State>();
+        List<String> cycle = CycleDetector.introducesCycle(edge.getFrom(),nodeStateMap);
+
+        if (event != null)
+        {
+            event.end();
+            if (event.shouldCommit())
+            {
+                event.from = edge.getFrom().getLabel();
+                event.to = edge.getTo().getLabel();
+                event.nodesVisited = nodeStateMap.size();
+                event.graphNodes = getNodes().size();
+                event.cycleFound = (cycle != null);
+                event.commit();
+            }
+        }
 
         if (cycle != null)
         {
@@ -87,8 +114,8 @@ public class Dag extends Graph implements Cloneable, Serializable
     }
 
     @Override
-    protected Object clone() throws CloneNotSupportedException
+    public Dag clone()
     {
-        return super.clone();
+        return (Dag)super.clone();
     }
 }
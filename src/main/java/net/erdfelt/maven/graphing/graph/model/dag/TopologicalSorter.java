@@ -16,12 +16,16 @@ package net.erdfelt.maven.graphing.graph.model.dag;
  * limitations under the License.
  */
 
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import net.erdfelt.maven.graphing.graph.jfr.GraphingEvents;
+import net.erdfelt.maven.graphing.graph.jfr.TopologicalSortEvent;
+import net.erdfelt.maven.graphing.graph.metrics.GraphingMetrics;
+import net.erdfelt.maven.graphing.graph.model.FrozenGraph;
+import net.erdfelt.maven.graphing.graph.model.GraphView;
 import net.erdfelt.maven.graphing.graph.model.Node;
 
 /**
@@ -43,18 +47,27 @@ public class TopologicalSorter
 
     /**
      * Perform a Depth First Search based sort against the graph.
+     * <p>
+     * The search runs iteratively over a {@link FrozenGraph} of the graph, see {@link FrozenGraph#topologicalSort()}.
      * 
      * @param graph
      *            the graph to sort
      * @return the sorted list of node labels
      */
-    public static List<String> sort(final Dag graph)
+    public static List<String> sort(final GraphView graph)
     {
-        return sortDepthFirstSearch(graph);
+        TopologicalSortEvent event = beginEvent(graph.getMetrics());
+
+        FrozenGraph frozen = graph.freeze();
+        List<String> sorted = frozen.toLabels(frozen.topologicalSort());
+
+        commitEvent(event,sorted);
+        return sorted;
     }
 
     /**
-     * Perform a Depth First Search based sort against the node.
+     * Perform a Depth First Search based sort against the node. A node has no metrics, so no event is emitted, see
+     * {@link GraphingEvents}.
      * 
      * @param node
      *            the node to search from.
@@ -72,24 +85,29 @@ public class TopologicalSorter
         return retValue;
     }
 
-    private static List<String> sortDepthFirstSearch(final Dag graph)
+    private static TopologicalSortEvent beginEvent(GraphingMetrics metrics)
     {
-        final Collection<Node> verticies = graph.getNodes();
-
-        // we need to use addFirst method so we will use LinkedList explicitly
-        final LinkedList<String> retValue = new LinkedList<String>();
+        if (!GraphingEvents.isEnabled(metrics))
+        {
+            return null;
+        }
 
-        final Map<Node, State> nodeStateMap = new HashMap<Node, State>();
+        TopologicalSortEvent event = new TopologicalSortEvent();
+        event.begin();
+        return event;
+    }
 
-        for (Node node : verticies)
+    private static void commitEvent(TopologicalSortEvent event, List<String> sorted)
+    {
+        if (event != null)
         {
-            if (isNotVisited(node,nodeStateMap))
+            event.end();
+            if (event.shouldCommit())
             {
-                visitDepthFirstSearch(node,nodeStateMap,retValue);
+                event.sortedNodes = sorted.size();
+                event.commit();
             }
         }
-
-        return retValue;
     }
 
     /**
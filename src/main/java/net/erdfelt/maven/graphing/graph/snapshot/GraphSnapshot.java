@@ -0,0 +1,463 @@
+package net.erdfelt.maven.graphing.graph.snapshot;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.GraphDecorator;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.GraphBuilder;
+import net.erdfelt.maven.graphing.graph.model.GraphConstraintException;
+import net.erdfelt.maven.graphing.graph.model.Node;
+
+/**
+ * A read only view of a graph snapshot, written by {@link SnapshotWriter}.
+ * <p>
+ * Opening a snapshot only reads its header and style tables: labels and adjacency are read from the (memory mapped)
+ * data on demand, so queries on large graphs do not need a {@link Graph} to be built. Nodes are identified by their
+ * id, from 0 to {@link #getNodeCount()} (exclusive), in the byte order of their labels. Use {@link #toGraph()} for a
+ * full, mutable, graph.
+ * <p>
+ * Snapshots are limited to 2GB. A snapshot is safe for concurrent reads.
+ *
+ * @since 1.0.2
+ */
+public class GraphSnapshot
+{
+    private final ByteBuffer buffer;
+
+    private final int nodeCount;
+
+    private final int edgeCount;
+
+    private final int[] sections = new int[SnapshotFormat.SECTIONS + 1];
+
+    private final NodeStyle[] nodeStyles;
+
+    private final EdgeStyle[] edgeStyles;
+
+    private final String[] edgeScopes;
+
+    private final GraphDecorator decorator;
+
+    private GraphSnapshot(ByteBuffer buffer) throws IOException
+    {
+        this.buffer = buffer;
+
+        if ((buffer.limit() < SnapshotFormat.HEADER_SIZE) || (buffer.getInt(0) != SnapshotFormat.MAGIC))
+        {
+            throw new SnapshotFormatException("Not a graph snapshot");
+        }
+        int version = buffer.getShort(4) & 0xFFFF;
+        if ((version < SnapshotFormat.MIN_VERSION) || (version > SnapshotFormat.VERSION))
+        {
+            throw new SnapshotFormatException("Unsupported graph snapshot version " + version);
+        }
+        this.nodeCount = buffer.getInt(8);
+        this.edgeCount = buffer.getInt(12);
+        if (buffer.getInt(16) != SnapshotFormat.SECTIONS)
+        {
+            throw new SnapshotFormatException("Unexpected number of sections " + buffer.getInt(16));
+        }
+        for (int i = 0; i < sections.length; i++)
+        {
+            long offset = buffer.getLong(20 + (i * 8));
+            if ((offset < SnapshotFormat.HEADER_SIZE) || (offset > buffer.limit())
+                    || ((i > 0) && (offset < sections[i - 1])))
+            {
+                throw new SnapshotFormatException("Corrupt section table");
+            }
+            sections[i] = (int)offset;
+        }
+        if (sections[SnapshotFormat.SECTIONS] != buffer.limit())
+        {
+            throw new SnapshotFormatException("Truncated graph snapshot");
+        }
+
+        SnapshotFormat.Cursor cursor = new SnapshotFormat.Cursor(buffer,sections[SnapshotFormat.GRAPH]);
+        if (cursor.readByte() == 0)
+        {
+            this.decorator = null;
+        }
+        else
+        {
+            this.decorator = new GraphDecorator();
+            decorator.setTitle(cursor.readString());
+            decorator.setBackgroundColor(cursor.readColor());
+            decorator.setTitleColor(cursor.readColor());
+            decorator.setOrientation(cursor.readInt());
+            decorator.setFontSize(cursor.readInt());
+        }
+
+        cursor = new SnapshotFormat.Cursor(buffer,sections[SnapshotFormat.NODE_STYLES]);
+        this.nodeStyles = new NodeStyle[cursor.readVarint() + 1];
+        for (int i = 1; i < nodeStyles.length; i++)
+        {
+            nodeStyles[i] = cursor.readNodeStyle();
+        }
+
+        cursor = new SnapshotFormat.Cursor(buffer,sections[SnapshotFormat.EDGE_KINDS]);
+        int kinds = cursor.readVarint() + 1;
+        this.edgeStyles = new EdgeStyle[kinds];
+        this.edgeScopes = new String[kinds];
+        for (int i = 1; i < kinds; i++)
+        {
+            edgeStyles[i] = (cursor.readByte() == 0) ? null : cursor.readEdgeStyle(version);
+            edgeScopes[i] = cursor.readString();
+        }
+    }
+
+    /**
+     * Memory map a snapshot file.
+     *
+     * @param file
+     *            the snapshot file.
+     * @return the snapshot.
+     * @throws IOException
+     *             if the file could not be read, or is not a snapshot.
+     */
+    public static GraphSnapshot open(File file) throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile(file,"r");
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() > Integer.MAX_VALUE)
+            {
+                throw new SnapshotFormatException("Graph snapshot too large: " + channel.size() + " bytes");
+            }
+            // The mapping stays valid after the channel is closed.
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+            return new GraphSnapshot(mapped);
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    /**
+     * @param buffer
+     *            the snapshot data, from the position to the limit of the buffer.
+     * @return the snapshot.
+     * @throws IOException
+     *             if the data is not a snapshot.
+     */
+    public static GraphSnapshot wrap(ByteBuffer buffer) throws IOException
+    {
+        return new GraphSnapshot(buffer.slice().order(ByteOrder.BIG_ENDIAN));
+    }
+
+    public int getNodeCount()
+    {
+        return nodeCount;
+    }
+
+    public int getEdgeCount()
+    {
+        return edgeCount;
+    }
+
+    /**
+     * @return the graph decorator, or null if the graph had none.
+     */
+    public GraphDecorator getDecorator()
+    {
+        return decorator;
+    }
+
+    public String getLabel(int node)
+    {
+        checkNode(node);
+        int start = labelStart(node);
+        int length = labelStart(node + 1) - start;
+        byte[] bytes = new byte[length];
+        int base = sections[SnapshotFormat.LABEL_DATA] + start;
+        for (int i = 0; i < length; i++)
+        {
+            bytes[i] = buffer.get(base + i);
+        }
+        return new String(bytes,StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Find a node by label, with a binary search over the label bytes.
+     *
+     * @param label
+     *            the label to find.
+     * @return the node id, or -1 if there is no such node.
+     */
+    public int indexOf(String label)
+    {
+        byte[] key = label.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = nodeCount - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            int cmp = compareLabel(mid,key);
+            if (cmp < 0)
+            {
+                low = mid + 1;
+            }
+            else if (cmp > 0)
+            {
+                high = mid - 1;
+            }
+            else
+            {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the style of the node, or null if it has none of its own.
+     */
+    public NodeStyle getNodeStyle(int node)
+    {
+        checkNode(node);
+        return nodeStyles[buffer.getShort(sections[SnapshotFormat.NODE_STYLE_IDS] + (node * 2)) & 0xFFFF];
+    }
+
+    public int getChildCount(int node)
+    {
+        checkNode(node);
+        return start(SnapshotFormat.CHILD_START,node + 1) - start(SnapshotFormat.CHILD_START,node);
+    }
+
+    public int getParentCount(int node)
+    {
+        checkNode(node);
+        return start(SnapshotFormat.PARENT_START,node + 1) - start(SnapshotFormat.PARENT_START,node);
+    }
+
+    /**
+     * @return the ids of the children of the node, ascending.
+     */
+    public int[] getChildren(int node)
+    {
+        return decode(SnapshotFormat.CHILD_OFFSETS,SnapshotFormat.CHILD_DATA,node,getChildCount(node));
+    }
+
+    /**
+     * @return the ids of the parents of the node, ascending.
+     */
+    public int[] getParents(int node)
+    {
+        return decode(SnapshotFormat.PARENT_OFFSETS,SnapshotFormat.PARENT_DATA,node,getParentCount(node));
+    }
+
+    public boolean hasEdge(int from, int to)
+    {
+        return edgeOrdinal(from,to) >= 0;
+    }
+
+    /**
+     * @return the style of the edge, or null if the edge does not exist or has no style of its own.
+     */
+    public EdgeStyle getEdgeStyle(int from, int to)
+    {
+        int ordinal = edgeOrdinal(from,to);
+        return (ordinal < 0) ? null : edgeStyles[edgeKind(ordinal)];
+    }
+
+    /**
+     * @return the scope of the edge, or null if the edge does not exist or has no scope.
+     */
+    public String getEdgeScope(int from, int to)
+    {
+        int ordinal = edgeOrdinal(from,to);
+        return (ordinal < 0) ? null : edgeScopes[edgeKind(ordinal)];
+    }
+
+    /**
+     * @return a new graph holding the content of the snapshot.
+     * @throws GraphConstraintException
+     *             never for a plain {@link Graph}.
+     */
+    public Graph toGraph() throws GraphConstraintException
+    {
+        GraphBuilder builder = new GraphBuilder(nodeCount,edgeCount);
+        for (int id = 0; id < nodeCount; id++)
+        {
+            builder.addNode(getLabel(id));
+            NodeStyle style = getNodeStyle(id);
+            if (style != null)
+            {
+                builder.setNodeStyle(id,style);
+            }
+        }
+
+        int ordinal = 0;
+        for (int id = 0; id < nodeCount; id++)
+        {
+            for (int child : getChildren(id))
+            {
+                int edge = builder.addEdge(id,child);
+                int kind = edgeKind(ordinal++);
+                if (kind != 0)
+                {
+                    builder.setEdgeStyle(edge,edgeStyles[kind]);
+                    builder.setEdgeScope(edge,edgeScopes[kind]);
+                }
+            }
+        }
+
+        Graph graph = builder.build();
+        copyDecorator(graph);
+        return graph;
+    }
+
+    /**
+     * Add the content of the snapshot to a graph, eg: to load it in a
+     * {@link net.erdfelt.maven.graphing.graph.model.dag.Dag}.
+     *
+     * @param graph
+     *            the graph to add to.
+     * @throws GraphConstraintException
+     *             if the graph rejects one of the edges.
+     */
+    public void populate(Graph graph) throws GraphConstraintException
+    {
+        copyDecorator(graph);
+
+        Node[] nodes = new Node[nodeCount];
+        for (int id = 0; id < nodeCount; id++)
+        {
+            nodes[id] = graph.addNode(getLabel(id));
+            NodeStyle style = getNodeStyle(id);
+            if (style != null)
+            {
+                nodes[id].setStyle(style);
+            }
+        }
+
+        int ordinal = 0;
+        for (int id = 0; id < nodeCount; id++)
+        {
+            for (int child : getChildren(id))
+            {
+                Edge edge = graph.addEdge(nodes[id],nodes[child]);
+                int kind = edgeKind(ordinal++);
+                if (kind != 0)
+                {
+                    edge.setStyle(edgeStyles[kind]);
+                    edge.setScope(edgeScopes[kind]);
+                }
+            }
+        }
+    }
+
+    private void copyDecorator(Graph graph)
+    {
+        if (decorator != null)
+        {
+            GraphDecorator copy = graph.getDecorator();
+            copy.setTitle(decorator.getTitle());
+            copy.setBackgroundColor(decorator.getBackgroundColor());
+            copy.setTitleColor(decorator.getTitleColor());
+            copy.setOrientation(decorator.getOrientation());
+            copy.setFontSize(decorator.getFontSize());
+        }
+    }
+
+    private void checkNode(int node)
+    {
+        if ((node < 0) || (node >= nodeCount))
+        {
+            throw new IndexOutOfBoundsException("Node " + node + " of " + nodeCount);
+        }
+    }
+
+    private int labelStart(int index)
+    {
+        return buffer.getInt(sections[SnapshotFormat.LABEL_OFFSETS] + (index * 4));
+    }
+
+    private int start(int section, int index)
+    {
+        return buffer.getInt(sections[section] + (index * 4));
+    }
+
+    private int compareLabel(int node, byte[] key)
+    {
+        int start = sections[SnapshotFormat.LABEL_DATA] + labelStart(node);
+        int length = labelStart(node + 1) - labelStart(node);
+        int common = Math.min(length,key.length);
+        for (int i = 0; i < common; i++)
+        {
+            int cmp = (buffer.get(start + i) & 0xFF) - (key[i] & 0xFF);
+            if (cmp != 0)
+            {
+                return cmp;
+            }
+        }
+        return length - key.length;
+    }
+
+    private int[] decode(int offsets, int data, int node, int count)
+    {
+        int[] ids = new int[count];
+        int position = sections[data] + start(offsets,node);
+        int previous = 0;
+        for (int i = 0; i < count; i++)
+        {
+            int delta = 0;
+            for (int shift = 0;; shift += 7)
+            {
+                byte b = buffer.get(position++);
+                delta |= (b & 0x7F) << shift;
+                if (b >= 0)
+                {
+                    break;
+                }
+            }
+            previous += delta;
+            ids[i] = previous;
+        }
+        return ids;
+    }
+
+    /**
+     * @return the ordinal of the edge in child order, or -1 if there is no such edge.
+     */
+    private int edgeOrdinal(int from, int to)
+    {
+        checkNode(from);
+        int[] children = getChildren(from);
+        int index = Arrays.binarySearch(children,to);
+        return (index < 0) ? -1 : start(SnapshotFormat.CHILD_START,from) + index;
+    }
+
+    private int edgeKind(int ordinal)
+    {
+        return buffer.getShort(sections[SnapshotFormat.EDGE_KIND_IDS] + (ordinal * 2)) & 0xFFFF;
+    }
+}
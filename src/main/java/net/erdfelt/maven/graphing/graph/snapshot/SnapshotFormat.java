@@ -0,0 +1,255 @@
+package net.erdfelt.maven.graphing.graph.snapshot;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeDecorator.EndingStyles;
+import net.erdfelt.maven.graphing.graph.decorator.EdgeDecorator.LineStyle;
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+/**
+ * The layout of a graph snapshot, shared by {@link SnapshotWriter} and {@link GraphSnapshot}.
+ * <p>
+ * All values are big endian. The header holds the magic, the version, the node and edge counts and the offsets of
+ * the sections, in the order of the section constants below (the last offset is the end of the data):
+ * <ul>
+ * <li>GRAPH: the graph title and decorator attributes.</li>
+ * <li>NODE_STYLES, EDGE_KINDS: the distinct node styles, and the distinct edge style / scope pairs.</li>
+ * <li>LABEL_OFFSETS, LABEL_DATA: the UTF-8 labels, sorted by their bytes, the node id is the position in this
+ * table.</li>
+ * <li>NODE_STYLE_IDS: a u16 per node, 0 for none, otherwise 1 + the index in NODE_STYLES.</li>
+ * <li>CHILD_OFFSETS, CHILD_START, CHILD_DATA: the children of each node, as varint deltas of the sorted child ids,
+ * with the byte offset and the first edge ordinal of each node.</li>
+ * <li>PARENT_OFFSETS, PARENT_START, PARENT_DATA: the parents of each node, in the same form.</li>
+ * <li>EDGE_KIND_IDS: a u16 per edge (in CHILD_DATA order), 0 for none, otherwise 1 + the index in EDGE_KINDS.</li>
+ * </ul>
+ *
+ * @since 1.0.2
+ */
+final class SnapshotFormat
+{
+    static final int MAGIC = 0x47524150; // "GRAP"
+
+    static final int VERSION = 2;
+
+    /**
+     * The oldest version still read: version 1 snapshots have no edge pen widths.
+     */
+    static final int MIN_VERSION = 1;
+
+    static final int GRAPH = 0;
+
+    static final int NODE_STYLES = 1;
+
+    static final int EDGE_KINDS = 2;
+
+    static final int LABEL_OFFSETS = 3;
+
+    static final int LABEL_DATA = 4;
+
+    static final int NODE_STYLE_IDS = 5;
+
+    static final int CHILD_OFFSETS = 6;
+
+    static final int CHILD_START = 7;
+
+    static final int CHILD_DATA = 8;
+
+    static final int PARENT_OFFSETS = 9;
+
+    static final int PARENT_START = 10;
+
+    static final int PARENT_DATA = 11;
+
+    static final int EDGE_KIND_IDS = 12;
+
+    static final int SECTIONS = 13;
+
+    /**
+     * magic, version, flags, nodes, edges, section count, then (SECTIONS + 1) section offsets.
+     */
+    static final int HEADER_SIZE = 4 + 2 + 2 + 4 + 4 + 4 + ((SECTIONS + 1) * 8);
+
+    /**
+     * The style ids are u16, 0 being "none".
+     */
+    static final int MAX_TABLE_SIZE = 0xFFFF;
+
+    private SnapshotFormat()
+    {
+        /* constants */
+    }
+
+    static void writeVarint(DataOutputStream out, int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        if (value == null)
+        {
+            writeVarint(out,0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out,bytes.length + 1);
+        out.write(bytes);
+    }
+
+    static void writeColor(DataOutputStream out, Rgba color) throws IOException
+    {
+        if (color == null)
+        {
+            out.writeByte(0);
+            return;
+        }
+        out.writeByte(1);
+        out.writeInt(color.getArgb());
+    }
+
+    static void writeStyle(DataOutputStream out, NodeStyle style) throws IOException
+    {
+        writeColor(out,style.getBackgroundColor());
+        writeColor(out,style.getBorderColor());
+        writeColor(out,style.getLabelColor());
+        writeString(out,style.getGroupName());
+        out.writeInt(style.getFontSize());
+    }
+
+    static void writeStyle(DataOutputStream out, EdgeStyle style) throws IOException
+    {
+        writeColor(out,style.getLineColor());
+        out.writeByte(style.getLineHead().ordinal());
+        out.writeByte(style.getLineTail().ordinal());
+        writeString(out,style.getLineLabel());
+        out.writeByte(style.getLineStyle().ordinal());
+        out.writeInt(style.getFontSize());
+        out.writeDouble(style.getPenWidth());
+    }
+
+    /**
+     * A cursor over a section of the snapshot, for the (small) tables read when opening a snapshot.
+     */
+    static final class Cursor
+    {
+        private final ByteBuffer buffer;
+
+        private int position;
+
+        Cursor(ByteBuffer buffer, int position)
+        {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        int readVarint() throws SnapshotFormatException
+        {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7)
+            {
+                byte b = buffer.get(position++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0)
+                {
+                    return value;
+                }
+            }
+            throw new SnapshotFormatException("Malformed varint at " + (position - 1));
+        }
+
+        int readByte()
+        {
+            return buffer.get(position++) & 0xFF;
+        }
+
+        int readInt()
+        {
+            int value = buffer.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        String readString() throws SnapshotFormatException
+        {
+            int length = readVarint() - 1;
+            if (length < 0)
+            {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++)
+            {
+                bytes[i] = buffer.get(position++);
+            }
+            return new String(bytes,StandardCharsets.UTF_8);
+        }
+
+        Rgba readColor()
+        {
+            return (readByte() == 0) ? null : Rgba.argb(readInt());
+        }
+
+        NodeStyle readNodeStyle() throws SnapshotFormatException
+        {
+            Rgba background = readColor();
+            Rgba border = readColor();
+            Rgba label = readColor();
+            String group = readString();
+            return NodeStyle.of(background,border,label,group,readInt());
+        }
+
+        EdgeStyle readEdgeStyle(int version) throws SnapshotFormatException
+        {
+            Rgba color = readColor();
+            EndingStyles head = readEnum(EndingStyles.values());
+            EndingStyles tail = readEnum(EndingStyles.values());
+            String label = readString();
+            LineStyle style = readEnum(LineStyle.values());
+            int fontSize = readInt();
+            double penWidth = 0;
+            if (version >= 2)
+            {
+                penWidth = buffer.getDouble(position);
+                position += 8;
+            }
+            return EdgeStyle.of(color,head,tail,label,style,fontSize,penWidth);
+        }
+
+        private <E> E readEnum(E[] values) throws SnapshotFormatException
+        {
+            int ordinal = readByte();
+            if (ordinal >= values.length)
+            {
+                throw new SnapshotFormatException("Unknown " + values.getClass().getComponentType().getSimpleName()
+                        + " " + ordinal);
+            }
+            return values[ordinal];
+        }
+    }
+}
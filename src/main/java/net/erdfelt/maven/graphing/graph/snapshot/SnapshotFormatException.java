@@ -0,0 +1,34 @@
+package net.erdfelt.maven.graphing.graph.snapshot;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+
+/**
+ * The data is not a graph snapshot, or not one of a supported version.
+ *
+ * @since 1.0.2
+ */
+public class SnapshotFormatException extends IOException
+{
+    private static final long serialVersionUID = -1877399519470611183L;
+
+    public SnapshotFormatException(String message)
+    {
+        super(message);
+    }
+}
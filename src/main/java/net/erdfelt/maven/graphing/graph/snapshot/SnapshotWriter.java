@@ -0,0 +1,303 @@
+package net.erdfelt.maven.graphing.graph.snapshot;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.GraphDecorator;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.Node;
+
+/**
+ * Writes a {@link Graph} as a binary snapshot, see {@link GraphSnapshot} to read it back.
+ * <p>
+ * The snapshot holds the labels, the adjacency, the node and edge styles, the edge scopes and the graph decorator.
+ * The graph metrics and listeners are not part of it.
+ *
+ * @since 1.0.2
+ */
+public class SnapshotWriter
+{
+    /**
+     * An edge style and scope pair, the per edge data of a snapshot.
+     */
+    private static final class EdgeKind
+    {
+        private final EdgeStyle style;
+
+        private final String scope;
+
+        EdgeKind(EdgeStyle style, String scope)
+        {
+            this.style = style;
+            this.scope = scope;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(style,scope);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof EdgeKind))
+            {
+                return false;
+            }
+            EdgeKind other = (EdgeKind)obj;
+            return (style == other.style) && Objects.equals(scope,other.scope);
+        }
+    }
+
+    public void write(Graph graph, File file) throws IOException
+    {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.exists() && !dir.mkdirs())
+        {
+            throw new IOException("Unable to make directories: " + dir.getAbsolutePath());
+        }
+
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file),65536);
+        try
+        {
+            write(graph,out);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Write the snapshot.
+     *
+     * @param graph
+     *            the graph to write.
+     * @param out
+     *            the stream to write to, flushed but not closed.
+     * @throws IOException
+     *             if the snapshot could not be written.
+     */
+    public void write(Graph graph, OutputStream out) throws IOException
+    {
+        // Node ids are the positions of the labels, sorted by their UTF-8 bytes.
+        Node[] nodes = graph.getNodes().toArray(new Node[0]);
+        final byte[][] labels = new byte[nodes.length][];
+        Integer[] order = new Integer[nodes.length];
+        for (int i = 0; i < nodes.length; i++)
+        {
+            labels[i] = nodes[i].getLabel().getBytes(StandardCharsets.UTF_8);
+            order[i] = i;
+        }
+        Arrays.sort(order,new Comparator<Integer>()
+        {
+            public int compare(Integer a, Integer b)
+            {
+                return Arrays.compareUnsigned(labels[a],labels[b]);
+            }
+        });
+
+        int nodeCount = nodes.length;
+        Map<Node, Integer> ids = new IdentityHashMap<Node, Integer>(nodeCount);
+        for (int id = 0; id < nodeCount; id++)
+        {
+            ids.put(nodes[order[id]],id);
+        }
+
+        // The edges, sorted by (from, to) and by (to, from).
+        int edgeCount = graph.getEdges().size();
+        long[] forward = new long[edgeCount];
+        long[] reverse = new long[edgeCount];
+        Map<Long, EdgeKind> kinds = new HashMap<Long, EdgeKind>();
+        int e = 0;
+        for (Edge edge : graph.getEdges())
+        {
+            long from = ids.get(edge.getFrom());
+            long to = ids.get(edge.getTo());
+            forward[e] = (from << 32) | to;
+            reverse[e] = (to << 32) | from;
+            if (edge.hasStyle() || (edge.getScope() != null))
+            {
+                kinds.put(forward[e],new EdgeKind(edge.hasStyle() ? edge.getStyle() : null,edge.getScope()));
+            }
+            e++;
+        }
+        Arrays.sort(forward);
+        Arrays.sort(reverse);
+
+        ByteArrayOutputStream[] sections = new ByteArrayOutputStream[SnapshotFormat.SECTIONS];
+        DataOutputStream[] data = new DataOutputStream[SnapshotFormat.SECTIONS];
+        for (int i = 0; i < sections.length; i++)
+        {
+            sections[i] = new ByteArrayOutputStream();
+            data[i] = new DataOutputStream(sections[i]);
+        }
+
+        writeGraph(data[SnapshotFormat.GRAPH],graph);
+
+        // Labels and node styles.
+        Map<NodeStyle, Integer> nodeStyles = new LinkedHashMap<NodeStyle, Integer>();
+        int labelOffset = 0;
+        for (int id = 0; id < nodeCount; id++)
+        {
+            data[SnapshotFormat.LABEL_OFFSETS].writeInt(labelOffset);
+            byte[] label = labels[order[id]];
+            data[SnapshotFormat.LABEL_DATA].write(label);
+            labelOffset += label.length;
+
+            Node node = nodes[order[id]];
+            data[SnapshotFormat.NODE_STYLE_IDS].writeShort(node.hasStyle() ? tableId(nodeStyles,node.getStyle()) : 0);
+        }
+        data[SnapshotFormat.LABEL_OFFSETS].writeInt(labelOffset);
+
+        writeAdjacency(forward,nodeCount,data[SnapshotFormat.CHILD_OFFSETS],data[SnapshotFormat.CHILD_START],
+                data[SnapshotFormat.CHILD_DATA],sections[SnapshotFormat.CHILD_DATA]);
+        writeAdjacency(reverse,nodeCount,data[SnapshotFormat.PARENT_OFFSETS],data[SnapshotFormat.PARENT_START],
+                data[SnapshotFormat.PARENT_DATA],sections[SnapshotFormat.PARENT_DATA]);
+
+        // Edge kinds, in child order.
+        Map<EdgeKind, Integer> edgeKinds = new LinkedHashMap<EdgeKind, Integer>();
+        for (long key : forward)
+        {
+            EdgeKind kind = kinds.isEmpty() ? null : kinds.get(key);
+            data[SnapshotFormat.EDGE_KIND_IDS].writeShort((kind == null) ? 0 : tableId(edgeKinds,kind));
+        }
+
+        writeVarint(data[SnapshotFormat.NODE_STYLES],nodeStyles.size());
+        for (NodeStyle style : nodeStyles.keySet())
+        {
+            SnapshotFormat.writeStyle(data[SnapshotFormat.NODE_STYLES],style);
+        }
+        writeVarint(data[SnapshotFormat.EDGE_KINDS],edgeKinds.size());
+        for (EdgeKind kind : edgeKinds.keySet())
+        {
+            data[SnapshotFormat.EDGE_KINDS].writeByte((kind.style == null) ? 0 : 1);
+            if (kind.style != null)
+            {
+                SnapshotFormat.writeStyle(data[SnapshotFormat.EDGE_KINDS],kind.style);
+            }
+            SnapshotFormat.writeString(data[SnapshotFormat.EDGE_KINDS],kind.scope);
+        }
+
+        // Header, then the sections.
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(SnapshotFormat.MAGIC);
+        header.writeShort(SnapshotFormat.VERSION);
+        header.writeShort(0);
+        header.writeInt(nodeCount);
+        header.writeInt(edgeCount);
+        header.writeInt(SnapshotFormat.SECTIONS);
+        long offset = SnapshotFormat.HEADER_SIZE;
+        for (int i = 0; i < sections.length; i++)
+        {
+            data[i].flush();
+            header.writeLong(offset);
+            offset += sections[i].size();
+        }
+        header.writeLong(offset);
+        if (offset > Integer.MAX_VALUE)
+        {
+            throw new IOException("Graph too large for a snapshot: " + offset + " bytes");
+        }
+        for (ByteArrayOutputStream section : sections)
+        {
+            section.writeTo(header);
+        }
+        header.flush();
+    }
+
+    private void writeGraph(DataOutputStream out, Graph graph) throws IOException
+    {
+        if (!graph.hasDecorator())
+        {
+            out.writeByte(0);
+            return;
+        }
+        GraphDecorator decorator = graph.getDecorator();
+        out.writeByte(1);
+        SnapshotFormat.writeString(out,decorator.getTitle());
+        SnapshotFormat.writeColor(out,decorator.getBackgroundColor());
+        SnapshotFormat.writeColor(out,decorator.getTitleColor());
+        out.writeInt(decorator.getOrientation());
+        out.writeInt(decorator.getFontSize());
+    }
+
+    /**
+     * Write the adjacency lists of the sorted (node &lt;&lt; 32 | adjacent) pairs.
+     */
+    private void writeAdjacency(long[] pairs, int nodeCount, DataOutputStream offsets, DataOutputStream starts,
+            DataOutputStream out, ByteArrayOutputStream bytes) throws IOException
+    {
+        int p = 0;
+        for (int id = 0; id < nodeCount; id++)
+        {
+            out.flush();
+            offsets.writeInt(bytes.size());
+            starts.writeInt(p);
+            int previous = 0;
+            while ((p < pairs.length) && ((int)(pairs[p] >>> 32) == id))
+            {
+                int adjacent = (int)pairs[p];
+                writeVarint(out,adjacent - previous);
+                previous = adjacent;
+                p++;
+            }
+        }
+        out.flush();
+        offsets.writeInt(bytes.size());
+        starts.writeInt(p);
+    }
+
+    private <T> int tableId(Map<T, Integer> table, T value) throws IOException
+    {
+        Integer id = table.get(value);
+        if (id == null)
+        {
+            if (table.size() >= SnapshotFormat.MAX_TABLE_SIZE)
+            {
+                throw new IOException("Too many distinct styles for a snapshot: " + table.size());
+            }
+            id = table.size() + 1;
+            table.put(value,id);
+        }
+        return id;
+    }
+
+    private void writeVarint(DataOutputStream out, int value) throws IOException
+    {
+        SnapshotFormat.writeVarint(out,value);
+    }
+}
@@ -0,0 +1,296 @@
+package net.erdfelt.maven.graphing.graph.stylesheet;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.regex.Pattern;
+
+/**
+ * A compiled <code>[attribute op value]</code> test of a selector.
+ * <p>
+ * String values are globs (<code>*</code> and <code>?</code>), compiled once into the cheapest test that matches
+ * them: equality, prefix, suffix, or a regular expression. Degree attributes compare numerically.
+ *
+ * @since 1.0.2
+ */
+final class Condition
+{
+    /**
+     * The attributes a condition can test.
+     */
+    enum Attribute
+    {
+        // Node attributes
+        LABEL("label",true,false), GROUP_ID("groupId",true,false), ARTIFACT_ID("artifactId",true,false),
+        VERSION("version",true,false), TYPE("type",true,false), GROUP("group",true,false),
+        INDEGREE("indegree",true,true), OUTDEGREE("outdegree",true,true), DEGREE("degree",true,true),
+        // Edge attributes
+        SCOPE("scope",false,false), FROM("from",false,false), TO("to",false,false);
+
+        private final String id;
+
+        private final boolean node;
+
+        private final boolean numeric;
+
+        private Attribute(String id, boolean node, boolean numeric)
+        {
+            this.id = id;
+            this.node = node;
+            this.numeric = numeric;
+        }
+
+        static Attribute find(String id, boolean node)
+        {
+            for (Attribute attribute : values())
+            {
+                if (attribute.id.equals(id) && (attribute.node == node))
+                {
+                    return attribute;
+                }
+            }
+            return null;
+        }
+
+        boolean isNumeric()
+        {
+            return numeric;
+        }
+
+        @Override
+        public String toString()
+        {
+            return id;
+        }
+    }
+
+    enum Operator
+    {
+        EQ("="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+        private final String token;
+
+        private Operator(String token)
+        {
+            this.token = token;
+        }
+
+        static Operator find(String token)
+        {
+            for (Operator operator : values())
+            {
+                if (operator.token.equals(token))
+                {
+                    return operator;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String toString()
+        {
+            return token;
+        }
+    }
+
+    private static final int EXACT = 0;
+
+    private static final int PREFIX = 1;
+
+    private static final int SUFFIX = 2;
+
+    private static final int REGEX = 3;
+
+    private final Attribute attribute;
+
+    private final Operator operator;
+
+    private final String value;
+
+    private final int kind;
+
+    private final String literal;
+
+    private final Pattern pattern;
+
+    private final long number;
+
+    Condition(Attribute attribute, Operator operator, String value) throws StylesheetException
+    {
+        this.attribute = attribute;
+        this.operator = operator;
+        this.value = value;
+
+        if (attribute.isNumeric())
+        {
+            try
+            {
+                this.number = Long.parseLong(value);
+            }
+            catch (NumberFormatException e)
+            {
+                throw new StylesheetException("Expected a number for [" + attribute + "]: " + value);
+            }
+            this.kind = EXACT;
+            this.literal = null;
+            this.pattern = null;
+            return;
+        }
+
+        if ((operator != Operator.EQ) && (operator != Operator.NE))
+        {
+            throw new StylesheetException("Only = and != apply to [" + attribute + "]: " + operator);
+        }
+        this.number = 0;
+
+        int star = value.indexOf('*');
+        boolean wildcards = (star >= 0) || (value.indexOf('?') >= 0);
+        if (!wildcards)
+        {
+            this.kind = EXACT;
+            this.literal = value;
+            this.pattern = null;
+        }
+        else if ((value.indexOf('?') < 0) && (star == (value.length() - 1)) && (value.indexOf('*') == star))
+        {
+            this.kind = PREFIX;
+            this.literal = value.substring(0,star);
+            this.pattern = null;
+        }
+        else if ((value.indexOf('?') < 0) && (star == 0) && (value.indexOf('*',1) < 0))
+        {
+            this.kind = SUFFIX;
+            this.literal = value.substring(1);
+            this.pattern = null;
+        }
+        else
+        {
+            this.kind = REGEX;
+            this.literal = null;
+            this.pattern = toPattern(value);
+        }
+    }
+
+    private static Pattern toPattern(String glob)
+    {
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        for (int i = 0; i < glob.length(); i++)
+        {
+            char c = glob.charAt(i);
+            if ((c == '*') || (c == '?'))
+            {
+                if (i > start)
+                {
+                    regex.append(Pattern.quote(glob.substring(start,i)));
+                }
+                regex.append((c == '*') ? ".*" : ".");
+                start = i + 1;
+            }
+        }
+        if (start < glob.length())
+        {
+            regex.append(Pattern.quote(glob.substring(start)));
+        }
+        return Pattern.compile(regex.toString(),Pattern.DOTALL);
+    }
+
+    Attribute getAttribute()
+    {
+        return attribute;
+    }
+
+    /**
+     * @param actual
+     *            the attribute value, null if the element does not have the attribute.
+     */
+    boolean matches(String actual)
+    {
+        if (actual == null)
+        {
+            return operator == Operator.NE;
+        }
+        return matches(actual,0,actual.length());
+    }
+
+    /**
+     * Test a region of a string, without extracting it.
+     *
+     * @param actual
+     *            the string holding the attribute value.
+     * @param start
+     *            the start of the value, negative if the element does not have the attribute.
+     * @param end
+     *            the end of the value (exclusive).
+     */
+    boolean matches(String actual, int start, int end)
+    {
+        boolean match;
+        int length = end - start;
+        if (start < 0)
+        {
+            match = false;
+        }
+        else
+        {
+            switch (kind)
+            {
+                case PREFIX:
+                    match = (length >= literal.length()) && actual.regionMatches(start,literal,0,literal.length());
+                    break;
+                case SUFFIX:
+                    match = (length >= literal.length())
+                            && actual.regionMatches(end - literal.length(),literal,0,literal.length());
+                    break;
+                case REGEX:
+                    match = pattern.matcher(actual).region(start,end).matches();
+                    break;
+                case EXACT:
+                default:
+                    match = (length == literal.length()) && actual.regionMatches(start,literal,0,length);
+                    break;
+            }
+        }
+        return (operator == Operator.NE) ? !match : match;
+    }
+
+    boolean matches(long actual)
+    {
+        switch (operator)
+        {
+            case NE:
+                return actual != number;
+            case LT:
+                return actual < number;
+            case LE:
+                return actual <= number;
+            case GT:
+                return actual > number;
+            case GE:
+                return actual >= number;
+            case EQ:
+            default:
+                return actual == number;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[" + attribute + operator + value + "]";
+    }
+}
@@ -0,0 +1,358 @@
+package net.erdfelt.maven.graphing.graph.stylesheet;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.model.FrozenGraph;
+import net.erdfelt.maven.graphing.graph.model.Node;
+
+/**
+ * Resolves the style of elements against a {@link Stylesheet}.
+ * <p>
+ * Each element is matched against the rules, but the style for a given combination of own style and matched rules is
+ * only computed once, elements with the same combination share the resulting (interned) style.
+ * <p>
+ * Not thread safe, use one resolver per render.
+ *
+ * @since 1.0.2
+ */
+public class StyleResolver
+{
+    /**
+     * The own style of an element, and the rules it matched.
+     */
+    private static final class Key
+    {
+        private Object base;
+
+        private BitSet matched;
+
+        Key(Object base, BitSet matched)
+        {
+            this.base = base;
+            this.matched = matched;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (31 * System.identityHashCode(base)) + matched.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof Key))
+            {
+                return false;
+            }
+            Key other = (Key)obj;
+            // Styles are interned.
+            return (base == other.base) && matched.equals(other.matched);
+        }
+    }
+
+    private final List<StyleRule> nodeRules;
+
+    private final List<StyleRule> edgeRules;
+
+    private final Map<Key, NodeStyle> nodeStyles = new HashMap<Key, NodeStyle>();
+
+    private final Map<Key, EdgeStyle> edgeStyles = new HashMap<Key, EdgeStyle>();
+
+    /**
+     * Reused for lookups, only copied when a new combination is found.
+     */
+    private final Key probe = new Key(null,new BitSet());
+
+    /**
+     * The start and end offsets of the groupId, artifactId, version and type in the current label, -1 if absent.
+     */
+    private final int[] parts = new int[8];
+
+    /**
+     * Whether any rule tests a part of the node labels.
+     */
+    private final boolean labelParts;
+
+    StyleResolver(Stylesheet stylesheet)
+    {
+        this.nodeRules = stylesheet.getNodeRules();
+        this.edgeRules = stylesheet.getEdgeRules();
+
+        boolean uses = false;
+        for (StyleRule rule : nodeRules)
+        {
+            for (Condition condition : rule.getConditions())
+            {
+                switch (condition.getAttribute())
+                {
+                    case GROUP_ID:
+                    case ARTIFACT_ID:
+                    case VERSION:
+                    case TYPE:
+                        uses = true;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        this.labelParts = uses;
+    }
+
+    public NodeStyle resolve(Node node)
+    {
+        return resolveNode(node.getStyle(),node.getLabel(),node.getParents().size(),node.getChildren().size());
+    }
+
+    /**
+     * Resolve the style of a node of a frozen graph.
+     * 
+     * @param graph
+     *            the frozen graph.
+     * @param node
+     *            the node id.
+     * @return the resolved style.
+     */
+    public NodeStyle resolveNode(FrozenGraph graph, int node)
+    {
+        return resolveNode(graph.getNodeStyle(node),graph.getLabel(node),graph.getParentCount(node),
+                graph.getChildCount(node));
+    }
+
+    private NodeStyle resolveNode(NodeStyle base, String label, int indegree, int outdegree)
+    {
+        if (nodeRules.isEmpty())
+        {
+            return base;
+        }
+
+        if (labelParts)
+        {
+            splitLabel(label);
+        }
+        BitSet matched = probe.matched;
+        matched.clear();
+        for (int i = 0; i < nodeRules.size(); i++)
+        {
+            if (matches(nodeRules.get(i),label,base,indegree,outdegree))
+            {
+                matched.set(i);
+            }
+        }
+        if (matched.isEmpty())
+        {
+            return base;
+        }
+
+        probe.base = base;
+        NodeStyle style = nodeStyles.get(probe);
+        if (style == null)
+        {
+            style = base;
+            for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1))
+            {
+                style = nodeRules.get(i).apply(style);
+            }
+            nodeStyles.put(new Key(base,(BitSet)matched.clone()),style);
+        }
+        return style;
+    }
+
+    public EdgeStyle resolve(Edge edge)
+    {
+        return resolveEdge(edge.getStyle(),edge.getScope(),edge.getFrom().getLabel(),edge.getTo().getLabel());
+    }
+
+    /**
+     * Resolve the style of an edge of a frozen graph.
+     * 
+     * @param graph
+     *            the frozen graph.
+     * @param edge
+     *            the edge index.
+     * @return the resolved style.
+     */
+    public EdgeStyle resolveEdge(FrozenGraph graph, int edge)
+    {
+        return resolveEdge(graph.getEdgeStyle(edge),graph.getEdgeScope(edge),
+                graph.getLabel(graph.getEdgeSource(edge)),graph.getLabel(graph.getEdgeTarget(edge)));
+    }
+
+    private EdgeStyle resolveEdge(EdgeStyle base, String scope, String from, String to)
+    {
+        if (edgeRules.isEmpty())
+        {
+            return base;
+        }
+
+        BitSet matched = probe.matched;
+        matched.clear();
+        for (int i = 0; i < edgeRules.size(); i++)
+        {
+            if (matches(edgeRules.get(i),scope,from,to))
+            {
+                matched.set(i);
+            }
+        }
+        if (matched.isEmpty())
+        {
+            return base;
+        }
+
+        probe.base = base;
+        EdgeStyle style = edgeStyles.get(probe);
+        if (style == null)
+        {
+            style = base;
+            for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1))
+            {
+                style = edgeRules.get(i).apply(style);
+            }
+            edgeStyles.put(new Key(base,(BitSet)matched.clone()),style);
+        }
+        return style;
+    }
+
+    /**
+     * @return the number of distinct style combinations computed so far.
+     */
+    public int getResolvedCount()
+    {
+        return nodeStyles.size() + edgeStyles.size();
+    }
+
+    /**
+     * Locate the parts of a "groupId\nartifactId[\nversion]\ntype" label, without creating substrings.
+     */
+    private void splitLabel(String label)
+    {
+        Arrays.fill(parts,-1);
+        int first = label.indexOf('\n');
+        int second = (first < 0) ? -1 : label.indexOf('\n',first + 1);
+        if (second < 0)
+        {
+            return;
+        }
+        int third = label.indexOf('\n',second + 1);
+        setPart(0,0,first);
+        setPart(1,first + 1,second);
+        if (third < 0)
+        {
+            setPart(3,second + 1,label.length());
+        }
+        else
+        {
+            setPart(2,second + 1,third);
+            setPart(3,third + 1,label.length());
+        }
+    }
+
+    private void setPart(int part, int start, int end)
+    {
+        parts[part * 2] = start;
+        parts[(part * 2) + 1] = end;
+    }
+
+    private boolean matchesPart(Condition condition, String label, int part)
+    {
+        return condition.matches(label,parts[part * 2],parts[(part * 2) + 1]);
+    }
+
+    private boolean matches(StyleRule rule, String label, NodeStyle base, int indegree, int outdegree)
+    {
+        for (Condition condition : rule.getConditions())
+        {
+            boolean match;
+            switch (condition.getAttribute())
+            {
+                case LABEL:
+                    match = condition.matches(label);
+                    break;
+                case GROUP_ID:
+                    match = matchesPart(condition,label,0);
+                    break;
+                case ARTIFACT_ID:
+                    match = matchesPart(condition,label,1);
+                    break;
+                case VERSION:
+                    match = matchesPart(condition,label,2);
+                    break;
+                case TYPE:
+                    match = matchesPart(condition,label,3);
+                    break;
+                case GROUP:
+                    match = condition.matches(base.getGroupName());
+                    break;
+                case INDEGREE:
+                    match = condition.matches(indegree);
+                    break;
+                case OUTDEGREE:
+                    match = condition.matches(outdegree);
+                    break;
+                case DEGREE:
+                    match = condition.matches(indegree + outdegree);
+                    break;
+                default:
+                    match = false;
+                    break;
+            }
+            if (!match)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(StyleRule rule, String scope, String from, String to)
+    {
+        for (Condition condition : rule.getConditions())
+        {
+            boolean match;
+            switch (condition.getAttribute())
+            {
+                case SCOPE:
+                    match = condition.matches(scope);
+                    break;
+                case FROM:
+                    match = condition.matches(from);
+                    break;
+                case TO:
+                    match = condition.matches(to);
+                    break;
+                default:
+                    match = false;
+                    break;
+            }
+            if (!match)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
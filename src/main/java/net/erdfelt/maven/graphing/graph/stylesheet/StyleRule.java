@@ -0,0 +1,142 @@
+package net.erdfelt.maven.graphing.graph.stylesheet;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeDecorator.EndingStyles;
+import net.erdfelt.maven.graphing.graph.decorator.EdgeDecorator.LineStyle;
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+/**
+ * A selector and the declarations applied to the elements it matches.
+ *
+ * @since 1.0.2
+ */
+public final class StyleRule
+{
+    private final boolean node;
+
+    private final Condition[] conditions;
+
+    /**
+     * Property to value, a null value clears the property.
+     */
+    private final Map<String, Object> declarations;
+
+    StyleRule(boolean node, List<Condition> conditions, Map<String, Object> declarations)
+    {
+        this.node = node;
+        this.conditions = conditions.toArray(new Condition[conditions.size()]);
+        this.declarations = new LinkedHashMap<String, Object>(declarations);
+    }
+
+    /**
+     * @return true if this rule applies to nodes, false if it applies to edges.
+     */
+    public boolean isNodeRule()
+    {
+        return node;
+    }
+
+    public Map<String, Object> getDeclarations()
+    {
+        return Collections.unmodifiableMap(declarations);
+    }
+
+    Condition[] getConditions()
+    {
+        return conditions;
+    }
+
+    NodeStyle apply(NodeStyle style)
+    {
+        for (Map.Entry<String, Object> declaration : declarations.entrySet())
+        {
+            Object value = declaration.getValue();
+            switch (declaration.getKey())
+            {
+                case "background":
+                    style = style.withBackgroundColor((Rgba)value);
+                    break;
+                case "border":
+                    style = style.withBorderColor((Rgba)value);
+                    break;
+                case "label-color":
+                    style = style.withLabelColor((Rgba)value);
+                    break;
+                case "group":
+                    style = style.withGroupName((String)value);
+                    break;
+                case "font-size":
+                    style = style.withFontSize((Integer)value);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown node property: " + declaration.getKey());
+            }
+        }
+        return style;
+    }
+
+    EdgeStyle apply(EdgeStyle style)
+    {
+        for (Map.Entry<String, Object> declaration : declarations.entrySet())
+        {
+            Object value = declaration.getValue();
+            switch (declaration.getKey())
+            {
+                case "color":
+                    style = style.withLineColor((Rgba)value);
+                    break;
+                case "style":
+                    style = style.withLineStyle((LineStyle)value);
+                    break;
+                case "label":
+                    style = style.withLineLabel((String)value);
+                    break;
+                case "head":
+                    style = style.withLineHead((EndingStyles)value);
+                    break;
+                case "tail":
+                    style = style.withLineTail((EndingStyles)value);
+                    break;
+                case "font-size":
+                    style = style.withFontSize((Integer)value);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown edge property: " + declaration.getKey());
+            }
+        }
+        return style;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder buf = new StringBuilder(node ? "node" : "edge");
+        for (Condition condition : conditions)
+        {
+            buf.append(condition);
+        }
+        return buf.append(" ").append(declarations).toString();
+    }
+}
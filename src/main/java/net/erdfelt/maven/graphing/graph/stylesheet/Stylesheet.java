@@ -0,0 +1,130 @@
+package net.erdfelt.maven.graphing.graph.stylesheet;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An ordered set of CSS-like rules, styling nodes and edges by their labels, degree or scope.
+ * <p>
+ * Rules are compiled once, and applied in bulk at render time through a {@link StyleResolver}: later rules override
+ * earlier ones, and all of them override the style an element carries itself. A stylesheet is immutable and can be
+ * shared between concurrent renders.
+ * <p>
+ * Node attributes are <code>label</code>, the label parts <code>groupId</code>, <code>artifactId</code>,
+ * <code>version</code> and <code>type</code>, the style <code>group</code>, and the numeric <code>indegree</code>,
+ * <code>outdegree</code> and <code>degree</code>. Edge attributes are <code>scope</code>, <code>from</code> and
+ * <code>to</code>.
+ *
+ * @since 1.0.2
+ */
+public final class Stylesheet
+{
+    private final String name;
+
+    private final List<StyleRule> nodeRules;
+
+    private final List<StyleRule> edgeRules;
+
+    private Stylesheet(String name, List<StyleRule> rules)
+    {
+        this.name = name;
+        List<StyleRule> nodes = new ArrayList<StyleRule>();
+        List<StyleRule> edges = new ArrayList<StyleRule>();
+        for (StyleRule rule : rules)
+        {
+            (rule.isNodeRule() ? nodes : edges).add(rule);
+        }
+        this.nodeRules = Collections.unmodifiableList(nodes);
+        this.edgeRules = Collections.unmodifiableList(edges);
+    }
+
+    /**
+     * Parse a stylesheet.
+     *
+     * @param name
+     *            the name used in error messages.
+     * @param text
+     *            the stylesheet source.
+     * @return the compiled stylesheet.
+     * @throws StylesheetException
+     *             if the source is invalid.
+     */
+    public static Stylesheet parse(String name, String text) throws StylesheetException
+    {
+        return new Stylesheet(name,new StylesheetParser(name,text).parse());
+    }
+
+    /**
+     * Load a stylesheet from a UTF-8 file.
+     *
+     * @param file
+     *            the file to load.
+     * @return the compiled stylesheet.
+     * @throws StylesheetException
+     *             if the file can not be read, or is invalid.
+     */
+    public static Stylesheet load(File file) throws StylesheetException
+    {
+        String text;
+        try
+        {
+            text = new String(Files.readAllBytes(file.toPath()),StandardCharsets.UTF_8);
+        }
+        catch (IOException e)
+        {
+            throw new StylesheetException("Unable to read stylesheet " + file,e);
+        }
+        return parse(file.getName(),text);
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public List<StyleRule> getNodeRules()
+    {
+        return nodeRules;
+    }
+
+    public List<StyleRule> getEdgeRules()
+    {
+        return edgeRules;
+    }
+
+    /**
+     * @return a new resolver, for use by a single render (resolvers are not thread safe).
+     */
+    public StyleResolver newResolver()
+    {
+        return new StyleResolver(this);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Stylesheet[" + name + ": " + nodeRules.size() + " node rule(s), " + edgeRules.size()
+                + " edge rule(s)]";
+    }
+}
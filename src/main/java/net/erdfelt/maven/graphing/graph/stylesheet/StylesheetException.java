@@ -0,0 +1,39 @@
+package net.erdfelt.maven.graphing.graph.stylesheet;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import net.erdfelt.maven.graphing.graph.GraphingException;
+
+/**
+ * A stylesheet could not be read or parsed.
+ *
+ * @since 1.0.2
+ */
+public class StylesheetException extends GraphingException
+{
+    private static final long serialVersionUID = 6316016573478431926L;
+
+    public StylesheetException(String message)
+    {
+        super(message);
+    }
+
+    public StylesheetException(String message, Throwable cause)
+    {
+        super(message,cause);
+    }
+}
@@ -0,0 +1,391 @@
+package net.erdfelt.maven.graphing.graph.stylesheet;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeDecorator.EndingStyles;
+import net.erdfelt.maven.graphing.graph.decorator.EdgeDecorator.LineStyle;
+import net.erdfelt.maven.graphing.graph.util.ColorUtil;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+/**
+ * Parses the stylesheet syntax.
+ *
+ * <pre>
+ * /&#42; comment &#42;/
+ * node[groupId=org.apache.*][indegree&gt;=5], node[type=war] {
+ *     background: #ffcc00;
+ *     border: red;
+ * }
+ * edge[scope=test] { color: blue; style: dashed; }
+ * </pre>
+ *
+ * @since 1.0.2
+ */
+class StylesheetParser
+{
+    private static final Map<String, Rgba> NAMED_COLORS = new HashMap<String, Rgba>();
+
+    static
+    {
+        NAMED_COLORS.put("black",Rgba.BLACK);
+        NAMED_COLORS.put("blue",Rgba.BLUE);
+        NAMED_COLORS.put("cyan",Rgba.CYAN);
+        NAMED_COLORS.put("darkgray",Rgba.DARK_GRAY);
+        NAMED_COLORS.put("gray",Rgba.GRAY);
+        NAMED_COLORS.put("green",Rgba.GREEN);
+        NAMED_COLORS.put("lightgray",Rgba.LIGHT_GRAY);
+        NAMED_COLORS.put("magenta",Rgba.MAGENTA);
+        NAMED_COLORS.put("orange",Rgba.ORANGE);
+        NAMED_COLORS.put("pink",Rgba.PINK);
+        NAMED_COLORS.put("red",Rgba.RED);
+        NAMED_COLORS.put("white",Rgba.WHITE);
+        NAMED_COLORS.put("yellow",Rgba.YELLOW);
+    }
+
+    private final String name;
+
+    private final String text;
+
+    private int pos;
+
+    private int line = 1;
+
+    StylesheetParser(String name, String text)
+    {
+        this.name = name;
+        this.text = text;
+    }
+
+    List<StyleRule> parse() throws StylesheetException
+    {
+        List<StyleRule> rules = new ArrayList<StyleRule>();
+        skipWhitespace();
+        while (pos < text.length())
+        {
+            List<Boolean> targets = new ArrayList<Boolean>();
+            List<List<Condition>> selectors = new ArrayList<List<Condition>>();
+            do
+            {
+                skipWhitespace();
+                String target = readWord();
+                boolean node;
+                if ("node".equals(target))
+                {
+                    node = true;
+                }
+                else if ("edge".equals(target))
+                {
+                    node = false;
+                }
+                else
+                {
+                    throw error("Expected 'node' or 'edge', found '" + target + "'");
+                }
+                targets.add(node);
+                selectors.add(parseConditions(node));
+                skipWhitespace();
+            }
+            while (accept(','));
+
+            expect('{');
+            for (int i = 0; i < selectors.size(); i++)
+            {
+                // Each selector shares the declarations, but they are validated against the target of the first.
+                if (targets.get(i).booleanValue() != targets.get(0).booleanValue())
+                {
+                    throw error("A rule can not select both nodes and edges");
+                }
+            }
+            Map<String, Object> declarations = parseDeclarations(targets.get(0));
+            for (int i = 0; i < selectors.size(); i++)
+            {
+                rules.add(new StyleRule(targets.get(i),selectors.get(i),declarations));
+            }
+            skipWhitespace();
+        }
+        return rules;
+    }
+
+    private List<Condition> parseConditions(boolean node) throws StylesheetException
+    {
+        List<Condition> conditions = new ArrayList<Condition>();
+        skipWhitespace();
+        while (accept('['))
+        {
+            skipWhitespace();
+            String id = readWord();
+            Condition.Attribute attribute = Condition.Attribute.find(id,node);
+            if (attribute == null)
+            {
+                throw error("Unknown " + (node ? "node" : "edge") + " attribute '" + id + "'");
+            }
+            skipWhitespace();
+            StringBuilder op = new StringBuilder();
+            while ((pos < text.length()) && ("=!<>".indexOf(text.charAt(pos)) >= 0))
+            {
+                op.append(text.charAt(pos++));
+            }
+            Condition.Operator operator = Condition.Operator.find(op.toString());
+            if (operator == null)
+            {
+                throw error("Unknown operator '" + op + "'");
+            }
+            String value = readValue("]");
+            expect(']');
+            try
+            {
+                conditions.add(new Condition(attribute,operator,value));
+            }
+            catch (StylesheetException e)
+            {
+                throw error(e.getMessage());
+            }
+            skipWhitespace();
+        }
+        return conditions;
+    }
+
+    private Map<String, Object> parseDeclarations(boolean node) throws StylesheetException
+    {
+        Map<String, Object> declarations = new LinkedHashMap<String, Object>();
+        skipWhitespace();
+        while (!accept('}'))
+        {
+            String property = readWord();
+            skipWhitespace();
+            expect(':');
+            String value = readValue(";}");
+            declarations.put(property,convert(node,property,value));
+            skipWhitespace();
+            if (!accept(';'))
+            {
+                expect('}');
+                break;
+            }
+            skipWhitespace();
+        }
+        return declarations;
+    }
+
+    private Object convert(boolean node, String property, String value) throws StylesheetException
+    {
+        if (node)
+        {
+            switch (property)
+            {
+                case "background":
+                case "border":
+                case "label-color":
+                    return toColor(value);
+                case "group":
+                    return "none".equals(value) ? null : value;
+                case "font-size":
+                    return toInt(value);
+                default:
+                    throw error("Unknown node property '" + property + "'");
+            }
+        }
+
+        switch (property)
+        {
+            case "color":
+                return toColor(value);
+            case "style":
+                return toEnum(LineStyle.class,value);
+            case "label":
+                return "none".equals(value) ? null : value;
+            case "head":
+            case "tail":
+                return toEnum(EndingStyles.class,value);
+            case "font-size":
+                return toInt(value);
+            default:
+                throw error("Unknown edge property '" + property + "'");
+        }
+    }
+
+    private Rgba toColor(String value) throws StylesheetException
+    {
+        if ("none".equals(value))
+        {
+            return null;
+        }
+        Rgba color = NAMED_COLORS.get(value.toLowerCase(Locale.ENGLISH));
+        if (color == null)
+        {
+            color = ColorUtil.toColor(value);
+        }
+        if (color == null)
+        {
+            throw error("Unknown color '" + value + "'");
+        }
+        return color;
+    }
+
+    private Integer toInt(String value) throws StylesheetException
+    {
+        try
+        {
+            return Integer.valueOf(value);
+        }
+        catch (NumberFormatException e)
+        {
+            throw error("Expected a number, found '" + value + "'");
+        }
+    }
+
+    private <E extends Enum<E>> E toEnum(Class<E> type, String value) throws StylesheetException
+    {
+        try
+        {
+            return Enum.valueOf(type,value.toUpperCase(Locale.ENGLISH).replace('-','_'));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw error("Unknown " + type.getSimpleName() + " '" + value + "'");
+        }
+    }
+
+    private String readWord() throws StylesheetException
+    {
+        int start = pos;
+        while ((pos < text.length())
+                && (Character.isLetterOrDigit(text.charAt(pos)) || (text.charAt(pos) == '-')))
+        {
+            pos++;
+        }
+        if (start == pos)
+        {
+            throw error((pos < text.length()) ? "Unexpected '" + text.charAt(pos) + "'" : "Unexpected end");
+        }
+        return text.substring(start,pos);
+    }
+
+    /**
+     * Read a quoted value, or everything up to one of the terminators, trimmed.
+     */
+    private String readValue(String terminators) throws StylesheetException
+    {
+        skipWhitespace();
+        if (accept('"'))
+        {
+            StringBuilder value = new StringBuilder();
+            while (!accept('"'))
+            {
+                if (pos >= text.length())
+                {
+                    throw error("Unterminated string");
+                }
+                char c = text.charAt(pos++);
+                if ((c == '\\') && (pos < text.length()))
+                {
+                    c = text.charAt(pos++);
+                }
+                else if (c == '\n')
+                {
+                    line++;
+                }
+                value.append(c);
+            }
+            skipWhitespace();
+            return value.toString();
+        }
+
+        int start = pos;
+        while ((pos < text.length()) && (terminators.indexOf(text.charAt(pos)) < 0))
+        {
+            if (text.charAt(pos) == '\n')
+            {
+                line++;
+            }
+            pos++;
+        }
+        String value = text.substring(start,pos).trim();
+        if (value.length() == 0)
+        {
+            throw error("Expected a value");
+        }
+        return value;
+    }
+
+    private boolean accept(char c)
+    {
+        if ((pos < text.length()) && (text.charAt(pos) == c))
+        {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) throws StylesheetException
+    {
+        if (!accept(c))
+        {
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    private void skipWhitespace() throws StylesheetException
+    {
+        while (pos < text.length())
+        {
+            char c = text.charAt(pos);
+            if (c == '\n')
+            {
+                line++;
+                pos++;
+            }
+            else if (Character.isWhitespace(c))
+            {
+                pos++;
+            }
+            else if (text.startsWith("/*",pos))
+            {
+                int end = text.indexOf("*/",pos + 2);
+                if (end < 0)
+                {
+                    throw error("Unterminated comment");
+                }
+                for (int i = pos; i < end; i++)
+                {
+                    if (text.charAt(i) == '\n')
+                    {
+                        line++;
+                    }
+                }
+                pos = end + 2;
+            }
+            else
+            {
+                return;
+            }
+        }
+    }
+
+    private StylesheetException error(String message)
+    {
+        return new StylesheetException(name + ":" + line + ": " + message);
+    }
+}
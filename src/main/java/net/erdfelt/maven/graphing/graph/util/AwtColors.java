@@ -0,0 +1,44 @@
+package net.erdfelt.maven.graphing.graph.util;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.awt.Color;
+
+/**
+ * Conversions between {@link Rgba} and <code>java.awt.Color</code>.
+ * <p>
+ * Kept apart from {@link Rgba} and {@link ColorUtil}, so that AWT is only loaded by the code that asks for it.
+ *
+ * @since 1.0.2
+ */
+public final class AwtColors
+{
+    private AwtColors()
+    {
+        /* utility class */
+    }
+
+    public static Rgba toRgba(Color color)
+    {
+        return (color == null) ? null : Rgba.argb(color.getRGB());
+    }
+
+    public static Color toColor(Rgba rgba)
+    {
+        return (rgba == null) ? null : new Color(rgba.getArgb(),true);
+    }
+}
@@ -18,16 +18,28 @@ package net.erdfelt.maven.graphing.graph.util;
 
 import org.codehaus.plexus.util.StringUtils;
 
-import java.awt.Color;
-
-/**
- * ColorUtil
- * 
- * @since 1.0
- */
 public class ColorUtil
 {
-    public static Color toColor(String hexcolor)
+    /**
+     * The two digit, lower case, hex literal of each byte value.
+     */
+    private static final char[][] HEX = new char[256][];
+
+    static
+    {
+        char[] digits = "0123456789abcdef".toCharArray();
+        for (int i = 0; i < HEX.length; i++)
+        {
+            HEX[i] = new char[] { digits[i >> 4], digits[i & 0xf] };
+        }
+    }
+
+    /**
+     * @param hexcolor
+     *            the color as <code>#rrggbb</code>, or <code>#rrggbbaa</code>.
+     * @return the color, or null if the color is not in one of those forms.
+     */
+    public static Rgba toColor(String hexcolor)
     {
         if (StringUtils.isEmpty(hexcolor))
         {
@@ -43,8 +55,13 @@ public class ColorUtil
 
         try
         {
+            if (hexcolor.length() == 8)
+            {
+                int rgba = Integer.parseUnsignedInt(hexcolor,16);
+                return Rgba.argb((rgba >>> 8) | (rgba << 24));
+            }
             int colorvalue = Integer.parseInt(hexcolor,16);
-            return new Color(colorvalue);
+            return Rgba.rgb(colorvalue);
         }
         catch (NumberFormatException e)
         {
@@ -52,23 +69,41 @@ public class ColorUtil
         }
     }
 
-    public static String toCssDeclaration(Color color)
+    /**
+     * @param color
+     *            the color.
+     * @return the color as <code>#rrggbb</code>, or <code>#rrggbbaa</code> when it is not opaque, the empty string
+     *         for null.
+     */
+    public static String toCssDeclaration(Rgba color)
     {
         if (color == null)
         {
             return "";
         }
 
-        return "#" + toHex(color.getRed()) + toHex(color.getGreen()) + toHex(color.getBlue());
+        boolean opaque = color.isOpaque();
+        char[] css = new char[opaque ? 7 : 9];
+        css[0] = '#';
+        append(css,1,color.getRed());
+        append(css,3,color.getGreen());
+        append(css,5,color.getBlue());
+        if (!opaque)
+        {
+            append(css,7,color.getAlpha());
+        }
+        return new String(css);
+    }
+
+    private static void append(char[] buf, int offset, int value)
+    {
+        char[] hex = HEX[value];
+        buf[offset] = hex[0];
+        buf[offset + 1] = hex[1];
     }
 
     public static String toHex(int value)
     {
-        String ret = Integer.toHexString(value & 0xFF);
-        if (ret.length() == 1)
-        {
-            ret = "0" + ret;
-        }
-        return ret;
+        return new String(HEX[value & 0xFF]);
     }
 }
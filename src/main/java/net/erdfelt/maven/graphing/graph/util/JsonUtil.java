@@ -0,0 +1,74 @@
+package net.erdfelt.maven.graphing.graph.util;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Minimal helpers for writing JSON reports, without a JSON library.
+ *
+ * @since 1.0.2
+ */
+public class JsonUtil
+{
+    /**
+     * @param raw
+     *            the string to quote, may be null.
+     * @return the string as a JSON string literal, or <code>null</code>.
+     */
+    public static String quote(String raw)
+    {
+        if (raw == null)
+        {
+            return "null";
+        }
+
+        StringBuilder buf = new StringBuilder(raw.length() + 2);
+        buf.append('"');
+        for (int i = 0; i < raw.length(); i++)
+        {
+            char c = raw.charAt(i);
+            switch (c)
+            {
+                case '"':
+                    buf.append("\\\"");
+                    break;
+                case '\\':
+                    buf.append("\\\\");
+                    break;
+                case '\n':
+                    buf.append("\\n");
+                    break;
+                case '\r':
+                    buf.append("\\r");
+                    break;
+                case '\t':
+                    buf.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                    {
+                        buf.append(String.format("\\u%04x",(int)c));
+                    }
+                    else
+                    {
+                        buf.append(c);
+                    }
+            }
+        }
+        buf.append('"');
+        return buf.toString();
+    }
+}
@@ -0,0 +1,157 @@
+package net.erdfelt.maven.graphing.graph.util;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.Serializable;
+
+/**
+ * An immutable RGBA color, packed in a single int (<code>0xAARRGGBB</code>).
+ * <p>
+ * Used by the styles instead of <code>java.awt.Color</code>, so that graph building and rendering never load AWT.
+ * See {@link AwtColors} to convert from and to AWT colors.
+ *
+ * @since 1.0.2
+ */
+public final class Rgba implements Serializable
+{
+    private static final long serialVersionUID = 3528407226410939140L;
+
+    public static final Rgba BLACK = rgb(0x000000);
+
+    public static final Rgba BLUE = rgb(0x0000ff);
+
+    public static final Rgba CYAN = rgb(0x00ffff);
+
+    public static final Rgba DARK_GRAY = rgb(0x404040);
+
+    public static final Rgba GRAY = rgb(0x808080);
+
+    public static final Rgba GREEN = rgb(0x00ff00);
+
+    public static final Rgba LIGHT_GRAY = rgb(0xc0c0c0);
+
+    public static final Rgba MAGENTA = rgb(0xff00ff);
+
+    public static final Rgba ORANGE = rgb(0xffc800);
+
+    public static final Rgba PINK = rgb(0xffafaf);
+
+    public static final Rgba RED = rgb(0xff0000);
+
+    public static final Rgba WHITE = rgb(0xffffff);
+
+    public static final Rgba YELLOW = rgb(0xffff00);
+
+    private final int argb;
+
+    private Rgba(int argb)
+    {
+        this.argb = argb;
+    }
+
+    /**
+     * @param rgb
+     *            the color as <code>0xRRGGBB</code>, the high byte is ignored.
+     * @return the opaque color.
+     */
+    public static Rgba rgb(int rgb)
+    {
+        return new Rgba(0xff000000 | rgb);
+    }
+
+    /**
+     * @param argb
+     *            the color as <code>0xAARRGGBB</code>.
+     * @return the color.
+     */
+    public static Rgba argb(int argb)
+    {
+        return new Rgba(argb);
+    }
+
+    /**
+     * @return the opaque color, with components in the range 0-255.
+     */
+    public static Rgba of(int red, int green, int blue)
+    {
+        return of(red,green,blue,255);
+    }
+
+    /**
+     * @return the color, with components in the range 0-255.
+     */
+    public static Rgba of(int red, int green, int blue, int alpha)
+    {
+        if (((red | green | blue | alpha) & ~0xff) != 0)
+        {
+            throw new IllegalArgumentException("Color component out of range [0-255]: " + red + "," + green + ","
+                    + blue + "," + alpha);
+        }
+        return new Rgba((alpha << 24) | (red << 16) | (green << 8) | blue);
+    }
+
+    public int getRed()
+    {
+        return (argb >> 16) & 0xff;
+    }
+
+    public int getGreen()
+    {
+        return (argb >> 8) & 0xff;
+    }
+
+    public int getBlue()
+    {
+        return argb & 0xff;
+    }
+
+    public int getAlpha()
+    {
+        return (argb >>> 24);
+    }
+
+    /**
+     * @return the color as <code>0xAARRGGBB</code>.
+     */
+    public int getArgb()
+    {
+        return argb;
+    }
+
+    public boolean isOpaque()
+    {
+        return (argb >>> 24) == 0xff;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return argb;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        return (obj instanceof Rgba) && (((Rgba)obj).argb == argb);
+    }
+
+    @Override
+    public String toString()
+    {
+        return ColorUtil.toCssDeclaration(this);
+    }
+}
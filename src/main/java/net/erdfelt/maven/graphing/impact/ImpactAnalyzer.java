@@ -0,0 +1,227 @@
+package net.erdfelt.maven.graphing.impact;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.erdfelt.maven.graphing.ReactorModel;
+import net.erdfelt.maven.graphing.ReactorModel.Module;
+import net.erdfelt.maven.graphing.ReactorModel.ModuleDependency;
+
+/**
+ * Computes the reactor modules affected by a set of changed paths.
+ * <p>
+ * Changed paths are mapped to their owning module by the deepest module basedir containing them. The affected modules
+ * are the owners plus everything depending on them, directly or transitively, including the children of changed
+ * parent poms. The reverse adjacency is precomputed once, so each analysis only walks the affected modules.
+ *
+ * @since 1.0.2
+ */
+public class ImpactAnalyzer
+{
+    /**
+     * The result of an analysis.
+     */
+    public static class Impact
+    {
+        private final List<Module> changed;
+
+        private final List<Module> affected;
+
+        private final List<Path> unowned;
+
+        Impact( List<Module> changed, List<Module> affected, List<Path> unowned )
+        {
+            this.changed = changed;
+            this.affected = affected;
+            this.unowned = unowned;
+        }
+
+        /**
+         * @return the modules owning a changed path, in reactor order.
+         */
+        public List<Module> getChanged()
+        {
+            return changed;
+        }
+
+        /**
+         * @return the changed modules and all of their dependents, in reactor order.
+         */
+        public List<Module> getAffected()
+        {
+            return affected;
+        }
+
+        /**
+         * @return the changed paths outside of every module basedir.
+         */
+        public List<Path> getUnowned()
+        {
+            return unowned;
+        }
+    }
+
+    private final List<Module> modules;
+
+    private final PathTrie<Integer> owners = new PathTrie<Integer>();
+
+    private final int[] dependentOffsets;
+
+    private final int[] dependentIds;
+
+    /**
+     * @param model the collected reactor model.
+     * @param includeTests true if test scoped dependencies propagate changes.
+     */
+    public ImpactAnalyzer( ReactorModel model, boolean includeTests )
+    {
+        this.modules = model.getModules();
+
+        int count = modules.size();
+        Map<Module, Integer> ids = new IdentityHashMap<Module, Integer>( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            Module module = modules.get( i );
+            ids.put( module, i );
+            if ( module.getBasedir() != null )
+            {
+                owners.put( module.getBasedir().toPath(), i );
+            }
+        }
+
+        // Count, then fill, the reverse edges: dependency -> dependent, parent -> child.
+        int[] degree = new int[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            Module module = modules.get( i );
+            for ( ModuleDependency dep : module.getDependencies() )
+            {
+                if ( includeTests || !dep.isTest() )
+                {
+                    degree[ids.get( dep.getTarget() )]++;
+                }
+            }
+            if ( ( module.getParent() != null ) && ids.containsKey( module.getParent() ) )
+            {
+                degree[ids.get( module.getParent() )]++;
+            }
+        }
+
+        dependentOffsets = new int[count + 1];
+        for ( int i = 0; i < count; i++ )
+        {
+            dependentOffsets[i + 1] = dependentOffsets[i] + degree[i];
+        }
+
+        dependentIds = new int[dependentOffsets[count]];
+        int[] fill = new int[count];
+        System.arraycopy( dependentOffsets, 0, fill, 0, count );
+        for ( int i = 0; i < count; i++ )
+        {
+            Module module = modules.get( i );
+            for ( ModuleDependency dep : module.getDependencies() )
+            {
+                if ( includeTests || !dep.isTest() )
+                {
+                    dependentIds[fill[ids.get( dep.getTarget() )]++] = i;
+                }
+            }
+            if ( ( module.getParent() != null ) && ids.containsKey( module.getParent() ) )
+            {
+                dependentIds[fill[ids.get( module.getParent() )]++] = i;
+            }
+        }
+    }
+
+    /**
+     * @param path the path to look up.
+     * @return the module with the deepest basedir containing the path, or null.
+     */
+    public Module findOwner( Path path )
+    {
+        Integer id = owners.findLongestPrefix( path );
+        return ( id == null ) ? null : modules.get( id );
+    }
+
+    /**
+     * Compute the modules affected by the changed paths.
+     *
+     * @param changedPaths the changed paths, absolute or relative to the current directory.
+     * @return the impact.
+     */
+    public Impact analyze( Collection<Path> changedPaths )
+    {
+        int count = modules.size();
+        boolean[] changed = new boolean[count];
+        boolean[] affected = new boolean[count];
+        int[] queue = new int[count];
+        int tail = 0;
+        List<Path> unowned = new ArrayList<Path>();
+
+        for ( Path path : changedPaths )
+        {
+            Integer id = owners.findLongestPrefix( path );
+            if ( id == null )
+            {
+                unowned.add( path );
+            }
+            else if ( !changed[id] )
+            {
+                changed[id] = true;
+                affected[id] = true;
+                queue[tail++] = id;
+            }
+        }
+
+        int head = 0;
+        while ( head < tail )
+        {
+            int id = queue[head++];
+            for ( int i = dependentOffsets[id]; i < dependentOffsets[id + 1]; i++ )
+            {
+                int dependent = dependentIds[i];
+                if ( !affected[dependent] )
+                {
+                    affected[dependent] = true;
+                    queue[tail++] = dependent;
+                }
+            }
+        }
+
+        return new Impact( select( changed ), select( affected ), Collections.unmodifiableList( unowned ) );
+    }
+
+    private List<Module> select( boolean[] marks )
+    {
+        List<Module> ret = new ArrayList<Module>();
+        for ( int i = 0; i < marks.length; i++ )
+        {
+            if ( marks[i] )
+            {
+                ret.add( modules.get( i ) );
+            }
+        }
+        return Collections.unmodifiableList( ret );
+    }
+}
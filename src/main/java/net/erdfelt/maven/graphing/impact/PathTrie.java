@@ -0,0 +1,137 @@
+package net.erdfelt.maven.graphing.impact;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps directory paths to values, answering longest-prefix lookups in time proportional to the depth of the path.
+ *
+ * @param <T> the value type.
+ * @since 1.0.2
+ */
+public class PathTrie<T>
+{
+    private static class TrieNode<T>
+    {
+        private Map<String, TrieNode<T>> children;
+
+        private T value;
+    }
+
+    private final TrieNode<T> root = new TrieNode<T>();
+
+    private int size;
+
+    /**
+     * Associate a value with a directory.
+     *
+     * @param directory the directory, normalized by {@link #normalize(Path)}.
+     * @param value the value.
+     * @return the previous value for that directory, or null.
+     */
+    public T put( Path directory, T value )
+    {
+        TrieNode<T> node = root;
+        for ( String key : segments( directory ) )
+        {
+            if ( node.children == null )
+            {
+                node.children = new HashMap<String, TrieNode<T>>();
+            }
+            TrieNode<T> child = node.children.get( key );
+            if ( child == null )
+            {
+                child = new TrieNode<T>();
+                node.children.put( key, child );
+            }
+            node = child;
+        }
+
+        T old = node.value;
+        node.value = value;
+        if ( old == null )
+        {
+            size++;
+        }
+        return old;
+    }
+
+    /**
+     * Find the value of the deepest directory containing the path.
+     *
+     * @param path the path to look up, normalized by {@link #normalize(Path)}.
+     * @return the value of the deepest enclosing directory, or null if no directory contains the path.
+     */
+    public T findLongestPrefix( Path path )
+    {
+        TrieNode<T> node = root;
+        T found = node.value;
+        for ( String key : segments( path ) )
+        {
+            if ( node.children == null )
+            {
+                break;
+            }
+            node = node.children.get( key );
+            if ( node == null )
+            {
+                break;
+            }
+            if ( node.value != null )
+            {
+                found = node.value;
+            }
+        }
+        return found;
+    }
+
+    private static String[] segments( Path path )
+    {
+        Path normalized = normalize( path );
+        Path pathRoot = normalized.getRoot();
+        int offset = ( pathRoot == null ) ? 0 : 1;
+
+        // The root is a segment of its own, keeping filesystem roots (eg: drives) apart.
+        String[] ret = new String[normalized.getNameCount() + offset];
+        if ( pathRoot != null )
+        {
+            ret[0] = pathRoot.toString();
+        }
+        for ( int i = 0; i < normalized.getNameCount(); i++ )
+        {
+            ret[i + offset] = normalized.getName( i ).toString();
+        }
+        return ret;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @param path the path.
+     * @return the absolute, normalized path, as used for the trie segments.
+     */
+    public static Path normalize( Path path )
+    {
+        return path.toAbsolutePath().normalize();
+    }
+}
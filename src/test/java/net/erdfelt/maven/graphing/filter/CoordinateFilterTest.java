@@ -0,0 +1,115 @@
+package net.erdfelt.maven.graphing.filter;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * CoordinateFilterTest
+ *
+ * @since 1.0.2
+ */
+public class CoordinateFilterTest
+    extends PlexusTestCase
+{
+    public void testGlob()
+    {
+        assertTrue( Glob.compile( "*" ).matches( "anything" ) );
+        assertTrue( Glob.compile( "foo" ).matches( "foo" ) );
+        assertFalse( Glob.compile( "foo" ).matches( "foobar" ) );
+        assertTrue( Glob.compile( "foo*" ).matches( "foobar" ) );
+        assertTrue( Glob.compile( "*-impl" ).matches( "core-impl" ) );
+        assertTrue( Glob.compile( "*core*" ).matches( "my-core-api" ) );
+        assertTrue( Glob.compile( "a*b*c" ).matches( "a-b-c" ) );
+        assertFalse( Glob.compile( "a*b*c" ).matches( "a-c-b" ) );
+        assertTrue( Glob.compile( "a.b*" ).matches( "a.bc" ) );
+        assertFalse( Glob.compile( "a.*c" ).matches( "abxc" ) );
+        assertFalse( Glob.compile( "foo*" ).matches( null ) );
+    }
+
+    public void testIncludeEverything()
+    {
+        assertTrue( CoordinateFilter.ALL.isIncluded( "org.example", "core", "jar", "compile" ) );
+        assertTrue( CoordinateFilter.compile( null, null ).isIncluded( "org.example", "core", "jar", null ) );
+    }
+
+    public void testGroupTrie()
+    {
+        CoordinateFilter filter = CoordinateFilter.compile( Arrays.asList( "org.example", "com.acme.*" ), null );
+
+        assertTrue( filter.isIncluded( "org.example", "core", "jar", null ) );
+        assertFalse( filter.isIncluded( "org.example.sub", "core", "jar", null ) );
+        assertFalse( filter.isIncluded( "org", "core", "jar", null ) );
+        assertTrue( filter.isIncluded( "com.acme", "core", "jar", null ) );
+        assertTrue( filter.isIncluded( "com.acme.deep.group", "core", "jar", null ) );
+        assertFalse( filter.isIncluded( "com.acmex", "core", "jar", null ) );
+    }
+
+    public void testExcludes()
+    {
+        CoordinateFilter filter =
+            CoordinateFilter.compile( null, Arrays.asList( "*:*-impl", "*:*:*:test", "org.*ample:legacy" ) );
+
+        assertFalse( filter.isIncluded( "org.example", "core-impl", "jar", null ) );
+        assertTrue( filter.isIncluded( "org.example", "core", "jar", null ) );
+        assertFalse( filter.isIncluded( "org.example", "core", "jar", "test" ) );
+        assertTrue( filter.isIncluded( "org.example", "core", "jar", "compile" ) );
+        assertFalse( filter.isIncluded( "org.example", "legacy", "jar", "compile" ) );
+    }
+
+    public void testScopedIncludeIgnoredForProjects()
+    {
+        CoordinateFilter filter = CoordinateFilter.compile( Collections.singletonList( "*:*:*:compile" ), null );
+
+        assertTrue( filter.isProjectIncluded( "org.example", "core", "jar" ) );
+        assertTrue( filter.isIncluded( "org.example", "core", "jar", "compile" ) );
+        assertFalse( filter.isIncluded( "org.example", "core", "jar", "test" ) );
+    }
+
+    public void testDependencyWithoutScopeIsCompileScoped()
+    {
+        CoordinateFilter excludeCompile =
+            CoordinateFilter.compile( null, Collections.singletonList( "*:*:*:compile" ) );
+        assertFalse( excludeCompile.isIncluded( "org.example", "core", "jar", null ) );
+        assertTrue( excludeCompile.isIncluded( "org.example", "core", "jar", "runtime" ) );
+        assertTrue( excludeCompile.isProjectIncluded( "org.example", "core", "jar" ) );
+
+        CoordinateFilter includeTests = CoordinateFilter.compile( Collections.singletonList( "*:*:*:test" ), null );
+        assertFalse( includeTests.isIncluded( "org.example", "core", "jar", null ) );
+        assertTrue( includeTests.isIncluded( "org.example", "core", "jar", "test" ) );
+        assertTrue( includeTests.isProjectIncluded( "org.example", "core", "jar" ) );
+
+        CoordinateFilter excludeTests = CoordinateFilter.compile( null, Collections.singletonList( "*:*:*:test" ) );
+        assertTrue( excludeTests.isIncluded( "org.example", "core", "jar", null ) );
+    }
+
+    public void testInvalidPattern()
+    {
+        try
+        {
+            CoordinateFilter.compile( Collections.singletonList( "a:b:c:d:e" ), null );
+            fail( "Expected IllegalArgumentException" );
+        }
+        catch ( IllegalArgumentException expected )
+        {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package net.erdfelt.maven.graphing.graph.decorator;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringWriter;
+
+import net.erdfelt.maven.graphing.graph.impl.graphviz.GraphvizRenderer;
+import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.Node;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * Tests for the shared {@link NodeStyle} and {@link EdgeStyle}.
+ *
+ * @since 1.0.2
+ */
+public class StyleTest
+    extends PlexusTestCase
+{
+    public void testInterned()
+    {
+        NodeStyle a = NodeStyle.DEFAULT.withBackgroundColor( Rgba.of( 200, 200, 255 ) );
+        NodeStyle b = NodeStyle.DEFAULT.withBackgroundColor( Rgba.of( 200, 200, 255 ) );
+        assertSame( a, b );
+        assertNotSame( a, NodeStyle.DEFAULT );
+        assertSame( NodeStyle.DEFAULT, a.withBackgroundColor( null ) );
+
+        EdgeStyle dashed = EdgeStyle.DEFAULT.withLineStyle( EdgeDecorator.LineStyle.DASHED );
+        assertSame( dashed, EdgeStyle.DEFAULT.withLineStyle( EdgeDecorator.LineStyle.DASHED ) );
+        assertSame( EdgeStyle.DEFAULT, dashed.withLineStyle( null ) );
+    }
+
+    public void testDecoratorRoundTrip()
+    {
+        NodeDecorator nodeDecorator = new NodeDecorator();
+        nodeDecorator.setBorderColor( Rgba.RED );
+        nodeDecorator.setGroupName( "core" );
+        NodeStyle nodeStyle = nodeDecorator.toStyle();
+        assertSame( nodeStyle, NodeStyle.DEFAULT.withBorderColor( Rgba.RED ).withGroupName( "core" ) );
+        assertSame( nodeStyle, new NodeDecorator( nodeStyle ).toStyle() );
+        assertSame( NodeStyle.DEFAULT, new NodeDecorator().toStyle() );
+
+        EdgeDecorator edgeDecorator = new EdgeDecorator();
+        edgeDecorator.setLineLabel( "uses" );
+        edgeDecorator.setLineTail( EdgeDecorator.EndingStyles.DOT );
+        edgeDecorator.setPenWidth( 3 );
+        EdgeStyle edgeStyle = edgeDecorator.toStyle();
+        assertSame( edgeStyle, EdgeStyle.DEFAULT.withLineLabel( "uses" ).withLineTail( EdgeDecorator.EndingStyles.DOT )
+            .withPenWidth( 3 ) );
+        assertSame( edgeStyle, new EdgeDecorator( edgeStyle ).toStyle() );
+        assertSame( EdgeStyle.DEFAULT, new EdgeDecorator().toStyle() );
+    }
+
+    public void testSerializedStylesAreInterned()
+        throws Exception
+    {
+        NodeStyle style = NodeStyle.DEFAULT.withLabelColor( Rgba.WHITE );
+        Node node = new Node( "net.erdfelt:serialized:1.0:jar" );
+        node.setStyle( style );
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream( bytes );
+        out.writeObject( node );
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+        Node copy = (Node) in.readObject();
+        assertSame( style, copy.getStyle() );
+    }
+
+    public void testUnstyledElementsStayUnstyled()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        Edge plain = graph.addEdge( "a", "b" );
+        Edge styled = graph.addEdge( "b", "c" );
+        styled.setStyle( EdgeStyle.DEFAULT.withLineColor( Rgba.BLUE ) );
+
+        assertSame( NodeStyle.DEFAULT, graph.getNode( "a" ).getStyle() );
+        assertSame( EdgeStyle.DEFAULT, plain.getStyle() );
+
+        StringWriter dot = new StringWriter();
+        new GraphvizRenderer().writeDot( graph, dot );
+
+        // Rendering reads the default style, without giving elements one of their own.
+        for ( Node node : graph.getNodes() )
+        {
+            assertFalse( node.getLabel(), node.hasStyle() );
+        }
+        assertFalse( plain.hasStyle() );
+        assertTrue( styled.hasStyle() );
+        assertTrue( dot.toString(), dot.toString().contains( "color=\"#0000ff\"" ) );
+    }
+}
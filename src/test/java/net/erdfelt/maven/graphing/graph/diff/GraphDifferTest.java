@@ -0,0 +1,216 @@
+package net.erdfelt.maven.graphing.graph.diff;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator.Shape;
+import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * Tests for {@link GraphDiffer} and {@link GraphDiff}.
+ *
+ * @since 1.0.2
+ */
+public class GraphDifferTest
+    extends PlexusTestCase
+{
+    private Graph before;
+
+    private Graph after;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        before = new Graph();
+        before.addEdge( "web", "core" );
+        before.addEdge( "web", "util" );
+        before.addEdge( "core", "util" );
+        before.addEdge( "legacy", "util" ).setScope( "test" );
+
+        after = new Graph();
+        after.addEdge( "web", "core" );
+        after.addEdge( "core", "util" );
+        after.addEdge( "web", "api" );
+        after.addEdge( "api", "core" );
+    }
+
+    public void testIdentical()
+        throws Exception
+    {
+        GraphDiff diff = new GraphDiffer().diff( before, before );
+
+        assertTrue( diff.isEmpty() );
+        assertEquals( 4, diff.getUnchangedNodeCount() );
+        assertEquals( 4, diff.getUnchangedEdgeCount() );
+        assertEquals( "+0/-0 node(s), +0/-0 edge(s)", diff.toString() );
+    }
+
+    public void testChanges()
+        throws Exception
+    {
+        GraphDiff diff = new GraphDiffer().diff( before, after );
+
+        assertFalse( diff.isEmpty() );
+        assertEquals( list( "api" ), diff.getAddedNodes() );
+        assertEquals( list( "legacy" ), diff.getRemovedNodes() );
+        assertEquals( 3, diff.getUnchangedNodeCount() );
+
+        assertEquals( list( new GraphDiff.EdgeKey( "api", "core" ), new GraphDiff.EdgeKey( "web", "api" ) ),
+                      diff.getAddedEdges() );
+        assertEquals( list( new GraphDiff.EdgeKey( "legacy", "util" ), new GraphDiff.EdgeKey( "web", "util" ) ),
+                      diff.getRemovedEdges() );
+        assertEquals( 2, diff.getUnchangedEdgeCount() );
+
+        // And back again.
+        GraphDiff reverse = new GraphDiffer().diff( after, before );
+        assertEquals( diff.getAddedNodes(), reverse.getRemovedNodes() );
+        assertEquals( diff.getRemovedNodes(), reverse.getAddedNodes() );
+        assertEquals( diff.getAddedEdges(), reverse.getRemovedEdges() );
+        assertEquals( diff.getRemovedEdges(), reverse.getAddedEdges() );
+    }
+
+    public void testEmptyGraphs()
+        throws Exception
+    {
+        GraphDiff diff = new GraphDiffer().diff( new Graph(), after );
+
+        assertEquals( 4, diff.getAddedNodes().size() );
+        assertEquals( 4, diff.getAddedEdges().size() );
+        assertTrue( diff.getRemovedNodes().isEmpty() );
+        assertTrue( diff.getRemovedEdges().isEmpty() );
+
+        assertTrue( new GraphDiffer().diff( new Graph(), new Graph() ).isEmpty() );
+    }
+
+    public void testToGraph()
+        throws Exception
+    {
+        NodeStyle core = NodeStyle.DEFAULT.withBackgroundColor( Rgba.YELLOW );
+        after.getNode( "core" ).setStyle( core );
+        after.getEdge( after.getNode( "core" ), after.getNode( "util" ) ).setScope( "compile" );
+
+        Graph graph = new GraphDiffer().diff( before, after ).toGraph();
+
+        assertEquals( 5, graph.getNodes().size() );
+        assertEquals( 6, graph.getEdges().size() );
+
+        assertSame( GraphDiff.ADDED_NODE_STYLE, graph.getNode( "api" ).getStyle() );
+        assertSame( GraphDiff.REMOVED_NODE_STYLE, graph.getNode( "legacy" ).getStyle() );
+        assertSame( core, graph.getNode( "core" ).getStyle() );
+        assertFalse( graph.getNode( "web" ).hasStyle() );
+
+        assertSame( GraphDiff.ADDED_EDGE_STYLE, edge( graph, "web", "api" ).getStyle() );
+        assertSame( GraphDiff.REMOVED_EDGE_STYLE, edge( graph, "web", "util" ).getStyle() );
+        assertEquals( "test", edge( graph, "legacy", "util" ).getScope() );
+        assertEquals( "compile", edge( graph, "core", "util" ).getScope() );
+        assertFalse( edge( graph, "web", "core" ).hasStyle() );
+    }
+
+    public void testJson()
+        throws Exception
+    {
+        before.addNode( "quote\"d" );
+
+        StringWriter json = new StringWriter();
+        new GraphDiffer().diff( before, after ).writeJson( json );
+        String text = json.toString().replace( "\r\n", "\n" );
+
+        assertTrue( text, text.contains( "\"addedNodes\": 1," ) );
+        assertTrue( text, text.contains( "\"removedNodes\": 2," ) );
+        assertTrue( text, text.contains( "\"unchangedEdges\": 2\n" ) );
+        assertTrue( text, text.contains( "\"addedNodes\": [\n    \"api\"\n  ]," ) );
+        assertTrue( text, text.contains( "\"removedNodes\": [\n    \"legacy\",\n    \"quote\\\"d\"\n  ]," ) );
+        assertTrue( text, text.contains( "{ \"from\": \"api\", \"to\": \"core\" }," ) );
+        assertTrue( text, text.contains( "{ \"from\": \"web\", \"to\": \"util\" }\n  ]\n}" ) );
+
+        json = new StringWriter();
+        new GraphDiffer().diff( before, before ).writeJson( json );
+        assertTrue( json.toString(), json.toString().contains( "\"addedEdges\": []," ) );
+    }
+
+    /**
+     * Compare against a straightforward, set based, diff of generated graphs over the same nodes.
+     */
+    public void testGenerated()
+        throws Exception
+    {
+        for ( Shape shape : new Shape[] { Shape.RANDOM, Shape.LAYERED, Shape.SCALE_FREE } )
+        {
+            Graph first = new GraphGenerator( shape, 2000, 1L ).generate().toGraph();
+            Graph second = new GraphGenerator( shape, 2000, 2L ).generate().toGraph();
+            second.addEdge( "extra:a", "extra:b" );
+
+            Set<GraphDiff.EdgeKey> firstEdges = keys( first );
+            Set<GraphDiff.EdgeKey> secondEdges = keys( second );
+
+            GraphDiff diff = new GraphDiffer().diff( first, second );
+
+            Set<GraphDiff.EdgeKey> added = new HashSet<GraphDiff.EdgeKey>( secondEdges );
+            added.removeAll( firstEdges );
+            Set<GraphDiff.EdgeKey> removed = new HashSet<GraphDiff.EdgeKey>( firstEdges );
+            removed.removeAll( secondEdges );
+
+            assertEquals( shape.toString(), added, new HashSet<GraphDiff.EdgeKey>( diff.getAddedEdges() ) );
+            assertEquals( shape.toString(), removed, new HashSet<GraphDiff.EdgeKey>( diff.getRemovedEdges() ) );
+            assertEquals( shape.toString(), added.size(), diff.getAddedEdges().size() );
+            assertEquals( shape.toString(), firstEdges.size() - removed.size(), diff.getUnchangedEdgeCount() );
+            assertEquals( list( "extra:a", "extra:b" ), diff.getAddedNodes() );
+            assertEquals( 2000, diff.getUnchangedNodeCount() );
+        }
+    }
+
+    private Edge edge( Graph graph, String from, String to )
+    {
+        Edge edge = graph.getEdge( graph.getNode( from ), graph.getNode( to ) );
+        assertNotNull( from + " -> " + to, edge );
+        return edge;
+    }
+
+    private Set<GraphDiff.EdgeKey> keys( Graph graph )
+    {
+        Set<GraphDiff.EdgeKey> keys = new HashSet<GraphDiff.EdgeKey>();
+        for ( Edge edge : graph.getEdges() )
+        {
+            keys.add( new GraphDiff.EdgeKey( edge.getFrom().getLabel(), edge.getTo().getLabel() ) );
+        }
+        return keys;
+    }
+
+    private static <T> List<T> list( T... items )
+    {
+        List<T> list = new ArrayList<T>();
+        for ( T item : items )
+        {
+            list.add( item );
+        }
+        return list;
+    }
+}
@@ -0,0 +1,170 @@
+package net.erdfelt.maven.graphing.graph.generator;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.GraphConstraintException;
+import net.erdfelt.maven.graphing.graph.model.Node;
+import net.erdfelt.maven.graphing.graph.model.dag.Dag;
+
+/**
+ * The edges of a generated graph, as parallel <code>from</code> / <code>to</code> node index arrays.
+ * 
+ * @see GraphGenerator
+ */
+public class EdgeList
+{
+    private final int nodeCount;
+
+    private int[] from;
+
+    private int[] to;
+
+    private int size;
+
+    private String[] labels;
+
+    public EdgeList(int nodeCount, int capacity)
+    {
+        this.nodeCount = nodeCount;
+        this.from = new int[Math.max(capacity,8)];
+        this.to = new int[from.length];
+    }
+
+    public void add(int fromIndex, int toIndex)
+    {
+        if (size == from.length)
+        {
+            int capacity = from.length + (from.length >> 1);
+            from = Arrays.copyOf(from,capacity);
+            to = Arrays.copyOf(to,capacity);
+        }
+        from[size] = fromIndex;
+        to[size] = toIndex;
+        size++;
+    }
+
+    /**
+     * Check the edges from <code>start</code> onwards for an existing edge. Used to keep the edges of a single node
+     * distinct, as they are added consecutively.
+     */
+    boolean contains(int start, int fromIndex, int toIndex)
+    {
+        for (int e = start; e < size; e++)
+        {
+            if ((from[e] == fromIndex) && (to[e] == toIndex))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getNodeCount()
+    {
+        return nodeCount;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int getFrom(int edge)
+    {
+        return from[edge];
+    }
+
+    public int getTo(int edge)
+    {
+        return to[edge];
+    }
+
+    /**
+     * @return the node labels, maven like coordinates, created on first use.
+     */
+    public String[] getLabels()
+    {
+        if (labels == null)
+        {
+            labels = new String[nodeCount];
+            for (int i = 0; i < nodeCount; i++)
+            {
+                labels[i] = "net.erdfelt.generated:module-" + i + ":1.0:jar";
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * Add the nodes, in index order, then the edges, in generated order, to the graph.
+     * 
+     * @param graph
+     *            the graph to populate.
+     * @return the nodes, by index.
+     * @throws GraphConstraintException
+     *             if the graph rejects a node or edge.
+     */
+    public Node[] populate(Graph graph) throws GraphConstraintException
+    {
+        Node[] nodes = addNodes(graph);
+        for (int e = 0; e < size; e++)
+        {
+            graph.addEdge(nodes[from[e]],nodes[to[e]]);
+        }
+        return nodes;
+    }
+
+    public Graph toGraph() throws GraphConstraintException
+    {
+        Graph graph = new Graph();
+        populate(graph);
+        return graph;
+    }
+
+    /**
+     * Build a {@link Dag}. The edges are inserted from the highest node down, so the cycle check on each insert only
+     * visits the direct children of the new edge's start.
+     * 
+     * @return the new DAG.
+     * @throws GraphConstraintException
+     *             if the DAG rejects a node or edge.
+     */
+    public Dag toDag() throws GraphConstraintException
+    {
+        Dag dag = new Dag();
+        Node[] nodes = addNodes(dag);
+        for (int e = size - 1; e >= 0; e--)
+        {
+            dag.addEdge(nodes[from[e]],nodes[to[e]]);
+        }
+        return dag;
+    }
+
+    private Node[] addNodes(Graph graph) throws GraphConstraintException
+    {
+        String[] names = getLabels();
+        Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++)
+        {
+            nodes[i] = graph.addNode(names[i]);
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,319 @@
+package net.erdfelt.maven.graphing.graph.generator;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic, seeded, acyclic graphs of configurable size and shape for benchmarks and stress tests.
+ * <p>
+ * Generation works on primitive arrays only: node <code>i</code> only ever depends on nodes with a lower index, so
+ * every generated graph is a DAG, and index order is a valid build (reactor) order. The model objects are only created
+ * by {@link EdgeList#populate(net.erdfelt.maven.graphing.graph.model.Graph)} and friends.
+ * <p>
+ * Not thread safe.
+ */
+public class GraphGenerator
+{
+    public enum Shape
+    {
+        /**
+         * Each node depends on <code>degree</code> uniformly chosen lower nodes.
+         */
+        RANDOM,
+        /**
+         * Reactor like: layers of <code>layerWidth</code> nodes, each depending mostly on the layer directly below.
+         */
+        LAYERED,
+        /**
+         * Preferential attachment: popular nodes attract more dependents, producing a few hub modules.
+         */
+        SCALE_FREE,
+        /**
+         * A single path, each node depending on the previous one.
+         */
+        CHAIN,
+        /**
+         * A fully connected core of <code>coreSize</code> nodes, with the other nodes depending on core nodes.
+         */
+        DENSE_CORE
+    }
+
+    private Shape shape = Shape.RANDOM;
+
+    private int nodeCount = 1000;
+
+    private int degree = 3;
+
+    private int layerWidth = 20;
+
+    private int coreSize = 50;
+
+    private long seed = 1L;
+
+    public GraphGenerator()
+    {
+    }
+
+    public GraphGenerator(Shape shape, int nodeCount, long seed)
+    {
+        this.shape = shape;
+        this.nodeCount = nodeCount;
+        this.seed = seed;
+    }
+
+    public Shape getShape()
+    {
+        return shape;
+    }
+
+    public void setShape(Shape shape)
+    {
+        this.shape = shape;
+    }
+
+    public int getNodeCount()
+    {
+        return nodeCount;
+    }
+
+    public void setNodeCount(int nodeCount)
+    {
+        this.nodeCount = nodeCount;
+    }
+
+    public int getDegree()
+    {
+        return degree;
+    }
+
+    /**
+     * @param degree
+     *            the number of dependencies per node (not used by {@link Shape#CHAIN}).
+     */
+    public void setDegree(int degree)
+    {
+        this.degree = degree;
+    }
+
+    public int getLayerWidth()
+    {
+        return layerWidth;
+    }
+
+    public void setLayerWidth(int layerWidth)
+    {
+        this.layerWidth = layerWidth;
+    }
+
+    public int getCoreSize()
+    {
+        return coreSize;
+    }
+
+    public void setCoreSize(int coreSize)
+    {
+        this.coreSize = coreSize;
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+    }
+
+    /**
+     * Generate the edges. The same configuration and seed always produce the same edges, in the same order.
+     * 
+     * @return the generated edges, grouped by ascending <code>from</code> node.
+     */
+    public EdgeList generate()
+    {
+        if (nodeCount < 1)
+        {
+            throw new IllegalArgumentException("Node count must be 1 or more: " + nodeCount);
+        }
+        if (degree < 1)
+        {
+            throw new IllegalArgumentException("Degree must be 1 or more: " + degree);
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        EdgeList edges = new EdgeList(nodeCount,estimateEdges());
+
+        switch (shape)
+        {
+            case CHAIN:
+                for (int i = 1; i < nodeCount; i++)
+                {
+                    edges.add(i,i - 1);
+                }
+                break;
+            case LAYERED:
+                generateLayered(edges,random);
+                break;
+            case SCALE_FREE:
+                generateScaleFree(edges,random);
+                break;
+            case DENSE_CORE:
+                generateDenseCore(edges,random);
+                break;
+            case RANDOM:
+            default:
+                for (int i = 1; i < nodeCount; i++)
+                {
+                    addDistinct(edges,random,i,0,i,Math.min(degree,i));
+                }
+                break;
+        }
+
+        return edges;
+    }
+
+    private int estimateEdges()
+    {
+        long estimate = (long)nodeCount * degree;
+        if (shape == Shape.DENSE_CORE)
+        {
+            long core = Math.min(coreSize,nodeCount);
+            estimate += (core * (core - 1)) / 2;
+        }
+        return (int)Math.min(estimate,Integer.MAX_VALUE - 8);
+    }
+
+    private void generateLayered(EdgeList edges, SplittableRandom random)
+    {
+        int width = Math.max(1,layerWidth);
+        for (int i = width; i < nodeCount; i++)
+        {
+            int layerStart = (i / width) * width;
+            int belowStart = layerStart - width;
+            int count = Math.min(degree,layerStart);
+            int start = edges.size();
+            for (int d = 0; d < count; d++)
+            {
+                int to;
+                int attempts = 0;
+                do
+                {
+                    // Mostly the layer directly below, occasionally any lower layer.
+                    if ((belowStart > 0) && (random.nextInt(4) == 0))
+                    {
+                        to = random.nextInt(belowStart);
+                    }
+                    else
+                    {
+                        to = belowStart + random.nextInt(width);
+                    }
+                }
+                while (edges.contains(start,i,to) && (++attempts < 32));
+
+                if (!edges.contains(start,i,to))
+                {
+                    edges.add(i,to);
+                }
+            }
+        }
+    }
+
+    private void generateScaleFree(EdgeList edges, SplittableRandom random)
+    {
+        // Every edge endpoint is recorded, so picking a random entry picks a node proportionally to its degree.
+        int[] endpoints = new int[16];
+        int endpointCount = 0;
+
+        for (int i = 1; i < nodeCount; i++)
+        {
+            int count = Math.min(degree,i);
+            int start = edges.size();
+            for (int d = 0; d < count; d++)
+            {
+                int to;
+                int attempts = 0;
+                do
+                {
+                    // Mostly preferential, some uniform picks so late nodes can still become popular.
+                    if ((endpointCount == 0) || (random.nextInt(4) == 0))
+                    {
+                        to = random.nextInt(i);
+                    }
+                    else
+                    {
+                        to = endpoints[random.nextInt(endpointCount)];
+                    }
+                }
+                while (edges.contains(start,i,to) && (++attempts < 32));
+
+                if (!edges.contains(start,i,to))
+                {
+                    edges.add(i,to);
+                }
+            }
+
+            // Recorded once the node is done, so it can not pick itself.
+            int added = edges.size() - start;
+            if (endpointCount + (added * 2) > endpoints.length)
+            {
+                endpoints = Arrays.copyOf(endpoints,Math.max(endpoints.length * 2,endpointCount + (added * 2)));
+            }
+            for (int e = start; e < edges.size(); e++)
+            {
+                endpoints[endpointCount++] = edges.getTo(e);
+                endpoints[endpointCount++] = i;
+            }
+        }
+    }
+
+    private void generateDenseCore(EdgeList edges, SplittableRandom random)
+    {
+        int core = Math.min(coreSize,nodeCount);
+        for (int i = 1; i < core; i++)
+        {
+            for (int j = 0; j < i; j++)
+            {
+                edges.add(i,j);
+            }
+        }
+        for (int i = Math.max(core,1); i < nodeCount; i++)
+        {
+            addDistinct(edges,random,i,0,core,Math.min(degree,core));
+        }
+    }
+
+    /**
+     * Add <code>count</code> distinct edges from <code>from</code> to nodes in <code>[low, high)</code>.
+     */
+    private void addDistinct(EdgeList edges, SplittableRandom random, int from, int low, int high, int count)
+    {
+        int start = edges.size();
+        for (int d = 0; d < count; d++)
+        {
+            int to;
+            do
+            {
+                to = low + random.nextInt(high - low);
+            }
+            while (edges.contains(start,from,to));
+            edges.add(from,to);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package net.erdfelt.maven.graphing.graph.generator;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.HashSet;
+import java.util.Set;
+
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator.Shape;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.Node;
+import net.erdfelt.maven.graphing.graph.model.dag.CycleDetector;
+import net.erdfelt.maven.graphing.graph.model.dag.Dag;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * GraphGeneratorTest
+ */
+public class GraphGeneratorTest extends PlexusTestCase
+{
+    private void assertWellFormed(EdgeList edges)
+    {
+        Set<Long> seen = new HashSet<Long>();
+        for (int e = 0; e < edges.size(); e++)
+        {
+            int from = edges.getFrom(e);
+            int to = edges.getTo(e);
+            assertTrue("Edge " + from + " -> " + to + " must point to a lower node",to < from);
+            assertTrue("Edge " + from + " -> " + to + " must be distinct",seen.add(((long)from << 32) | to));
+            if (e > 0)
+            {
+                assertTrue("Edges must be grouped by ascending from",edges.getFrom(e - 1) <= from);
+            }
+        }
+    }
+
+    public void testShapes()
+    {
+        for (Shape shape : Shape.values())
+        {
+            EdgeList edges = new GraphGenerator(shape,5000,42L).generate();
+            assertEquals(5000,edges.getNodeCount());
+            assertTrue(shape + " should have edges",edges.size() > 0);
+            assertWellFormed(edges);
+        }
+    }
+
+    public void testSeeded()
+    {
+        for (Shape shape : Shape.values())
+        {
+            EdgeList a = new GraphGenerator(shape,2000,7L).generate();
+            EdgeList b = new GraphGenerator(shape,2000,7L).generate();
+            assertEquals(a.size(),b.size());
+            for (int e = 0; e < a.size(); e++)
+            {
+                assertEquals(a.getFrom(e),b.getFrom(e));
+                assertEquals(a.getTo(e),b.getTo(e));
+            }
+        }
+
+        EdgeList a = new GraphGenerator(Shape.RANDOM,2000,7L).generate();
+        EdgeList c = new GraphGenerator(Shape.RANDOM,2000,8L).generate();
+        boolean differs = false;
+        for (int e = 0; (e < a.size()) && !differs; e++)
+        {
+            differs = a.getTo(e) != c.getTo(e);
+        }
+        assertTrue("Different seeds should produce different graphs",differs);
+    }
+
+    public void testShapeCharacteristics()
+    {
+        GraphGenerator generator = new GraphGenerator(Shape.CHAIN,100,1L);
+        assertEquals(99,generator.generate().size());
+
+        generator = new GraphGenerator(Shape.DENSE_CORE,1000,1L);
+        generator.setCoreSize(10);
+        generator.setDegree(2);
+        EdgeList edges = generator.generate();
+        assertEquals(45 + (990 * 2),edges.size());
+
+        generator = new GraphGenerator(Shape.SCALE_FREE,10000,1L);
+        edges = generator.generate();
+        int[] inDegree = new int[edges.getNodeCount()];
+        int max = 0;
+        for (int e = 0; e < edges.size(); e++)
+        {
+            max = Math.max(max,++inDegree[edges.getTo(e)]);
+        }
+        // Uniform attachment would give a maximum in-degree of a few dozen.
+        assertTrue("Expected hub modules, max in-degree " + max,max > 100);
+    }
+
+    public void testToGraphAndDag() throws Exception
+    {
+        GraphGenerator generator = new GraphGenerator(Shape.LAYERED,2000,3L);
+        EdgeList edges = generator.generate();
+
+        Graph graph = edges.toGraph();
+        assertEquals(2000,graph.getNodes().size());
+        assertEquals(edges.size(),graph.getEdges().size());
+
+        Dag dag = edges.toDag();
+        assertEquals(2000,dag.getNodes().size());
+        assertEquals(edges.size(),dag.getEdges().size());
+        assertNull(CycleDetector.hasCycle(dag));
+
+        Node node = dag.getNode(edges.getLabels()[edges.getFrom(0)]);
+        assertTrue(dag.hasEdge(node,dag.getNode(edges.getLabels()[edges.getTo(0)])));
+    }
+
+    public void testMillionNodes()
+    {
+        GraphGenerator generator = new GraphGenerator(Shape.RANDOM,1000000,5L);
+        generator.setDegree(4);
+        EdgeList edges = generator.generate();
+        assertEquals(1000000,edges.getNodeCount());
+        assertEquals((999996 * 4) + 6,edges.size());
+    }
+}
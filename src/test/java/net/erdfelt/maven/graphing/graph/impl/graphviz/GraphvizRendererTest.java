@@ -1,15 +1,18 @@
 package net.erdfelt.maven.graphing.graph.impl.graphviz;
 
-import java.awt.Color;
 import java.io.File;
+import java.io.StringWriter;
+import java.util.Arrays;
 
 import net.erdfelt.maven.graphing.graph.GraphRenderer;
 import net.erdfelt.maven.graphing.graph.decorator.EdgeDecorator;
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
 import net.erdfelt.maven.graphing.graph.decorator.GraphDecorator;
 import net.erdfelt.maven.graphing.graph.decorator.NodeDecorator;
 import net.erdfelt.maven.graphing.graph.model.Edge;
 import net.erdfelt.maven.graphing.graph.model.Graph;
 import net.erdfelt.maven.graphing.graph.model.Node;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
 
 import org.codehaus.plexus.PlexusTestCase;
 import org.junit.Assert;
@@ -77,9 +80,10 @@ public class GraphvizRendererTest extends PlexusTestCase {
 		model.addEdge("parse", "execute");
 
 		edge = model.addEdge("main", "init");
-		edge.setDecorator(new EdgeDecorator());
-		edge.getDecorator().setStyle(EdgeDecorator.LineStyle.DASHED);
-		edge.getDecorator().setLineColor(Color.CYAN);
+		EdgeDecorator dashed = new EdgeDecorator();
+		dashed.setStyle(EdgeDecorator.LineStyle.DASHED);
+		dashed.setLineColor(Rgba.CYAN);
+		edge.setStyle(dashed.toStyle());
 
 		model.addEdge("main", "cleanup");
 
@@ -90,22 +94,23 @@ public class GraphvizRendererTest extends PlexusTestCase {
 		model.addEdge("init", makeString.getLabel());
 
 		edge = model.addEdge("main", "printf");
-		edge.setDecorator(new EdgeDecorator());
-		edge.getDecorator().setStyle(EdgeDecorator.LineStyle.BOLD);
-		edge.getDecorator().setLineLabel("100 times");
+		EdgeDecorator bold = new EdgeDecorator();
+		bold.setStyle(EdgeDecorator.LineStyle.BOLD);
+		bold.setLineLabel("100 times");
+		edge.setStyle(bold.toStyle());
 
 		Node compare = model.addNode("compare");
-		compare.setDecorator(new NodeDecorator());
+		NodeDecorator highlight = new NodeDecorator();
 
-		Color purple = new Color(0.7f, 0.3f, 1.0f);
+		Rgba purple = Rgba.of(179, 77, 255);
 
-		compare.getDecorator().setBackgroundColor(purple);
-		compare.getDecorator().setBorderColor(purple);
-		compare.getDecorator().setLabelColor(Color.WHITE);
+		highlight.setBackgroundColor(purple);
+		highlight.setBorderColor(purple);
+		highlight.setLabelColor(Rgba.WHITE);
+		compare.setStyle(highlight.toStyle());
 
 		edge = model.addEdge("execute", "compare");
-		edge.setDecorator(new EdgeDecorator());
-		edge.getDecorator().setLineColor(Color.RED);
+		edge.setStyle(EdgeStyle.DEFAULT.withLineColor(Rgba.RED));
 
 		File outputFile = new File("target/graph/fancy.png");
 		File dotFile = new File("target/graph/fancy.dot");
@@ -122,4 +127,61 @@ public class GraphvizRendererTest extends PlexusTestCase {
 		assertTrue(dotFile.exists());
 		assertTrue(dotFile.isFile());
 	}
+
+	private Graph createSimpleModel() throws Exception {
+		Graph model = new Graph();
+		model.getDecorator().setTitle("stub");
+		model.addEdge("main", "parse");
+		model.addEdge("parse", "execute");
+		model.addEdge("main", "execute");
+		return model;
+	}
+
+	public void testWriteDot() throws Exception {
+		GraphvizRenderer renderer = (GraphvizRenderer) getRenderer();
+
+		StringWriter writer = new StringWriter();
+		renderer.writeDot(createSimpleModel(), writer);
+
+		String dot = writer.toString();
+		assertTrue(dot.startsWith("// Auto generated dot file"));
+		assertTrue(dot.contains("\"MAIN\" -> \"PARSE\""));
+		assertTrue(dot.trim().endsWith("}"));
+	}
+
+	public void testStubExecutable() throws Exception {
+		if (File.separatorChar == '\\') {
+			// The stub is a shell script.
+			return;
+		}
+
+		File stub = getTestFile("src/test/resources/net/erdfelt/maven/graphing/graph/impl/graphviz/dot-stub.sh");
+		assertTrue(stub.setExecutable(true));
+
+		GraphvizRenderer renderer = (GraphvizRenderer) getRenderer();
+		renderer.setDotExecutable(stub.getAbsolutePath());
+
+		File png = new File("target/graph/stub/stub.png");
+		File svg = new File("target/graph/stub/stub.svg");
+		png.delete();
+		svg.delete();
+
+		renderer.render(createSimpleModel(), Arrays.asList(png, svg));
+
+		assertTrue(new File("target/graph/stub/stub.dot").isFile());
+		assertTrue(png.isFile());
+		assertTrue(svg.isFile());
+	}
+
+	public void testMissingExecutable() throws Exception {
+		GraphvizRenderer renderer = (GraphvizRenderer) getRenderer();
+		renderer.setDotExecutable(new File("target/no-such-dot").getAbsolutePath());
+
+		try {
+			renderer.render(createSimpleModel(), new File("target/graph/missing.png"));
+			fail("Expected GraphvizNotFoundException");
+		} catch (GraphvizNotFoundException expected) {
+			// expected
+		}
+	}
 }
@@ -0,0 +1,157 @@
+package net.erdfelt.maven.graphing.graph.jfr;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import net.erdfelt.maven.graphing.graph.GraphRenderer;
+import net.erdfelt.maven.graphing.graph.impl.graphviz.GraphvizRenderer;
+import net.erdfelt.maven.graphing.graph.metrics.GraphingMetrics;
+import net.erdfelt.maven.graphing.graph.model.dag.CycleDetectedException;
+import net.erdfelt.maven.graphing.graph.model.dag.Dag;
+import net.erdfelt.maven.graphing.graph.model.dag.TopologicalSorter;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * GraphingEventsTest
+ *
+ * @since 1.0.2
+ */
+public class GraphingEventsTest
+    extends PlexusTestCase
+{
+    private Dag createDag( boolean enabled )
+        throws Exception
+    {
+        Dag dag = new Dag();
+        dag.setMetrics( new GraphingMetrics( "events", enabled ) );
+        dag.addEdge( "a", "b" );
+        dag.addEdge( "b", "c" );
+        try
+        {
+            dag.addEdge( "c", "a" );
+            fail( "Expected CycleDetectedException" );
+        }
+        catch ( CycleDetectedException expected )
+        {
+            // expected
+        }
+        return dag;
+    }
+
+    private List<RecordedEvent> record( boolean enabled )
+        throws Exception
+    {
+        File dump = new File( "target/graphing-events-" + enabled + ".jfr" );
+        Recording recording = new Recording();
+        try
+        {
+            recording.enable( CycleCheckEvent.class );
+            recording.enable( TopologicalSortEvent.class );
+            recording.enable( DotWriteEvent.class );
+            recording.enable( DotProcessEvent.class );
+            recording.start();
+
+            Dag dag = createDag( enabled );
+            TopologicalSorter.sort( dag );
+
+            // Another build in the same JVM, with events off, emits none.
+            TopologicalSorter.sort( createDag( false ) );
+
+            GraphvizRenderer renderer = (GraphvizRenderer) lookup( GraphRenderer.class.getName(), "graphviz" );
+            renderer.writeDot( dag, new StringWriter() );
+
+            if ( File.separatorChar != '\\' )
+            {
+                File stub =
+                    getTestFile( "src/test/resources/net/erdfelt/maven/graphing/graph/impl/graphviz/dot-stub.sh" );
+                stub.setExecutable( true );
+                renderer.setDotExecutable( stub.getAbsolutePath() );
+                renderer.render( dag, Arrays.asList( new File( "target/graph/events.png" ),
+                                                     new File( "target/graph/events.svg" ) ) );
+            }
+
+            recording.stop();
+            dump.getParentFile().mkdirs();
+            recording.dump( dump.toPath() );
+        }
+        finally
+        {
+            recording.close();
+        }
+
+        return RecordingFile.readAllEvents( dump.toPath() );
+    }
+
+    public void testEvents()
+        throws Exception
+    {
+        Map<String, RecordedEvent> last = new HashMap<String, RecordedEvent>();
+        int cycleChecks = 0;
+        for ( RecordedEvent event : record( true ) )
+        {
+            String name = event.getEventType().getName();
+            last.put( name, event );
+            if ( name.endsWith( ".CycleCheck" ) )
+            {
+                cycleChecks++;
+            }
+        }
+
+        assertEquals( 3, cycleChecks );
+        RecordedEvent cycleCheck = last.get( "net.erdfelt.maven.graphing.CycleCheck" );
+        assertEquals( "c", cycleCheck.getString( "from" ) );
+        assertTrue( cycleCheck.getBoolean( "cycleFound" ) );
+        assertEquals( 3, cycleCheck.getInt( "nodesVisited" ) );
+
+        RecordedEvent sort = last.get( "net.erdfelt.maven.graphing.TopologicalSort" );
+        assertEquals( 3, sort.getInt( "sortedNodes" ) );
+
+        RecordedEvent dotWrite = last.get( "net.erdfelt.maven.graphing.DotWrite" );
+        assertEquals( 3, dotWrite.getInt( "nodes" ) );
+        assertEquals( 2, dotWrite.getInt( "edges" ) );
+        assertTrue( dotWrite.getLong( "characters" ) > 0 );
+
+        if ( File.separatorChar != '\\' )
+        {
+            RecordedEvent process = last.get( "net.erdfelt.maven.graphing.DotProcess" );
+            assertEquals( "png,svg", process.getString( "formats" ) );
+            assertEquals( 0, process.getInt( "exitCode" ) );
+            assertTrue( process.getLong( "dotBytes" ) > 0 );
+        }
+    }
+
+    public void testDisabled()
+        throws Exception
+    {
+        for ( RecordedEvent event : record( false ) )
+        {
+            assertFalse( event.getEventType().getName(),
+                         event.getEventType().getName().startsWith( "net.erdfelt.maven.graphing." ) );
+        }
+    }
+}
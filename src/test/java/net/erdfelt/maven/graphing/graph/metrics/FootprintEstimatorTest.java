@@ -0,0 +1,171 @@
+package net.erdfelt.maven.graphing.graph.metrics;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.generator.EdgeList;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator.Shape;
+import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.Node;
+import net.erdfelt.maven.graphing.graph.model.NodeKeyTable;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+import org.codehaus.plexus.PlexusTestCase;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Checks the {@link FootprintEstimator} estimates against the sizes measured by JOL.
+ *
+ * @since 1.0.2
+ */
+public class FootprintEstimatorTest
+    extends PlexusTestCase
+{
+    private final FootprintEstimator estimator = new FootprintEstimator();
+
+    private long measure( Graph graph )
+    {
+        // The estimate assumes the map views exist, create them.
+        graph.getNodes();
+        graph.getEdges();
+        return GraphLayout.parseInstance( graph ).totalSize();
+    }
+
+    private void assertWithin( String message, long expected, long actual, double tolerance )
+    {
+        double error = Math.abs( actual - expected ) / (double) expected;
+        assertTrue( message + ": expected " + expected + " bytes, estimated " + actual + " bytes, error "
+            + Math.round( error * 1000 ) / 10.0 + "%", error <= tolerance );
+    }
+
+    public void testShapes()
+        throws Exception
+    {
+        for ( Shape shape : Shape.values() )
+        {
+            Graph graph = new GraphGenerator( shape, 2000, 11L ).generate().toGraph();
+            Footprint footprint = estimator.estimate( graph );
+
+            assertEquals( 2000, footprint.getNodeCount() );
+            assertEquals( graph.getEdges().size(), footprint.getEdgeCount() );
+            assertWithin( shape.name(), measure( graph ), footprint.getTotalBytes(), 0.03 );
+        }
+    }
+
+    public void testStyles()
+        throws Exception
+    {
+        Graph graph = new GraphGenerator( Shape.LAYERED, 500, 3L ).generate().toGraph();
+        graph.getDecorator().setTitle( "Styled" );
+
+        // Half the nodes share one style, the others have a style per border color.
+        NodeStyle shared = NodeStyle.DEFAULT.withBackgroundColor( Rgba.of( 200, 200, 255 ) );
+        int i = 0;
+        for ( Node node : graph.getNodes() )
+        {
+            if ( ( i++ % 2 ) == 0 )
+            {
+                node.setStyle( shared );
+            }
+            else
+            {
+                node.setStyle( NodeStyle.DEFAULT.withBorderColor( Rgba.of( i % 256, 0, 0 ) ) );
+            }
+        }
+        for ( Edge edge : graph.getEdges() )
+        {
+            edge.setStyle( EdgeStyle.DEFAULT.withLineColor( Rgba.BLUE ) );
+        }
+
+        Footprint footprint = estimator.estimate( graph );
+        assertTrue( footprint.getBytes( Footprint.Category.STYLES ) > 0 );
+        assertWithin( "styled", measure( graph ), footprint.getTotalBytes(), 0.03 );
+    }
+
+    public void testKeysAndScopes()
+        throws Exception
+    {
+        NodeKeyTable keys = new NodeKeyTable();
+        Graph graph = new Graph();
+        String[] scopes = { "compile", "test", "runtime" };
+        for ( int i = 1; i < 1000; i++ )
+        {
+            Node from = graph.addNode( keys.intern( "org.example.group" + ( i % 7 ), "module-" + i, "1.0", "jar" ) );
+            Node to = graph.addNode( keys.intern( "org.example.group" + ( i / 2 % 7 ), "module-" + ( i / 2 ), "1.0",
+                                                  "jar" ) );
+            graph.addEdge( from, to ).setScope( scopes[i % scopes.length] );
+        }
+
+        Footprint footprint = estimator.estimate( graph );
+        assertTrue( footprint.getBytes( Footprint.Category.KEYS ) > 0 );
+        assertWithin( "keyed", measure( graph ), footprint.getTotalBytes(), 0.03 );
+    }
+
+    public void testProjection()
+        throws Exception
+    {
+        GraphGenerator generator = new GraphGenerator( Shape.SCALE_FREE, 1000, 5L );
+        Footprint small = estimator.estimate( generator.generate().toGraph() );
+
+        generator.setNodeCount( 8000 );
+        Graph large = generator.generate().toGraph();
+
+        assertWithin( "projection", measure( large ),
+                      small.project( large.getNodes().size(), large.getEdges().size() ), 0.10 );
+    }
+
+    public void testEstimateBeforeBuild()
+        throws Exception
+    {
+        EdgeList edges = new GraphGenerator( Shape.RANDOM, 4000, 9L ).generate();
+        long labelChars = 0;
+        for ( String label : edges.getLabels() )
+        {
+            labelChars += label.length();
+        }
+
+        long estimate = estimator.estimate( edges.getNodeCount(), labelChars, edges.size() );
+        assertWithin( "before build", measure( edges.toGraph() ), estimate, 0.10 );
+    }
+
+    public void testMemoryBudget()
+    {
+        assertEquals( 512L * 1024 * 1024, MemoryBudget.parse( "512m" ).getLimitBytes() );
+        assertEquals( 2L * 1024 * 1024 * 1024, MemoryBudget.parse( " 2G " ).getLimitBytes() );
+        assertEquals( 1000L, MemoryBudget.parse( "1000" ).getLimitBytes() );
+        assertEquals( 250L, MemoryBudget.parse( "25%", 1000L ).getLimitBytes() );
+        assertTrue( MemoryBudget.parse( "1k" ).isExceeded( 1025 ) );
+        assertFalse( MemoryBudget.parse( "1k" ).isExceeded( 1024 ) );
+
+        String[] invalid = { "", "abc", "-5m", "0", "150%", "12x" };
+        for ( String spec : invalid )
+        {
+            try
+            {
+                MemoryBudget.parse( spec );
+                fail( "Expected IllegalArgumentException for '" + spec + "'" );
+            }
+            catch ( IllegalArgumentException expected )
+            {
+                // expected
+            }
+        }
+    }
+}
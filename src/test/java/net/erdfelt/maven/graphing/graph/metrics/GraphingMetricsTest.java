@@ -0,0 +1,122 @@
+package net.erdfelt.maven.graphing.graph.metrics;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.GraphConstraintException;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * GraphingMetricsTest
+ *
+ * @since 1.0.2
+ */
+public class GraphingMetricsTest
+    extends PlexusTestCase
+{
+    public void testChildRollup()
+        throws Exception
+    {
+        GraphingMetrics root = new GraphingMetrics( "root", false );
+        GraphingMetrics child = root.newChild( "view \"a\"" );
+
+        child.record( GraphingMetrics.Phase.DOT_WRITE, 1000 );
+        child.add( GraphingMetrics.NODES, 3 );
+        root.add( GraphingMetrics.NODES, 2 );
+
+        assertEquals( 1000, child.getTotalNanos( GraphingMetrics.Phase.DOT_WRITE ) );
+        assertEquals( 1000, root.getTotalNanos( GraphingMetrics.Phase.DOT_WRITE ) );
+        assertEquals( 3, child.getCounter( GraphingMetrics.NODES ) );
+        assertEquals( 5, root.getCounter( GraphingMetrics.NODES ) );
+
+        StringWriter json = new StringWriter();
+        root.writeJson( json );
+
+        String report = json.toString();
+        assertTrue( report, report.contains( "\"dotWrite\": { \"count\": 1" ) );
+        assertTrue( report, report.contains( "\"nodes\": 5" ) );
+        assertTrue( report, report.contains( "\"name\": \"view \\\"a\\\"\"" ) );
+    }
+
+    public void testWriteError()
+    {
+        GraphingMetrics metrics = new GraphingMetrics( "failing", false );
+        Writer failing = new Writer()
+        {
+            public void write( char[] buf, int off, int len )
+                throws IOException
+            {
+                throw new IOException( "disk full" );
+            }
+
+            public void flush()
+            {
+            }
+
+            public void close()
+            {
+            }
+        };
+
+        try
+        {
+            metrics.writeJson( failing );
+            fail( "Expected IOException" );
+        }
+        catch ( IOException expected )
+        {
+            // expected
+        }
+    }
+
+    public void testConstraintCheckTiming()
+        throws Exception
+    {
+        GraphingMetrics metrics = new GraphingMetrics( "graph", false );
+
+        Graph graph = new Graph()
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void assertGraphConstraints( Edge edge )
+                throws GraphConstraintException
+            {
+                try
+                {
+                    Thread.sleep( 5 );
+                }
+                catch ( InterruptedException e )
+                {
+                    throw new GraphConstraintException( e );
+                }
+            }
+        };
+        graph.setMetrics( metrics );
+        graph.addEdge( "a", "b" );
+
+        assertTrue( metrics.getTotalNanos( GraphingMetrics.Phase.CONSTRAINT_CHECK ) >= TimeUnit.MILLISECONDS.toNanos( 5 ) );
+        assertEquals( 0, metrics.getTotalNanos( GraphingMetrics.Phase.SUBPROCESS ) );
+    }
+}
@@ -0,0 +1,226 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.generator.EdgeList;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator.Shape;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * Tests for {@link ConcurrentGraph}.
+ *
+ * @since 1.0.2
+ */
+public class ConcurrentGraphTest
+    extends PlexusTestCase
+{
+    private static final int THREADS = 8;
+
+    public void testAdd()
+        throws Exception
+    {
+        ConcurrentGraph graph = new ConcurrentGraph();
+        Node a = graph.addNode( "a" );
+        assertSame( a, graph.addNode( "a" ) );
+        Edge ab = graph.addEdge( "a", "b" );
+        assertSame( ab, graph.addEdge( a, graph.getNode( "b" ) ) );
+        graph.addEdge( "a", "a" );
+
+        assertEquals( 2, graph.getNodeCount() );
+        assertEquals( 2, graph.getEdgeCount() );
+        assertTrue( graph.hasEdge( "a", "b" ) );
+        assertFalse( graph.hasEdge( "b", "a" ) );
+        assertFalse( graph.hasEdge( "a", "missing" ) );
+        assertEquals( 2, graph.getChildren( a ).length );
+        assertEquals( 1, graph.getParents( graph.getNode( "b" ) ).length );
+
+        try
+        {
+            graph.addNode( "" );
+            fail( "Expected an empty label to be rejected" );
+        }
+        catch ( GraphConstraintException e )
+        {
+            // expected
+        }
+
+        try
+        {
+            graph.addEdge( a, new Node( "b" ) );
+            fail( "Expected a node of another graph to be rejected" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // expected
+        }
+    }
+
+    /**
+     * All threads add the same edges, in different orders: each node and edge is created once, and every thread gets
+     * the same instances.
+     */
+    public void testConcurrentAdds()
+        throws Exception
+    {
+        final EdgeList edges = new GraphGenerator( Shape.SCALE_FREE, 2000, 17L ).generate();
+        final String[] labels = edges.getLabels();
+        final ConcurrentGraph graph = new ConcurrentGraph( 2000, THREADS );
+
+        List<Future<Edge[]>> results = runAll( new Task<Edge[]>()
+        {
+            public Edge[] run( int thread )
+                throws Exception
+            {
+                List<Integer> order = new ArrayList<Integer>( edges.size() );
+                for ( int e = 0; e < edges.size(); e++ )
+                {
+                    order.add( e );
+                }
+                Collections.shuffle( order, new Random( thread ) );
+
+                Edge[] added = new Edge[edges.size()];
+                for ( int e : order )
+                {
+                    added[e] = graph.addEdge( labels[edges.getFrom( e )], labels[edges.getTo( e )] );
+                }
+                return added;
+            }
+        } );
+
+        Edge[] first = results.get( 0 ).get();
+        for ( Future<Edge[]> result : results )
+        {
+            Edge[] added = result.get();
+            for ( int e = 0; e < added.length; e++ )
+            {
+                assertSame( first[e], added[e] );
+            }
+        }
+
+        assertEquals( edges.size(), graph.getEdgeCount() );
+        int children = 0;
+        for ( Node node : graph.getNodes() )
+        {
+            Node[] nodeChildren = graph.getChildren( node );
+            Set<Node> distinct = new HashSet<Node>();
+            Collections.addAll( distinct, nodeChildren );
+            assertEquals( node.getLabel(), nodeChildren.length, distinct.size() );
+            for ( Node child : nodeChildren )
+            {
+                assertNotNull( graph.getEdge( node, child ) );
+            }
+            children += nodeChildren.length;
+            for ( Node parent : graph.getParents( node ) )
+            {
+                assertNotNull( graph.getEdge( parent, node ) );
+            }
+        }
+        assertEquals( edges.size(), children );
+
+        Graph expected = edges.toGraph();
+        Graph copy = graph.toGraph();
+        assertEquals( expected.getNodeLabels(), copy.getNodeLabels() );
+        assertEquals( expected.getEdges().size(), copy.getEdges().size() );
+        for ( Edge edge : expected.getEdges() )
+        {
+            assertTrue( copy.hasEdge( edge.getFrom().getLabel(), edge.getTo().getLabel() ) );
+        }
+    }
+
+    public void testToGraphKeepsAttributes()
+        throws Exception
+    {
+        EdgeStyle red = EdgeStyle.DEFAULT.withLineColor( Rgba.RED );
+
+        ConcurrentGraph graph = new ConcurrentGraph();
+        graph.addEdge( "web", "core" ).setScope( "compile" );
+        graph.addEdge( "web", "util" ).setStyle( red );
+        graph.addEdge( "core", "util" );
+        graph.getNode( "util" ).setStyle( NodeStyle.DEFAULT.withLabelColor( Rgba.BLUE ) );
+
+        Graph copy = graph.toGraph();
+        Node web = copy.getNode( "web" );
+        assertEquals( "[core, util]", web.getChildLabels().toString() );
+        assertEquals( "compile", copy.getEdge( web, copy.getNode( "core" ) ).getScope() );
+        assertSame( red, copy.getEdge( web, copy.getNode( "util" ) ).getStyle() );
+        assertEquals( Rgba.BLUE, copy.getNode( "util" ).getStyle().getLabelColor() );
+
+        // The copy is independent.
+        copy.addEdge( "util", "base" );
+        assertNull( graph.getNode( "base" ) );
+    }
+
+    interface Task<T>
+    {
+        T run( int thread )
+            throws Exception;
+    }
+
+    /**
+     * Run the task on {@link #THREADS} threads, released together.
+     */
+    static <T> List<Future<T>> runAll( final Task<T> task )
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+        try
+        {
+            final CountDownLatch start = new CountDownLatch( 1 );
+            List<Future<T>> results = new ArrayList<Future<T>>( THREADS );
+            for ( int t = 0; t < THREADS; t++ )
+            {
+                final int thread = t;
+                results.add( executor.submit( new Callable<T>()
+                {
+                    public T call()
+                        throws Exception
+                    {
+                        start.await();
+                        return task.run( thread );
+                    }
+                } ) );
+            }
+            start.countDown();
+            for ( Future<T> result : results )
+            {
+                result.get();
+            }
+            return results;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import net.erdfelt.maven.graphing.graph.impl.graphviz.GraphvizRenderer;
+import net.erdfelt.maven.graphing.graph.model.dag.CycleDetector;
+import net.erdfelt.maven.graphing.graph.model.dag.TopologicalSorter;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * Tests for {@link FilteredGraphView}.
+ *
+ * @since 1.0.2
+ */
+public class FilteredGraphViewTest
+    extends PlexusTestCase
+{
+    private Graph graph;
+
+    private Node web;
+
+    private Node core;
+
+    private Node util;
+
+    private Node tests;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+        graph = new Graph();
+        graph.getDecorator().setTitle( "Modules" );
+        web = graph.addNode( NodeKey.of( "net.erdfelt", "web", null, "war" ) );
+        core = graph.addNode( NodeKey.of( "net.erdfelt", "core", null, "jar" ) );
+        util = graph.addNode( NodeKey.of( "org.example", "util", null, "jar" ) );
+        tests = graph.addNode( NodeKey.of( "net.erdfelt", "core", null, "test-jar" ) );
+        graph.addEdge( web, core ).setScope( "compile" );
+        graph.addEdge( web, util ).setScope( "runtime" );
+        graph.addEdge( core, util ).setScope( "compile" );
+        graph.addEdge( web, tests ).setScope( "test" );
+    }
+
+    public void testNodeFilter()
+    {
+        FilteredGraphView view = FilteredGraphView.nodes( graph, FilteredGraphView.nodesInGroup( "net.erdfelt" ) );
+
+        assertSame( graph, view.getSource() );
+        assertEquals( "Modules", view.getDecorator().getTitle() );
+        assertEquals( new HashSet<Node>( Arrays.asList( web, core, tests ) ),
+                      new HashSet<Node>( view.getNodes() ) );
+        assertEquals( 3, view.getNodes().size() );
+        assertSame( core, view.getNode( core.getLabel() ) );
+        assertNull( view.getNode( util.getLabel() ) );
+
+        // Only the edges between accepted nodes.
+        assertEquals( 2, view.getEdges().size() );
+        assertTrue( view.hasEdge( web, core ) );
+        assertFalse( view.hasEdge( core, util ) );
+        assertEquals( Arrays.asList( core, tests ), view.getChildren( web ) );
+        assertTrue( view.getParents( util ).isEmpty() );
+        assertTrue( view.getChildren( util ).isEmpty() );
+    }
+
+    public void testEdgeFilter()
+    {
+        FilteredGraphView view = FilteredGraphView.edges( graph, FilteredGraphView.edgesInScopes( "compile" ) );
+
+        assertEquals( 4, view.getNodes().size() );
+        assertEquals( 2, view.getEdges().size() );
+        assertEquals( Arrays.asList( core ), view.getChildren( web ) );
+        assertEquals( Arrays.asList( core ), view.getParents( util ) );
+        assertNull( view.getEdge( web, util ) );
+        assertNotNull( view.getEdge( web, core ) );
+    }
+
+    public void testNestedViews()
+    {
+        GraphView jars = FilteredGraphView.nodes( graph, FilteredGraphView.nodesOfType( "test-jar" ).negate() );
+        GraphView compile = FilteredGraphView.edges( jars, FilteredGraphView.edgesInScopes( "compile", "runtime" ) );
+
+        assertEquals( 3, compile.getNodes().size() );
+        assertEquals( 3, compile.getEdges().size() );
+        assertEquals( Arrays.asList( core, util ), compile.getChildren( web ) );
+    }
+
+    public void testLive()
+        throws Exception
+    {
+        FilteredGraphView view = FilteredGraphView.nodes( graph, FilteredGraphView.nodesInGroup( "net.erdfelt" ) );
+        assertEquals( 2, view.getEdges().size() );
+
+        Node api = graph.addNode( NodeKey.of( "net.erdfelt", "api", null, "jar" ) );
+        graph.addEdge( core, api );
+
+        assertEquals( 4, view.getNodes().size() );
+        assertEquals( 3, view.getEdges().size() );
+        assertEquals( Arrays.asList( api ), view.getChildren( core ) );
+    }
+
+    public void testFreezeAndSort()
+        throws Exception
+    {
+        graph.addEdge( util, web );
+        assertNotNull( CycleDetector.hasCycle( graph ) );
+
+        // The view drops the edge closing the cycle.
+        FilteredGraphView view = FilteredGraphView.nodes( graph, FilteredGraphView.nodesInGroup( "net.erdfelt" ) );
+        assertNull( CycleDetector.hasCycle( view ) );
+
+        FrozenGraph frozen = view.freeze();
+        assertEquals( 3, frozen.getNodeCount() );
+        assertEquals( 2, frozen.getEdgeCount() );
+        assertEquals( -1, frozen.indexOf( util.getLabel() ) );
+
+        List<String> sorted = TopologicalSorter.sort( view );
+        assertEquals( 3, sorted.size() );
+        assertTrue( sorted.indexOf( core.getLabel() ) < sorted.indexOf( web.getLabel() ) );
+    }
+
+    public void testWriteDot()
+        throws Exception
+    {
+        GraphView view = FilteredGraphView.nodes( graph, FilteredGraphView.nodesInGroup( "net.erdfelt" ) );
+
+        // The same graph, copied without the filtered node.
+        Graph copy = new Graph();
+        copy.getDecorator().setTitle( "Modules" );
+        copy.addNode( web.getKey() );
+        copy.addNode( core.getKey() );
+        copy.addNode( tests.getKey() );
+        copy.addEdge( copy.getNode( web.getKey() ), copy.getNode( core.getKey() ) ).setScope( "compile" );
+        copy.addEdge( copy.getNode( web.getKey() ), copy.getNode( tests.getKey() ) ).setScope( "test" );
+
+        GraphvizRenderer renderer = new GraphvizRenderer();
+        StringWriter viewDot = new StringWriter();
+        renderer.writeDot( view, viewDot );
+        StringWriter copyDot = new StringWriter();
+        renderer.writeDot( copy, copyDot );
+
+        assertEquals( copyDot.toString(), viewDot.toString() );
+    }
+}
@@ -0,0 +1,276 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator.Shape;
+import net.erdfelt.maven.graphing.graph.model.dag.CycleDetector;
+import net.erdfelt.maven.graphing.graph.model.dag.Dag;
+import net.erdfelt.maven.graphing.graph.model.dag.TopologicalSorter;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * Tests for {@link FrozenGraph}.
+ *
+ * @since 1.0.2
+ */
+public class FrozenGraphTest
+    extends PlexusTestCase
+{
+    public void testStructure()
+        throws Exception
+    {
+        NodeStyle red = NodeStyle.DEFAULT.withBackgroundColor( Rgba.RED );
+        EdgeStyle blue = EdgeStyle.DEFAULT.withLineColor( Rgba.BLUE );
+
+        Graph graph = new Graph();
+        graph.getDecorator().setTitle( "Frozen" );
+        graph.addNode( "core" ).setStyle( red );
+        graph.addEdge( "web", "core" ).setScope( "compile" );
+        graph.addEdge( "web", "util" ).setStyle( blue );
+        graph.addEdge( "core", "util" );
+
+        FrozenGraph frozen = graph.freeze();
+        assertEquals( 3, frozen.getNodeCount() );
+        assertEquals( 3, frozen.getEdgeCount() );
+        assertEquals( "Frozen", frozen.getDecorator().getTitle() );
+        frozen.getDecorator().setTitle( "Changed" );
+        assertEquals( "Frozen", frozen.getDecorator().getTitle() );
+
+        int web = frozen.indexOf( "web" );
+        int core = frozen.indexOf( "core" );
+        int util = frozen.indexOf( "util" );
+        assertEquals( -1, frozen.indexOf( "missing" ) );
+        assertEquals( "core", frozen.getLabel( core ) );
+
+        // Ids follow the iteration order of the graph.
+        int id = 0;
+        for ( Node node : graph.getNodes() )
+        {
+            assertEquals( id++, frozen.indexOf( node.getLabel() ) );
+        }
+
+        assertSame( red, frozen.getNodeStyle( core ) );
+        assertTrue( frozen.hasNodeStyle( core ) );
+        assertSame( NodeStyle.DEFAULT, frozen.getNodeStyle( web ) );
+        assertFalse( frozen.hasNodeStyle( web ) );
+
+        assertEquals( graph.getNode( "web" ).getChildLabels(), frozen.toLabels( frozen.getChildren( web ) ) );
+        assertEquals( 2, frozen.getParentCount( util ) );
+        assertEquals( 0, frozen.getParentCount( web ) );
+        int[] parents = frozen.getParents( util );
+        Arrays.sort( parents );
+        int[] expected = { web, core };
+        Arrays.sort( expected );
+        assertTrue( Arrays.equals( expected, parents ) );
+
+        int webCore = frozen.indexOfEdge( web, core );
+        int webUtil = frozen.indexOfEdge( web, util );
+        assertEquals( -1, frozen.indexOfEdge( util, web ) );
+        assertEquals( web, frozen.getEdgeSource( webCore ) );
+        assertEquals( core, frozen.getEdgeTarget( webCore ) );
+        assertEquals( "compile", frozen.getEdgeScope( webCore ) );
+        assertSame( EdgeStyle.DEFAULT, frozen.getEdgeStyle( webCore ) );
+        assertSame( blue, frozen.getEdgeStyle( webUtil ) );
+        assertTrue( frozen.hasEdgeStyle( webUtil ) );
+        assertNull( frozen.getEdgeScope( webUtil ) );
+
+        for ( int slot = frozen.getParentOffset( util ); slot < frozen.getParentOffset( util + 1 ); slot++ )
+        {
+            int edge = frozen.getParentEdge( slot );
+            assertEquals( util, frozen.getEdgeTarget( edge ) );
+            assertEquals( frozen.getParent( slot ), frozen.getEdgeSource( edge ) );
+        }
+
+        // Independent of later changes.
+        graph.addEdge( "util", "base" );
+        assertEquals( 3, frozen.getNodeCount() );
+        assertEquals( 0, frozen.getChildCount( util ) );
+    }
+
+    public void testTopologicalSort()
+        throws Exception
+    {
+        for ( Shape shape : Shape.values() )
+        {
+            Dag dag = new Dag();
+            new GraphGenerator( shape, 500, 3L ).generate().populate( dag );
+            FrozenGraph frozen = dag.freeze();
+
+            int[] sorted = frozen.topologicalSort();
+            assertEquals( frozen.getNodeCount(), sorted.length );
+            int[] position = new int[sorted.length];
+            for ( int i = 0; i < sorted.length; i++ )
+            {
+                position[sorted[i]] = i;
+            }
+            for ( int edge = 0; edge < frozen.getEdgeCount(); edge++ )
+            {
+                assertTrue( shape.toString(),
+                            position[frozen.getEdgeTarget( edge )] < position[frozen.getEdgeSource( edge )] );
+            }
+
+            assertEquals( frozen.toLabels( sorted ), TopologicalSorter.sort( dag ) );
+            assertNull( frozen.findCycle() );
+            assertNull( CycleDetector.hasCycle( dag ) );
+        }
+    }
+
+    public void testDeepChain()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        int length = 200000;
+        Node previous = graph.addNode( "n0" );
+        for ( int i = 1; i < length; i++ )
+        {
+            Node next = graph.addNode( "n" + i );
+            graph.addEdge( previous, next );
+            previous = next;
+        }
+        // Close the loop.
+        graph.addEdge( previous, graph.getNode( "n0" ) );
+
+        FrozenGraph frozen = graph.freeze();
+        assertEquals( length, frozen.topologicalSort().length );
+        assertEquals( length + 1, frozen.findCycle().length );
+        int[] components = frozen.stronglyConnectedComponents();
+        for ( int component : components )
+        {
+            assertEquals( 0, component );
+        }
+        assertEquals( length, frozen.reachable( frozen.indexOf( "n5" ), true ).cardinality() );
+    }
+
+    public void testFindCycle()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        graph.addEdge( "web", "core" );
+        graph.addEdge( "core", "util" );
+        graph.addEdge( "util", "base" );
+        graph.addEdge( "base", "core" );
+        graph.addEdge( "web", "api" );
+
+        FrozenGraph frozen = graph.freeze();
+        List<String> cycle = frozen.toLabels( frozen.findCycle() );
+
+        assertEquals( 4, cycle.size() );
+        assertEquals( cycle.get( 0 ), cycle.get( 3 ) );
+        for ( int i = 0; i < 3; i++ )
+        {
+            assertTrue( cycle.toString(), graph.hasEdge( cycle.get( i ), cycle.get( i + 1 ) ) );
+        }
+
+        Graph self = new Graph();
+        self.addEdge( "a", "a" );
+        assertEquals( "[a, a]", self.freeze().toLabels( self.freeze().findCycle() ).toString() );
+    }
+
+    /**
+     * Compare the components against mutual reachability, on random graphs with cycles.
+     */
+    public void testStronglyConnectedComponents()
+        throws Exception
+    {
+        Random random = new Random( 42 );
+        for ( int round = 0; round < 10; round++ )
+        {
+            Graph graph = new Graph();
+            int size = 150;
+            for ( int i = 0; i < size; i++ )
+            {
+                graph.addNode( "n" + i );
+            }
+            for ( int e = 0; e < size + ( round * 20 ); e++ )
+            {
+                graph.addEdge( "n" + random.nextInt( size ), "n" + random.nextInt( size ) );
+            }
+
+            FrozenGraph frozen = graph.freeze();
+            int[] component = frozen.stronglyConnectedComponents();
+            BitSet[] reach = new BitSet[size];
+            for ( int node = 0; node < size; node++ )
+            {
+                reach[node] = frozen.reachable( node, true );
+            }
+
+            for ( int a = 0; a < size; a++ )
+            {
+                for ( int b = 0; b < size; b++ )
+                {
+                    boolean mutual = reach[a].get( b ) && reach[b].get( a );
+                    assertEquals( mutual, component[a] == component[b] );
+                    assertEquals( reach[a].get( b ), frozen.isReachable( a, b ) );
+                }
+            }
+
+            // Dependencies complete first.
+            for ( int edge = 0; edge < frozen.getEdgeCount(); edge++ )
+            {
+                assertTrue( component[frozen.getEdgeTarget( edge )] <= component[frozen.getEdgeSource( edge )] );
+            }
+        }
+    }
+
+    public void testReachable()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        graph.addEdge( "web", "core" );
+        graph.addEdge( "core", "util" );
+        graph.addEdge( "cli", "util" );
+        graph.addNode( "alone" );
+
+        FrozenGraph frozen = graph.freeze();
+        int util = frozen.indexOf( "util" );
+        int core = frozen.indexOf( "core" );
+
+        assertEquals( labels( "cli", "core", "util", "web" ), sorted( frozen, frozen.reachable( util, false ) ) );
+        assertEquals( labels( "core", "util" ), sorted( frozen, frozen.reachable( core, true ) ) );
+        assertEquals( labels( "core", "util", "web" ),
+                      sorted( frozen, frozen.reachable( new int[] { frozen.indexOf( "web" ), util }, true ) ) );
+        assertEquals( 0, frozen.reachable( new int[0], true ).cardinality() );
+
+        assertTrue( frozen.isReachable( frozen.indexOf( "web" ), util ) );
+        assertFalse( frozen.isReachable( util, core ) );
+        assertTrue( frozen.isReachable( util, util ) );
+    }
+
+    private List<String> sorted( FrozenGraph frozen, BitSet nodes )
+    {
+        int[] ids = nodes.stream().toArray();
+        List<String> ret = frozen.toLabels( ids );
+        Collections.sort( ret );
+        return ret;
+    }
+
+    private List<String> labels( String... labels )
+    {
+        return Arrays.asList( labels );
+    }
+}
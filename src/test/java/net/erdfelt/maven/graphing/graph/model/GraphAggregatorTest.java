@@ -0,0 +1,116 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.StringWriter;
+
+import net.erdfelt.maven.graphing.graph.impl.graphviz.GraphvizRenderer;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * Tests for {@link GraphAggregator}.
+ *
+ * @since 1.0.2
+ */
+public class GraphAggregatorTest
+    extends PlexusTestCase
+{
+    private Graph graph;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+        graph = new Graph();
+        graph.getDecorator().setTitle( "Reactor" );
+        Node web = graph.addNode( NodeKey.of( "org.example.app", "web", null, "war" ) );
+        Node cli = graph.addNode( NodeKey.of( "org.example.app", "cli", null, "jar" ) );
+        Node core = graph.addNode( NodeKey.of( "org.example.core", "core", null, "jar" ) );
+        Node api = graph.addNode( NodeKey.of( "org.example.core", "api", null, "jar" ) );
+        Node log = graph.addNode( NodeKey.of( "org.slf4j", "slf4j-api", null, "jar" ) );
+        graph.addEdge( web, core );
+        graph.addEdge( web, api );
+        graph.addEdge( cli, core );
+        graph.addEdge( core, api );
+        graph.addEdge( core, log );
+        graph.addEdge( "plain", "another" );
+    }
+
+    public void testAggregateByGroupId()
+        throws Exception
+    {
+        Graph aggregated = new GraphAggregator().aggregate( graph );
+
+        assertEquals( "Reactor", aggregated.getDecorator().getTitle() );
+        assertEquals( 5, aggregated.getNodes().size() );
+        Node app = aggregated.getNode( "org.example.app\n2 modules" );
+        Node core = aggregated.getNode( "org.example.core\n2 modules" );
+        Node log = aggregated.getNode( "org.slf4j\n1 module" );
+        assertNotNull( app );
+        assertNotNull( core );
+        assertNotNull( log );
+        assertNotNull( aggregated.getNode( "plain\n1 module" ) );
+
+        // core -> api is within its group.
+        assertEquals( 3, aggregated.getEdges().size() );
+        assertEquals( "3", aggregated.getEdge( app, core ).getStyle().getLineLabel() );
+        assertEquals( "1", aggregated.getEdge( core, log ).getStyle().getLineLabel() );
+        assertEquals( 1.0, aggregated.getEdge( core, log ).getStyle().getPenWidth(), 0.0 );
+        assertTrue( aggregated.getEdge( app, core ).getStyle().getPenWidth() > 2 );
+
+        // The source is left as is.
+        assertEquals( 7, graph.getNodes().size() );
+    }
+
+    public void testGroupDepth()
+        throws Exception
+    {
+        GraphAggregator aggregator = new GraphAggregator();
+        aggregator.setGroupDepth( 2 );
+        Node web = graph.getNode( NodeKey.of( "org.example.app", "web", null, "war" ) );
+        Node log = graph.getNode( NodeKey.of( "org.slf4j", "slf4j-api", null, "jar" ) );
+        assertEquals( "org.example", aggregator.toGroup( web ) );
+        assertEquals( "org.slf4j", aggregator.toGroup( log ) );
+        assertEquals( "plain", aggregator.toGroup( graph.getNode( "plain" ) ) );
+
+        Graph aggregated = aggregator.aggregate( graph );
+        assertEquals( 4, aggregated.getNodes().size() );
+        assertNotNull( aggregated.getNode( "org.example\n4 modules" ) );
+        assertEquals( 2, aggregated.getEdges().size() );
+    }
+
+    public void testWidths()
+    {
+        assertEquals( 1.0, GraphAggregator.toStyle( 1 ).getPenWidth(), 0.0 );
+        assertEquals( 2.0, GraphAggregator.toStyle( 2 ).getPenWidth(), 0.0001 );
+        assertEquals( 8.0, GraphAggregator.toStyle( 100000 ).getPenWidth(), 0.0 );
+        assertSame( GraphAggregator.toStyle( 7 ), GraphAggregator.toStyle( 7 ) );
+    }
+
+    public void testDot()
+        throws Exception
+    {
+        StringWriter dot = new StringWriter();
+        new GraphvizRenderer().writeDot( new GraphAggregator().aggregate( graph ), dot );
+
+        assertTrue( dot.toString(), dot.toString().contains( "penwidth=\"1\"" ) );
+        assertTrue( dot.toString(), dot.toString().contains( "penwidth=\"2.58\"" ) );
+        assertTrue( dot.toString(), dot.toString().contains( "label=\"3\"" ) );
+    }
+}
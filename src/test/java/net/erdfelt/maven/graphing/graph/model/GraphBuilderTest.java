@@ -0,0 +1,245 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+import java.util.List;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.generator.EdgeList;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator.Shape;
+import net.erdfelt.maven.graphing.graph.model.dag.CycleDetectedException;
+import net.erdfelt.maven.graphing.graph.model.dag.Dag;
+import net.erdfelt.maven.graphing.graph.model.dag.TopologicalSorter;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * Tests for {@link GraphBuilder}.
+ *
+ * @since 1.0.2
+ */
+public class GraphBuilderTest
+    extends PlexusTestCase
+{
+    public void testDeduplicates()
+        throws Exception
+    {
+        GraphBuilder builder = new GraphBuilder( 1, 1 );
+        int a = builder.addNode( "a" );
+        assertEquals( a, builder.addNode( "a" ) );
+        int ab = builder.addEdge( "a", "b" );
+        assertEquals( ab, builder.addEdge( "a", "b" ) );
+        assertEquals( ab, builder.addEdge( a, builder.indexOf( "b" ) ) );
+        int ba = builder.addEdge( "b", "a" );
+        assertTrue( ab != ba );
+
+        assertEquals( 2, builder.getNodeCount() );
+        assertEquals( 2, builder.getEdgeCount() );
+        assertEquals( -1, builder.indexOf( "c" ) );
+        assertEquals( "b", builder.getLabel( builder.getEdgeSource( ba ) ) );
+
+        Graph graph = builder.build();
+        assertEquals( 2, graph.getNodes().size() );
+        assertEquals( 2, graph.getEdges().size() );
+        assertEquals( labels( "b" ), graph.getNode( "a" ).getChildLabels() );
+    }
+
+    /**
+     * The built graph is identical to the same edges added one at a time.
+     */
+    public void testSameAsIncremental()
+        throws Exception
+    {
+        NodeStyle red = NodeStyle.DEFAULT.withBackgroundColor( Rgba.RED );
+        EdgeStyle blue = EdgeStyle.DEFAULT.withLineColor( Rgba.BLUE );
+
+        EdgeList edges = new GraphGenerator( Shape.SCALE_FREE, 300, 11L ).generate();
+        Graph expected = edges.toGraph();
+
+        GraphBuilder builder = new GraphBuilder();
+        String[] names = edges.getLabels();
+        String[] from = new String[edges.size()];
+        String[] to = new String[edges.size()];
+        for ( int e = 0; e < edges.size(); e++ )
+        {
+            from[e] = names[edges.getFrom( e )];
+            to[e] = names[edges.getTo( e )];
+        }
+        builder.addNodes( names );
+        builder.addEdges( from, to );
+
+        // Some attributes.
+        for ( int e = 0; e < edges.size(); e += 7 )
+        {
+            expected.getEdge( expected.getNode( from[e] ), expected.getNode( to[e] ) ).setStyle( blue );
+            builder.setEdgeStyle( e, blue );
+            expected.getEdge( expected.getNode( from[e] ), expected.getNode( to[e] ) ).setScope( "test" );
+            builder.setEdgeScope( e, "test" );
+        }
+        expected.getNode( names[3] ).setStyle( red );
+        builder.setNodeStyle( 3, red );
+
+        Graph actual = builder.build();
+        assertEquals( expected.getNodeLabels(), actual.getNodeLabels() );
+        for ( Node node : expected.getNodes() )
+        {
+            Node built = actual.getNode( node.getLabel() );
+            assertEquals( node.getChildLabels(), built.getChildLabels() );
+            assertEquals( node.getParentLabels(), built.getParentLabels() );
+            assertEquals( node.getStyle(), built.getStyle() );
+        }
+        assertEquals( expected.getEdges().size(), actual.getEdges().size() );
+        for ( Edge edge : expected.getEdges() )
+        {
+            Edge built = actual.getEdge( actual.getNode( edge.getFrom().getLabel() ),
+                                         actual.getNode( edge.getTo().getLabel() ) );
+            assertNotNull( built );
+            assertSame( actual.getNode( edge.getFrom().getLabel() ), built.getFrom() );
+            assertEquals( edge.getStyle(), built.getStyle() );
+            assertEquals( edge.getScope(), built.getScope() );
+        }
+
+        // Each build is independent.
+        Graph again = builder.build();
+        assertNotSame( actual.getNode( names[0] ), again.getNode( names[0] ) );
+        again.addEdge( names[0], "extra" );
+        assertNull( actual.getNode( "extra" ) );
+    }
+
+    public void testBuildDag()
+        throws Exception
+    {
+        EdgeList edges = new GraphGenerator( Shape.LAYERED, 400, 5L ).generate();
+        GraphBuilder builder = new GraphBuilder( edges.getNodeCount(), edges.size() );
+        builder.addNodes( Arrays.asList( edges.getLabels() ) );
+        int[] from = new int[edges.size()];
+        int[] to = new int[edges.size()];
+        for ( int e = 0; e < edges.size(); e++ )
+        {
+            from[e] = edges.getFrom( e );
+            to[e] = edges.getTo( e );
+        }
+        builder.addEdges( from, to );
+
+        Dag dag = builder.buildDag();
+        Dag expected = new Dag();
+        edges.populate( expected );
+        assertEquals( expected.getEdges().size(), dag.getEdges().size() );
+
+        List<String> sorted = TopologicalSorter.sort( dag );
+        assertEquals( edges.getNodeCount(), sorted.size() );
+        for ( Edge edge : dag.getEdges() )
+        {
+            assertTrue( sorted.indexOf( edge.getTo().getLabel() ) < sorted.indexOf( edge.getFrom().getLabel() ) );
+        }
+
+        // Later edges are still checked.
+        try
+        {
+            dag.addEdge( sorted.get( 0 ), sorted.get( sorted.size() - 1 ) );
+            fail( "Expected a cycle" );
+        }
+        catch ( CycleDetectedException e )
+        {
+            // expected
+        }
+    }
+
+    public void testBuildDagReportsAllCycles()
+        throws Exception
+    {
+        GraphBuilder builder = new GraphBuilder();
+        // a -> b -> c -> a, and the longer c -> d -> e -> c
+        builder.addEdge( "a", "b" );
+        builder.addEdge( "b", "c" );
+        builder.addEdge( "c", "a" );
+        builder.addEdge( "c", "d" );
+        builder.addEdge( "d", "e" );
+        builder.addEdge( "e", "c" );
+        // x -> y -> z -> x
+        builder.addEdge( "x", "y" );
+        builder.addEdge( "y", "z" );
+        builder.addEdge( "z", "x" );
+        // s -> s
+        builder.addEdge( "s", "s" );
+        builder.addEdge( "x", "free" );
+
+        try
+        {
+            builder.buildDag();
+            fail( "Expected cycles" );
+        }
+        catch ( CycleDetectedException e )
+        {
+            List<List<String>> cycles = e.getCycles();
+            assertEquals( 3, cycles.size() );
+            assertEquals( labels( "a", "b", "c", "a" ), cycles.get( 0 ) );
+            assertEquals( labels( "x", "y", "z", "x" ), cycles.get( 1 ) );
+            assertEquals( labels( "s", "s" ), cycles.get( 2 ) );
+            assertEquals( cycles.get( 0 ), e.getCycle() );
+            assertTrue( e.getMessage(), e.getMessage().contains( "a --> b --> c --> a, x --> y --> z --> x" ) );
+        }
+
+        // A plain graph accepts them.
+        assertEquals( 11, builder.build().getEdges().size() );
+    }
+
+    public void testValidation()
+        throws Exception
+    {
+        GraphBuilder builder = new GraphBuilder();
+        builder.addEdge( "a", "" );
+        try
+        {
+            builder.build();
+            fail( "Expected an empty label to be rejected" );
+        }
+        catch ( GraphConstraintException e )
+        {
+            // expected
+        }
+
+        try
+        {
+            builder.addEdge( 0, 5 );
+            fail( "Expected an unknown node to be rejected" );
+        }
+        catch ( IndexOutOfBoundsException e )
+        {
+            // expected
+        }
+
+        try
+        {
+            builder.addEdges( new int[] { 0 }, new int[0] );
+            fail( "Expected mismatched arrays to be rejected" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // expected
+        }
+    }
+
+    private List<String> labels( String... labels )
+    {
+        return Arrays.asList( labels );
+    }
+}
@@ -0,0 +1,188 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.BitSet;
+
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator.Shape;
+import net.erdfelt.maven.graphing.graph.model.dag.CycleDetector;
+import net.erdfelt.maven.graphing.graph.model.dag.Dag;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * Tests for {@link GraphCompactor}.
+ *
+ * @since 1.0.2
+ */
+public class GraphCompactorTest
+    extends PlexusTestCase
+{
+    public void testChain()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        graph.getDecorator().setTitle( "Chain" );
+        graph.addEdge( "a", "b" ).setScope( "compile" );
+        graph.addEdge( "b", "c" ).setScope( "compile" );
+        graph.addEdge( "c", "d" ).setScope( "compile" );
+        graph.addEdge( "d", "e" ).setScope( "compile" );
+        graph.addEdge( "a", "x" ).setScope( "test" );
+
+        Graph compacted = new GraphCompactor().compact( graph );
+
+        assertEquals( "Chain", compacted.getDecorator().getTitle() );
+        assertEquals( 3, compacted.getNodes().size() );
+        assertNull( compacted.getNode( "b" ) );
+        assertEquals( 2, compacted.getEdges().size() );
+
+        Edge collapsed = compacted.getEdge( compacted.getNode( "a" ), compacted.getNode( "e" ) );
+        assertNotNull( collapsed );
+        assertEquals( "via 3", collapsed.getStyle().getLineLabel() );
+        assertEquals( "compile", collapsed.getScope() );
+        assertEquals( "test", compacted.getEdge( compacted.getNode( "a" ), compacted.getNode( "x" ) ).getScope() );
+
+        // The source is left as is.
+        assertEquals( 6, graph.getNodes().size() );
+    }
+
+    public void testShortChain()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        graph.addEdge( "a", "b" );
+        graph.addEdge( "b", "c" );
+
+        GraphCompactor compactor = new GraphCompactor();
+        assertEquals( 3, compactor.compact( graph ).getNodes().size() );
+
+        compactor.setMinChainLength( 1 );
+        Graph compacted = compactor.compact( graph );
+        assertEquals( 2, compacted.getNodes().size() );
+        assertTrue( compacted.hasEdge( "a", "c" ) );
+    }
+
+    public void testChainOntoExistingEdge()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        graph.addEdge( "a", "b" );
+        graph.addEdge( "b", "c" );
+        graph.addEdge( "c", "d" );
+        graph.addEdge( "a", "d" );
+
+        Graph compacted = new GraphCompactor().compact( graph );
+        assertEquals( 2, compacted.getNodes().size() );
+        assertEquals( 1, compacted.getEdges().size() );
+        assertTrue( compacted.hasEdge( "a", "d" ) );
+    }
+
+    public void testCycleKept()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        graph.addEdge( "x", "y" );
+        graph.addEdge( "y", "z" );
+        graph.addEdge( "z", "x" );
+
+        Graph compacted = new GraphCompactor().compact( graph );
+        assertEquals( 3, compacted.getNodes().size() );
+        assertEquals( 3, compacted.getEdges().size() );
+    }
+
+    public void testFans()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        Node api = graph.addNode( NodeKey.of( "net.erdfelt", "api", null, "jar" ) );
+        Node core = graph.addNode( NodeKey.of( "net.erdfelt", "core", null, "jar" ) );
+        Node web = graph.addNode( NodeKey.of( "net.erdfelt", "web", null, "war" ) );
+        graph.addEdge( web, core );
+        graph.addEdge( core, api );
+        for ( int i = 0; i < 5; i++ )
+        {
+            graph.addEdge( graph.addNode( NodeKey.of( "net.erdfelt", "impl-" + i, null, "jar" ) ), api );
+        }
+        // Too few to group.
+        graph.addEdge( web, graph.addNode( NodeKey.of( "org.example", "log", null, "jar" ) ) );
+        graph.addEdge( web, graph.addNode( NodeKey.of( "org.example", "json", null, "jar" ) ) );
+
+        Graph compacted = new GraphCompactor().compact( graph );
+
+        assertEquals( 6, compacted.getNodes().size() );
+        assertEquals( 5, compacted.getEdges().size() );
+        Node summary = null;
+        for ( Node node : compacted.getNodes() )
+        {
+            if ( node.getLabel().contains( "+4 more" ) )
+            {
+                summary = node;
+            }
+        }
+        assertNotNull( summary );
+        assertEquals( "net.erdfelt", summary.getKey().getGroupId() );
+        assertEquals( 1, summary.getChildren().size() );
+        assertSame( compacted.getNode( api.getKey() ), summary.getChildren().get( 0 ) );
+
+        GraphCompactor compactor = new GraphCompactor();
+        compactor.setMinFanSize( 2 );
+        // The two leaves of web are grouped too.
+        assertEquals( 5, compactor.compact( graph ).getNodes().size() );
+    }
+
+    public void testReachabilityKept()
+        throws Exception
+    {
+        GraphCompactor compactor = new GraphCompactor();
+        compactor.setMinChainLength( 1 );
+        compactor.setMinFanSize( 2 );
+
+        for ( Shape shape : Shape.values() )
+        {
+            Dag dag = new Dag();
+            new GraphGenerator( shape, 200, 5L ).generate().populate( dag );
+            Graph compacted = compactor.compact( dag );
+
+            assertNull( shape.toString(), CycleDetector.hasCycle( compacted ) );
+            assertTrue( shape.toString(), compacted.getNodes().size() <= dag.getNodes().size() );
+
+            // Between the nodes drawn as themselves.
+            FrozenGraph before = dag.freeze();
+            FrozenGraph after = compacted.freeze();
+            for ( int from = 0; from < before.getNodeCount(); from++ )
+            {
+                int compactedFrom = after.indexOf( before.getLabel( from ) );
+                if ( compactedFrom < 0 )
+                {
+                    continue;
+                }
+                BitSet reached = before.reachable( from, true );
+                BitSet compactedReached = after.reachable( compactedFrom, true );
+                for ( int to = 0; to < before.getNodeCount(); to++ )
+                {
+                    int compactedTo = after.indexOf( before.getLabel( to ) );
+                    if ( compactedTo >= 0 )
+                    {
+                        assertEquals( shape + " " + before.getLabel( from ) + " -> " + before.getLabel( to ),
+                                      reached.get( to ), compactedReached.get( compactedTo ) );
+                    }
+                }
+            }
+        }
+    }
+}
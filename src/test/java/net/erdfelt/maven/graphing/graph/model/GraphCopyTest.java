@@ -0,0 +1,409 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.model.dag.CycleDetectedException;
+import net.erdfelt.maven.graphing.graph.model.dag.Dag;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * Tests for {@link Graph#clone()}, {@link Graph#snapshot()} and {@link Node#clone()}.
+ *
+ * @since 1.0.2
+ */
+public class GraphCopyTest
+    extends PlexusTestCase
+{
+    private static final NodeStyle RED = NodeStyle.DEFAULT.withBackgroundColor( Rgba.RED );
+
+    private static final EdgeStyle BLUE = EdgeStyle.DEFAULT.withLineColor( Rgba.BLUE );
+
+    private Graph sample( Graph graph )
+        throws GraphConstraintException
+    {
+        graph.getDecorator().setTitle( "Sample" );
+        graph.addNode( "core" ).setStyle( RED );
+        graph.addEdge( "web", "core" ).setScope( "compile" );
+        graph.addEdge( "web", "util" );
+        graph.addEdge( "core", "util" ).setStyle( BLUE );
+        return graph;
+    }
+
+    public void testClone()
+        throws Exception
+    {
+        Graph graph = sample( new Graph() );
+        Graph copy = graph.clone();
+
+        assertEquals( Graph.class, copy.getClass() );
+        assertFalse( copy.isReadOnly() );
+        assertEquals( graph.getNodeLabels(), copy.getNodeLabels() );
+        assertEquals( 3, copy.getEdges().size() );
+        assertEquals( "Sample", copy.getDecorator().getTitle() );
+        assertNotSame( graph.getDecorator(), copy.getDecorator() );
+
+        Node core = copy.getNode( "core" );
+        assertNotSame( graph.getNode( "core" ), core );
+        assertSame( RED, core.getStyle() );
+        assertEquals( "[web]", core.getParentLabels().toString() );
+        assertEquals( "[util]", core.getChildLabels().toString() );
+        assertSame( copy.getNode( "util" ), core.getChildren().get( 0 ) );
+
+        Edge edge = copy.getEdge( copy.getNode( "web" ), core );
+        assertSame( core, edge.getTo() );
+        assertEquals( "compile", edge.getScope() );
+        assertSame( BLUE, copy.getEdge( core, copy.getNode( "util" ) ).getStyle() );
+
+        // Independent of the original.
+        copy.addEdge( "util", "base" );
+        copy.getDecorator().setTitle( "Copy" );
+        assertEquals( 3, graph.getNodes().size() );
+        assertEquals( 3, graph.getEdges().size() );
+        assertTrue( graph.getNode( "util" ).isLeaf() );
+        assertEquals( "Sample", graph.getDecorator().getTitle() );
+    }
+
+    public void testCloneDag()
+        throws Exception
+    {
+        Dag dag = (Dag) sample( new Dag() );
+        Dag copy = dag.clone();
+
+        assertEquals( 3, copy.getEdges().size() );
+        try
+        {
+            copy.addEdge( "util", "web" );
+            fail( "Expected a cycle" );
+        }
+        catch ( CycleDetectedException e )
+        {
+            // expected
+        }
+        assertFalse( dag.hasEdge( "util", "web" ) );
+    }
+
+    /**
+     * Layers of fully connected pairs: every node is reachable through 2^depth paths.
+     */
+    public void testNodeCloneDiamonds()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        int depth = 40;
+        for ( int layer = 0; layer < depth; layer++ )
+        {
+            for ( int i = 0; i < 2; i++ )
+            {
+                for ( int j = 0; j < 2; j++ )
+                {
+                    graph.addEdge( "n" + layer + "-" + i, "n" + ( layer + 1 ) + "-" + j );
+                }
+            }
+        }
+
+        Node root = graph.getNode( "n0-0" );
+        root.setStyle( RED );
+        Node clone = (Node) root.clone();
+
+        assertNotSame( root, clone );
+        assertSame( RED, clone.getStyle() );
+
+        Map<Node, Node> reached = reachable( clone );
+        assertEquals( graph.getNodes().size(), reached.size() );
+        for ( Node node : reached.keySet() )
+        {
+            assertNotSame( node, graph.getNode( node.getLabel() ) );
+            Node original = graph.getNode( node.getLabel() );
+            assertEquals( original.getChildLabels(), node.getChildLabels() );
+            assertEquals( original.getParentLabels(), node.getParentLabels() );
+        }
+    }
+
+    public void testNodeCloneDeep()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        int length = 100000;
+        Node previous = graph.addNode( "n0" );
+        for ( int i = 1; i < length; i++ )
+        {
+            Node next = graph.addNode( "n" + i );
+            graph.addEdge( previous, next );
+            previous = next;
+        }
+
+        Node clone = (Node) graph.getNode( "n0" ).clone();
+        assertEquals( length, reachable( clone ).size() );
+
+        assertEquals( length - 1, graph.clone().getEdges().size() );
+    }
+
+    /**
+     * Nodes serialize with their connected nodes, without the edges.
+     */
+    public void testSerializedNode()
+        throws Exception
+    {
+        Graph graph = sample( new Graph() );
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream( bytes );
+        out.writeObject( graph.getNode( "core" ) );
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+        Node core = (Node) in.readObject();
+        assertEquals( "core", core.getLabel() );
+        assertSame( RED, core.getStyle() );
+        assertEquals( "[util]", core.getChildLabels().toString() );
+        assertEquals( "[web]", core.getParentLabels().toString() );
+
+        // The nodes stay shared.
+        Node web = core.getParents().get( 0 );
+        assertSame( core, web.getChildren().get( 0 ) );
+        assertSame( core.getChildren().get( 0 ), web.getChildren().get( 1 ) );
+    }
+
+    public void testSnapshot()
+        throws Exception
+    {
+        Graph graph = sample( new Graph() );
+        Node web = graph.getNode( "web" );
+
+        Graph snapshot = graph.snapshot();
+        assertTrue( snapshot.isReadOnly() );
+        assertFalse( graph.isReadOnly() );
+
+        // The snapshot is a copy, the graph keeps its own nodes.
+        assertNotSame( web, snapshot.getNode( "web" ) );
+        assertSame( web, graph.getNode( "web" ) );
+
+        graph.addEdge( web, graph.addNode( "api" ) );
+        graph.getNode( "core" ).setStyle( null );
+        graph.getDecorator().setTitle( "Changed" );
+        graph.removeEdge( graph.getNode( "web" ), graph.getNode( "util" ) );
+
+        assertEquals( 3, snapshot.getNodes().size() );
+        assertEquals( 3, snapshot.getEdges().size() );
+        assertEquals( "[core, util]", snapshot.getNode( "web" ).getChildLabels().toString() );
+        assertSame( RED, snapshot.getNode( "core" ).getStyle() );
+        assertEquals( "Sample", snapshot.getDecorator().getTitle() );
+
+        assertEquals( "[core, api]", web.getChildLabels().toString() );
+        assertSame( web, graph.getEdge( web, graph.getNode( "api" ) ).getFrom() );
+        assertEquals( 4, graph.getNodes().size() );
+        assertEquals( 3, graph.getEdges().size() );
+
+        try
+        {
+            snapshot.addNode( "other" );
+            fail( "Expected a read only snapshot" );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            // expected
+        }
+
+        Graph copy = snapshot.clone();
+        assertFalse( copy.isReadOnly() );
+        copy.addNode( "other" );
+        assertNull( snapshot.getNode( "other" ) );
+    }
+
+    /**
+     * Nodes and edges held from before the snapshot stay those of the graph, those of the snapshot are read only.
+     */
+    public void testSnapshotHeldElements()
+        throws Exception
+    {
+        Graph graph = sample( new Graph() );
+        Node core = graph.getNode( "core" );
+        Edge uses = graph.getEdge( core, graph.getNode( "util" ) );
+
+        Graph snapshot = graph.snapshot();
+        Node frozen = snapshot.getNode( "core" );
+        Edge frozenUses = snapshot.getEdge( frozen, snapshot.getNode( "util" ) );
+
+        // Reading the graph does not copy it.
+        assertSame( core, graph.getNode( "core" ) );
+        assertSame( uses, graph.getEdge( core, graph.getNode( "util" ) ) );
+        assertSame( core, graph.getChildren( graph.getNode( "web" ) ).get( 0 ) );
+
+        core.setStyle( null );
+        uses.setScope( "test" );
+        graph.addNode( core );
+        graph.addEdge( "core", "api" );
+
+        try
+        {
+            frozen.setStyle( null );
+            fail( "Expected the node to belong to the snapshot" );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            // expected
+        }
+
+        try
+        {
+            frozenUses.setScope( "test" );
+            fail( "Expected the edge to belong to the snapshot" );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            // expected
+        }
+
+        try
+        {
+            graph.addNode( frozen );
+            fail( "Expected the node to belong to the snapshot" );
+        }
+        catch ( GraphConstraintException e )
+        {
+            // expected
+        }
+
+        // Edges between snapshot nodes are attached to the nodes of the graph.
+        graph.addEdge( frozen, snapshot.getNode( "web" ) );
+
+        assertSame( RED, frozen.getStyle() );
+        assertEquals( "[util]", frozen.getChildLabels().toString() );
+        assertNull( frozenUses.getScope() );
+        assertEquals( 3, snapshot.getEdges().size() );
+
+        assertSame( NodeStyle.DEFAULT, core.getStyle() );
+        assertEquals( "test", uses.getScope() );
+        assertEquals( "[util, api, web]", core.getChildLabels().toString() );
+        assertEquals( 5, graph.getEdges().size() );
+    }
+
+    public void testSnapshotDag()
+        throws Exception
+    {
+        Dag dag = (Dag) sample( new Dag() );
+        Graph snapshot = dag.snapshot();
+        assertEquals( Dag.class, snapshot.getClass() );
+
+        dag.addEdge( "util", "base" );
+        assertEquals( 3, snapshot.getEdges().size() );
+        assertNull( snapshot.getNode( "base" ) );
+    }
+
+    /**
+     * Read snapshots on another thread, as a renderer would, while the graph keeps being modified.
+     */
+    public void testSnapshotWhileMutating()
+        throws Exception
+    {
+        final Graph graph = new Graph();
+        graph.addNode( "n0" );
+
+        final AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            for ( int round = 0; round < 20; round++ )
+            {
+                final int nodes = graph.getNodes().size();
+                final int edges = graph.getEdges().size();
+                final Graph snapshot = graph.snapshot();
+                Future<Integer> reader = executor.submit( new Callable<Integer>()
+                {
+                    public Integer call()
+                    {
+                        int reads = 0;
+                        do
+                        {
+                            int children = 0;
+                            for ( Node node : snapshot.getNodes() )
+                            {
+                                children += node.getChildren().size();
+                            }
+                            assertEquals( nodes, snapshot.getNodes().size() );
+                            assertEquals( edges, snapshot.getEdges().size() );
+                            assertEquals( edges, children );
+                            reads++;
+                        }
+                        while ( !done.get() );
+                        return reads;
+                    }
+                } );
+
+                graph.addEdge( "n" + round, "n" + ( round + 1 ) );
+                for ( int i = 0; i < 200; i++ )
+                {
+                    graph.addEdge( "n" + ( round + 1 ), "tmp" + i );
+                    graph.removeEdge( graph.getNode( "n" + ( round + 1 ) ), graph.getNode( "tmp" + i ) );
+                }
+
+                done.set( true );
+                assertTrue( reader.get() > 0 );
+                done.set( false );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<Node, Node> reachable( Node start )
+    {
+        Map<Node, Node> seen = new IdentityHashMap<Node, Node>();
+        Deque<Node> queue = new ArrayDeque<Node>();
+        seen.put( start, start );
+        queue.add( start );
+        while ( !queue.isEmpty() )
+        {
+            Node node = queue.poll();
+            for ( Node next : node.getChildren() )
+            {
+                if ( seen.put( next, next ) == null )
+                {
+                    queue.add( next );
+                }
+            }
+            for ( Node next : node.getParents() )
+            {
+                if ( seen.put( next, next ) == null )
+                {
+                    queue.add( next );
+                }
+            }
+        }
+        return seen;
+    }
+}
@@ -0,0 +1,243 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import net.erdfelt.maven.graphing.graph.metrics.CountingGraphListener;
+import net.erdfelt.maven.graphing.graph.metrics.TimingGraphListener;
+import net.erdfelt.maven.graphing.graph.model.dag.CycleDetectedException;
+import net.erdfelt.maven.graphing.graph.model.dag.Dag;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * GraphListenerTest
+ *
+ * @since 1.0.2
+ */
+public class GraphListenerTest
+    extends PlexusTestCase
+{
+    /**
+     * Records the events as strings.
+     */
+    private static class RecordingListener
+        implements GraphListener
+    {
+        final List<String> events = new ArrayList<String>();
+
+        public void nodeAdded( Graph graph, Node node )
+        {
+            events.add( "+node " + node.getLabel() );
+        }
+
+        public void nodeRemoved( Graph graph, Node node )
+        {
+            events.add( "-node " + node.getLabel() );
+        }
+
+        public void edgeAdded( Graph graph, Edge edge )
+        {
+            events.add( "+edge " + edge.getFrom().getLabel() + "->" + edge.getTo().getLabel() );
+        }
+
+        public void edgeRemoved( Graph graph, Edge edge )
+        {
+            events.add( "-edge " + edge.getFrom().getLabel() + "->" + edge.getTo().getLabel() );
+        }
+    }
+
+    public void testEvents()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        RecordingListener listener = new RecordingListener();
+        graph.addGraphListener( listener );
+
+        graph.addEdge( "a", "b" );
+        // existing nodes are not added again
+        graph.addEdge( "a", "c" );
+        graph.removeEdge( graph.getNode( "a" ), graph.getNode( "c" ) );
+
+        assertEquals( Arrays.asList( "+node a", "+node b", "+edge a->b", "+node c", "+edge a->c", "-edge a->c" ),
+                      listener.events );
+
+        assertTrue( graph.removeGraphListener( listener ) );
+        assertFalse( graph.removeGraphListener( listener ) );
+        graph.addEdge( "b", "d" );
+        assertEquals( 6, listener.events.size() );
+    }
+
+    public void testRemovalEvents()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        graph.addEdge( "a", "b" );
+        graph.addEdge( "b", "c" );
+        graph.addEdge( "c", "d" );
+        graph.addEdge( "d", "e" );
+
+        RecordingListener listener = new RecordingListener();
+        graph.addGraphListener( listener );
+
+        // The edges go first, children then parents.
+        assertNotNull( graph.removeNode( "b" ) );
+        assertNull( graph.removeNode( "b" ) );
+        assertEquals( Arrays.asList( "-edge b->c", "-edge a->b", "-node b" ), listener.events );
+
+        listener.events.clear();
+        assertTrue( graph.retainAll( new Predicate<Node>()
+        {
+            public boolean test( Node node )
+            {
+                return !node.getLabel().equals( "d" );
+            }
+        } ) );
+        assertEquals( 3, listener.events.size() );
+        assertTrue( listener.events.containsAll( Arrays.asList( "-edge c->d", "-edge d->e" ) ) );
+        assertEquals( "-node d", listener.events.get( 2 ) );
+    }
+
+    public void testReplacementEvents()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        RecordingListener listener = new RecordingListener();
+        CountingGraphListener counting = new CountingGraphListener();
+        graph.addGraphListener( listener );
+        graph.addGraphListener( counting );
+
+        Node a = graph.addNode( new Node( "a" ) );
+        Node b = graph.addNode( "b" );
+        Edge edge = graph.addEdge( a, b );
+
+        // Adding the same node or edge again is not a change.
+        graph.addNode( a );
+        graph.addEdge( edge );
+        assertEquals( Arrays.asList( "+node a", "+node b", "+edge a->b" ), listener.events );
+
+        // The edges of a replaced node move to the new node.
+        listener.events.clear();
+        a = graph.addNode( new Node( "a" ) );
+        assertEquals( Arrays.asList( "-edge a->b", "-node a", "+node a", "+edge a->b" ), listener.events );
+        assertNotSame( edge, graph.getEdge( a, b ) );
+
+        listener.events.clear();
+        graph.addEdge( new Edge( a, b ) );
+        assertEquals( Arrays.asList( "-edge a->b", "+edge a->b" ), listener.events );
+
+        assertEquals( 2, graph.getNodes().size() );
+        assertEquals( 1, graph.getEdges().size() );
+        assertEquals( counting.getNodesAdded() - counting.getNodesRemoved(), graph.getNodes().size() );
+        assertEquals( counting.getEdgesAdded() - counting.getEdgesRemoved(), graph.getEdges().size() );
+    }
+
+    public void testRejectedEdge()
+        throws Exception
+    {
+        Dag dag = new Dag();
+        dag.addEdge( "a", "b" );
+
+        RecordingListener listener = new RecordingListener();
+        dag.addGraphListener( listener );
+
+        try
+        {
+            dag.addEdge( "b", "a" );
+            fail( "Expected CycleDetectedException" );
+        }
+        catch ( CycleDetectedException expected )
+        {
+            // expected
+        }
+
+        // The events mirror the content, the rejected edge is added then removed.
+        assertEquals( Arrays.asList( "+edge b->a", "-edge b->a" ), listener.events );
+        assertFalse( dag.hasEdge( "b", "a" ) );
+    }
+
+    public void testMultipleListeners()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        RecordingListener third = new RecordingListener();
+        graph.addGraphListener( first );
+        graph.addGraphListener( second );
+        graph.addGraphListener( third );
+        assertTrue( graph.removeGraphListener( second ) );
+
+        graph.addNode( "a" );
+
+        assertEquals( 1, first.events.size() );
+        assertEquals( 0, second.events.size() );
+        assertEquals( 1, third.events.size() );
+    }
+
+    public void testBuiltInListeners()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        CountingGraphListener counting = new CountingGraphListener();
+        TimingGraphListener timing = new TimingGraphListener();
+        graph.addGraphListener( counting );
+        graph.addGraphListener( timing );
+
+        for ( int i = 1; i < 100; i++ )
+        {
+            graph.addEdge( "node-" + i, "node-" + ( i / 2 ) );
+        }
+        graph.removeEdge( graph.getNode( "node-2" ), graph.getNode( "node-1" ) );
+
+        assertEquals( 100, counting.getNodesAdded() );
+        assertEquals( 99, counting.getEdgesAdded() );
+        assertEquals( 1, counting.getEdgesRemoved() );
+        assertEquals( 200, counting.getMutations() );
+
+        assertEquals( 200, timing.getMutations() );
+        assertEquals( 99, timing.getEdgeAdds().getCount() );
+        assertEquals( 1, timing.getEdgeRemoves().getCount() );
+        assertTrue( timing.getMutationRate() > 0 );
+
+        TimingGraphListener.Histogram edgeAdds = timing.getEdgeAdds();
+        assertTrue( edgeAdds.getPercentileNanos( 50 ) <= edgeAdds.getPercentileNanos( 99 ) );
+        assertTrue( edgeAdds.getPercentileNanos( 100 ) <= edgeAdds.getMaxNanos() );
+    }
+
+    public void testHistogram()
+    {
+        TimingGraphListener.Histogram histogram = new TimingGraphListener.Histogram();
+        histogram.record( 0 );
+        histogram.record( 1 );
+        histogram.record( 1000 );
+        histogram.record( 1023 );
+        histogram.record( 1024 );
+
+        assertEquals( 2, histogram.getBucketCount( 0 ) );
+        assertEquals( 2, histogram.getBucketCount( 9 ) );
+        assertEquals( 1, histogram.getBucketCount( 10 ) );
+        assertEquals( 1, histogram.getPercentileNanos( 40 ) );
+        assertEquals( 1023, histogram.getPercentileNanos( 80 ) );
+        assertEquals( 1024, histogram.getPercentileNanos( 100 ) );
+        assertEquals( 1024, histogram.getMaxNanos() );
+    }
+}
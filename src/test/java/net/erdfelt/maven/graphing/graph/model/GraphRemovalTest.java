@@ -0,0 +1,209 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import net.erdfelt.maven.graphing.graph.model.dag.Dag;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * Tests for {@link Graph#removeNode(String)} and {@link Graph#retainAll(Predicate)}.
+ *
+ * @since 1.0.2
+ */
+public class GraphRemovalTest
+    extends PlexusTestCase
+{
+    public void testRemoveNode()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        graph.addEdge( "web", "core" );
+        graph.addEdge( "web", "util" );
+        graph.addEdge( "core", "util" );
+        graph.addEdge( "cli", "core" );
+        graph.addEdge( "cli", "util" );
+
+        Node core = graph.getNode( "core" );
+        List<Node> webChildren = graph.getNode( "web" ).getChildren();
+        assertEquals( 2, webChildren.size() );
+        assertSame( core, graph.removeNode( core ) );
+
+        assertNull( graph.getNode( "core" ) );
+        assertEquals( 3, graph.getNodes().size() );
+        assertEquals( 2, graph.getEdges().size() );
+        assertFalse( graph.hasEdge( "web", "core" ) );
+        assertTrue( graph.hasEdge( "web", "util" ) );
+
+        // The neighbours no longer see the node, and keep the order of the others.
+        assertEquals( Arrays.asList( "util" ), graph.getNode( "web" ).getChildLabels() );
+        assertEquals( Arrays.asList( graph.getNode( "util" ) ), webChildren );
+        assertEquals( Arrays.asList( "web", "cli" ), graph.getNode( "util" ).getParentLabels() );
+        assertTrue( core.getChildren().isEmpty() );
+        assertTrue( core.getParents().isEmpty() );
+
+        // The label can be reused.
+        graph.addEdge( "web", "core" );
+        assertEquals( Arrays.asList( "util", "core" ), graph.getNode( "web" ).getChildLabels() );
+        assertEquals( 3, graph.getEdges().size() );
+    }
+
+    /**
+     * Removing the leaves of a hub one at a time finds each edge through the incident edges of the leaf, and costs
+     * constant time on the hub side.
+     */
+    public void testRemoveLeavesOfHub()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        int leaves = 50000;
+        for ( int i = 0; i < leaves; i++ )
+        {
+            graph.addEdge( "hub", "leaf-" + i );
+        }
+
+        for ( int i = 0; i < leaves; i += 2 )
+        {
+            assertNotNull( graph.removeNode( "leaf-" + i ) );
+        }
+
+        Node hub = graph.getNode( "hub" );
+        assertEquals( leaves / 2, hub.getChildCount() );
+        assertEquals( leaves / 2, graph.getEdges().size() );
+        assertEquals( "leaf-1", hub.getChildren().get( 0 ).getLabel() );
+        assertEquals( "leaf-" + ( leaves - 1 ), hub.getChildren().get( leaves / 2 - 1 ).getLabel() );
+        Node first = graph.getNode( "leaf-1" );
+        assertSame( graph.getEdge( hub, first ), hub.getChildEdges().get( first ) );
+
+        for ( int i = 1; i < leaves; i += 2 )
+        {
+            assertNotNull( graph.removeNode( "leaf-" + i ) );
+        }
+        assertTrue( hub.isLeaf() );
+        assertTrue( graph.getEdges().isEmpty() );
+    }
+
+    public void testRemoveSelfLoop()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        graph.addEdge( "a", "a" );
+        graph.addEdge( "a", "b" );
+
+        graph.removeNode( "a" );
+        assertTrue( graph.getEdges().isEmpty() );
+        assertTrue( graph.getNode( "b" ).getParents().isEmpty() );
+    }
+
+    /**
+     * Replacing a node moves its edges onto the new node, so removing it later removes them.
+     */
+    public void testRemoveReplacedNode()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        graph.addEdge( "a", "b" );
+        graph.addEdge( "c", "a" );
+        graph.addEdge( "a", "a" );
+        Node old = graph.getNode( "a" );
+
+        Node a = graph.addNode( new Node( "a" ) );
+        assertEquals( 3, graph.getEdges().size() );
+        assertTrue( graph.hasEdge( "a", "b" ) );
+        assertSame( a, graph.getEdge( a, graph.getNode( "b" ) ).getFrom() );
+        assertSame( a, graph.getNode( "b" ).getParents().get( 0 ) );
+        assertSame( a, graph.getNode( "c" ).getChildren().get( 0 ) );
+        assertEquals( Arrays.asList( "b", "a" ), a.getChildLabels() );
+        assertTrue( old.getChildren().isEmpty() );
+        assertTrue( old.getParents().isEmpty() );
+
+        assertSame( a, graph.removeNode( "a" ) );
+        assertTrue( graph.getEdges().isEmpty() );
+        assertTrue( graph.getNode( "b" ).getParents().isEmpty() );
+        assertTrue( graph.getNode( "c" ).getChildren().isEmpty() );
+        assertFalse( graph.hasEdge( "a", "b" ) );
+    }
+
+    public void testRemoveFromSnapshotSource()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        graph.addEdge( "a", "b" );
+        graph.addEdge( "b", "c" );
+        Node b = graph.getNode( "b" );
+
+        Graph snapshot = graph.snapshot();
+        // The node held from before the snapshot is still the graph's own.
+        assertSame( b, graph.removeNode( b ) );
+
+        assertEquals( 2, graph.getNodes().size() );
+        assertTrue( graph.getEdges().isEmpty() );
+        assertEquals( 3, snapshot.getNodes().size() );
+        assertEquals( 2, snapshot.getEdges().size() );
+        assertEquals( Arrays.asList( "c" ), snapshot.getNode( "b" ).getChildLabels() );
+    }
+
+    public void testRetainAll()
+        throws Exception
+    {
+        Dag dag = new Dag();
+        for ( int i = 1; i < 64; i++ )
+        {
+            dag.addEdge( "node-" + i, "node-" + ( i / 2 ) );
+        }
+
+        // Keep the even nodes.
+        assertTrue( dag.retainAll( new Predicate<Node>()
+        {
+            public boolean test( Node node )
+            {
+                return Integer.parseInt( node.getLabel().substring( 5 ) ) % 2 == 0;
+            }
+        } ) );
+
+        assertEquals( 32, dag.getNodes().size() );
+        for ( Edge edge : dag.getEdges() )
+        {
+            assertSame( edge.getFrom(), dag.getNode( edge.getFrom().getLabel() ) );
+            assertSame( edge.getTo(), dag.getNode( edge.getTo().getLabel() ) );
+        }
+        // node-4 keeps its even parent, and its child.
+        assertEquals( Arrays.asList( "node-8" ), dag.getNode( "node-4" ).getParentLabels() );
+        assertEquals( Arrays.asList( "node-2" ), dag.getNode( "node-4" ).getChildLabels() );
+        assertEquals( Collections.emptyList(), dag.getNode( "node-2" ).getChildLabels() );
+
+        int edges = 0;
+        for ( Node node : dag.getNodes() )
+        {
+            edges += node.getChildren().size();
+        }
+        assertEquals( dag.getEdges().size(), edges );
+
+        assertFalse( dag.retainAll( new Predicate<Node>()
+        {
+            public boolean test( Node node )
+            {
+                return true;
+            }
+        } ) );
+    }
+}
@@ -0,0 +1,93 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * NeighbourhoodExtractorTest
+ *
+ * @since 1.0.2
+ */
+public class NeighbourhoodExtractorTest
+    extends PlexusTestCase
+{
+    private Graph createChain()
+        throws GraphConstraintException
+    {
+        //  a --> b --> c --> d --> e
+        //        |
+        //        +---> x
+        Graph graph = new Graph();
+        graph.addEdge( "a", "b" );
+        graph.addEdge( "b", "c" );
+        graph.addEdge( "c", "d" );
+        graph.addEdge( "d", "e" );
+        graph.addEdge( "b", "x" );
+        return graph;
+    }
+
+    public void testRadiusOne()
+        throws GraphConstraintException
+    {
+        Graph graph = createChain();
+        NeighbourhoodExtractor extractor = new NeighbourhoodExtractor( graph );
+
+        Graph sub = extractor.extractGraph( graph.getNode( "c" ), 1 );
+
+        assertEquals( 3, sub.getNodes().size() );
+        assertNotNull( sub.getNode( "b" ) );
+        assertNotNull( sub.getNode( "c" ) );
+        assertNotNull( sub.getNode( "d" ) );
+        // siblings are not upstream or downstream.
+        assertNull( sub.getNode( "x" ) );
+        assertEquals( 2, sub.getEdges().size() );
+        assertTrue( sub.hasEdge( "b", "c" ) );
+        assertTrue( sub.hasEdge( "c", "d" ) );
+    }
+
+    public void testRadiusTwo()
+        throws GraphConstraintException
+    {
+        Graph graph = createChain();
+        NeighbourhoodExtractor extractor = new NeighbourhoodExtractor( graph );
+
+        Graph sub = extractor.extractGraph( graph.getNode( "b" ), 2 );
+
+        assertEquals( 5, sub.getNodes().size() );
+        assertNull( sub.getNode( "e" ) );
+        assertTrue( sub.hasEdge( "b", "x" ) );
+    }
+
+    public void testIdenticalNeighbourhoods()
+        throws GraphConstraintException
+    {
+        Graph graph = new Graph();
+        graph.addEdge( "a", "b" );
+
+        NeighbourhoodExtractor extractor = new NeighbourhoodExtractor( graph );
+
+        int[] fromA = extractor.extract( graph.getNode( "a" ), 1 );
+        int[] fromB = extractor.extract( graph.getNode( "b" ), 1 );
+
+        // Repeated searches reuse the search state.
+        assertTrue( Arrays.equals( fromA, fromB ) );
+        assertTrue( Arrays.equals( fromA, extractor.extract( graph.getNode( "a" ), 3 ) ) );
+    }
+}
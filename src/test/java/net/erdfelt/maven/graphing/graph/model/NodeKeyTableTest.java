@@ -0,0 +1,114 @@
+package net.erdfelt.maven.graphing.graph.model;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * Tests for {@link NodeKey} and {@link NodeKeyTable}.
+ *
+ * @since 1.0.2
+ */
+public class NodeKeyTableTest
+    extends PlexusTestCase
+{
+    public void testIntern()
+        throws Exception
+    {
+        NodeKeyTable table = new NodeKeyTable();
+        NodeKey core = table.intern( "net.erdfelt", "core", "1.0", "jar" );
+
+        // Parts built at each occurrence, as from a maven model.
+        NodeKey again = table.intern( new String( "net.erdfelt" ), new String( "core" ), "1.0", "jar" );
+        assertSame( core, again );
+        assertSame( core.getLabel(), again.getLabel() );
+        assertSame( core, table.intern( NodeKey.of( "net.erdfelt", "core", "1.0", "jar" ) ) );
+
+        NodeKey util = table.intern( new String( "net.erdfelt" ), "util", "1.0", "jar" );
+        assertNotSame( core, util );
+        assertSame( core.getGroupId(), util.getGroupId() );
+
+        NodeKey unversioned = table.intern( "net.erdfelt", "core", null, "jar" );
+        assertNotSame( core, unversioned );
+        assertEquals( 3, table.size() );
+    }
+
+    public void testLabel()
+        throws Exception
+    {
+        assertEquals( "net.erdfelt\ncore\n1.0\njar", NodeKey.of( "net.erdfelt", "core", "1.0", "jar" ).getLabel() );
+        assertEquals( "net.erdfelt\ncore\njar", NodeKey.of( "net.erdfelt", "core", null, "jar" ).getLabel() );
+        assertEquals( "net.erdfelt:core:1.0:jar", NodeKey.of( "net.erdfelt", "core", "1.0", "jar" ).toString() );
+    }
+
+    public void testEquality()
+        throws Exception
+    {
+        NodeKey a = NodeKey.of( "g", "a", "1", "jar" );
+        NodeKey b = NodeKey.of( "g", "a", "1", "jar" );
+        assertEquals( a, b );
+        assertEquals( a.hashCode(), b.hashCode() );
+        assertFalse( a.equals( NodeKey.of( "g", "a", "2", "jar" ) ) );
+        assertFalse( a.equals( NodeKey.of( "g", "a", null, "jar" ) ) );
+        assertFalse( a.equals( "g:a:1:jar" ) );
+    }
+
+    public void testManyKeys()
+        throws Exception
+    {
+        NodeKeyTable table = new NodeKeyTable();
+        NodeKey[] keys = new NodeKey[5000];
+        for ( int i = 0; i < keys.length; i++ )
+        {
+            keys[i] = table.intern( "g" + ( i % 10 ), "a" + i, "1.0", "jar" );
+        }
+        for ( int i = 0; i < keys.length; i++ )
+        {
+            assertSame( keys[i], table.intern( "g" + ( i % 10 ), "a" + i, "1.0", "jar" ) );
+        }
+        assertEquals( keys.length, table.size() );
+    }
+
+    public void testGraphNodes()
+        throws Exception
+    {
+        NodeKeyTable table = new NodeKeyTable();
+        NodeKey web = table.intern( "g", "web", "1.0", "war" );
+        NodeKey core = table.intern( "g", "core", "1.0", "jar" );
+
+        Graph graph = new Graph();
+        Node node = graph.addNode( web );
+        assertSame( web, node.getKey() );
+        assertSame( node, graph.addNode( table.intern( "g", "web", "1.0", "war" ) ) );
+        assertSame( node, graph.getNode( web ) );
+        assertSame( node, graph.getNode( "g\nweb\n1.0\nwar" ) );
+        assertNull( graph.addNode( "plain" ).getKey() );
+
+        graph.addEdge( node, graph.addNode( core ) );
+        assertSame( core, graph.clone().getNode( core ).getKey() );
+
+        GraphBuilder builder = new GraphBuilder();
+        int id = builder.addNode( web );
+        assertEquals( id, builder.addNode( "g\nweb\n1.0\nwar" ) );
+        builder.addEdge( id, builder.addNode( core ) );
+        builder.addNode( "plain" );
+        Graph built = builder.build();
+        assertSame( web, built.getNode( web ).getKey() );
+        assertSame( web.getLabel(), built.getNode( web ).getLabel() );
+        assertNull( built.getNode( "plain" ).getKey() );
+    }
+}
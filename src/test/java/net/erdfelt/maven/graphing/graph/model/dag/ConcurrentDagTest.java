@@ -0,0 +1,201 @@
+package net.erdfelt.maven.graphing.graph.model.dag;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.erdfelt.maven.graphing.graph.model.FrozenGraph;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * Tests for {@link ConcurrentDag}.
+ *
+ * @since 1.0.2
+ */
+public class ConcurrentDagTest
+    extends PlexusTestCase
+{
+    private static final int THREADS = 8;
+
+    public void testRejectsCycles()
+        throws Exception
+    {
+        ConcurrentDag dag = new ConcurrentDag();
+        dag.addEdge( "a", "b" );
+        dag.addEdge( "b", "c" );
+
+        try
+        {
+            dag.addEdge( "c", "a" );
+            fail( "Expected a cycle" );
+        }
+        catch ( CycleDetectedException e )
+        {
+            // Same cycle as the Dag reports.
+            assertEquals( "[c, a, b, c]", e.getCycle().toString() );
+        }
+
+        try
+        {
+            dag.addEdge( "b", "b" );
+            fail( "Expected a cycle" );
+        }
+        catch ( CycleDetectedException e )
+        {
+            assertEquals( "[b, b]", e.getCycle().toString() );
+        }
+
+        assertEquals( 2, dag.getEdgeCount() );
+        assertEquals( 0, dag.getChildren( dag.getNode( "c" ) ).length );
+        assertEquals( "[c]", dag.toDag().getNode( "b" ).getChildLabels().toString() );
+    }
+
+    /**
+     * Two threads racing to add opposite edges: exactly one of them wins.
+     */
+    public void testOppositeEdges()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try
+        {
+            for ( int round = 0; round < 200; round++ )
+            {
+                final ConcurrentDag dag = new ConcurrentDag();
+                // a -> x -> b, so both edges have a path to search.
+                dag.addEdge( "a", "x" );
+                dag.addEdge( "x", "y" );
+                final CountDownLatch start = new CountDownLatch( 1 );
+                Future<Boolean> forward = executor.submit( addEdge( dag, start, "y", "b" ) );
+                Future<Boolean> backward = executor.submit( addEdge( dag, start, "b", "a" ) );
+                start.countDown();
+
+                assertTrue( forward.get() ^ backward.get() );
+                assertNull( dag.toDag().freeze().findCycle() );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Many threads adding random edges between a few nodes. The result is acyclic, and each rejected edge closes a
+     * cycle in it.
+     */
+    public void testConcurrentStress()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+        try
+        {
+            for ( int round = 0; round < 10; round++ )
+            {
+                stress( executor, round );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private void stress( ExecutorService executor, int round )
+        throws Exception
+    {
+        final int nodes = 100;
+        final ConcurrentDag dag = new ConcurrentDag( nodes, THREADS );
+        final CountDownLatch start = new CountDownLatch( 1 );
+
+        List<Future<List<String[]>>> results = new ArrayList<Future<List<String[]>>>();
+        for ( int t = 0; t < THREADS; t++ )
+        {
+            final Random random = new Random( ( round * THREADS ) + t );
+            results.add( executor.submit( new Callable<List<String[]>>()
+            {
+                public List<String[]> call()
+                    throws Exception
+                {
+                    start.await();
+                    List<String[]> rejected = new ArrayList<String[]>();
+                    for ( int i = 0; i < 1000; i++ )
+                    {
+                        String from = "n" + random.nextInt( nodes );
+                        String to = "n" + random.nextInt( nodes );
+                        try
+                        {
+                            dag.addEdge( from, to );
+                        }
+                        catch ( CycleDetectedException e )
+                        {
+                            rejected.add( new String[] { from, to } );
+                        }
+                    }
+                    return rejected;
+                }
+            } ) );
+        }
+        start.countDown();
+
+        List<String[]> rejected = new ArrayList<String[]>();
+        for ( Future<List<String[]>> result : results )
+        {
+            rejected.addAll( result.get() );
+        }
+        assertFalse( rejected.isEmpty() );
+
+        FrozenGraph frozen = dag.toDag().freeze();
+        assertNull( frozen.findCycle() );
+        assertEquals( dag.getEdgeCount(), frozen.getEdgeCount() );
+        for ( String[] edge : rejected )
+        {
+            assertTrue( edge[0] + " -> " + edge[1],
+                        frozen.isReachable( frozen.indexOf( edge[1] ), frozen.indexOf( edge[0] ) ) );
+        }
+    }
+
+    private Callable<Boolean> addEdge( final ConcurrentDag dag, final CountDownLatch start, final String from,
+                                       final String to )
+    {
+        return new Callable<Boolean>()
+        {
+            public Boolean call()
+                throws Exception
+            {
+                start.await();
+                try
+                {
+                    dag.addEdge( from, to );
+                    return Boolean.TRUE;
+                }
+                catch ( CycleDetectedException e )
+                {
+                    return Boolean.FALSE;
+                }
+            }
+        };
+    }
+}
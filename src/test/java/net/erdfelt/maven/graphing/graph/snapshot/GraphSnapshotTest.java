@@ -0,0 +1,262 @@
+package net.erdfelt.maven.graphing.graph.snapshot;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeDecorator;
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.GraphDecorator;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator;
+import net.erdfelt.maven.graphing.graph.generator.GraphGenerator.Shape;
+import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.Node;
+import net.erdfelt.maven.graphing.graph.model.dag.Dag;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * Tests for {@link SnapshotWriter} and {@link GraphSnapshot}.
+ *
+ * @since 1.0.2
+ */
+public class GraphSnapshotTest
+    extends PlexusTestCase
+{
+    private GraphSnapshot snapshot( Graph graph )
+        throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SnapshotWriter().write( graph, out );
+        return GraphSnapshot.wrap( ByteBuffer.wrap( out.toByteArray() ) );
+    }
+
+    public void testRoundTrip()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        graph.getDecorator().setTitle( "Round Trip" );
+        graph.getDecorator().setOrientation( GraphDecorator.LEFT_TO_RIGHT );
+        graph.getDecorator().setBackgroundColor( Rgba.of( 1, 2, 3, 4 ) );
+
+        NodeStyle highlight = NodeStyle.DEFAULT.withBackgroundColor( Rgba.RED ).withGroupName( "core" );
+        EdgeStyle dashed = EdgeStyle.DEFAULT.withLineStyle( EdgeDecorator.LineStyle.DASHED ).withLineLabel( "uses" )
+            .withPenWidth( 2.5 );
+
+        Node core = graph.addNode( "net.erdfelt\ncore\njar" );
+        core.setStyle( highlight );
+        graph.addEdge( "net.erdfelt\nweb\nwar", core.getLabel() ).setScope( "compile" );
+        Edge test = graph.addEdge( "net.erdfelt\ntests\njar", core.getLabel() );
+        test.setScope( "test" );
+        test.setStyle( dashed );
+        graph.addEdge( "net.erdfelt\nweb\nwar", "m\u00fcnchen\n\u65e5\u672c\njar" );
+
+        Graph copy = snapshot( graph ).toGraph();
+
+        assertEquals( "Round Trip", copy.getDecorator().getTitle() );
+        assertEquals( GraphDecorator.LEFT_TO_RIGHT, copy.getDecorator().getOrientation() );
+        assertEquals( Rgba.of( 1, 2, 3, 4 ), copy.getDecorator().getBackgroundColor() );
+
+        assertEquals( labels( graph ), labels( copy ) );
+        assertEquals( graph.getEdges().size(), copy.getEdges().size() );
+        for ( Edge edge : graph.getEdges() )
+        {
+            Edge other =
+                copy.getEdge( copy.getNode( edge.getFrom().getLabel() ), copy.getNode( edge.getTo().getLabel() ) );
+            assertNotNull( edge.toString(), other );
+            assertEquals( edge.getScope(), other.getScope() );
+            assertSame( edge.getStyle(), other.getStyle() );
+            assertEquals( edge.hasStyle(), other.hasStyle() );
+        }
+        assertSame( highlight, copy.getNode( core.getLabel() ).getStyle() );
+        assertFalse( copy.getNode( "net.erdfelt\nweb\nwar" ).hasStyle() );
+    }
+
+    public void testQueriesWithoutGraph()
+        throws Exception
+    {
+        Graph graph = new GraphGenerator( Shape.SCALE_FREE, 2000, 17L ).generate().toGraph();
+        GraphSnapshot snapshot = snapshot( graph );
+
+        assertEquals( 2000, snapshot.getNodeCount() );
+        assertEquals( graph.getEdges().size(), snapshot.getEdgeCount() );
+        assertEquals( -1, snapshot.indexOf( "no such node" ) );
+
+        for ( Node node : graph.getNodes() )
+        {
+            int id = snapshot.indexOf( node.getLabel() );
+            assertTrue( node.getLabel(), id >= 0 );
+            assertEquals( node.getLabel(), snapshot.getLabel( id ) );
+
+            assertEquals( sorted( node.getChildren() ), labels( snapshot, snapshot.getChildren( id ) ) );
+            assertEquals( sorted( node.getParents() ), labels( snapshot, snapshot.getParents( id ) ) );
+            assertEquals( node.getChildren().size(), snapshot.getChildCount( id ) );
+            assertEquals( node.getParents().size(), snapshot.getParentCount( id ) );
+
+            for ( Node child : node.getChildren() )
+            {
+                assertTrue( snapshot.hasEdge( id, snapshot.indexOf( child.getLabel() ) ) );
+            }
+        }
+    }
+
+    public void testNodeOutOfRange()
+        throws Exception
+    {
+        Graph graph = new Graph();
+        graph.addEdge( "a", "b" );
+        GraphSnapshot snapshot = snapshot( graph );
+
+        int[] invalid = { -1, 2, Integer.MAX_VALUE };
+        for ( int node : invalid )
+        {
+            try
+            {
+                snapshot.getLabel( node );
+                fail( "Expected IndexOutOfBoundsException for label of " + node );
+            }
+            catch ( IndexOutOfBoundsException e )
+            {
+                // expected
+            }
+            try
+            {
+                snapshot.getChildCount( node );
+                fail( "Expected IndexOutOfBoundsException for child count of " + node );
+            }
+            catch ( IndexOutOfBoundsException e )
+            {
+                // expected
+            }
+            try
+            {
+                snapshot.getChildren( node );
+                fail( "Expected IndexOutOfBoundsException for children of " + node );
+            }
+            catch ( IndexOutOfBoundsException e )
+            {
+                // expected
+            }
+            try
+            {
+                snapshot.getParents( node );
+                fail( "Expected IndexOutOfBoundsException for parents of " + node );
+            }
+            catch ( IndexOutOfBoundsException e )
+            {
+                // expected
+            }
+        }
+    }
+
+    public void testMemoryMappedFile()
+        throws Exception
+    {
+        GraphGenerator generator = new GraphGenerator( Shape.RANDOM, 20000, 3L );
+        generator.setDegree( 5 );
+        Dag dag = generator.generate().toDag();
+
+        File file = new File( getBasedir(), "target/snapshot/random.graph" );
+        new SnapshotWriter().write( dag, file );
+
+        GraphSnapshot snapshot = GraphSnapshot.open( file );
+        assertEquals( 20000, snapshot.getNodeCount() );
+        assertEquals( dag.getEdges().size(), snapshot.getEdgeCount() );
+
+        // Varints keep the adjacency well under the size of fixed width ids.
+        assertTrue( file.length() < ( snapshot.getEdgeCount() * 8L ) + ( snapshot.getNodeCount() * 64L ) );
+
+        Dag copy = new Dag();
+        snapshot.populate( copy );
+        assertEquals( dag.getEdges().size(), copy.getEdges().size() );
+    }
+
+    public void testInvalidData()
+        throws Exception
+    {
+        assertInvalid( new byte[0] );
+        assertInvalid( "not a graph snapshot, not at all, no".getBytes( "UTF-8" ) );
+
+        Graph graph = new Graph();
+        graph.addEdge( "a", "b" );
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SnapshotWriter().write( graph, out );
+        byte[] bytes = out.toByteArray();
+
+        byte[] truncated = new byte[bytes.length - 1];
+        System.arraycopy( bytes, 0, truncated, 0, truncated.length );
+        assertInvalid( truncated );
+
+        byte[] future = bytes.clone();
+        future[5] = 99;
+        assertInvalid( future );
+    }
+
+    private void assertInvalid( byte[] bytes )
+    {
+        try
+        {
+            GraphSnapshot.wrap( ByteBuffer.wrap( bytes ) );
+            fail( "Expected SnapshotFormatException" );
+        }
+        catch ( SnapshotFormatException expected )
+        {
+            // expected
+        }
+        catch ( Exception e )
+        {
+            fail( "Expected SnapshotFormatException, got " + e );
+        }
+    }
+
+    private List<String> labels( Graph graph )
+    {
+        List<String> labels = new ArrayList<String>( graph.getNodeLabels() );
+        Collections.sort( labels );
+        return labels;
+    }
+
+    private List<String> sorted( List<Node> nodes )
+    {
+        List<String> labels = new ArrayList<String>();
+        for ( Node node : nodes )
+        {
+            labels.add( node.getLabel() );
+        }
+        Collections.sort( labels );
+        return labels;
+    }
+
+    private List<String> labels( GraphSnapshot snapshot, int[] ids )
+    {
+        List<String> labels = new ArrayList<String>();
+        for ( int id : ids )
+        {
+            labels.add( snapshot.getLabel( id ) );
+        }
+        Collections.sort( labels );
+        return labels;
+    }
+}
@@ -0,0 +1,214 @@
+package net.erdfelt.maven.graphing.graph.stylesheet;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.StringWriter;
+
+import net.erdfelt.maven.graphing.graph.decorator.EdgeDecorator;
+import net.erdfelt.maven.graphing.graph.decorator.EdgeStyle;
+import net.erdfelt.maven.graphing.graph.decorator.NodeStyle;
+import net.erdfelt.maven.graphing.graph.impl.graphviz.GraphvizRenderer;
+import net.erdfelt.maven.graphing.graph.model.Edge;
+import net.erdfelt.maven.graphing.graph.model.Graph;
+import net.erdfelt.maven.graphing.graph.model.Node;
+import net.erdfelt.maven.graphing.graph.util.Rgba;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * Tests for the {@link Stylesheet} rules, and their use by the renderer.
+ *
+ * @since 1.0.2
+ */
+public class StylesheetTest
+    extends PlexusTestCase
+{
+    private static final String SHEET = "/* Apache modules */\n"
+        + "node[groupId=org.apache.*] { background: #ffcc00; border: red; }\n"
+        + "node[artifactId=*-api], node[type=war] { group: \"public api\"; }\n"
+        + "node[indegree>=2] { font-size: 12 }\n"
+        + "node[groupId=org.apache.maven][type!=jar] { background: none; }\n"
+        + "edge[scope=test] { color: blue; style: dashed; tail: hollow-dot; }\n"
+        + "edge[from=*maven-plugin*] { label: \"tests\"; }\n";
+
+    private Graph graph;
+
+    private Node api;
+
+    private Node impl;
+
+    private Node app;
+
+    private Node plugin;
+
+    private Edge testEdge;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+        graph = new Graph();
+        api = graph.addNode( "org.apache.commons\ncommons-api\n1.0\njar" );
+        impl = graph.addNode( "org.apache.commons\ncommons-impl\njar" );
+        app = graph.addNode( "net.erdfelt\napp\n1.0\nwar" );
+        plugin = graph.addNode( "org.apache.maven\nmaven-plugin\n1.0\nmaven-plugin" );
+
+        graph.addEdge( impl, api ).setScope( "compile" );
+        graph.addEdge( app, api ).setScope( "compile" );
+        graph.addEdge( app, impl ).setScope( "compile" );
+        testEdge = graph.addEdge( plugin, impl );
+        testEdge.setScope( "test" );
+    }
+
+    public void testNodeRules()
+        throws Exception
+    {
+        StyleResolver resolver = Stylesheet.parse( "test", SHEET ).newResolver();
+
+        NodeStyle apiStyle = resolver.resolve( api );
+        assertEquals( Rgba.rgb( 0xffcc00 ), apiStyle.getBackgroundColor() );
+        assertEquals( Rgba.RED, apiStyle.getBorderColor() );
+        assertEquals( "public api", apiStyle.getGroupName() );
+        assertEquals( 12, apiStyle.getFontSize() );
+
+        // No version in the label, the type is still the last part.
+        NodeStyle implStyle = resolver.resolve( impl );
+        assertNull( implStyle.getGroupName() );
+        assertEquals( 12, implStyle.getFontSize() );
+
+        NodeStyle appStyle = resolver.resolve( app );
+        assertNull( appStyle.getBackgroundColor() );
+        assertEquals( "public api", appStyle.getGroupName() );
+        assertEquals( 8, appStyle.getFontSize() );
+
+        // A later rule clears the background of an earlier one.
+        NodeStyle pluginStyle = resolver.resolve( plugin );
+        assertNull( pluginStyle.getBackgroundColor() );
+        assertEquals( Rgba.RED, pluginStyle.getBorderColor() );
+
+        // Nothing is assigned to the elements themselves.
+        assertFalse( api.hasStyle() );
+    }
+
+    public void testEdgeRules()
+        throws Exception
+    {
+        StyleResolver resolver = Stylesheet.parse( "test", SHEET ).newResolver();
+
+        EdgeStyle testStyle = resolver.resolve( testEdge );
+        assertEquals( Rgba.BLUE, testStyle.getLineColor() );
+        assertEquals( EdgeDecorator.LineStyle.DASHED, testStyle.getLineStyle() );
+        assertEquals( EdgeDecorator.EndingStyles.HOLLOW_DOT, testStyle.getLineTail() );
+        assertEquals( "tests", testStyle.getLineLabel() );
+
+        assertSame( EdgeStyle.DEFAULT, resolver.resolve( graph.getEdge( impl, api ) ) );
+    }
+
+    public void testRulesOverrideOwnStyle()
+        throws Exception
+    {
+        Stylesheet stylesheet = Stylesheet.parse( "test", "node[label=*app*] { border: green }" );
+        app.setStyle( NodeStyle.DEFAULT.withBackgroundColor( Rgba.PINK ).withBorderColor( Rgba.BLACK ) );
+
+        NodeStyle style = stylesheet.newResolver().resolve( app );
+        assertEquals( Rgba.PINK, style.getBackgroundColor() );
+        assertEquals( Rgba.GREEN, style.getBorderColor() );
+    }
+
+    public void testDistinctStylesComputedOnce()
+        throws Exception
+    {
+        Graph large = new Graph();
+        for ( int i = 0; i < 1000; i++ )
+        {
+            large.addNode( "org.example\nmodule-" + i + "\n" + ( ( i % 2 == 0 ) ? "jar" : "war" ) );
+        }
+
+        String text = "node[type=war] { background: red }\nnode[artifactId=module-1?] { border: blue }";
+        StyleResolver resolver = Stylesheet.parse( "test", text ).newResolver();
+
+        NodeStyle war = null;
+        for ( Node node : large.getNodes() )
+        {
+            NodeStyle style = resolver.resolve( node );
+            if ( node.getLabel().endsWith( "war" ) && !node.getLabel().contains( "module-1" ) )
+            {
+                if ( war == null )
+                {
+                    war = style;
+                }
+                assertSame( war, style );
+            }
+        }
+
+        // war, module-1? jar, module-1? war
+        assertEquals( 3, resolver.getResolvedCount() );
+    }
+
+    public void testRenderSharesStyleBlocks()
+        throws Exception
+    {
+        GraphvizRenderer renderer = new GraphvizRenderer();
+        renderer.setStylesheet( Stylesheet.parse( "test", "node[groupId=org.apache.commons] { background: red }" ) );
+
+        StringWriter writer = new StringWriter();
+        renderer.writeDot( graph, writer );
+        String dot = writer.toString();
+
+        // One block for the two commons modules, the attributes are not repeated per node.
+        assertEquals( dot, 1, count( dot, "subgraph {" ) );
+        assertEquals( dot, 1, count( dot, "fillcolor=\"#ff0000\"" ) );
+        assertEquals( dot, 4, count( dot, "[label=" ) );
+        assertEquals( dot, 4, count( dot, "->" ) );
+    }
+
+    public void testErrors()
+    {
+        assertInvalid( "shape { }", "test:1: Expected 'node' or 'edge'" );
+        assertInvalid( "node[scope=test] { }", "test:1: Unknown node attribute 'scope'" );
+        assertInvalid( "node[indegree=many] { }", "test:1: Expected a number" );
+        assertInvalid( "node[groupId>a] { }", "test:1: Only = and != apply" );
+        assertInvalid( "node {\n  background: mauve;\n}", "test:2: Unknown color 'mauve'" );
+        assertInvalid( "edge {\n\n  shape: box;\n}", "test:3: Unknown edge property 'shape'" );
+        assertInvalid( "node, edge { }", "test:1: A rule can not select both" );
+        assertInvalid( "node { group: core", "test:1: Expected '}'" );
+    }
+
+    private void assertInvalid( String text, String message )
+    {
+        try
+        {
+            Stylesheet.parse( "test", text );
+            fail( "Expected StylesheetException for: " + text );
+        }
+        catch ( StylesheetException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().startsWith( message ) );
+        }
+    }
+
+    private int count( String text, String part )
+    {
+        int count = 0;
+        for ( int i = text.indexOf( part ); i >= 0; i = text.indexOf( part, i + 1 ) )
+        {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,90 @@
+package net.erdfelt.maven.graphing.graph.util;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.awt.Color;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * Tests for {@link Rgba}, {@link ColorUtil} and {@link AwtColors}.
+ *
+ * @since 1.0.2
+ */
+public class ColorUtilTest
+    extends PlexusTestCase
+{
+    public void testCssDeclaration()
+    {
+        assertEquals( "#c8c8ff", ColorUtil.toCssDeclaration( Rgba.of( 200, 200, 255 ) ) );
+        assertEquals( "#000000", ColorUtil.toCssDeclaration( Rgba.BLACK ) );
+        assertEquals( "#ff000080", ColorUtil.toCssDeclaration( Rgba.of( 255, 0, 0, 128 ) ) );
+        assertEquals( "", ColorUtil.toCssDeclaration( null ) );
+        assertEquals( "0f", ColorUtil.toHex( 15 ) );
+        assertEquals( "ff", ColorUtil.toHex( -1 ) );
+    }
+
+    public void testToColor()
+    {
+        assertEquals( Rgba.of( 255, 204, 0 ), ColorUtil.toColor( "#ffcc00" ) );
+        assertEquals( Rgba.of( 255, 0, 0, 128 ), ColorUtil.toColor( "#ff000080" ) );
+        assertNull( ColorUtil.toColor( "ffcc00" ) );
+        assertNull( ColorUtil.toColor( "#zzzzzz" ) );
+        assertNull( ColorUtil.toColor( null ) );
+
+        for ( int i = 0; i < 256; i++ )
+        {
+            Rgba color = Rgba.of( i, 255 - i, ( i * 7 ) & 0xff );
+            assertEquals( color, ColorUtil.toColor( ColorUtil.toCssDeclaration( color ) ) );
+        }
+    }
+
+    public void testComponents()
+    {
+        Rgba color = Rgba.of( 1, 2, 3, 4 );
+        assertEquals( 1, color.getRed() );
+        assertEquals( 2, color.getGreen() );
+        assertEquals( 3, color.getBlue() );
+        assertEquals( 4, color.getAlpha() );
+        assertFalse( color.isOpaque() );
+        assertTrue( Rgba.rgb( 0x123456 ).isOpaque() );
+
+        try
+        {
+            Rgba.of( 256, 0, 0 );
+            fail( "Expected IllegalArgumentException" );
+        }
+        catch ( IllegalArgumentException expected )
+        {
+            // expected
+        }
+    }
+
+    public void testAwtInterop()
+    {
+        // The named colors match their AWT counterparts.
+        assertEquals( Rgba.BLUE, AwtColors.toRgba( Color.blue ) );
+        assertEquals( Rgba.ORANGE, AwtColors.toRgba( Color.orange ) );
+        assertEquals( Rgba.PINK, AwtColors.toRgba( Color.pink ) );
+        assertEquals( Rgba.DARK_GRAY, AwtColors.toRgba( Color.darkGray ) );
+
+        Rgba translucent = Rgba.of( 10, 20, 30, 40 );
+        assertEquals( translucent, AwtColors.toRgba( AwtColors.toColor( translucent ) ) );
+        assertNull( AwtColors.toRgba( null ) );
+        assertNull( AwtColors.toColor( null ) );
+    }
+}
@@ -0,0 +1,144 @@
+package net.erdfelt.maven.graphing.impact;
+
+/*
+ * Copyright (c) Joakim Erdfelt.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import net.erdfelt.maven.graphing.ReactorModel;
+import net.erdfelt.maven.graphing.ReactorModel.Module;
+import net.erdfelt.maven.graphing.ReactorModel.ModuleDependency;
+
+import org.codehaus.plexus.PlexusTestCase;
+
+/**
+ * ImpactAnalyzerTest
+ *
+ * @since 1.0.2
+ */
+public class ImpactAnalyzerTest
+    extends PlexusTestCase
+{
+    private File root;
+
+    private ReactorModel model;
+
+    private Module parent;
+
+    private Module api;
+
+    private Module impl;
+
+    private Module app;
+
+    private Module tests;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        //  parent (pom)
+        //    api <-- impl <-- app
+        //    api <-(test)- tests
+        root = new File( "target/impact-root" ).getAbsoluteFile();
+        model = new ReactorModel();
+        parent = model.addModule( new Module( "g", "parent", "1", "pom", root ) );
+        api = model.addModule( new Module( "g", "api", "1", "jar", new File( root, "api" ) ) );
+        impl = model.addModule( new Module( "g", "impl", "1", "jar", new File( root, "impl" ) ) );
+        app = model.addModule( new Module( "g", "app", "1", "jar", new File( root, "app" ) ) );
+        tests = model.addModule( new Module( "g", "tests", "1", "jar", new File( root, "tests" ) ) );
+
+        api.setParent( parent );
+        impl.setParent( parent );
+        app.setParent( parent );
+
+        depend( impl, api, "compile" );
+        depend( app, impl, "compile" );
+        depend( tests, api, "test" );
+    }
+
+    private void depend( Module from, Module to, String scope )
+    {
+        from.getDependencies().add( new ModuleDependency( from, to, to.getGroupId(), to.getArtifactId(),
+                                                          to.getVersion(), to.getPackaging(), scope ) );
+    }
+
+    private Path path( String relative )
+    {
+        return new File( root, relative ).toPath();
+    }
+
+    public void testPathTrie()
+    {
+        PathTrie<String> trie = new PathTrie<String>();
+        trie.put( path( "" ), "root" );
+        trie.put( path( "a/b" ), "b" );
+
+        assertEquals( "b", trie.findLongestPrefix( path( "a/b/src/Main.java" ) ) );
+        assertEquals( "b", trie.findLongestPrefix( path( "a/b" ) ) );
+        assertEquals( "root", trie.findLongestPrefix( path( "a/bc/pom.xml" ) ) );
+        assertEquals( "root", trie.findLongestPrefix( path( "a/x/../b2" ) ) );
+        assertNull( trie.findLongestPrefix( new File( root.getParentFile(), "elsewhere" ).toPath() ) );
+        assertEquals( 2, trie.size() );
+    }
+
+    public void testTransitiveDependents()
+    {
+        ImpactAnalyzer analyzer = new ImpactAnalyzer( model, true );
+
+        ImpactAnalyzer.Impact impact =
+            analyzer.analyze( Collections.singletonList( path( "api/src/main/java/Api.java" ) ) );
+
+        assertEquals( Collections.singletonList( api ), impact.getChanged() );
+        assertEquals( Arrays.asList( api, impl, app, tests ), impact.getAffected() );
+        assertTrue( impact.getUnowned().isEmpty() );
+    }
+
+    public void testExcludingTests()
+    {
+        ImpactAnalyzer analyzer = new ImpactAnalyzer( model, false );
+
+        ImpactAnalyzer.Impact impact = analyzer.analyze( Collections.singletonList( path( "api/pom.xml" ) ) );
+
+        assertEquals( Arrays.asList( api, impl, app ), impact.getAffected() );
+    }
+
+    public void testParentChange()
+    {
+        ImpactAnalyzer analyzer = new ImpactAnalyzer( model, true );
+
+        ImpactAnalyzer.Impact impact = analyzer.analyze( Arrays.asList( path( "pom.xml" ), path( "../outside.txt" ) ) );
+
+        assertEquals( Collections.singletonList( parent ), impact.getChanged() );
+        // tests does not inherit from parent, but depends on api
+        assertEquals( Arrays.asList( parent, api, impl, app, tests ), impact.getAffected() );
+        assertEquals( 1, impact.getUnowned().size() );
+    }
+
+    public void testLeafChange()
+    {
+        ImpactAnalyzer analyzer = new ImpactAnalyzer( model, true );
+
+        assertSame( app, analyzer.findOwner( path( "app/src/App.java" ) ) );
+        assertEquals( Collections.singletonList( app ),
+                      analyzer.analyze( Collections.singletonList( path( "app/src/App.java" ) ) ).getAffected() );
+    }
+}
@@ -0,0 +1,32 @@
+#!/bin/sh
+#
+# Stand-in for the graphviz dot executable, used to measure the render
+# pipeline without graphviz installed.
+#
+# Reads the DOT input (file arguments, or stdin when there are none) and
+# writes an empty file for each -o output, no layout is performed.
+#
+
+input=0
+while [ $# -gt 0 ]; do
+  case "$1" in
+    -o)
+      shift
+      : > "$1"
+      ;;
+    -o*)
+      : > "${1#-o}"
+      ;;
+    -*)
+      ;;
+    *)
+      cat "$1" > /dev/null || exit 1
+      input=1
+      ;;
+  esac
+  shift
+done
+
+if [ $input -eq 0 ]; then
+  cat > /dev/null
+fi